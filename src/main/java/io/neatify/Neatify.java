@@ -12,6 +12,7 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 
 import static io.neatify.cli.ui.Display.printErr;
 
@@ -66,7 +67,7 @@ public final class Neatify {
             printErr("Error: " + e.getMessage());
             System.err.println("Use --help to see usage.");
             System.exit(1);
-        } catch (IOException e) {
+        } catch (IOException | UncheckedIOException e) {
             logger.error("I/O error occurred: {}", e.getMessage(), e);
             printErr("I/O Error: " + e.getMessage());
             System.exit(1);
@@ -1,22 +1,59 @@
 package io.neatify.cli;
 
 import io.neatify.cli.args.CLIConfig;
+import io.neatify.cli.core.BatchRunner;
+import io.neatify.cli.core.DistributedRunner;
+import io.neatify.cli.core.DistributedWorker;
+import io.neatify.cli.core.JournalFormat;
+import io.neatify.cli.core.JournalOptions;
+import io.neatify.cli.core.JournalRetention;
+import io.neatify.cli.core.JournalWriter;
+import io.neatify.cli.core.PlanFile;
+import io.neatify.cli.core.RulesFileCreator;
+import io.neatify.cli.core.RunCheckpoint;
+import io.neatify.cli.core.TreeLock;
+import io.neatify.cli.core.UndoExecutor;
 import io.neatify.cli.ui.Preview;
+import io.neatify.cli.ui.AnalyticsReport;
+import io.neatify.cli.ui.EstimateReport;
+import io.neatify.cli.ui.PreviewPager;
+import io.neatify.cli.ui.ProfileComparison;
 import io.neatify.cli.util.Ansi;
 import io.neatify.cli.util.AsciiSymbols;
+import io.neatify.cli.util.JsonLineWriter;
 import io.neatify.cli.util.ResultPrinter;
+import io.neatify.cli.util.PathListReader;
+import io.neatify.core.CompiledRules;
+import io.neatify.core.FileListPlanner;
 import io.neatify.core.FileMover;
 import io.neatify.core.PathSecurity;
+import io.neatify.core.RuleSet;
 import io.neatify.core.Rules;
+import io.neatify.core.ScanBudget;
+import io.neatify.core.ScanEstimator;
+import io.neatify.core.TreeAnalytics;
+import io.neatify.core.ScanToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 
 import static io.neatify.cli.ui.Display.*;
 
@@ -28,6 +65,21 @@ public class FileOrganizationExecutor {
 
     private static final Logger logger = LoggerFactory.getLogger(FileOrganizationExecutor.class);
 
+    /** Moves between two checks for Ctrl-C in a budgeted run. */
+    private static final int CANCEL_CHUNK = 64;
+
+    /** Folders listed at the same time by --analyze; listing waits on the disk more than on the CPU. */
+    private static final int ANALYZE_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    /** Time spent sampling the tree with --estimate. */
+    private static final Duration ESTIMATE_TIME = Duration.ofSeconds(3);
+
+    /** Longest wait for journal retention before the CLI exits. */
+    private static final Duration RETENTION_WAIT = Duration.ofSeconds(30);
+
+    /** Listed files planned and executed together with --files-from. */
+    private static final int FILES_FROM_BATCH = 1000;
+
     /**
      * Executes the full file-organization workflow.
      *
@@ -44,38 +96,531 @@ public class FileOrganizationExecutor {
             validatePaths(config);
             applyDisplayOptions(config);
 
-            if (config.isUndo()) {
-                performUndo(config);
+            if (config.isLockStatus()) {
+                printLockStatus(config);
+                return;
+            }
+            if (config.isBatch()) {
+                runBatch(config);
+                return;
+            }
+            if (config.isWorker()) {
+                serveCoordinator(config);
                 return;
             }
+            TreeLock lock = lockSource(config);
+            try {
+                run(config);
+            } finally {
+                if (lock != null) lock.close();
+            }
+        } finally {
+            if (!JournalRetention.awaitIdle(RETENTION_WAIT)) {
+                logger.warn("Journal retention did not finish; it resumes after the next run");
+            }
+            MDC.remove("runId");
+            logger.debug("Execution completed, runId cleared");
+        }
+    }
 
-            Map<String, String> rules = loadRules(config);
-            List<FileMover.Action> actions = planActions(config, rules);
+    /**
+     * Runs one source: undo, a distributed run, or plan and execute.
+     */
+    private void run(CLIConfig config) throws IOException {
+        if (config.isUndo()) {
+            performUndo(config);
+            return;
+        }
+        if (config.getWorkers() > 0) {
+            runDistributed(config);
+            return;
+        }
+        if (config.isBudgeted()) {
+            runBudgeted(config, loadRules(config));
+            return;
+        }
+        if (config.isResume()) {
+            resumeRun(config);
+            return;
+        }
+        if (config.getFilesFrom() != null) {
+            runFilesFrom(config, loadRules(config));
+            return;
+        }
+        if (config.isAnalyze()) {
+            runAnalyze(config, loadRules(config));
+            return;
+        }
+        if (config.isEstimate()) {
+            runEstimate(config, loadRules(config));
+            return;
+        }
+        if (config.isCompare()) {
+            runCompare(config);
+            return;
+        }
 
-            if (actions.isEmpty()) {
-                printWarning("No files to move.");
+        List<FileMover.Action> actions;
+        List<String> stale = List.of();
+        if (config.getApplyPlan() != null) {
+            PlanFile.Loaded plan = loadPlan(config);
+            actions = plan.actions();
+            stale = plan.stale();
+        } else {
+            CompiledRules rules = loadRules(config);
+            if (config.isJsonStream()) {
+                streamRun(config, rules);
                 return;
             }
+            actions = planActions(config, rules);
+        }
+
+        if (actions.isEmpty() && stale.isEmpty()) {
+            printWarning("No files to move.");
+            return;
+        }
+
+        if (config.isJson()) {
+            FileMover.Result result = withStale(executeActions(config, actions), stale);
+            printJson(config, actions, result);
+        } else {
+            showPreview(config, actions);
+            FileMover.Result result = withStale(executeActions(config, actions), stale);
+            showSummary(config, result);
+        }
+    }
+
+    /**
+     * Plans within the time and file budget, executes what was planned and
+     * saves a continuation token if the scan, or the run, stopped early.
+     * Ctrl-C cancels cooperatively: the scan stops at the next file, moves
+     * stop between two chunks, and the journal and token are written.
+     */
+    private void runBudgeted(CLIConfig config, CompiledRules rules) throws IOException {
+        Path root = config.getSourceDir();
+        ScanToken resume = config.isContinueScan() ? ScanToken.load(root) : null;
+        if (resume != null && resume.isDryRun() && config.isApply()) {
+            // Nothing was moved in the folders a dry run finished
+            if (!config.isJson()) printWarning("The saved scan was a dry run, applying from the start");
+            resume = null;
+        } else if (config.isContinueScan() && !config.isJson()) {
+            if (resume == null) printWarning("No unfinished scan to continue, scanning from the start");
+            else printInfo("Continuing scan: " + resume.size() + " finished folder(s) skipped");
+        }
+        ScanBudget budget = ScanBudget.of(config.getFileBudget() > 0 ? config.getFileBudget() : config.getMaxFiles(),
+            config.getTimeBudget() > 0 ? Duration.ofSeconds(config.getTimeBudget()) : null);
+
+        Thread runner = Thread.currentThread();
+        Thread onInterrupt = new Thread(() -> {
+            budget.cancel();
+            try {
+                runner.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "neatify-cancel");
+        Runtime.getRuntime().addShutdownHook(onInterrupt);
+        try {
+            if (!config.isJson()) printInfo("Scanning folder: " + root);
+            FileMover.Scan scan;
+            if (config.getPlanOut() == null) {
+                scan = FileMover.plan(root, rules, budget, config.getIncludes(), config.getExcludes(), null, resume);
+            } else {
+                try (PlanFile.Writer plan = new PlanFile.Writer(config.getPlanOut(), root)) {
+                    scan = FileMover.plan(root, rules, budget, config.getIncludes(), config.getExcludes(), plan, resume);
+                }
+            }
+            List<FileMover.Action> actions = scan.actions();
+            if (!config.isJson()) {
+                printSuccess(actions.size() + " file(s) to move");
+                if (!scan.complete()) printWarning("Scan stopped early (" + scan.continuation().reason() + ")");
+            }
+
+            FileMover.Result result = null;
+            List<FileMover.Action> unapplied = List.of();
+            if (!actions.isEmpty()) {
+                if (!config.isJson()) showPreview(config, actions);
+                FileMover.CollisionStrategy strategy = parseCollision(config.getOnCollision());
+                JournalWriter journal = config.isApply()
+                    ? UndoExecutor.openRun(root, config.getOnCollision(), journalOptions(config)) : null;
+                int moved = 0;
+                int skipped = 0;
+                List<String> errors = new ArrayList<>();
+                int done = 0;
+                try {
+                    for (; done < actions.size() && !budget.isCancelled(); done += CANCEL_CHUNK) {
+                        List<FileMover.Action> chunk = actions.subList(done, Math.min(actions.size(), done + CANCEL_CHUNK));
+                        FileMover.Result r = FileMover.execute(chunk, !config.isApply(), strategy, journal);
+                        moved += r.moved();
+                        skipped += r.skipped();
+                        errors.addAll(r.errors());
+                    }
+                } finally {
+                    if (journal != null) closeJournal(journal);
+                }
+                result = new FileMover.Result(moved, skipped, errors);
+                if (config.isApply() && done < actions.size()) unapplied = actions.subList(done, actions.size());
+            }
+
+            ScanToken next = scan.continuation();
+            if (!unapplied.isEmpty()) {
+                next = (next == null ? ScanToken.empty() : next)
+                    .reopen(root, unapplied.stream().map(a -> a.source().getParent()).distinct().toList());
+            }
+            if (next == null) {
+                ScanToken.clear(root);
+            } else {
+                (config.isApply() ? next : next.asDryRun()).save(root);
+            }
 
             if (config.isJson()) {
-                FileMover.Result result = executeActions(config, actions);
                 printJson(config, actions, result);
-            } else {
-                showPreview(config, actions);
-                FileMover.Result result = executeActions(config, actions);
-                showSummary(config, result);
+                return;
+            }
+            if (result != null) showSummary(config, result);
+            else printWarning("No files to move.");
+            if (next != null) {
+                System.out.println();
+                printInfo(unapplied.isEmpty() ? "Run again with --continue to pick up where the scan stopped"
+                    : "Cancelled, " + unapplied.size() + " move(s) not applied; run again with --continue");
             }
         } finally {
-            MDC.remove("runId");
-            logger.debug("Execution completed, runId cleared");
+            try {
+                Runtime.getRuntime().removeShutdownHook(onInterrupt);
+            } catch (IllegalStateException e) {
+                // shutting down: the hook is waiting for this thread
+            }
+        }
+    }
+
+    /**
+     * Finishes the interrupted apply of the source from its checkpoint,
+     * appending to the interrupted run's journal.
+     */
+    private void resumeRun(CLIConfig config) throws IOException {
+        Path root = config.getSourceDir();
+        RunCheckpoint.Saved saved = RunCheckpoint.load(root);
+        if (saved == null) {
+            if (!config.isJson()) printWarning("No interrupted run to resume.");
+            return;
+        }
+        if (!config.isJson()) {
+            printInfo("Resuming interrupted run: " + saved.done() + " of " + saved.actions().size()
+                + " move(s) already handled");
+            System.out.println();
+        }
+        JournalOptions options = journalOptions(config);
+        JournalWriter journal = Files.isRegularFile(saved.journal())
+            ? UndoExecutor.continueRun(root, saved.journal(), options)
+            : UndoExecutor.openRun(root, saved.onCollision(), options);
+        FileMover.Result result;
+        try {
+            result = RunCheckpoint.resume(root, saved, parseCollision(saved.onCollision()), journal);
+        } finally {
+            closeJournal(journal);
+        }
+        List<FileMover.Action> left = saved.actions().subList(saved.done(), saved.actions().size());
+        if (config.isJson()) {
+            printJson(config, left, result);
+        } else {
+            ResultPrinter.print(result);
+        }
+    }
+
+    /**
+     * Organizes the files listed by {@code --files-from} instead of scanning.
+     * The list is read as it arrives and planned and executed in batches, so
+     * memory and time follow the batch size and the list, not the tree.
+     * Listed paths a scan would not reach (outside the source, under
+     * {@code .neatify}, behind a symlink, gone) are rejected one by one.
+     */
+    private void runFilesFrom(CLIConfig config, CompiledRules rules) throws IOException {
+        Path root = config.getSourceDir();
+        boolean stdin = config.getFilesFrom().toString().equals("-");
+        if (!stdin && !Files.isRegularFile(config.getFilesFrom())) {
+            throw new IllegalArgumentException("File list does not exist: " + config.getFilesFrom());
+        }
+        JsonLineWriter out = config.isJsonStream() ? JsonLineWriter.stdout() : null;
+        PlanFile.Writer planOut = config.getPlanOut() == null ? null : new PlanFile.Writer(config.getPlanOut(), root);
+        FileMover.PlanListener listener = (action, attrs) -> {
+            if (planOut != null) planOut.onPlanned(action, attrs);
+            if (out != null) {
+                out.begin("plan").field("source", action.source().toString())
+                    .field("target", action.target().toString()).field("reason", action.reason())
+                    .field("size", attrs.size()).end();
+            }
+        };
+        FileListPlanner planner = new FileListPlanner(root, rules, config.getIncludes(), config.getExcludes(), listener);
+        FileMover.CollisionStrategy strategy = parseCollision(config.getOnCollision());
+        if (out == null) {
+            printInfo("Reading file list: " + (stdin ? "standard input" : config.getFilesFrom()));
+            if (!config.isApply()) printInfo("DRY-RUN mode - Use --apply to apply");
+            System.out.println();
+        }
+
+        JournalWriter journal = config.isApply()
+            ? UndoExecutor.openRun(root, config.getOnCollision(), journalOptions(config)) : null;
+        FileMover.MoveListener moves = out != null && journal != null ? streamingListener(journal, out) : journal;
+        long read = 0;
+        long planned = 0;
+        long rejected = 0;
+        int moved = 0;
+        int skipped = 0;
+        List<String> errors = new ArrayList<>();
+        List<FileMover.Action> batch = new ArrayList<>(FILES_FROM_BATCH);
+        Set<Path> batchSources = new HashSet<>();
+        InputStream in = stdin ? System.in : Files.newInputStream(config.getFilesFrom());
+        try (PathListReader list = new PathListReader(in)) {
+            for (String entry; ; ) {
+                entry = list.next();
+                if (entry != null) {
+                    read++;
+                    try {
+                        Optional<FileMover.Action> action = planner.plan(Path.of(entry));
+                        // The same file listed twice in a batch is moved once
+                        if (action.isPresent() && batchSources.add(action.get().source())) batch.add(action.get());
+                    } catch (IOException | SecurityException | InvalidPathException e) {
+                        rejected++;
+                        String reason = e instanceof NoSuchFileException ? "no such file" : e.getMessage();
+                        logger.warn("Rejected listed path {}: {}", entry, reason);
+                        if (out != null) out.begin("rejected").field("path", entry).field("error", reason).end();
+                    }
+                }
+                if (batch.size() >= FILES_FROM_BATCH || (entry == null && !batch.isEmpty())) {
+                    planned += batch.size();
+                    if (out == null && !config.isApply()) showPreview(config, batch);
+                    FileMover.Result r = FileMover.execute(batch, !config.isApply(), strategy, moves);
+                    moved += r.moved();
+                    skipped += r.skipped();
+                    errors.addAll(r.errors());
+                    batch.clear();
+                    batchSources.clear();
+                }
+                if (entry == null) break;
+            }
+        } finally {
+            if (journal != null) {
+                if (out != null) closeStreamedJournal(journal, out);
+                else closeJournal(journal);
+            }
+            if (planOut != null) planOut.close();
+        }
+
+        FileMover.Result result = new FileMover.Result(moved, skipped, errors);
+        if (out != null) {
+            out.begin("summary")
+                .field("source", root.toString())
+                .field("apply", config.isApply())
+                .field("onCollision", config.getOnCollision())
+                .field("read", read)
+                .field("rejected", rejected)
+                .field("planned", planned)
+                .field("moved", result.moved())
+                .field("skipped", result.skipped())
+                .field("errors", result.errors().size())
+                .end();
+            out.close();
+            return;
+        }
+        printSuccess(read + " listed path(s) read, " + planned + " to move");
+        if (rejected > 0) printWarning(rejected + " listed path(s) rejected (see the log for why)");
+        if (planOut != null) printInfo("Plan written: " + config.getPlanOut().toAbsolutePath());
+        if (planned == 0) {
+            printWarning("No files to move.");
+            return;
+        }
+        showSummary(config, result);
+    }
+
+    /**
+     * Profiles the source in parallel and prints its extensions, those the
+     * rules leave unmatched and its largest folders; with
+     * {@code --suggest-rules}, writes a rules file covering what was found.
+     */
+    private void runAnalyze(CLIConfig config, CompiledRules rules) throws IOException {
+        if (!config.isJson()) printInfo("Analyzing folder: " + config.getSourceDir());
+        TreeAnalytics.Report report = TreeAnalytics.analyze(config.getSourceDir(), rules,
+            config.getIncludes(), config.getExcludes(), ANALYZE_THREADS);
+        if (config.isJson()) {
+            printAnalyzeJson(config, report);
+        } else {
+            AnalyticsReport.print(report);
+        }
+        if (config.getSuggestRules() != null) {
+            RulesFileCreator.writeSuggested(config.getSuggestRules(),
+                RulesFileCreator.suggestedContent(report, rules.extensionRules()));
+            if (!config.isJson()) printSuccess("Suggested rules written to: " + config.getSuggestRules());
+        }
+    }
+
+    private void printAnalyzeJson(CLIConfig config, TreeAnalytics.Report report) {
+        StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        sb.append("\"source\":\"").append(escape(config.getSourceDir().toString())).append("\",");
+        sb.append("\"files\":").append(report.files()).append(',');
+        sb.append("\"bytes\":").append(report.bytes()).append(',');
+        sb.append("\"dirs\":").append(report.dirs()).append(',');
+        sb.append("\"unmatched\":").append(report.unmatched()).append(',');
+        sb.append("\"extensions\":[");
+        for (int i = 0; i < report.extensions().size(); i++) {
+            var e = report.extensions().get(i);
+            if (i > 0) sb.append(',');
+            sb.append('{')
+              .append("\"extension\":\"").append(escape(e.extension())).append("\",")
+              .append("\"files\":").append(e.files()).append(',')
+              .append("\"bytes\":").append(e.bytes()).append(',')
+              .append("\"unmatched\":").append(e.unmatched())
+              .append('}');
+        }
+        sb.append("],\"largest\":[");
+        for (int i = 0; i < report.largest().size(); i++) {
+            var d = report.largest().get(i);
+            if (i > 0) sb.append(',');
+            sb.append('{')
+              .append("\"dir\":\"").append(escape(d.dir())).append("\",")
+              .append("\"files\":").append(d.files()).append(',')
+              .append("\"bytes\":").append(d.bytes())
+              .append('}');
+        }
+        sb.append("]}");
+        System.out.println(sb.toString());
+    }
+
+    /**
+     * Samples the source instead of scanning it and prints the predicted
+     * size of the scan and of the run.
+     */
+    private void runEstimate(CLIConfig config, CompiledRules rules) throws IOException {
+        if (!config.isJson()) printInfo("Sampling folder: " + config.getSourceDir());
+        ScanEstimator.Estimate estimate = ScanEstimator.estimate(config.getSourceDir(), rules,
+            config.getIncludes(), config.getExcludes(), ESTIMATE_TIME);
+        if (!config.isJson()) {
+            EstimateReport.print(estimate, config.getMaxFiles());
+            return;
+        }
+        JsonLineWriter out = JsonLineWriter.stdout();
+        out.begin("estimate").field("source", config.getSourceDir().toString());
+        interval(out, "files", estimate.files());
+        interval(out, "bytes", estimate.bytes());
+        interval(out, "dirs", estimate.dirs());
+        interval(out, "moves", estimate.moves());
+        interval(out, "scanMillis", millis(estimate.scanTime()));
+        if (estimate.applySeconds() != null) interval(out, "applyMillis", millis(estimate.applySeconds()));
+        out.field("maxFiles", config.getMaxFiles()).field("probes", estimate.probes())
+            .field("dirsSampled", estimate.dirsSampled()).field("dirsCut", estimate.dirsCut()).end();
+        out.close();
+    }
+
+    private static ScanEstimator.Interval millis(ScanEstimator.Interval seconds) {
+        return new ScanEstimator.Interval(seconds.mean() * 1000, seconds.low() * 1000, seconds.high() * 1000);
+    }
+
+    private static void interval(JsonLineWriter out, String name, ScanEstimator.Interval v) {
+        out.field(name, Math.round(v.mean())).field(name + "Low", Math.round(v.low()))
+            .field(name + "High", Math.round(v.high()));
+    }
+
+    /**
+     * Evaluates every {@code --rules} profile on one walk of the source and
+     * prints them side by side; nothing is moved.
+     */
+    private void runCompare(CLIConfig config) throws IOException {
+        List<CompiledRules> profiles = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (Path file : config.getRulesFiles()) {
+            if (!config.isJson()) printInfo("Loading rules from: " + file);
+            CompiledRules rules = CompiledRules.load(file);
+            if (!config.isJson()) printSuccess(rules.size() + " rule(s) loaded");
+            profiles.add(rules);
+            String name = file.getFileName().toString();
+            names.add(names.contains(name) ? file.toString() : name);
+        }
+        ProfileComparison report = new ProfileComparison(config.getSourceDir(), names);
+        if (!config.isJson()) {
+            System.out.println();
+            printInfo("Scanning folder once for " + profiles.size() + " profiles: " + config.getSourceDir());
+        }
+        FileMover.compare(config.getSourceDir(), profiles, config.getMaxFiles(),
+            config.getIncludes(), config.getExcludes(), report);
+
+        if (config.isJson()) {
+            printCompareJson(config, report);
+        } else {
+            report.print();
+        }
+    }
+
+    private void printCompareJson(CLIConfig config, ProfileComparison report) {
+        StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        sb.append("\"source\":\"").append(escape(config.getSourceDir().toString())).append("\",");
+        sb.append("\"scanned\":").append(report.scanned()).append(',');
+        sb.append("\"differing\":").append(report.differing()).append(',');
+        sb.append("\"profiles\":[");
+        List<ProfileComparison.Totals> totals = report.totals();
+        for (int i = 0; i < totals.size(); i++) {
+            if (i > 0) sb.append(',');
+            sb.append('{')
+              .append("\"name\":\"").append(escape(report.names().get(i))).append("\",")
+              .append("\"files\":").append(totals.get(i).files()).append(',')
+              .append("\"bytes\":").append(totals.get(i).bytes())
+              .append('}');
+        }
+        sb.append("],\"folders\":{");
+        boolean first = true;
+        for (var e : new TreeMap<>(report.folderFiles()).entrySet()) {
+            if (!first) sb.append(',');
+            first = false;
+            sb.append('"').append(escape(e.getKey())).append("\":[");
+            sb.append(String.join(",", e.getValue().stream().map(String::valueOf).toList())).append(']');
+        }
+        sb.append("}}");
+        System.out.println(sb.toString());
+    }
+
+    /**
+     * Locks the source subtree for runs that move files; previews and
+     * listings run unlocked.
+     */
+    private TreeLock lockSource(CLIConfig config) throws IOException {
+        boolean moves = config.isUndo()
+            ? !config.isUndoList() && config.getWhere() == null
+            : config.isApply();
+        if (!moves) return null;
+        Duration wait = Duration.ofSeconds(config.getLockWait());
+        return config.getLockRoot() != null
+            ? TreeLock.acquire(config.getLockRoot(), config.getSourceDir(), wait)
+            : TreeLock.acquire(config.getSourceDir(), wait);
+    }
+
+    private void printLockStatus(CLIConfig config) throws IOException {
+        Path root = config.getLockRoot();
+        List<TreeLock.Status> locks = root != null ? TreeLock.status(root) : TreeLock.status();
+        Path dir = root != null ? root.resolve(".neatify").resolve("locks") : TreeLock.userLocksDir();
+        if (locks.isEmpty()) {
+            printWarning("No locks held in " + dir);
+            return;
+        }
+        printSection("LOCKS (" + dir + ")");
+        for (TreeLock.Status l : locks) {
+            String subtree = l.subtree().isEmpty() ? "." : l.subtree();
+            println("  - " + subtree + ": " + (l.state() == TreeLock.State.HELD
+                ? "held by pid " + l.pid() + " since " + l.since()
+                : "stale, pid " + l.pid() + " exited without releasing it (since " + l.since() + ")"));
         }
     }
 
     private void validatePaths(CLIConfig config) {
+        if (config.isBatch()) {
+            // Roots are checked one by one; a bad root fails alone
+            if (!config.isUseDefaultRules()) validateRulesFile(config.getRulesFile());
+            return;
+        }
         validateSourceDir(config.getSourceDir());
         validateSourceDirSecurity(config.getSourceDir());
-        if (!config.isUndo() && !config.isUseDefaultRules()) {
-            validateRulesFile(config.getRulesFile());
+        if (!config.isUndo() && !config.isLockStatus() && !config.isUseDefaultRules() && config.getApplyPlan() == null
+                && !config.isResume()) {
+            config.getRulesFiles().forEach(this::validateRulesFile);
         }
     }
 
@@ -115,45 +660,108 @@ public class FileOrganizationExecutor {
         }
     }
 
-    private Map<String, String> loadRules(CLIConfig config) throws IOException {
+    private CompiledRules loadRules(CLIConfig config) throws IOException {
+        if (config.isJsonStream()) {
+            // Standard output only carries events
+            return config.isUseDefaultRules()
+                ? CompiledRules.of(Rules.getDefaults()) : CompiledRules.load(config.getRulesFile());
+        }
         if (config.isUseDefaultRules()) {
             printInfo("Using built-in default rules...");
-            Map<String, String> rules = Rules.getDefaults();
+            CompiledRules rules = CompiledRules.of(Rules.getDefaults());
             printSuccess(rules.size() + " default rule(s) loaded");
             System.out.println();
             return rules;
         } else {
             printInfo("Loading rules from: " + config.getRulesFile());
-            Map<String, String> rules = Rules.load(config.getRulesFile());
+            CompiledRules rules = CompiledRules.load(config.getRulesFile());
             printSuccess(rules.size() + " rule(s) loaded");
             System.out.println();
             return rules;
         }
     }
 
-    private List<FileMover.Action> planActions(CLIConfig config, Map<String, String> rules) throws IOException {
+    /**
+     * Loads the rules of a batch into the rule set it runs with: the rules
+     * file is read once, and its watcher starts from the rules just checked.
+     */
+    private RuleSet openRuleSet(CLIConfig config) throws IOException {
+        if (config.isUseDefaultRules()) return RuleSet.fixed(loadRules(config));
+        boolean quiet = config.isJsonStream();
+        if (!quiet) printInfo("Loading rules from: " + config.getRulesFile());
+        RuleSet ruleSet = RuleSet.watch(config.getRulesFile());
+        if (!quiet) {
+            printSuccess(ruleSet.current().size() + " rule(s) loaded");
+            System.out.println();
+        }
+        return ruleSet;
+    }
+
+    private List<FileMover.Action> planActions(CLIConfig config, CompiledRules rules) throws IOException {
         printInfo("Scanning folder: " + config.getSourceDir());
-        List<FileMover.Action> actions = FileMover.plan(
-            config.getSourceDir(),
-            rules,
-            config.getMaxFiles(),
-            config.getIncludes(),
-            config.getExcludes()
-        );
+        if (config.getPlanOut() == null) {
+            List<FileMover.Action> actions = FileMover.plan(
+                config.getSourceDir(),
+                rules,
+                config.getMaxFiles(),
+                config.getIncludes(),
+                config.getExcludes()
+            );
+            printSuccess(actions.size() + " file(s) to move");
+            return actions;
+        }
+
+        List<FileMover.Action> actions;
+        try (PlanFile.Writer plan = new PlanFile.Writer(config.getPlanOut(), config.getSourceDir())) {
+            actions = FileMover.plan(
+                config.getSourceDir(),
+                rules,
+                config.getMaxFiles(),
+                config.getIncludes(),
+                config.getExcludes(),
+                plan
+            );
+        }
         printSuccess(actions.size() + " file(s) to move");
+        printInfo("Plan written: " + config.getPlanOut().toAbsolutePath());
         return actions;
     }
 
+    private PlanFile.Loaded loadPlan(CLIConfig config) throws IOException {
+        printInfo("Loading plan: " + config.getApplyPlan());
+        if (!Files.isRegularFile(config.getApplyPlan())) {
+            throw new IllegalArgumentException("Plan file does not exist: " + config.getApplyPlan());
+        }
+        PlanFile.Loaded plan = PlanFile.load(config.getApplyPlan(), config.getSourceDir());
+        printSuccess(plan.actions().size() + " file(s) to move");
+        if (!plan.stale().isEmpty()) {
+            printWarning(plan.stale().size() + " planned file(s) changed since planning and will be left in place");
+        }
+        return plan;
+    }
+
+    /** Reports plan entries dropped by the staleness check as skipped. */
+    private FileMover.Result withStale(FileMover.Result result, List<String> stale) {
+        if (stale.isEmpty()) return result;
+        List<String> errors = new java.util.ArrayList<>(result.errors());
+        errors.addAll(stale);
+        return new FileMover.Result(result.moved(), result.skipped() + stale.size(), errors);
+    }
+
     private void showPreview(CLIConfig config, List<FileMover.Action> actions) {
         Preview.Config rendererConfig = new Preview.Config()
             .maxFilesPerFolder(config.getPerFolderPreview())
             .sortMode(parseSortMode(config.getSortMode()))
             .showDuplicates(true);
 
-        Preview.print(actions, rendererConfig);
+        if (config.isPager()) {
+            PreviewPager.browse(actions, rendererConfig);
+        } else {
+            Preview.print(actions, rendererConfig);
+        }
     }
 
-    private FileMover.Result executeActions(CLIConfig config, List<FileMover.Action> actions) {
+    private FileMover.Result executeActions(CLIConfig config, List<FileMover.Action> actions) throws IOException {
         if (config.isApply()) {
             printInfo("Applying changes...");
         } else {
@@ -163,25 +771,43 @@ public class FileOrganizationExecutor {
 
         FileMover.CollisionStrategy strategy = parseCollision(config.getOnCollision());
         if (config.isApply()) {
-            java.util.List<io.neatify.cli.core.UndoExecutor.Move> moves = new java.util.ArrayList<>();
-            FileMover.Result res = FileMover.execute(actions, false, strategy, (src, dst) -> {
-                moves.add(new io.neatify.cli.core.UndoExecutor.Move(src, dst));
-            });
+            if (RunCheckpoint.exists(config.getSourceDir())) {
+                printWarning("An interrupted run was not resumed (--resume); this run replaces its checkpoint");
+            }
+            JournalWriter journal = UndoExecutor.openRun(config.getSourceDir(), config.getOnCollision(),
+                journalOptions(config));
             try {
-                java.nio.file.Path runPath = io.neatify.cli.core.UndoExecutor.appendRun(config.getSourceDir(), config.getOnCollision(), moves);
-                if (runPath != null) {
-                    printInfo("Journal written: " + runPath.toAbsolutePath());
-                }
-            } catch (java.io.IOException e) {
-                logger.error("Failed to write undo journal: {}", e.getMessage(), e);
-                printErr("Unable to write undo journal: " + e.getMessage());
+                return RunCheckpoint.apply(config.getSourceDir(), actions, strategy, journal);
+            } finally {
+                closeJournal(journal);
             }
-            return res;
         } else {
             return FileMover.execute(actions, true, strategy);
         }
     }
 
+    private JournalOptions journalOptions(CLIConfig config) {
+        return new JournalOptions(
+            JournalFormat.parse(config.getJournalFormat()),
+            new JournalWriter.SyncPolicy(config.getJournalBatch(), config.getJournalIntervalMillis()),
+            new JournalRetention.Policy(config.getKeepRuns(), Duration.ofDays(config.getKeepDays()),
+                config.getJournalMaxMb() > 0 ? config.getJournalMaxMb() * 1024L * 1024L
+                    : JournalRetention.Policy.UNLIMITED));
+    }
+
+    private void closeJournal(JournalWriter journal) {
+        try {
+            journal.close();
+            Path runPath = journal.file();
+            if (runPath != null) {
+                printInfo("Journal written: " + runPath.toAbsolutePath());
+            }
+        } catch (IOException e) {
+            logger.error("Failed to write undo journal: {}", e.getMessage(), e);
+            printErr("Unable to write undo journal: " + e.getMessage());
+        }
+    }
+
     private void showSummary(CLIConfig config, FileMover.Result result) {
         ResultPrinter.print(result);
 
@@ -242,18 +868,282 @@ public class FileOrganizationExecutor {
     }
 
     private String escape(String s) {
-        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+        return JsonLineWriter.escape(s);
+    }
+
+    /**
+     * Plans and executes while writing one JSON event per line: {@code plan}
+     * for each planned action as the walk finds it, {@code moved},
+     * {@code skipped} or {@code failed} for each executed action, then
+     * {@code summary}.
+     */
+    private void streamRun(CLIConfig config, CompiledRules rules) throws IOException {
+        try (JsonLineWriter out = JsonLineWriter.stdout()) {
+            List<FileMover.Action> actions = FileMover.plan(
+                config.getSourceDir(), rules, config.getMaxFiles(), config.getIncludes(), config.getExcludes(),
+                (action, attrs) -> out.begin("plan")
+                    .field("source", action.source().toString())
+                    .field("target", action.target().toString())
+                    .field("reason", action.reason())
+                    .field("size", attrs.size())
+                    .end());
+
+            FileMover.CollisionStrategy strategy = parseCollision(config.getOnCollision());
+            FileMover.Result result;
+            if (actions.isEmpty()) {
+                result = new FileMover.Result(0, 0, List.of());
+            } else if (config.isApply()) {
+                JournalWriter journal = UndoExecutor.openRun(config.getSourceDir(), config.getOnCollision(),
+                    journalOptions(config));
+                try {
+                    result = FileMover.execute(actions, false, strategy, streamingListener(journal, out));
+                } finally {
+                    closeStreamedJournal(journal, out);
+                }
+            } else {
+                result = FileMover.execute(actions, true, strategy);
+            }
+
+            out.begin("summary")
+                .field("source", config.getSourceDir().toString())
+                .field("apply", config.isApply())
+                .field("onCollision", config.getOnCollision())
+                .field("planned", actions.size())
+                .field("moved", result.moved())
+                .field("skipped", result.skipped())
+                .field("errors", result.errors().size())
+                .end();
+        }
+    }
+
+    private void closeStreamedJournal(JournalWriter journal, JsonLineWriter out) {
+        try {
+            journal.close();
+            if (journal.file() != null) {
+                out.begin("journal").field("file", journal.file().toAbsolutePath().toString()).end();
+            }
+        } catch (IOException e) {
+            logger.error("Failed to write undo journal: {}", e.getMessage(), e);
+            out.begin("error").field("message", "Unable to write undo journal: " + e.getMessage()).end();
+        }
+    }
+
+    private FileMover.MoveListener streamingListener(JournalWriter journal, JsonLineWriter out) {
+        return new FileMover.MoveListener() {
+            @Override
+            public void beforeMove(Path source) throws IOException {
+                journal.beforeMove(source);
+            }
+
+            @Override
+            public void onMoved(Path source, Path finalTarget) {
+                journal.onMoved(source, finalTarget);
+                out.begin("moved").field("source", source.toString()).field("target", finalTarget.toString()).end();
+            }
+
+            @Override
+            public void onSkipped(Path source, Path target) {
+                out.begin("skipped").field("source", source.toString()).field("target", target.toString()).end();
+            }
+
+            @Override
+            public void onFailed(Path source, Path target, String error) {
+                out.begin("failed").field("source", source.toString()).field("target", target.toString())
+                    .field("error", error).end();
+            }
+        };
+    }
+
+    /**
+     * Organizes every {@code --source} and roots-file entry on a shared pool,
+     * printing one line per root as it completes and the totals at the end.
+     */
+    private void runBatch(CLIConfig config) throws IOException {
+        List<Path> roots = new java.util.ArrayList<>(config.getSourceDirs());
+        if (config.getRootsFile() != null) {
+            if (!Files.isRegularFile(config.getRootsFile())) {
+                throw new IllegalArgumentException("Roots file does not exist: " + config.getRootsFile());
+            }
+            roots.addAll(BatchRunner.readRoots(config.getRootsFile()));
+        }
+        if (roots.isEmpty()) {
+            printWarning("No roots to organize.");
+            return;
+        }
+
+        List<BatchRunner.RootResult> results;
+        // Roots started after an edit of the rules file pick it up
+        try (RuleSet ruleSet = openRuleSet(config)) {
+            BatchRunner.Options options = new BatchRunner.Options(ruleSet, config.getMaxFiles(),
+                config.getIncludes(), config.getExcludes(), config.isApply(), parseCollision(config.getOnCollision()),
+                config.getOnCollision(), journalOptions(config), config.getBatchThreads(),
+                config.getLockRoot(), Duration.ofSeconds(config.getLockWait()));
+
+            if (!config.isJson()) {
+                printInfo((config.isApply() ? "Organizing " : "DRY-RUN: planning ") + roots.size()
+                    + " root(s) with " + config.getBatchThreads() + " worker(s)...");
+            }
+            results = BatchRunner.run(roots, options, config.isJson() ? null : r -> {
+                synchronized (this) {
+                    if (r.failed()) {
+                        printErr(r.root() + ": " + r.error());
+                    } else {
+                        printSuccess(r.root() + ": " + r.result().moved() + " moved, " + r.result().skipped()
+                            + " skipped, " + r.result().errors().size() + " error(s)");
+                    }
+                }
+            });
+        }
+
+        FileMover.Result total = BatchRunner.total(results);
+        if (config.isJson()) {
+            printBatchJson(config, results, total);
+            return;
+        }
+        long failed = results.stream().filter(BatchRunner.RootResult::failed).count();
+        System.out.println();
+        printSection("BATCH SUMMARY (" + roots.size() + " roots, " + failed + " failed)");
+        ResultPrinter.print(total);
+        if (!config.isApply() && total.moved() > 0) {
+            System.out.println();
+            printInfo("Re-run with --apply to apply");
+        }
+    }
+
+    private void printBatchJson(CLIConfig config, List<BatchRunner.RootResult> results, FileMover.Result total) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"apply\":").append(config.isApply()).append(',');
+        sb.append("\"onCollision\":\"").append(escape(config.getOnCollision())).append("\",");
+        sb.append("\"roots\":[");
+        for (int i = 0; i < results.size(); i++) {
+            BatchRunner.RootResult r = results.get(i);
+            sb.append("{\"source\":\"").append(escape(r.root().toString())).append("\",")
+              .append("\"planned\":").append(r.planned());
+            if (r.result() != null) {
+                sb.append(",\"moved\":").append(r.result().moved())
+                  .append(",\"skipped\":").append(r.result().skipped())
+                  .append(",\"errors\":").append(r.result().errors().size());
+            }
+            if (r.journal() != null) sb.append(",\"journal\":\"").append(escape(r.journal().toString())).append('"');
+            if (r.failed()) sb.append(",\"error\":\"").append(escape(r.error())).append('"');
+            sb.append('}');
+            if (i < results.size() - 1) sb.append(',');
+        }
+        sb.append("],\"total\":{")
+          .append("\"moved\":").append(total.moved()).append(',')
+          .append("\"skipped\":").append(total.skipped()).append(',')
+          .append("\"errors\":").append(total.errors().size())
+          .append("}}");
+        System.out.println(sb);
+    }
+
+    /**
+     * Plans and applies the source on {@code --workers} child processes,
+     * each started as this program in {@code --worker} mode.
+     */
+    private void runDistributed(CLIConfig config) throws IOException {
+        loadRules(config); // fail here rather than in every worker
+
+        List<String> command = new ArrayList<>(List.of(
+            Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+            "-cp", System.getProperty("java.class.path"), "io.neatify.Neatify", "--worker",
+            "--source", config.getSourceDir().toAbsolutePath().toString(),
+            "--max-files", String.valueOf(config.getMaxFiles()),
+            "--on-collision", config.getOnCollision(),
+            config.isDebug() ? "--debug" : "--quiet"));
+        if (config.isUseDefaultRules()) {
+            command.add("--use-default-rules");
+        } else {
+            command.addAll(List.of("--rules", config.getRulesFile().toAbsolutePath().toString()));
+        }
+        config.getIncludes().forEach(g -> command.addAll(List.of("--include", g)));
+        config.getExcludes().forEach(g -> command.addAll(List.of("--exclude", g)));
+
+        if (!config.isJson()) {
+            printInfo((config.isApply() ? "Organizing " : "DRY-RUN: planning ") + config.getSourceDir()
+                + " with " + config.getWorkers() + " worker process(es)...");
+        }
+        DistributedRunner.Summary summary = DistributedRunner.run(
+            new DistributedRunner.Options(config.getSourceDir().toAbsolutePath(), config.getWorkers(),
+                config.getMaxFiles(), config.isApply(), config.getOnCollision(), journalOptions(config)),
+            DistributedRunner.processes(command));
+
+        if (config.isJson()) {
+            FileMover.Result r = summary.result();
+            StringBuilder sb = new StringBuilder();
+            sb.append("{\"apply\":").append(config.isApply()).append(',')
+              .append("\"workers\":").append(config.getWorkers()).append(',')
+              .append("\"partitions\":").append(summary.partitions()).append(',')
+              .append("\"steals\":").append(summary.steals()).append(',')
+              .append("\"planned\":").append(summary.planned()).append(',')
+              .append("\"moved\":").append(r.moved()).append(',')
+              .append("\"skipped\":").append(r.skipped()).append(',')
+              .append("\"errors\":").append(r.errors().size());
+            if (summary.journal() != null) {
+                sb.append(",\"journal\":\"").append(escape(summary.journal().toString())).append('"');
+            }
+            System.out.println(sb.append('}'));
+            return;
+        }
+        if (summary.planned() == 0) {
+            printWarning("No files to move.");
+            return;
+        }
+        printInfo(summary.planned() + " file(s) planned in " + summary.partitions() + " partition(s), "
+            + summary.steals() + " stolen");
+        if (summary.journal() != null) printInfo("Journal written: " + summary.journal());
+        showSummary(config, summary.result());
+    }
+
+    /**
+     * Worker side of {@link #runDistributed}: the protocol owns standard
+     * output, so everything else is sent to standard error.
+     */
+    private void serveCoordinator(CLIConfig config) throws IOException {
+        OutputStream protocol = new FileOutputStream(FileDescriptor.out);
+        System.setOut(System.err);
+        CompiledRules rules = config.isUseDefaultRules()
+            ? CompiledRules.of(Rules.getDefaults()) : CompiledRules.load(config.getRulesFile());
+        DistributedWorker.serve(System.in, protocol, new DistributedWorker.Options(
+            config.getSourceDir().toAbsolutePath(), rules, config.getMaxFiles(),
+            config.getIncludes(), config.getExcludes(), parseCollision(config.getOnCollision())));
     }
 
     private void performUndo(CLIConfig config) throws IOException {
+        if (config.getWhere() != null) {
+            var traces = UndoExecutor.where(config.getSourceDir(), Path.of(config.getWhere()));
+            if (traces.isEmpty()) {
+                printWarning("No journaled move for: " + config.getWhere());
+            } else {
+                printSection("JOURNALED MOVES (" + traces.size() + ")");
+                for (var t : traces) {
+                    println("  - " + t.run() + ": " + t.move().from() + " -> " + t.move().to());
+                }
+            }
+            return;
+        }
+
+        if (config.getUndoSelect() != null) {
+            printInfo("Undoing moves into: " + config.getUndoSelect());
+            var r = UndoExecutor.undoSelected(config.getSourceDir(), config.getUndoSelect(), this::printUndoProgress);
+            if (r.restored() == 0 && r.skipped() == 0 && r.errors().isEmpty()) {
+                printWarning("No journaled move matches: " + config.getUndoSelect());
+                return;
+            }
+            printSuccess("Restored: " + r.restored() + ", skipped: " + r.skipped() + ", errors: " + r.errors().size());
+            if (!r.errors().isEmpty()) { printErr("Errors during undo:"); r.errors().forEach(e -> println("  - " + e)); }
+            return;
+        }
+
         if (config.isUndoList()) {
-            var runs = io.neatify.cli.core.UndoExecutor.listRuns(config.getSourceDir());
+            var runs = UndoExecutor.listRuns(config.getSourceDir());
             if (runs.isEmpty()) {
                 printWarning("No previous runs.");
             } else {
                 printSection("AVAILABLE JOURNALS (.neatify/runs)");
                 for (var m : runs) {
-                    println("  - " + m.time() + " (" + m.movesCount() + " moves, collision=" + m.onCollision() + ")");
+                    println("  - " + m.time() + " (" + m.movesCount() + " moves, collision=" + m.onCollision() + ")"
+                        + (m.archived() ? " (archived)" : ""));
                 }
             }
             return;
@@ -262,7 +1152,7 @@ public class FileOrganizationExecutor {
         if (config.getUndoRun() != null) {
             try {
                 long ts = Long.parseLong(config.getUndoRun());
-                var r = io.neatify.cli.core.UndoExecutor.undoRun(config.getSourceDir(), ts);
+                var r = UndoExecutor.undoRun(config.getSourceDir(), ts, this::printUndoProgress);
                 if (r == null) { printWarning("Run not found: " + ts); return; }
                 printSuccess("Restored: " + r.restored() + ", skipped: " + r.skipped() + ", errors: " + r.errors().size());
                 if (!r.errors().isEmpty()) { printErr("Errors during undo:"); r.errors().forEach(e -> println("  - " + e)); }
@@ -273,7 +1163,7 @@ public class FileOrganizationExecutor {
         }
 
         printInfo("Undoing last run...");
-        var r = io.neatify.cli.core.UndoExecutor.undoLast(config.getSourceDir());
+        var r = UndoExecutor.undoLast(config.getSourceDir(), this::printUndoProgress);
         if (r == null) {
             printWarning("No previous run found in the journal.");
             return;
@@ -284,4 +1174,8 @@ public class FileOrganizationExecutor {
             r.errors().forEach(e -> println("  - " + e));
         }
     }
+
+    private void printUndoProgress(long done, long total) {
+        printProgress("Restoring", done, total);
+    }
 }
@@ -45,11 +45,15 @@ public class ArgumentParser {
         Map<String, ArgumentHandler> map = new HashMap<>();
 
         // Path-based arguments
-        map.put("--source", i -> parsePathArgument(i, "--source", config::setSourceDir));
+        map.put("--source", i -> parsePathArgument(i, "--source", config::addSourceDir));
         map.put("-s", map.get("--source"));
-        map.put("--rules", i -> parsePathArgument(i, "--rules", config::setRulesFile));
+        map.put("--rules", i -> parsePathArgument(i, "--rules", config::addRulesFile));
         map.put("-r", map.get("--rules"));
+        map.put("--roots-file", i -> parsePathArgument(i, "--roots-file", config::setRootsFile));
         map.put("--use-default-rules", i -> { config.setUseDefaultRules(true); return i; });
+        map.put("--plan-out", i -> parsePathArgument(i, "--plan-out", config::setPlanOut));
+        map.put("--files-from", i -> parsePathArgument(i, "--files-from", config::setFilesFrom));
+        map.put("--apply-plan", i -> { config.setApply(true); return parsePathArgument(i, "--apply-plan", config::setApplyPlan); });
 
         // Simple boolean flags
         map.put("--apply", i -> { config.setApply(true); return i; });
@@ -63,9 +67,14 @@ public class ArgumentParser {
         map.put("--undo", i -> { config.setUndo(true); return i; });
         map.put("--undo-list", i -> { config.setUndo(true); config.setUndoList(true); return i; });
         map.put("--undo-run", i -> { requireNextArgument(i, "--undo-run"); config.setUndo(true); config.setUndoRun(args[i+1]); return i + 1; });
+        map.put("--undo-select", i -> { requireNextArgument(i, "--undo-select"); config.setUndo(true); config.setUndoSelect(args[i+1]); return i + 1; });
+        map.put("--lock-status", i -> { config.setLockStatus(true); return i; });
+        map.put("--where", i -> { requireNextArgument(i, "--where"); config.setUndo(true); config.setWhere(args[i+1]); return i + 1; });
         map.put("--no-color", i -> { config.setNoColor(true); return i; });
         map.put("--ascii", i -> { config.setAscii(true); return i; });
+        map.put("--pager", i -> { config.setPager(true); return i; });
         map.put("--json", i -> { config.setJson(true); return i; });
+        map.put("--json-stream", i -> { config.setJson(true); config.setJsonStream(true); return i; });
 
         // Logging levels
         map.put("--quiet", i -> { config.setQuiet(true); return i; });
@@ -80,6 +89,24 @@ public class ArgumentParser {
         map.put("--include", this::parseInclude);
         map.put("--exclude", this::parseExclude);
         map.put("--max-files", this::parseMaxFiles);
+        map.put("--journal-batch", i -> parsePositiveInt(i, "--journal-batch", config::setJournalBatch));
+        map.put("--journal-format", this::parseJournalFormat);
+        map.put("--journal-interval", i -> parsePositiveInt(i, "--journal-interval", config::setJournalIntervalMillis));
+        map.put("--journal-max-mb", i -> parsePositiveInt(i, "--journal-max-mb", config::setJournalMaxMb));
+        map.put("--keep-runs", i -> parsePositiveInt(i, "--keep-runs", config::setKeepRuns));
+        map.put("--batch-threads", i -> parsePositiveInt(i, "--batch-threads", config::setBatchThreads));
+        map.put("--time-budget", i -> parsePositiveInt(i, "--time-budget", config::setTimeBudget));
+        map.put("--file-budget", i -> parsePositiveInt(i, "--file-budget", config::setFileBudget));
+        map.put("--continue", i -> { config.setContinueScan(true); return i; });
+        map.put("--estimate", i -> { config.setEstimate(true); return i; });
+        map.put("--analyze", i -> { config.setAnalyze(true); return i; });
+        map.put("--suggest-rules", i -> { config.setAnalyze(true); return parsePathArgument(i, "--suggest-rules", config::setSuggestRules); });
+        map.put("--resume", i -> { config.setApply(true); config.setResume(true); return i; });
+        map.put("--lock-root", i -> parsePathArgument(i, "--lock-root", config::setLockRoot));
+        map.put("--lock-wait", i -> parsePositiveInt(i, "--lock-wait", config::setLockWait));
+        map.put("--workers", i -> parsePositiveInt(i, "--workers", config::setWorkers));
+        map.put("--worker", i -> { config.setWorker(true); return i; });
+        map.put("--keep-days", i -> parsePositiveInt(i, "--keep-days", config::setKeepDays));
 
         return map;
     }
@@ -116,6 +143,18 @@ public class ArgumentParser {
         }
     }
 
+    private int parsePositiveInt(int i, String argName, java.util.function.IntConsumer consumer) {
+        requireNextArgument(i, argName);
+        try {
+            int value = Integer.parseInt(args[i + 1]);
+            if (value <= 0) throw new IllegalArgumentException(argName + " must be positive");
+            consumer.accept(value);
+            return i + 1;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(argName + " requires a number");
+        }
+    }
+
     private int parseSort(int i) {
         requireNextArgument(i, "--sort");
         String sort = args[i + 1].toLowerCase();
@@ -136,6 +175,16 @@ public class ArgumentParser {
         return i + 1;
     }
 
+    private int parseJournalFormat(int i) {
+        requireNextArgument(i, "--journal-format");
+        String format = args[i + 1].toLowerCase();
+        if (!format.matches("binary|json")) {
+            throw new IllegalArgumentException("--journal-format must be one of: binary or json");
+        }
+        config.setJournalFormat(format);
+        return i + 1;
+    }
+
     private int parseInclude(int i) {
         requireNextArgument(i, "--include");
         config.addInclude(args[i + 1]);
@@ -157,11 +206,70 @@ public class ArgumentParser {
     private void validateRequiredArguments() {
         boolean needsSource = !config.isShowHelp() && !config.isShowVersion() && !config.isInteractive();
 
-        if (needsSource && config.getSourceDir() == null) {
+        if (needsSource && config.getSourceDir() == null && config.getRootsFile() == null) {
             throw new IllegalArgumentException("--source is required");
         }
 
-        boolean needsRules = needsSource && !config.isUndo() && !config.isUseDefaultRules();
+        if (config.isBatch() && (config.isUndo() || config.isLockStatus() || config.getApplyPlan() != null || config.getPlanOut() != null
+                || config.isJsonStream() || config.isPager())) {
+            throw new IllegalArgumentException(
+                "Several roots cannot be combined with undo, --lock-status, --apply-plan, --plan-out, --json-stream or --pager");
+        }
+
+        if (config.getWorkers() > 0 && (config.isBatch() || config.isUndo() || config.getApplyPlan() != null
+                || config.getPlanOut() != null || config.isJsonStream() || config.isPager())) {
+            throw new IllegalArgumentException(
+                "--workers cannot be combined with several roots, undo, --apply-plan, --plan-out, --json-stream or --pager");
+        }
+
+        if (config.isBudgeted() && (config.isBatch() || config.getWorkers() > 0 || config.isUndo()
+                || config.getApplyPlan() != null || config.isJsonStream())) {
+            throw new IllegalArgumentException("--time-budget, --file-budget and --continue cannot be combined with"
+                + " several roots, --workers, undo, --apply-plan or --json-stream");
+        }
+
+        if (config.isResume() && (config.isBatch() || config.getWorkers() > 0 || config.isUndo() || config.isBudgeted()
+                || config.getApplyPlan() != null || config.getPlanOut() != null || config.isJsonStream())) {
+            throw new IllegalArgumentException("--resume cannot be combined with several roots, --workers, undo,"
+                + " a time or file budget, --apply-plan, --plan-out or --json-stream");
+        }
+
+        if (config.getFilesFrom() != null && (config.isBatch() || config.getWorkers() > 0 || config.isUndo()
+                || config.isBudgeted() || config.isResume() || config.getApplyPlan() != null || config.isPager()
+                || (config.isJson() && !config.isJsonStream()))) {
+            throw new IllegalArgumentException("--files-from cannot be combined with several roots, --workers, undo,"
+                + " a time or file budget, --resume, --apply-plan, --pager or --json (use --json-stream)");
+        }
+
+        if (config.isCompare() && (config.isApply() || config.isBatch() || config.getWorkers() > 0 || config.isUndo()
+                || config.isBudgeted() || config.getFilesFrom() != null || config.getPlanOut() != null
+                || config.isJsonStream() || config.isPager() || config.isUseDefaultRules())) {
+            throw new IllegalArgumentException("Comparing several --rules profiles cannot be combined with --apply,"
+                + " several roots, --workers, undo, a time or file budget, --files-from, --plan-out, --json-stream,"
+                + " --pager or --use-default-rules");
+        }
+
+        if (config.isEstimate() && (config.isApply() || config.isBatch() || config.getWorkers() > 0 || config.isUndo()
+                || config.isBudgeted() || config.getFilesFrom() != null || config.isCompare()
+                || config.getPlanOut() != null || config.isJsonStream() || config.isPager())) {
+            throw new IllegalArgumentException("--estimate cannot be combined with --apply, several roots, --workers,"
+                + " undo, a time or file budget, --files-from, several --rules, --plan-out, --json-stream or --pager");
+        }
+
+        if (config.isAnalyze() && (config.isApply() || config.isBatch() || config.getWorkers() > 0 || config.isUndo()
+                || config.isBudgeted() || config.getFilesFrom() != null || config.isCompare() || config.isEstimate()
+                || config.getPlanOut() != null || config.isJsonStream() || config.isPager())) {
+            throw new IllegalArgumentException("--analyze and --suggest-rules cannot be combined with --apply,"
+                + " several roots, --workers, undo, a time or file budget, --files-from, several --rules, --estimate,"
+                + " --plan-out, --json-stream or --pager");
+        }
+
+        if (config.getApplyPlan() != null && (config.getPlanOut() != null || config.isJsonStream())) {
+            throw new IllegalArgumentException("--apply-plan cannot be combined with --plan-out or --json-stream");
+        }
+
+        boolean needsRules = needsSource && !config.isUndo() && !config.isLockStatus() && !config.isUseDefaultRules()
+            && config.getApplyPlan() == null && !config.isResume();
         if (needsRules && config.getRulesFile() == null) {
             throw new IllegalArgumentException("--rules is required");
         }
@@ -8,8 +8,27 @@ import java.nio.file.Path;
  */
 public class CLIConfig {
     private Path sourceDir;
+    private java.util.List<Path> sourceDirs = new java.util.ArrayList<>();  // every --source, in order
+    private Path rootsFile;   // more roots, one per line
+    private int batchThreads = Math.min(4, Runtime.getRuntime().availableProcessors());
+    private int workers = 0;  // > 0: plan and apply on that many worker processes
+    private boolean worker = false;  // internal: serve a coordinator on stdin/stdout
+    private int lockWait = 0;          // seconds to wait for an overlapping run; 0 fails at once
+    private boolean lockStatus = false;
+    private Path lockRoot;             // where runs sharing a tree keep their locks
+    private int timeBudget = 0;        // seconds of scanning before stopping with a continuation token
+    private int fileBudget = 0;        // files scanned before stopping with a continuation token
+    private boolean continueScan = false;
+    private boolean resume = false;   // continue an interrupted --apply
+    private boolean estimate = false; // sample the tree instead of scanning it
+    private boolean analyze = false;  // extension histogram, unmatched extensions, largest folders
+    private Path suggestRules;        // write rules suggested by the analysis here
+    private Path filesFrom;           // explicit file list instead of a scan, "-" for stdin
     private Path rulesFile;
+    private java.util.List<Path> rulesFiles = new java.util.ArrayList<>();  // every --rules; several compare profiles
     private boolean useDefaultRules = false;
+    private Path planOut;     // save the plan to this file
+    private Path applyPlan;   // apply a saved plan instead of scanning
     private boolean apply = false;
     private boolean showHelp = false;
     private boolean showVersion = false;
@@ -17,17 +36,27 @@ public class CLIConfig {
     private boolean undo = false;
     private boolean undoList = false;
     private String undoRun = null;
+    private String undoSelect = null;  // glob or folder of targets to restore
+    private String where = null;       // path to look up in the journals
 
     // Preview options
     private boolean noColor = false;
     private boolean ascii = false;
     private int perFolderPreview = 5;
+    private boolean pager = false;
     private String sortMode = "alpha";
 
     // Output and execution
     private boolean json = false;
+    private boolean jsonStream = false;  // NDJSON events while running
     private String onCollision = "rename"; // rename | skip | overwrite
     private int maxFiles = 100_000;
+    private int journalBatch = 256;            // records per journal fsync group
+    private long journalIntervalMillis = 200;  // max delay before a group is synced
+    private String journalFormat = "binary";   // binary | json
+    private int keepRuns = 20;                 // runs kept as live journals
+    private int keepDays = 90;                 // older runs are archived
+    private int journalMaxMb;                  // budget for journals + archive, 0 = unlimited
 
     // Logging options
     private boolean quiet = false;    // WARN+ only
@@ -40,7 +69,24 @@ public class CLIConfig {
 
     // Getters
     public Path getSourceDir() { return sourceDir; }
+    public java.util.List<Path> getSourceDirs() { return sourceDirs; }
+    public Path getRootsFile() { return rootsFile; }
+    public int getBatchThreads() { return batchThreads; }
+    public int getWorkers() { return workers; }
+    public boolean isWorker() { return worker; }
+    public int getLockWait() { return lockWait; }
+    public boolean isLockStatus() { return lockStatus; }
+    public Path getLockRoot() { return lockRoot; }
+    public int getTimeBudget() { return timeBudget; }
+    public int getFileBudget() { return fileBudget; }
+    public boolean isContinueScan() { return continueScan; }
+    public boolean isResume() { return resume; }
+    public boolean isEstimate() { return estimate; }
+    public boolean isAnalyze() { return analyze; }
+    public Path getSuggestRules() { return suggestRules; }
+    public Path getFilesFrom() { return filesFrom; }
     public Path getRulesFile() { return rulesFile; }
+    public java.util.List<Path> getRulesFiles() { return rulesFiles; }
     public boolean isUseDefaultRules() { return useDefaultRules; }
     public boolean isApply() { return apply; }
     public boolean isShowHelp() { return showHelp; }
@@ -49,13 +95,25 @@ public class CLIConfig {
     public boolean isUndo() { return undo; }
     public boolean isUndoList() { return undoList; }
     public String getUndoRun() { return undoRun; }
+    public String getUndoSelect() { return undoSelect; }
+    public String getWhere() { return where; }
     public boolean isNoColor() { return noColor; }
     public boolean isAscii() { return ascii; }
     public int getPerFolderPreview() { return perFolderPreview; }
+    public boolean isPager() { return pager; }
     public String getSortMode() { return sortMode; }
     public boolean isJson() { return json; }
+    public Path getPlanOut() { return planOut; }
+    public Path getApplyPlan() { return applyPlan; }
+    public boolean isJsonStream() { return jsonStream; }
     public String getOnCollision() { return onCollision; }
     public int getMaxFiles() { return maxFiles; }
+    public int getJournalBatch() { return journalBatch; }
+    public long getJournalIntervalMillis() { return journalIntervalMillis; }
+    public String getJournalFormat() { return journalFormat; }
+    public int getKeepRuns() { return keepRuns; }
+    public int getKeepDays() { return keepDays; }
+    public int getJournalMaxMb() { return journalMaxMb; }
     public boolean isQuiet() { return quiet; }
     public boolean isVerbose() { return verbose; }
     public boolean isDebug() { return debug; }
@@ -63,8 +121,29 @@ public class CLIConfig {
     public java.util.List<String> getExcludes() { return excludes; }
 
     // Setters (package-private, intended for ArgumentParser only)
-    void setSourceDir(Path sourceDir) { this.sourceDir = sourceDir; }
-    void setRulesFile(Path rulesFile) { this.rulesFile = rulesFile; }
+    void addSourceDir(Path dir) {
+        if (this.sourceDir == null) this.sourceDir = dir;
+        this.sourceDirs.add(dir);
+    }
+    void setRootsFile(Path rootsFile) { this.rootsFile = rootsFile; }
+    void setBatchThreads(int batchThreads) { this.batchThreads = batchThreads; }
+    void setWorkers(int workers) { this.workers = workers; }
+    void setWorker(boolean worker) { this.worker = worker; }
+    void setLockWait(int lockWait) { this.lockWait = lockWait; }
+    void setLockStatus(boolean lockStatus) { this.lockStatus = lockStatus; }
+    void setLockRoot(Path lockRoot) { this.lockRoot = lockRoot; }
+    void setTimeBudget(int timeBudget) { this.timeBudget = timeBudget; }
+    void setFileBudget(int fileBudget) { this.fileBudget = fileBudget; }
+    void setContinueScan(boolean continueScan) { this.continueScan = continueScan; }
+    void setResume(boolean resume) { this.resume = resume; }
+    void setEstimate(boolean estimate) { this.estimate = estimate; }
+    void setAnalyze(boolean analyze) { this.analyze = analyze; }
+    void setSuggestRules(Path suggestRules) { this.suggestRules = suggestRules; }
+    void setFilesFrom(Path filesFrom) { this.filesFrom = filesFrom; }
+    void addRulesFile(Path file) {
+        if (this.rulesFile == null) this.rulesFile = file;
+        this.rulesFiles.add(file);
+    }
     void setUseDefaultRules(boolean useDefaultRules) { this.useDefaultRules = useDefaultRules; }
     void setApply(boolean apply) { this.apply = apply; }
     void setShowHelp(boolean showHelp) { this.showHelp = showHelp; }
@@ -73,19 +152,46 @@ public class CLIConfig {
     void setUndo(boolean undo) { this.undo = undo; }
     void setUndoList(boolean undoList) { this.undoList = undoList; }
     void setUndoRun(String undoRun) { this.undoRun = undoRun; }
+    void setUndoSelect(String undoSelect) { this.undoSelect = undoSelect; }
+    void setWhere(String where) { this.where = where; }
     void setNoColor(boolean noColor) { this.noColor = noColor; }
     void setAscii(boolean ascii) { this.ascii = ascii; }
     void setPerFolderPreview(int perFolderPreview) { this.perFolderPreview = perFolderPreview; }
+    void setPager(boolean pager) { this.pager = pager; }
     void setSortMode(String sortMode) { this.sortMode = sortMode; }
     void setJson(boolean json) { this.json = json; }
+    void setPlanOut(Path planOut) { this.planOut = planOut; }
+    void setApplyPlan(Path applyPlan) { this.applyPlan = applyPlan; }
+    void setJsonStream(boolean jsonStream) { this.jsonStream = jsonStream; }
     void setOnCollision(String onCollision) { this.onCollision = onCollision; }
     void setMaxFiles(int maxFiles) { this.maxFiles = maxFiles; }
+    void setJournalBatch(int journalBatch) { this.journalBatch = journalBatch; }
+    void setJournalIntervalMillis(long journalIntervalMillis) { this.journalIntervalMillis = journalIntervalMillis; }
+    void setJournalFormat(String journalFormat) { this.journalFormat = journalFormat; }
+    void setKeepRuns(int keepRuns) { this.keepRuns = keepRuns; }
+    void setKeepDays(int keepDays) { this.keepDays = keepDays; }
+    void setJournalMaxMb(int journalMaxMb) { this.journalMaxMb = journalMaxMb; }
     void setQuiet(boolean quiet) { this.quiet = quiet; }
     void setVerbose(boolean verbose) { this.verbose = verbose; }
     void setDebug(boolean debug) { this.debug = debug; }
     void addInclude(String pattern) { this.includes.add(pattern); }
     void addExclude(String pattern) { this.excludes.add(pattern); }
 
+    /** @return true when the scan may stop early and leave a continuation token */
+    public boolean isBudgeted() {
+        return timeBudget > 0 || fileBudget > 0 || continueScan;
+    }
+
+    /** @return true when several rule profiles are compared on one scan */
+    public boolean isCompare() {
+        return rulesFiles.size() > 1;
+    }
+
+    /** @return true when several roots are organized in one run */
+    public boolean isBatch() {
+        return sourceDirs.size() > 1 || rootsFile != null;
+    }
+
     /**
      * Indicates if both sourceDir and rulesFile are required
      * (i.e. CLI command mode, not help/version/interactive).
@@ -93,6 +199,6 @@ public class CLIConfig {
     public boolean requiresSourceAndRules() {
         // True only when the CLI requires both --source and --rules.
         // With --use-default-rules, the rules file is not required.
-        return !showHelp && !showVersion && !interactive && !undo && !useDefaultRules;
+        return !showHelp && !showVersion && !interactive && !undo && !useDefaultRules && applyPlan == null;
     }
 }
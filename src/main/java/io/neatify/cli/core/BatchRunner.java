@@ -0,0 +1,230 @@
+package io.neatify.cli.core;
+
+import io.neatify.core.FileMover;
+import io.neatify.core.PathSecurity;
+import io.neatify.core.RuleSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Organizes many roots in one process.
+ *
+ * Every root is planned and executed on a shared {@link FairScheduler}:
+ * planning is one task, execution is split into chunks, and roots take
+ * turns chunk by chunk so a huge folder cannot hold back the small ones.
+ * At most a few roots per worker are in flight at once, which bounds the
+ * plans held in memory. Each applied root gets its own undo journal and
+ * holds its {@link TreeLock} until its last chunk has run.
+ */
+public final class BatchRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchRunner.class);
+
+    /** Actions executed per scheduler task. */
+    static final int CHUNK_SIZE = 1000;
+
+    /** Roots admitted per worker thread. */
+    private static final int ROOTS_PER_THREAD = 2;
+
+    /**
+     * Settings shared by every root. Each root plans with a snapshot of the
+     * rules taken when it starts, so an edit to a watched rules file applies
+     * to the roots started after it and never within one root.
+     * A null {@code lockRoot} locks each root in the per-user lock directory.
+     */
+    public record Options(RuleSet rules, int maxFiles, List<String> includes, List<String> excludes,
+                          boolean apply, FileMover.CollisionStrategy strategy, String onCollision,
+                          JournalOptions journal, int threads, Path lockRoot, Duration lockWait) {
+        public Options {
+            Objects.requireNonNull(rules, "Rules cannot be null");
+            if (threads <= 0) throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+    }
+
+    /** Outcome of one root; {@code error} is set when the root could not be processed. */
+    public record RootResult(Path root, int planned, FileMover.Result result, Path journal, String error) {
+        public boolean failed() { return error != null; }
+    }
+
+    private BatchRunner() { }
+
+    /**
+     * Reads a roots file: one directory per line, blank lines and {@code #} comments ignored.
+     *
+     * @throws IOException if the file cannot be read
+     */
+    public static List<Path> readRoots(Path file) throws IOException {
+        List<Path> roots = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String s = line.strip();
+            if (s.isEmpty() || s.startsWith("#")) continue;
+            roots.add(Paths.get(s));
+        }
+        return roots;
+    }
+
+    /**
+     * Plans and executes every root.
+     *
+     * @param roots directories to organize
+     * @param options shared settings
+     * @param onDone called from a worker thread as each root completes
+     * @return one result per root, in the order of {@code roots}
+     */
+    public static List<RootResult> run(List<Path> roots, Options options, Consumer<RootResult> onDone) {
+        RootResult[] results = new RootResult[roots.size()];
+        Semaphore admitted = new Semaphore(options.threads() * ROOTS_PER_THREAD);
+        try (FairScheduler scheduler = new FairScheduler(options.threads(), "neatify-batch")) {
+            for (int i = 0; i < roots.size(); i++) {
+                admitted.acquireUninterruptibly();
+                int slot = i;
+                new RootJob(roots.get(i), options, scheduler.lane(), r -> {
+                    results[slot] = r;
+                    try {
+                        if (onDone != null) onDone.accept(r);
+                    } finally {
+                        admitted.release();
+                    }
+                }).start();
+            }
+            // Every root has finished once all permits are back
+            admitted.acquireUninterruptibly(options.threads() * ROOTS_PER_THREAD);
+        }
+        return List.of(results);
+    }
+
+    /**
+     * @return totals over all roots; failed roots count their error
+     */
+    public static FileMover.Result total(List<RootResult> results) {
+        int moved = 0;
+        int skipped = 0;
+        List<String> errors = new ArrayList<>();
+        for (RootResult r : results) {
+            if (r.failed()) errors.add(r.root() + ": " + r.error());
+            if (r.result() == null) continue;
+            moved += r.result().moved();
+            skipped += r.result().skipped();
+            errors.addAll(r.result().errors());
+        }
+        return new FileMover.Result(moved, skipped, errors);
+    }
+
+    /** The tasks of one root, run in order on its lane. */
+    private static final class RootJob {
+        private final Path root;
+        private final Options options;
+        private final FairScheduler.Lane lane;
+        private final Consumer<RootResult> onDone;
+
+        private List<FileMover.Action> actions;
+        private JournalWriter journal;
+        private TreeLock lock;
+        private int moved;
+        private int skipped;
+        /** Set once a chunk failed; later chunks are left in place. */
+        private boolean stopped;
+        private final List<String> errors = new ArrayList<>();
+
+        RootJob(Path root, Options options, FairScheduler.Lane lane, Consumer<RootResult> onDone) {
+            this.root = root;
+            this.options = options;
+            this.lane = lane;
+            this.onDone = onDone;
+        }
+
+        void start() {
+            lane.submit(this::plan);
+        }
+
+        private void plan() {
+            try {
+                if (!Files.isDirectory(root)) throw new IllegalArgumentException("Not a directory: " + root);
+                PathSecurity.validateSourceDir(root);
+                if (options.apply()) {
+                    lock = options.lockRoot() != null
+                        ? TreeLock.acquire(options.lockRoot(), root, options.lockWait())
+                        : TreeLock.acquire(root, options.lockWait());
+                }
+                actions = FileMover.plan(root, options.rules().current(), options.maxFiles(),
+                    options.includes(), options.excludes());
+                if (!actions.isEmpty() && options.apply()) {
+                    journal = UndoExecutor.openRun(root, options.onCollision(), options.journal());
+                }
+            } catch (IllegalArgumentException | SecurityException | TreeLock.BusyException e) {
+                logger.warn("Batch root {} skipped: {}", root, e.getMessage());
+                unlock();
+                onDone.accept(new RootResult(root, 0, null, null, e.getMessage()));
+                return;
+            } catch (IOException | RuntimeException e) {
+                logger.error("Batch root {} failed: {}", root, e.getMessage(), e);
+                unlock();
+                onDone.accept(new RootResult(root, 0, null, null, e.getMessage()));
+                return;
+            }
+            for (int from = 0; from < actions.size(); from += CHUNK_SIZE) {
+                List<FileMover.Action> chunk = actions.subList(from, Math.min(actions.size(), from + CHUNK_SIZE));
+                lane.submit(() -> execute(chunk));
+            }
+            lane.submit(this::finish);
+        }
+
+        private void execute(List<FileMover.Action> chunk) {
+            if (stopped) {
+                skipped += chunk.size();
+                return;
+            }
+            FileMover.Result r;
+            try {
+                r = FileMover.execute(chunk, !options.apply(), options.strategy(), journal);
+            } catch (RuntimeException e) {
+                logger.error("Batch root {} failed while moving: {}", root, e.getMessage(), e);
+                errors.add(root + ": " + e.getMessage());
+                skipped += chunk.size();
+                stopped = true;
+                return;
+            }
+            moved += r.moved();
+            skipped += r.skipped();
+            errors.addAll(r.errors());
+        }
+
+        private void finish() {
+            Path journalFile = null;
+            String error = null;
+            if (journal != null) {
+                try {
+                    journal.close();
+                    journalFile = journal.file();
+                } catch (IOException e) {
+                    logger.error("Failed to write undo journal for {}: {}", root, e.getMessage(), e);
+                    error = "Unable to write undo journal: " + e.getMessage();
+                }
+            }
+            unlock();
+            onDone.accept(new RootResult(root, actions.size(), new FileMover.Result(moved, skipped, List.copyOf(errors)),
+                journalFile, error));
+        }
+
+        private void unlock() {
+            if (lock == null) return;
+            try {
+                lock.close();
+            } catch (IOException e) {
+                logger.warn("Failed to release the lock of {}: {}", root, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package io.neatify.cli.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binary journal layout (version 1).
+ *
+ * <pre>
+ * header   "NRUN" | u8 version | u8 flags | u16 reserved | i64 time | i64 moveCount | u16 len + UTF-8 onCollision
+ * DIR  01  varint shared | varint len | bytes           next directory id, front-coded against the previous directory
+ * MOVE 02  varint fromDir | varint shared | varint len | bytes   from name, front-coded against the previous from name
+ *          varint toDir   | varint shared | varint len | bytes   to name, front-coded against this record's from name
+ * END  00
+ * </pre>
+ *
+ * Integers are little-endian, varints unsigned LEB128. While the run is open
+ * {@code moveCount} is -1 and the closed flag is clear; both are patched on close.
+ */
+final class BinaryJournalEncoder implements JournalEncoder {
+
+    static final byte[] MAGIC = {'N', 'R', 'U', 'N'};
+    static final int VERSION = 1;
+    static final int FLAG_CLOSED = 1;
+    static final int OFFSET_FLAGS = 5;
+    static final int OFFSET_COUNT = 16;
+    static final int FIXED_HEADER_SIZE = 24;
+
+    static final int TAG_END = 0x00;
+    static final int TAG_DIR = 0x01;
+    static final int TAG_MOVE = 0x02;
+
+    private final Map<String, Integer> dirIds = new HashMap<>();
+    private byte[] previousDir = new byte[0];
+    private byte[] previousFromName = new byte[0];
+
+    @Override
+    public byte[] header(long time, String onCollision) {
+        byte[] strategy = (onCollision == null ? "" : onCollision).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = ByteBuffer.allocate(FIXED_HEADER_SIZE + 2 + strategy.length).order(ByteOrder.LITTLE_ENDIAN);
+        buf.put(MAGIC).put((byte) VERSION).put((byte) 0).putShort((short) 0);
+        buf.putLong(time).putLong(-1L);
+        buf.putShort((short) strategy.length).put(strategy);
+        return buf.array();
+    }
+
+    @Override
+    public void encode(Path from, Path to, ByteArrayOutputStream out, boolean first) {
+        int fromDir = dirId(from.getParent(), out);
+        int toDir = dirId(to.getParent(), out);
+
+        byte[] fromName = nameBytes(from);
+        byte[] toName = nameBytes(to);
+
+        out.write(TAG_MOVE);
+        writeVarint(out, fromDir);
+        writeFrontCoded(out, previousFromName, fromName);
+        writeVarint(out, toDir);
+        writeFrontCoded(out, fromName, toName);
+        previousFromName = fromName;
+    }
+
+    @Override
+    public void finish(FileChannel channel, long records) throws IOException {
+        writeAt(channel, channel.size(), new byte[]{TAG_END});
+        ByteBuffer count = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(records);
+        writeAt(channel, OFFSET_COUNT, count.array());
+        writeAt(channel, OFFSET_FLAGS, new byte[]{FLAG_CLOSED});
+    }
+
+    private int dirId(Path dir, ByteArrayOutputStream out) {
+        String key = dir == null ? "" : dir.toString();
+        Integer id = dirIds.get(key);
+        if (id != null) return id;
+
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        out.write(TAG_DIR);
+        writeFrontCoded(out, previousDir, bytes);
+        previousDir = bytes;
+        id = dirIds.size();
+        dirIds.put(key, id);
+        return id;
+    }
+
+    private static byte[] nameBytes(Path p) {
+        Path name = p.getFileName();
+        return (name == null ? "" : name.toString()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeFrontCoded(ByteArrayOutputStream out, byte[] previous, byte[] current) {
+        int shared = Arrays.mismatch(previous, current);
+        if (shared < 0) shared = current.length;
+        shared = Math.min(shared, Math.min(previous.length, current.length));
+        writeVarint(out, shared);
+        writeVarint(out, current.length - shared);
+        out.write(current, shared, current.length - shared);
+    }
+
+    static void writeVarint(ByteArrayOutputStream out, int value) {
+        int v = value;
+        while ((v & ~0x7F) != 0) {
+            out.write((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.write(v);
+    }
+
+    private static void writeAt(FileChannel channel, long position, byte[] bytes) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        long pos = position;
+        while (buf.hasRemaining()) {
+            pos += channel.write(buf, pos);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package io.neatify.cli.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.neatify.cli.core.BinaryJournalEncoder.*;
+
+/**
+ * Reads binary run journals through a buffered file channel.
+ * See {@link BinaryJournalEncoder} for the layout.
+ */
+final class BinaryJournalReader extends JournalReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(BinaryJournalReader.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    private final List<Path> dirs = new ArrayList<>();
+    private byte[] previousDir = new byte[0];
+    private byte[] previousFromName = new byte[0];
+    private boolean done;
+
+    private BinaryJournalReader(Path file, FileChannel channel) {
+        super(file);
+        this.channel = channel;
+        buf.flip();
+    }
+
+    static BinaryJournalReader open(Path file) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        BinaryJournalReader r = new BinaryJournalReader(file, ch);
+        try {
+            r.readHeader();
+            return r;
+        } catch (IOException | RuntimeException e) {
+            r.close();
+            throw new IOException("Invalid journal " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void readHeader() throws IOException {
+        byte[] magic = readBytes(MAGIC.length);
+        if (!Arrays.equals(magic, MAGIC)) throw new IOException("bad magic");
+        int version = readByte();
+        if (version != VERSION) throw new IOException("unsupported version " + version);
+        int flags = readByte();
+        readShort();
+        time = readLong();
+        long count = readLong();
+        onCollision = new String(readBytes(readShort()), StandardCharsets.UTF_8);
+        expectedMoves = (flags & FLAG_CLOSED) != 0 ? count : -1;
+    }
+
+    @Override
+    UndoExecutor.Move next() {
+        if (done) return null;
+        try {
+            while (true) {
+                int tag = readByte();
+                switch (tag) {
+                    case TAG_DIR -> {
+                        previousDir = readFrontCoded(previousDir);
+                        dirs.add(Paths.get(new String(previousDir, StandardCharsets.UTF_8)));
+                    }
+                    case TAG_MOVE -> {
+                        Path fromDir = dir(readVarint());
+                        byte[] fromName = readFrontCoded(previousFromName);
+                        Path toDir = dir(readVarint());
+                        byte[] toName = readFrontCoded(fromName);
+                        previousFromName = fromName;
+                        return new UndoExecutor.Move(
+                            fromDir.resolve(new String(fromName, StandardCharsets.UTF_8)),
+                            toDir.resolve(new String(toName, StandardCharsets.UTF_8)));
+                    }
+                    case TAG_END -> {
+                        done = true;
+                        return null;
+                    }
+                    default -> throw new IOException("unknown record tag " + tag);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Torn tail of an interrupted run: keep what was read so far
+            logger.debug("Journal {} ends early: {}", file, e.getMessage());
+            truncated = true;
+            done = true;
+            return null;
+        }
+    }
+
+    private Path dir(int id) throws IOException {
+        if (id < 0 || id >= dirs.size()) throw new IOException("unknown directory id " + id);
+        return dirs.get(id);
+    }
+
+    private byte[] readFrontCoded(byte[] previous) throws IOException {
+        int shared = readVarint();
+        int len = readVarint();
+        if (shared > previous.length) throw new IOException("invalid shared prefix " + shared);
+        byte[] out = Arrays.copyOf(previous, shared + len);
+        readInto(out, shared, len);
+        return out;
+    }
+
+    private boolean fill() throws IOException {
+        buf.compact();
+        int n = channel.read(buf);
+        buf.flip();
+        return n > 0;
+    }
+
+    private int readByte() throws IOException {
+        if (!buf.hasRemaining() && !fill()) throw new EOFException();
+        return buf.get() & 0xFF;
+    }
+
+    private int readShort() throws IOException {
+        return readByte() | (readByte() << 8);
+    }
+
+    private long readLong() throws IOException {
+        long v = 0;
+        for (int i = 0; i < 8; i++) v |= (long) readByte() << (8 * i);
+        return v;
+    }
+
+    private int readVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("malformed varint");
+    }
+
+    private byte[] readBytes(int len) throws IOException {
+        byte[] out = new byte[len];
+        readInto(out, 0, len);
+        return out;
+    }
+
+    private void readInto(byte[] dst, int offset, int len) throws IOException {
+        int pos = offset;
+        int end = offset + len;
+        while (pos < end) {
+            if (!buf.hasRemaining() && !fill()) throw new EOFException();
+            int n = Math.min(buf.remaining(), end - pos);
+            buf.get(dst, pos, n);
+            pos += n;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,443 @@
+package io.neatify.cli.core;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.neatify.cli.util.JsonLineWriter;
+import io.neatify.core.FileMover;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinator of a run spread over worker processes.
+ *
+ * Planning: the root is the first partition. Each idle worker takes a
+ * partition from the queue; once the queue is empty, busy workers are asked
+ * to hand over a directory they have not entered yet, which becomes a new
+ * partition. The coordinator collects the planned moves of a partition
+ * when it is complete; the partition of a worker that dies is planned again
+ * elsewhere, without the directories it had already handed over.
+ *
+ * Applying: moves are grouped by target folder so no two workers ever
+ * write into the same directory, and the groups are dealt out the same way.
+ * Every move a worker reports is appended to one undo journal, which is
+ * therefore in the same format as a single-process run.
+ */
+public final class DistributedRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(DistributedRunner.class);
+
+    /** Moves handed to a worker at once; groups of one folder are never split. */
+    static final int BATCH_SIZE = 500;
+
+    /**
+     * Settings of the coordinator; rules and filters are passed to the workers
+     * when they start. {@code maxFiles} caps the files planned by all workers
+     * together.
+     */
+    public record Options(Path root, int workers, int maxFiles, boolean apply, String onCollision,
+                          JournalOptions journal) {
+        public Options {
+            Objects.requireNonNull(root, "Source directory cannot be null");
+            if (workers <= 0) throw new IllegalArgumentException("Worker count must be positive: " + workers);
+            if (maxFiles <= 0) throw new IllegalArgumentException("Max files quota must be positive: " + maxFiles);
+        }
+    }
+
+    /** Outcome of a distributed run. */
+    public record Summary(int planned, FileMover.Result result, Path journal, int partitions, int steals) {}
+
+    /** Connection to one worker. */
+    public interface WorkerLink extends Closeable {
+        InputStream input();
+        OutputStream output();
+    }
+
+    /** Starts worker {@code id} (0-based). */
+    @FunctionalInterface
+    public interface Launcher {
+        WorkerLink launch(int id) throws IOException;
+    }
+
+    private DistributedRunner() { }
+
+    /**
+     * Launches each worker as a child process speaking the protocol on its
+     * standard streams; its standard error is inherited.
+     *
+     * @param command full command line of a worker
+     */
+    public static Launcher processes(List<String> command) {
+        List<String> cmd = List.copyOf(command);
+        return id -> {
+            Process process = new ProcessBuilder(cmd).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            return new WorkerLink() {
+                @Override public InputStream input() { return process.getInputStream(); }
+                @Override public OutputStream output() { return process.getOutputStream(); }
+                @Override public void close() throws IOException {
+                    process.getOutputStream().close();
+                    try {
+                        if (!process.waitFor(10, TimeUnit.SECONDS)) process.destroyForcibly();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        process.destroyForcibly();
+                    }
+                }
+            };
+        };
+    }
+
+    /**
+     * Plans the root on the workers and, if requested, applies the plan.
+     *
+     * @throws IOException if no worker could be started or the journal cannot be written
+     */
+    public static Summary run(Options options, Launcher launcher) throws IOException {
+        BlockingQueue<Reply> replies = new LinkedBlockingQueue<>();
+        List<Worker> workers = new ArrayList<>();
+        try {
+            for (int i = 0; i < options.workers(); i++) {
+                workers.add(new Worker(i, launcher.launch(i), replies));
+            }
+            return new Run(options, workers, replies).execute();
+        } finally {
+            for (Worker w : workers) w.close();
+        }
+    }
+
+    /** A subtree to plan, minus the directories already split off it. */
+    private record Partition(Path dir, List<Path> skip) {}
+
+    /** One line from a worker; {@code message} is null at end of stream. */
+    private record Reply(Worker from, JsonObject message) {}
+
+    private static final class Worker {
+        final int id;
+        final WorkerLink link;
+        final JsonLineWriter out;
+        boolean alive = true;
+        Partition partition;
+        final List<FileMover.Action> planned = new ArrayList<>();
+        final List<Path> splits = new ArrayList<>();
+        boolean stealAsked;
+        List<FileMover.Action> batch;
+        int reported;
+
+        Worker(int id, WorkerLink link, BlockingQueue<Reply> replies) {
+            this.id = id;
+            this.link = link;
+            this.out = new JsonLineWriter(Channels.newChannel(link.output()));
+            Thread reader = new Thread(() -> read(replies), "neatify-coordinator-" + id);
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        boolean idle() {
+            return alive && partition == null && batch == null;
+        }
+
+        void send(JsonLineWriter line) {
+            line.end();
+            try {
+                out.flush();
+                link.output().flush();
+            } catch (IOException e) {
+                logger.warn("Worker {} unreachable: {}", id, e.getMessage());
+            }
+        }
+
+        private void read(BlockingQueue<Reply> replies) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(link.input(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    replies.add(new Reply(this, JsonParser.parseString(line).getAsJsonObject()));
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Worker {} connection lost: {}", id, e.getMessage());
+            }
+            replies.add(new Reply(this, null));
+        }
+
+        void close() {
+            if (alive) {
+                out.begin("exit").end();
+            }
+            try {
+                out.close();
+            } catch (IOException e) {
+                // worker already gone
+            }
+            try {
+                link.close();
+            } catch (IOException e) {
+                logger.warn("Failed to stop worker {}: {}", id, e.getMessage());
+            }
+        }
+    }
+
+    /** State of one run, driven from the calling thread only. */
+    private static final class Run {
+        private final Options options;
+        private final List<Worker> workers;
+        private final BlockingQueue<Reply> replies;
+        private final List<FileMover.Action> actions = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+        private int partitions;
+        private int steals;
+        private int moved;
+        private int skipped;
+        /** Plan events received from every worker, checked against {@code maxFiles}. */
+        private int planned;
+        /** Set when a partition failed or the quota was exceeded; nothing is applied then. */
+        private boolean planningFailed;
+        private JournalWriter journal;
+
+        Run(Options options, List<Worker> workers, BlockingQueue<Reply> replies) {
+            this.options = options;
+            this.workers = workers;
+            this.replies = replies;
+        }
+
+        Summary execute() throws IOException {
+            plan();
+            Path journalFile = null;
+            if (planningFailed) {
+                errors.add("Nothing applied: planning did not complete");
+            } else if (!options.apply()) {
+                moved = actions.size();
+            } else if (!actions.isEmpty()) {
+                journal = UndoExecutor.openRun(options.root(), options.onCollision(), options.journal());
+                try {
+                    apply();
+                } finally {
+                    journal.close();
+                }
+                journalFile = journal.records() > 0 ? journal.file() : null;
+            }
+            return new Summary(actions.size(), new FileMover.Result(moved, skipped, List.copyOf(errors)),
+                journalFile, partitions, steals);
+        }
+
+        // ==== Planning ====
+
+        private void plan() throws IOException {
+            Deque<Partition> queue = new ArrayDeque<>();
+            queue.add(new Partition(options.root(), List.of()));
+            while (true) {
+                for (Worker w : workers) {
+                    if (queue.isEmpty() || planningFailed) break;
+                    if (!w.idle()) continue;
+                    w.partition = queue.poll();
+                    w.splits.addAll(w.partition.skip());
+                    partitions++;
+                    for (Path dir : w.partition.skip()) w.out.begin("skip").field("dir", dir.toString()).end();
+                    w.send(w.out.begin("plan").field("dir", w.partition.dir().toString()));
+                }
+                if (workers.stream().noneMatch(w -> w.partition != null)) break;
+                if (workers.stream().noneMatch(w -> w.alive)) {
+                    throw new IOException("All workers exited before planning finished");
+                }
+                if (queue.isEmpty() && !planningFailed) requestSteals();
+
+                Reply reply = take();
+                Worker w = reply.from();
+                if (reply.message() == null) {
+                    lost(w);
+                    if (w.partition != null) {
+                        logger.warn("Planning {} again: worker {} exited", w.partition.dir(), w.id);
+                        queue.addFirst(new Partition(w.partition.dir(), List.copyOf(w.splits)));
+                        partitions--;
+                    }
+                    w.partition = null;
+                    // Its partition is planned again, so its files must not count twice
+                    planned -= w.planned.size();
+                    w.planned.clear();
+                    w.splits.clear();
+                    continue;
+                }
+                JsonObject m = reply.message();
+                switch (m.get("event").getAsString()) {
+                    case "plan" -> {
+                        w.planned.add(new FileMover.Action(path(m, "source"), path(m, "target"),
+                            m.get("reason").getAsString()));
+                        // Each worker checks its own partition; the quota holds for the whole tree
+                        if (++planned > options.maxFiles() && !planningFailed) {
+                            errors.add("File quota exceeded: " + options.maxFiles());
+                            planningFailed = true;
+                        }
+                    }
+                    case "split" -> {
+                        Path dir = path(m, "dir");
+                        queue.add(new Partition(dir, List.of()));
+                        w.splits.add(dir);
+                        w.stealAsked = false;
+                        steals++;
+                    }
+                    case "planned" -> {
+                        actions.addAll(w.planned);
+                        w.planned.clear();
+                        w.splits.clear();
+                        w.partition = null;
+                        w.stealAsked = false;
+                    }
+                    case "error" -> {
+                        errors.add(m.get("message").getAsString());
+                        planningFailed = true;
+                    }
+                    default -> logger.warn("Unexpected reply from worker {}: {}", w.id, m);
+                }
+            }
+            if (workers.stream().noneMatch(w -> w.alive)) {
+                throw new IOException("All workers exited before planning finished");
+            }
+            if (!queue.isEmpty() && !planningFailed) errors.add(queue.size() + " director(ies) left unplanned");
+        }
+
+        /** Asks one busy worker per idle one to give up a directory. */
+        private void requestSteals() {
+            long wanted = workers.stream().filter(Worker::idle).count()
+                - workers.stream().filter(w -> w.stealAsked).count();
+            for (Worker w : workers) {
+                if (wanted <= 0) return;
+                if (!w.alive || w.partition == null || w.stealAsked) continue;
+                w.stealAsked = true;
+                w.send(w.out.begin("steal"));
+                wanted--;
+            }
+        }
+
+        // ==== Applying ====
+
+        private void apply() throws IOException {
+            Deque<List<FileMover.Action>> batches = batches();
+            boolean journalFailed = false;
+            while (true) {
+                for (Worker w : workers) {
+                    if (batches.isEmpty() || journalFailed) break;
+                    if (!w.idle()) continue;
+                    try {
+                        journal.beforeMove(batches.peek().get(0).source());
+                    } catch (IOException e) {
+                        errors.add(e.getMessage());
+                        journalFailed = true;
+                        break;
+                    }
+                    w.batch = batches.poll();
+                    w.reported = 0;
+                    for (FileMover.Action a : w.batch) {
+                        w.out.begin("move").field("source", a.source().toString())
+                            .field("target", a.target().toString()).field("reason", a.reason()).end();
+                    }
+                    w.send(w.out.begin("run"));
+                }
+                if (workers.stream().noneMatch(w -> w.batch != null)) break;
+
+                Reply reply = take();
+                Worker w = reply.from();
+                if (reply.message() == null) {
+                    lost(w);
+                    if (w.batch != null) {
+                        // Never replayed: the worker may have moved them without reporting
+                        int unconfirmed = w.batch.size() - w.reported;
+                        errors.add("Worker " + w.id + " exited; " + unconfirmed + " move(s) not confirmed");
+                        skipped += unconfirmed;
+                        w.batch = null;
+                    }
+                    continue;
+                }
+                JsonObject m = reply.message();
+                switch (m.get("event").getAsString()) {
+                    case "moved" -> {
+                        moved++;
+                        w.reported++;
+                        try {
+                            journal.append(path(m, "source"), path(m, "target"));
+                        } catch (UncheckedIOException e) {
+                            // Moves already handed to workers still land; no new batch is sent
+                            errors.add("No undo record for " + path(m, "source") + ": " + e.getCause().getMessage());
+                            journalFailed = true;
+                        }
+                    }
+                    case "skipped" -> {
+                        skipped++;
+                        w.reported++;
+                    }
+                    case "failed" -> {
+                        errors.add(m.get("error").getAsString());
+                        skipped++;
+                        w.reported++;
+                    }
+                    case "applied" -> w.batch = null;
+                    default -> logger.warn("Unexpected reply from worker {}: {}", w.id, m);
+                }
+            }
+            if (!batches.isEmpty()) {
+                int left = batches.stream().mapToInt(List::size).sum();
+                errors.add(left + " move(s) not applied: " + (journalFailed ? "undo journal failed" : "no worker left"));
+                skipped += left;
+            }
+        }
+
+        /** Moves grouped by target folder, packed into batches of about {@link #BATCH_SIZE}. */
+        private Deque<List<FileMover.Action>> batches() {
+            Map<Path, List<FileMover.Action>> byFolder = new LinkedHashMap<>();
+            for (FileMover.Action a : actions) {
+                byFolder.computeIfAbsent(a.target().getParent(), k -> new ArrayList<>()).add(a);
+            }
+            Deque<List<FileMover.Action>> batches = new ArrayDeque<>();
+            List<FileMover.Action> current = new ArrayList<>();
+            for (List<FileMover.Action> group : byFolder.values()) {
+                current.addAll(group);
+                if (current.size() >= BATCH_SIZE) {
+                    batches.add(current);
+                    current = new ArrayList<>();
+                }
+            }
+            if (!current.isEmpty()) batches.add(current);
+            return batches;
+        }
+
+        // ==== Helpers ====
+
+        private Reply take() throws IOException {
+            try {
+                return replies.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for workers", e);
+            }
+        }
+
+        private void lost(Worker w) {
+            if (w.alive) logger.warn("Worker {} exited", w.id);
+            w.alive = false;
+            w.stealAsked = false;
+        }
+
+        private static Path path(JsonObject m, String field) {
+            return Paths.get(m.get(field).getAsString());
+        }
+    }
+}
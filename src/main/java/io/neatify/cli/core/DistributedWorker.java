@@ -0,0 +1,176 @@
+package io.neatify.cli.core;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.neatify.cli.util.JsonLineWriter;
+import io.neatify.core.CompiledRules;
+import io.neatify.core.FileMover;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Worker side of a distributed run (see {@link DistributedRunner}).
+ *
+ * Commands and replies are JSON lines with an {@code "event"} field:
+ * <pre>
+ * coordinator -&gt; worker           worker -&gt; coordinator
+ * skip {dir}                      (left out of the next plan)
+ * plan {dir}                      plan {source, target, reason}, split {dir}, planned
+ * steal                           split {dir}
+ * move {source, target, reason}   (queued until run)
+ * run                             moved / skipped / failed, applied
+ * exit
+ * </pre>
+ * A {@code steal} is answered by handing back the next directory the walk
+ * would have entered; the worker then skips that subtree.
+ */
+public final class DistributedWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(DistributedWorker.class);
+
+    /** What every worker of a run shares; the coordinator only sends directories and moves. */
+    public record Options(Path root, CompiledRules rules, int maxFiles, List<String> includes,
+                          List<String> excludes, FileMover.CollisionStrategy strategy) {}
+
+    private static final JsonObject EXIT = new JsonObject();
+
+    private DistributedWorker() { }
+
+    /**
+     * Serves coordinator commands until {@code exit} or end of input.
+     *
+     * @param in commands from the coordinator
+     * @param out replies to the coordinator
+     * @param options run settings
+     * @throws IOException if the replies cannot be written
+     */
+    public static void serve(InputStream in, OutputStream out, Options options) throws IOException {
+        AtomicInteger steals = new AtomicInteger();
+        BlockingQueue<JsonObject> commands = new LinkedBlockingQueue<>();
+        Thread reader = new Thread(() -> readCommands(in, commands, steals), "neatify-worker-input");
+        reader.setDaemon(true);
+        reader.start();
+
+        Set<Path> skip = new HashSet<>();
+        List<FileMover.Action> pending = new ArrayList<>();
+        try (JsonLineWriter replies = new JsonLineWriter(Channels.newChannel(out))) {
+            while (true) {
+                JsonObject command;
+                try {
+                    command = commands.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (command == EXIT) return;
+                switch (command.get("event").getAsString()) {
+                    case "skip" -> skip.add(Paths.get(command.get("dir").getAsString()));
+                    case "plan" -> {
+                        plan(Paths.get(command.get("dir").getAsString()), skip, options, steals, replies, out);
+                        skip.clear();
+                        steals.set(0);
+                        replies.begin("planned").end();
+                        flush(replies, out);
+                    }
+                    case "move" -> pending.add(new FileMover.Action(
+                        Paths.get(command.get("source").getAsString()),
+                        Paths.get(command.get("target").getAsString()),
+                        command.get("reason").getAsString()));
+                    case "run" -> {
+                        execute(pending, options, replies);
+                        pending.clear();
+                        replies.begin("applied").end();
+                        flush(replies, out);
+                    }
+                    default -> logger.warn("Unknown coordinator command: {}", command);
+                }
+            }
+        }
+    }
+
+    private static void readCommands(InputStream in, BlockingQueue<JsonObject> commands, AtomicInteger steals) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                JsonObject command = JsonParser.parseString(line).getAsJsonObject();
+                String event = command.get("event").getAsString();
+                if (event.equals("exit")) break;
+                // Answered by the walk in progress, not queued behind it
+                if (event.equals("steal")) steals.incrementAndGet();
+                else commands.add(command);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Coordinator connection lost: {}", e.getMessage());
+        }
+        commands.add(EXIT);
+    }
+
+    private static void plan(Path dir, Set<Path> skip, Options options, AtomicInteger steals,
+                             JsonLineWriter replies, OutputStream out) {
+        try {
+            FileMover.planSubtree(options.root(), dir, options.rules(), options.maxFiles(),
+                options.includes(), options.excludes(),
+                (action, attrs) -> replies.begin("plan")
+                    .field("source", action.source().toString())
+                    .field("target", action.target().toString())
+                    .field("reason", action.reason())
+                    .end(),
+                subdir -> {
+                    if (skip.contains(subdir)) return true;
+                    if (steals.getAndUpdate(n -> n > 0 ? n - 1 : 0) == 0) return false;
+                    replies.begin("split").field("dir", subdir.toString()).end();
+                    try {
+                        flush(replies, out);
+                    } catch (IOException e) {
+                        logger.warn("Unable to reach the coordinator: {}", e.getMessage());
+                    }
+                    return true;
+                });
+        } catch (IOException | RuntimeException e) {
+            logger.error("Planning {} failed: {}", dir, e.getMessage(), e);
+            replies.begin("error").field("message", dir + ": " + e.getMessage()).end();
+        }
+    }
+
+    private static void execute(List<FileMover.Action> actions, Options options, JsonLineWriter replies) {
+        FileMover.execute(actions, false, options.strategy(), new FileMover.MoveListener() {
+            @Override
+            public void onMoved(Path source, Path finalTarget) {
+                replies.begin("moved").field("source", source.toString()).field("target", finalTarget.toString()).end();
+            }
+
+            @Override
+            public void onSkipped(Path source, Path target) {
+                replies.begin("skipped").field("source", source.toString()).end();
+            }
+
+            @Override
+            public void onFailed(Path source, Path target, String error) {
+                replies.begin("failed").field("source", source.toString()).field("error", error).end();
+            }
+        });
+    }
+
+    private static void flush(JsonLineWriter replies, OutputStream out) throws IOException {
+        replies.flush();
+        out.flush();
+    }
+}
@@ -0,0 +1,110 @@
+package io.neatify.cli.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed pool of workers shared by several lanes.
+ *
+ * Tasks of one lane run one at a time, in submission order. Lanes with
+ * pending work take turns: a worker runs one task of the lane at the head
+ * of the ready queue, then sends that lane to the back. A lane with many
+ * tasks therefore never starves the others.
+ */
+final class FairScheduler implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(FairScheduler.class);
+
+    private final ArrayDeque<Lane> ready = new ArrayDeque<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private boolean closed;
+
+    /** Ordered task queue of one root. */
+    final class Lane {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private boolean queued;   // in the ready queue
+        private boolean running;  // a worker runs one of its tasks
+
+        /** Queues a task after the lane's previous ones. */
+        void submit(Runnable task) {
+            synchronized (FairScheduler.this) {
+                if (closed) throw new IllegalStateException("Scheduler is closed");
+                tasks.add(task);
+                if (!queued && !running) {
+                    queued = true;
+                    ready.add(this);
+                    FairScheduler.this.notify();
+                }
+            }
+        }
+    }
+
+    FairScheduler(int threads, String name) {
+        if (threads <= 0) throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        for (int i = 0; i < threads; i++) {
+            Thread t = new Thread(this::runWorker, name + "-" + (i + 1));
+            t.setDaemon(true);
+            workers.add(t);
+            t.start();
+        }
+    }
+
+    Lane lane() {
+        return new Lane();
+    }
+
+    private void runWorker() {
+        while (true) {
+            Lane lane;
+            Runnable task;
+            synchronized (this) {
+                while (ready.isEmpty() && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (ready.isEmpty()) return;
+                lane = ready.poll();
+                lane.queued = false;
+                lane.running = true;
+                task = lane.tasks.poll();
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Batch task failed: {}", e.getMessage(), e);
+            }
+            synchronized (this) {
+                lane.running = false;
+                if (!lane.tasks.isEmpty()) {
+                    lane.queued = true;
+                    ready.add(lane);
+                    notify();
+                }
+            }
+        }
+    }
+
+    /** Lets the workers finish every queued task, then stops them. */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        for (Thread t : workers) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package io.neatify.cli.core;
 
 import io.neatify.cli.ui.Preview;
+import io.neatify.cli.ui.PreviewPager;
 import io.neatify.cli.util.ResultPrinter;
+import io.neatify.core.CompiledRules;
 import io.neatify.core.FileMover;
 import io.neatify.core.PathSecurity;
 import io.neatify.core.Rules;
@@ -11,7 +13,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
-import java.util.Map;
 
 import static io.neatify.cli.ui.Display.*;
 
@@ -33,7 +34,7 @@ public final class FileOrganizer {
         Path sourceDir = promptAndValidateSourceDir();
         if (sourceDir == null) return;
 
-        Map<String, String> rules = promptAndLoadRules();
+        CompiledRules rules = promptAndLoadRules();
         if (rules == null) return;
 
         Filters filters = promptFilters();
@@ -64,7 +65,7 @@ public final class FileOrganizer {
         }
     }
 
-    private static Map<String, String> promptAndLoadRules() throws IOException {
+    private static CompiledRules promptAndLoadRules() throws IOException {
         String rulesPath = readInput("Rules file (.properties) [Enter = default rules]", "");
 
         if (rulesPath.isBlank()) {
@@ -74,14 +75,14 @@ public final class FileOrganizer {
         }
     }
 
-    private static Map<String, String> loadDefaultRules() {
+    private static CompiledRules loadDefaultRules() {
         printInfo("Using built-in default rules...");
-        Map<String, String> rules = Rules.getDefaults();
+        CompiledRules rules = CompiledRules.of(Rules.getDefaults());
         printSuccess(rules.size() + " default rule(s) loaded");
         return rules;
     }
 
-    private static Map<String, String> loadCustomRules(String rulesPath) throws IOException {
+    private static CompiledRules loadCustomRules(String rulesPath) throws IOException {
         Path rulesFile = Paths.get(rulesPath);
 
         if (!Files.exists(rulesFile)) {
@@ -91,12 +92,12 @@ public final class FileOrganizer {
         }
 
         printInfo("Loading rules from file...");
-        Map<String, String> rules = Rules.load(rulesFile);
+        CompiledRules rules = CompiledRules.load(rulesFile);
         printSuccess(rules.size() + " rule(s) loaded");
         return rules;
     }
 
-    private static List<FileMover.Action> planActions(Path sourceDir, Map<String, String> rules, Filters filters) throws IOException {
+    private static List<FileMover.Action> planActions(Path sourceDir, CompiledRules rules, Filters filters) throws IOException {
         printInfo("Scanning folder...");
         List<FileMover.Action> actions = FileMover.plan(
             sourceDir,
@@ -124,6 +125,11 @@ public final class FileOrganizer {
             .showDuplicates(true);
 
         Preview.print(actions, config);
+
+        String browse = readInput("Browse the full preview? (y/N)", "n");
+        if (browse.equalsIgnoreCase("y") || browse.equalsIgnoreCase("yes")) {
+            PreviewPager.browse(actions, config);
+        }
     }
 
     private static void executeIfConfirmed(List<FileMover.Action> actions, Path sourceDir) throws IOException {
@@ -137,17 +143,19 @@ public final class FileOrganizer {
 
         FileMover.CollisionStrategy strategy = promptCollisionStrategy();
         printInfo("Applying changes...");
-        java.util.List<io.neatify.cli.core.UndoExecutor.Move> moves = new java.util.ArrayList<>();
-        FileMover.Result result = FileMover.execute(actions, false, strategy, (src, dst) -> {
-            moves.add(new io.neatify.cli.core.UndoExecutor.Move(src, dst));
-        });
+        JournalWriter journal = UndoExecutor.openRun(sourceDir, strategy.name().toLowerCase());
+        FileMover.Result result;
         try {
-            java.nio.file.Path runPath = io.neatify.cli.core.UndoExecutor.appendRun(sourceDir, strategy.name().toLowerCase(), moves);
-            if (runPath != null) {
-                printInfo("Journal written: " + runPath.toAbsolutePath());
+            result = FileMover.execute(actions, false, strategy, journal);
+        } finally {
+            try {
+                journal.close();
+                if (journal.file() != null) {
+                    printInfo("Journal written: " + journal.file().toAbsolutePath());
+                }
+            } catch (IOException e) {
+                printErr("Undo journal not written: " + e.getMessage());
             }
-        } catch (IOException e) {
-            printErr("Undo journal not written: " + e.getMessage());
         }
 
         showSummary(result);
@@ -0,0 +1,275 @@
+package io.neatify.cli.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compressed archive segments of old runs ({@code .neatify/archive/*.nseg}).
+ *
+ * A segment is a GZIP stream: {@code "NSEG" | u8 version} followed by one
+ * member per run ({@code UTF name | i64 time | UTF onCollision | i64 moves |
+ * i64 length | binary journal bytes}). JSON runs are transcoded to the binary
+ * layout when archived. A member can be extracted back to the runs directory
+ * and undone like any other run.
+ */
+final class JournalArchive {
+
+    static final String EXTENSION = ".nseg";
+    private static final byte[] MAGIC = {'N', 'S', 'E', 'G'};
+    private static final int VERSION = 1;
+    private static final String TEMP_SUFFIX = EXTENSION + ".tmp";
+
+    /** Age after which a temporary segment is known to be left by an interrupted pass. */
+    private static final long LEFTOVER_AGE_MS = 60 * 60 * 1000L;
+
+    private JournalArchive() { }
+
+    /** Archived run as listed in a segment. */
+    record Member(String name, long time, String onCollision, long moves) {}
+
+    static Path archiveDir(Path sourceRoot) {
+        return UndoExecutor.neatifyDir(sourceRoot).resolve("archive");
+    }
+
+    static boolean isSegment(Path p) {
+        return p.getFileName().toString().endsWith(EXTENSION);
+    }
+
+    /**
+     * Deletes temporary segments left by interrupted archivals. Recent ones
+     * are kept, as another process may still be writing them.
+     */
+    static void deleteLeftovers(Path sourceRoot) throws IOException {
+        Path dir = archiveDir(sourceRoot);
+        if (!Files.isDirectory(dir)) return;
+        long cutoff = System.currentTimeMillis() - LEFTOVER_AGE_MS;
+        try (Stream<Path> s = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) s::iterator) {
+                if (!p.getFileName().toString().endsWith(TEMP_SUFFIX)) continue;
+                try {
+                    if (Files.getLastModifiedTime(p).toMillis() < cutoff) Files.deleteIfExists(p);
+                } catch (IOException e) {
+                    // removed concurrently
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a new segment holding the given runs. The segment is on disk
+     * when this returns, so the live journals can be deleted.
+     *
+     * @param segment target segment file (replaced atomically)
+     * @param runs run files to archive with their metadata
+     * @return archived members
+     */
+    static List<Member> write(Path segment, List<UndoExecutor.RunMeta> runs) throws IOException {
+        Files.createDirectories(segment.getParent());
+        Path tmp = tempOf(segment);
+        List<Member> members = new ArrayList<>();
+        try (DataOutputStream out = open(tmp)) {
+            for (UndoExecutor.RunMeta run : runs) {
+                Path file = run.file();
+                JournalFormat format = JournalFormat.ofFileName(file.getFileName().toString());
+                Member member;
+                if (format == JournalFormat.BINARY) {
+                    member = new Member(file.getFileName().toString(), run.time(), run.onCollision(), run.movesCount());
+                    writeMember(out, member, Files.size(file), in -> Files.copy(file, in));
+                } else {
+                    Path binary = transcode(file, run);
+                    try {
+                        member = new Member(run.time() + JournalFormat.BINARY.extension(), run.time(), run.onCollision(), run.movesCount());
+                        writeMember(out, member, Files.size(binary), in -> Files.copy(binary, in));
+                    } finally {
+                        Files.deleteIfExists(binary);
+                    }
+                }
+                members.add(member);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        sync(tmp);
+        replace(tmp, segment);
+        return members;
+    }
+
+    /** Lists the members of a segment without keeping their payload. */
+    static List<Member> members(Path segment) throws IOException {
+        List<Member> members = new ArrayList<>();
+        try (DataInputStream in = openRead(segment)) {
+            Member m;
+            while ((m = readMember(in)) != null) {
+                in.skipNBytes(in.readLong());
+                members.add(m);
+            }
+        }
+        return members;
+    }
+
+    /**
+     * Copies one member back to a run file.
+     *
+     * @return true if the member was found
+     */
+    static boolean extract(Path segment, String name, Path target) throws IOException {
+        try (DataInputStream in = openRead(segment)) {
+            Member m;
+            while ((m = readMember(in)) != null) {
+                long length = in.readLong();
+                if (!m.name().equals(name)) {
+                    in.skipNBytes(length);
+                    continue;
+                }
+                try (OutputStream out = Files.newOutputStream(target, StandardOpenOption.CREATE_NEW)) {
+                    copy(in, out, length);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rewrites a segment without one member; deletes it when nothing is left.
+     *
+     * @return remaining members
+     */
+    static List<Member> remove(Path segment, String name) throws IOException {
+        Path tmp = tempOf(segment);
+        List<Member> kept = new ArrayList<>();
+        try (DataInputStream in = openRead(segment); DataOutputStream out = open(tmp)) {
+            Member m;
+            while ((m = readMember(in)) != null) {
+                long length = in.readLong();
+                if (m.name().equals(name)) {
+                    in.skipNBytes(length);
+                    continue;
+                }
+                writeMember(out, m, length, o -> copy(in, o, length));
+                kept.add(m);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        if (kept.isEmpty()) {
+            Files.deleteIfExists(tmp);
+            Files.deleteIfExists(segment);
+        } else {
+            sync(tmp);
+            replace(tmp, segment);
+        }
+        return kept;
+    }
+
+    // ===== Encoding helpers =====
+
+    @FunctionalInterface
+    private interface PayloadWriter { void writeTo(OutputStream out) throws IOException; }
+
+    private static DataOutputStream open(Path tmp) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+            new GZIPOutputStream(Files.newOutputStream(tmp), 64 * 1024), 64 * 1024));
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        return out;
+    }
+
+    private static DataInputStream openRead(Path segment) throws IOException {
+        InputStream raw = Files.newInputStream(segment);
+        DataInputStream in;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(raw, 64 * 1024), 64 * 1024));
+            byte[] magic = in.readNBytes(MAGIC.length);
+            if (!java.util.Arrays.equals(magic, MAGIC) || in.readUnsignedByte() != VERSION) {
+                throw new IOException("Invalid archive segment: " + segment);
+            }
+        } catch (IOException e) {
+            raw.close();
+            throw e;
+        }
+        return in;
+    }
+
+    private static void writeMember(DataOutputStream out, Member m, long length, PayloadWriter payload) throws IOException {
+        out.writeUTF(m.name());
+        out.writeLong(m.time());
+        out.writeUTF(m.onCollision() == null ? "" : m.onCollision());
+        out.writeLong(m.moves());
+        out.writeLong(length);
+        payload.writeTo(out);
+    }
+
+    private static Member readMember(DataInputStream in) throws IOException {
+        String name;
+        try {
+            name = in.readUTF();
+        } catch (EOFException e) {
+            return null;
+        }
+        long time = in.readLong();
+        String onCollision = in.readUTF();
+        long moves = in.readLong();
+        return new Member(name, time, onCollision, moves);
+    }
+
+    private static void copy(InputStream in, OutputStream out, long length) throws IOException {
+        byte[] buf = new byte[64 * 1024];
+        long left = length;
+        while (left > 0) {
+            int n = in.read(buf, 0, (int) Math.min(buf.length, left));
+            if (n < 0) throw new EOFException("Archive member truncated");
+            out.write(buf, 0, n);
+            left -= n;
+        }
+    }
+
+    /** Re-encodes a JSON run with the binary layout (compaction before compression). */
+    private static Path transcode(Path jsonRun, UndoExecutor.RunMeta run) throws IOException {
+        Path out = jsonRun.resolveSibling(jsonRun.getFileName() + ".nrun.tmp");
+        try (JournalReader reader = JournalReader.open(jsonRun);
+             JournalRewriter writer = new JournalRewriter(out, run.time(), run.onCollision())) {
+            UndoExecutor.Move m;
+            while ((m = reader.next()) != null) writer.append(m.from(), m.to());
+            writer.finish();
+        }
+        return out;
+    }
+
+    private static Path tempOf(Path segment) {
+        return segment.resolveSibling(segment.getFileName() + ".tmp");
+    }
+
+    private static void sync(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    private static void replace(Path tmp, Path target) throws IOException {
+        try {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package io.neatify.cli.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * Format-specific encoding used by {@link JournalWriter}.
+ * Calls are serialized by the writer, so implementations may keep state.
+ */
+interface JournalEncoder {
+
+    /** @return bytes written when the journal is created */
+    byte[] header(long time, String onCollision);
+
+    /**
+     * Appends one move record.
+     *
+     * @param from absolute original path
+     * @param to absolute moved path
+     * @param out pending group buffer
+     * @param first true for the first record of the journal
+     */
+    void encode(Path from, Path to, ByteArrayOutputStream out, boolean first);
+
+    /**
+     * Terminates the journal once every record has been written.
+     *
+     * @param channel journal channel, positioned at the end
+     * @param records number of records written
+     */
+    void finish(FileChannel channel, long records) throws IOException;
+}
@@ -0,0 +1,50 @@
+package io.neatify.cli.core;
+
+/**
+ * On-disk layouts of run journals under {@code .neatify/runs}.
+ */
+public enum JournalFormat {
+    /** Streamed JSON document, readable by older versions. */
+    JSON(".json"),
+    /** Versioned binary layout with a directory dictionary and front-coded names. */
+    BINARY(".nrun");
+
+    private final String extension;
+
+    JournalFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /** @return run file extension, including the dot */
+    public String extension() {
+        return extension;
+    }
+
+    JournalEncoder newEncoder() {
+        return switch (this) {
+            case JSON -> new JsonJournalEncoder();
+            case BINARY -> new BinaryJournalEncoder();
+        };
+    }
+
+    /**
+     * Parses a CLI value ({@code json} or {@code binary}).
+     *
+     * @throws IllegalArgumentException if the value is unknown
+     */
+    public static JournalFormat parse(String value) {
+        return switch (value.toLowerCase()) {
+            case "json" -> JSON;
+            case "binary" -> BINARY;
+            default -> throw new IllegalArgumentException("Unknown journal format: " + value);
+        };
+    }
+
+    /** @return format whose extension ends the file name, or null if none does */
+    static JournalFormat ofFileName(String fileName) {
+        for (JournalFormat f : values()) {
+            if (fileName.endsWith(f.extension)) return f;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,20 @@
+package io.neatify.cli.core;
+
+/**
+ * How runs are journaled: on-disk format, group-commit policy and retention.
+ *
+ * @param format journal layout for new runs
+ * @param sync group-commit policy of the writer
+ * @param retention retention applied after each run
+ */
+public record JournalOptions(JournalFormat format, JournalWriter.SyncPolicy sync, JournalRetention.Policy retention) {
+
+    public static final JournalOptions DEFAULT = new JournalOptions(
+        JournalFormat.BINARY, JournalWriter.SyncPolicy.DEFAULT, JournalRetention.Policy.DEFAULT);
+
+    public JournalOptions {
+        java.util.Objects.requireNonNull(format, "Journal format cannot be null");
+        java.util.Objects.requireNonNull(sync, "Sync policy cannot be null");
+        java.util.Objects.requireNonNull(retention, "Retention policy cannot be null");
+    }
+}
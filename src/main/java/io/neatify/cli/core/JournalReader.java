@@ -0,0 +1,60 @@
+package io.neatify.cli.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Incremental reader for run journals of any {@link JournalFormat}.
+ * The format is detected from the file content. A journal cut short by a
+ * crash yields every complete record before the cut.
+ */
+abstract class JournalReader implements Closeable {
+
+    protected final Path file;
+    protected long time;
+    protected String onCollision;
+    protected long expectedMoves = -1;
+    protected boolean truncated;
+
+    protected JournalReader(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens a journal and reads its header.
+     *
+     * @param file run journal
+     * @return reader positioned on the first move
+     * @throws IOException if the file cannot be opened or has no valid header
+     */
+    static JournalReader open(Path file) throws IOException {
+        byte[] head;
+        try (InputStream in = Files.newInputStream(file)) {
+            head = in.readNBytes(BinaryJournalEncoder.MAGIC.length);
+        }
+        if (Arrays.equals(head, BinaryJournalEncoder.MAGIC)) {
+            return BinaryJournalReader.open(file);
+        }
+        return JsonJournalReader.open(file);
+    }
+
+    long time() { return time; }
+    String onCollision() { return onCollision; }
+
+    /** @return move count recorded in the header, or -1 if unknown (JSON or interrupted run) */
+    long expectedMoves() { return expectedMoves; }
+
+    /** @return true if the journal ended before its terminator (interrupted run) */
+    boolean isTruncated() { return truncated; }
+
+    /**
+     * Reads the next move.
+     *
+     * @return next move, or null at the end of the journal
+     */
+    abstract UndoExecutor.Move next();
+}
@@ -0,0 +1,223 @@
+package io.neatify.cli.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+
+/**
+ * Retention of run journals under {@code .neatify}.
+ *
+ * The newest {@code keepRuns} runs younger than {@code maxAge} stay as live
+ * journals; older ones are compacted into a compressed archive segment that
+ * can still be undone. Only when a size budget is set and journals and
+ * segments together exceed it are the oldest segments deleted, with the
+ * undo data they hold. The newest run is never archived nor deleted.
+ */
+public final class JournalRetention {
+
+    private static final Logger logger = LoggerFactory.getLogger(JournalRetention.class);
+
+    /** Roots with a retention pass queued or in progress. */
+    private static final Set<Path> running = ConcurrentHashMap.newKeySet();
+
+    /** One thread runs every pass in turn; they all take the storage lock anyway. */
+    private static final ExecutorService PASSES = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "neatify-retention");
+        // An interrupted pass is safe; the CLI waits in awaitIdle() instead of the JVM
+        t.setDaemon(true);
+        return t;
+    });
+
+    private JournalRetention() { }
+
+    /**
+     * Retention policy.
+     *
+     * @param keepRuns number of most recent runs kept as live journals
+     * @param maxAge age after which a run is archived
+     * @param maxTotalBytes budget for journals and archive segments together, or {@link #UNLIMITED}
+     */
+    public record Policy(int keepRuns, Duration maxAge, long maxTotalBytes) {
+        /** No size budget: archive segments are never deleted. */
+        public static final long UNLIMITED = Long.MAX_VALUE;
+
+        public static final Policy DEFAULT = new Policy(20, Duration.ofDays(90), UNLIMITED);
+
+        public Policy {
+            if (keepRuns <= 0) throw new IllegalArgumentException("Number of kept runs must be positive: " + keepRuns);
+            if (maxAge == null || maxAge.isNegative() || maxAge.isZero()) {
+                throw new IllegalArgumentException("Journal maximum age must be positive: " + maxAge);
+            }
+            if (maxTotalBytes <= 0) throw new IllegalArgumentException("Journal size budget must be positive: " + maxTotalBytes);
+        }
+    }
+
+    /** @return true if the recorded usage breaks the policy, so a pass has work to do */
+    static boolean isNeeded(Policy policy, RunIndex.Usage usage) {
+        if (usage == null) return false;
+        return usage.liveRuns() > policy.keepRuns()
+            || usage.oldestLiveTime() < System.currentTimeMillis() - policy.maxAge().toMillis()
+            || usage.totalBytes() > policy.maxTotalBytes();
+    }
+
+    /**
+     * Applies the policy in the background so closing a run never waits on
+     * compaction. A pass already queued for the same root absorbs the request.
+     */
+    static void schedule(Path sourceRoot, Policy policy) {
+        Path key = sourceRoot.toAbsolutePath().normalize();
+        if (!running.add(key)) return;
+        PASSES.execute(() -> {
+            try {
+                apply(sourceRoot, policy);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Journal retention failed for {}: {}", sourceRoot, e.getMessage());
+            } finally {
+                running.remove(key);
+            }
+        });
+    }
+
+    /**
+     * Waits for the passes queued so far, so a CLI run does not exit before
+     * its retention is applied. A pass still running after {@code limit} is
+     * abandoned; it is safe to interrupt and runs again with the next run.
+     *
+     * @param limit longest wait
+     * @return true if every queued pass finished
+     */
+    public static boolean awaitIdle(Duration limit) {
+        if (running.isEmpty()) return true;
+        // The executor runs in order, so the marker completes after every earlier pass
+        Future<?> marker = PASSES.submit(() -> { });
+        try {
+            marker.get(limit.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException | ExecutionException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Applies the policy now.
+     *
+     * @param sourceRoot organized root
+     * @param policy retention policy
+     * @return number of runs archived
+     */
+    static int apply(Path sourceRoot, Policy policy) throws IOException {
+        synchronized (UndoExecutor.STORAGE_LOCK) {
+            int archived = archiveOldRuns(sourceRoot, policy);
+            if (policy.maxTotalBytes() != Policy.UNLIMITED) enforceBudget(sourceRoot, policy.maxTotalBytes());
+            return archived;
+        }
+    }
+
+    private static int archiveOldRuns(Path sourceRoot, Policy policy) throws IOException {
+        List<UndoExecutor.RunMeta> runs = UndoExecutor.listRuns(sourceRoot);
+        long cutoff = System.currentTimeMillis() - policy.maxAge().toMillis();
+        List<UndoExecutor.RunMeta> old = new ArrayList<>();
+        for (int i = 1; i < runs.size(); i++) {
+            UndoExecutor.RunMeta run = runs.get(i);
+            if (run.archived()) continue;
+            if (i >= policy.keepRuns() || run.time() < cutoff) old.add(run);
+        }
+        if (old.isEmpty()) return 0;
+
+        JournalArchive.deleteLeftovers(sourceRoot);
+        old.sort(Comparator.comparingLong(UndoExecutor.RunMeta::time));
+        String base = old.get(0).time() + "-" + old.get(old.size() - 1).time();
+        Path segment = JournalArchive.archiveDir(sourceRoot).resolve(base + JournalArchive.EXTENSION);
+        for (int n = 1; Files.exists(segment); n++) {
+            segment = segment.resolveSibling(base + "-" + n + JournalArchive.EXTENSION);
+        }
+        List<JournalArchive.Member> members = JournalArchive.write(segment, old);
+
+        List<Path> files = new ArrayList<>(old.size());
+        for (UndoExecutor.RunMeta run : old) {
+            Files.deleteIfExists(run.file());
+            files.add(run.file());
+        }
+        RunIndex.recordSegment(sourceRoot, segment, members, files);
+        logger.info("Archived {} run(s) into {}", old.size(), segment);
+        return old.size();
+    }
+
+    private static void enforceBudget(Path sourceRoot, long maxTotalBytes) throws IOException {
+        long total = directorySize(UndoExecutor.runsDir(sourceRoot));
+        List<Path> segments = new ArrayList<>();
+        Path archiveDir = JournalArchive.archiveDir(sourceRoot);
+        if (Files.isDirectory(archiveDir)) {
+            try (Stream<Path> s = Files.list(archiveDir)) {
+                s.filter(JournalArchive::isSegment).forEach(segments::add);
+            }
+        }
+        for (Path seg : segments) total += sizeOf(seg);
+        if (total <= maxTotalBytes) return;
+
+        // Segment names start with the time of their oldest run
+        segments.sort(Comparator.comparingLong(JournalRetention::segmentStart));
+        for (Path seg : segments) {
+            if (total <= maxTotalBytes) break;
+            long size = sizeOf(seg);
+            for (JournalArchive.Member m : JournalArchive.members(seg)) PathIndex.remove(sourceRoot, m.time());
+            Files.deleteIfExists(seg);
+            RunIndex.recordSegment(sourceRoot, seg, List.of(), List.of());
+            total -= size;
+            logger.info("Deleted archive segment {} to stay within the journal size budget", seg);
+        }
+        if (total > maxTotalBytes) {
+            logger.warn("Live journals in {} exceed the size budget ({} > {} bytes)", sourceRoot, total, maxTotalBytes);
+        }
+    }
+
+    private static long segmentStart(Path segment) {
+        String name = segment.getFileName().toString();
+        int dash = name.indexOf('-');
+        try {
+            return Long.parseLong(dash < 0 ? name.substring(0, name.length() - JournalArchive.EXTENSION.length())
+                : name.substring(0, dash));
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static long directorySize(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return 0;
+        long total = 0;
+        try (Stream<Path> s = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) s::iterator) {
+                if (UndoExecutor.isRunFile(p)) total += sizeOf(p);
+            }
+        }
+        return total;
+    }
+
+    private static long sizeOf(Path p) {
+        try {
+            return Files.size(p);
+        } catch (IOException e) {
+            // removed concurrently
+            return 0;
+        }
+    }
+}
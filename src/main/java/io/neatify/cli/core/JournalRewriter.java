@@ -0,0 +1,73 @@
+package io.neatify.cli.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Synchronous binary journal writer used when a journal is rewritten
+ * offline (transcoding, partial undo). Unlike {@link JournalWriter} it has no
+ * flusher thread: the file only becomes valid once {@link #finish()} returns,
+ * and is deleted if closed before that.
+ */
+final class JournalRewriter implements Closeable {
+
+    private static final int FLUSH_BYTES = 64 * 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final JournalEncoder encoder = JournalFormat.BINARY.newEncoder();
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream(FLUSH_BYTES);
+    private long records;
+    private boolean finished;
+
+    JournalRewriter(Path file, long time, String onCollision) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE);
+        try {
+            writeFully(encoder.header(time, onCollision));
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    Path file() { return file; }
+    long records() { return records; }
+
+    void append(Path from, Path to) throws IOException {
+        encoder.encode(from, to, pending, records == 0);
+        records++;
+        if (pending.size() >= FLUSH_BYTES) flush();
+    }
+
+    /** Writes the terminator and syncs the file. */
+    void finish() throws IOException {
+        flush();
+        encoder.finish(channel, records);
+        channel.force(true);
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        if (!finished) Files.deleteIfExists(file);
+    }
+
+    private void flush() throws IOException {
+        writeFully(pending.toByteArray());
+        pending.reset();
+    }
+
+    private void writeFully(byte[] bytes) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        while (buf.hasRemaining()) channel.write(buf);
+    }
+}
@@ -0,0 +1,372 @@
+package io.neatify.cli.core;
+
+import io.neatify.core.FileMover;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only undo journal for a single run.
+ *
+ * Moves are encoded as they are reported and handed to a background flusher
+ * that writes and fsyncs them in groups (by record count or elapsed time),
+ * so the mover never waits on the disk. A crash loses at most the last
+ * unsynced group; everything before it stays readable by {@link UndoExecutor},
+ * and {@link #reopen} can continue such a journal where it stopped.
+ */
+public final class JournalWriter implements FileMover.MoveListener, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(JournalWriter.class);
+
+    /** Upper bound of encoded bytes waiting for the flusher before the mover is throttled. */
+    private static final int MAX_PENDING_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * Group-commit policy: a group is synced once it holds {@code maxRecords}
+     * records or has been waiting {@code maxDelayMillis}, whichever comes first.
+     */
+    public record SyncPolicy(int maxRecords, long maxDelayMillis) {
+        public static final SyncPolicy DEFAULT = new SyncPolicy(256, 200);
+
+        public SyncPolicy {
+            if (maxRecords <= 0) throw new IllegalArgumentException("Journal batch size must be positive: " + maxRecords);
+            if (maxDelayMillis <= 0) throw new IllegalArgumentException("Journal interval must be positive: " + maxDelayMillis);
+        }
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final JournalEncoder encoder;
+    private final SyncPolicy policy;
+    private final long time;
+    private final String onCollision;
+    private final Thread flusher;
+    private java.util.function.Consumer<JournalWriter> onClosed;
+    private PathIndex.Builder paths;
+
+    private final Object lock = new Object();
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream(8192);
+    private ByteArrayOutputStream spare = new ByteArrayOutputStream(8192);
+    private int pendingRecords;
+    private long records;
+    private long durable;
+    private boolean syncRequested;
+    private boolean closing;
+    private boolean closed;
+    private IOException failure;
+
+    JournalWriter(Path file, JournalFormat format, long time, String onCollision, SyncPolicy policy) throws IOException {
+        this(file, format.newEncoder(), time, onCollision, policy);
+    }
+
+    private JournalWriter(Path file, JournalEncoder encoder, long time, String onCollision, SyncPolicy policy)
+            throws IOException {
+        this(file, create(file, encoder.header(time, onCollision)), encoder, time, onCollision, policy, 0);
+    }
+
+    private JournalWriter(Path file, FileChannel channel, JournalEncoder encoder, long time, String onCollision,
+                          SyncPolicy policy, long records) {
+        this.file = file;
+        this.channel = channel;
+        this.encoder = encoder;
+        this.time = time;
+        this.onCollision = onCollision;
+        this.policy = policy;
+        this.records = records;
+        this.durable = records;
+        this.flusher = new Thread(this::runFlusher, "neatify-journal");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    private static FileChannel create(Path file, byte[] header) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer buf = ByteBuffer.wrap(header);
+            while (buf.hasRemaining()) channel.write(buf);
+            channel.force(true);
+            return channel;
+        } catch (IOException e) {
+            channel.close();
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Reopens the journal of an interrupted (or closed) run to append to it.
+     *
+     * The complete records are replayed through a fresh encoder, which
+     * rebuilds its state and finds where the last complete record ends; the
+     * bytes there are checked against the file, and the torn tail, or the
+     * terminator of a closed journal, is cut off.
+     *
+     * @param file run journal
+     * @param policy group-commit policy for the new records
+     * @param paths receives every replayed move, or null
+     * @throws IOException if the journal cannot be read or does not replay to its own bytes
+     */
+    static JournalWriter reopen(Path file, SyncPolicy policy, PathIndex.Builder paths) throws IOException {
+        JournalFormat format = JournalFormat.ofFileName(file.getFileName().toString());
+        if (format == null) throw new IOException("Not a run journal: " + file);
+        JournalEncoder encoder = format.newEncoder();
+        long time;
+        String onCollision;
+        byte[] header;
+        long end;
+        long records = 0;
+        try (JournalReader reader = JournalReader.open(file);
+             InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            time = reader.time();
+            onCollision = reader.onCollision();
+            header = encoder.header(time, onCollision);
+            // The header of a closed journal carries its final count; it is rewritten below
+            in.skipNBytes(header.length);
+            end = header.length;
+            ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+            for (UndoExecutor.Move m; (m = reader.next()) != null; ) {
+                record.reset();
+                encoder.encode(m.from(), m.to(), record, records == 0);
+                byte[] expected = record.toByteArray();
+                if (!Arrays.equals(in.readNBytes(expected.length), expected)) {
+                    throw new IOException("Journal " + file + " cannot be continued: record " + records + " differs");
+                }
+                if (paths != null) paths.add(m.from(), m.to());
+                end += expected.length;
+                records++;
+            }
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        try {
+            channel.truncate(end);
+            ByteBuffer buf = ByteBuffer.wrap(header);
+            while (buf.hasRemaining()) channel.write(buf, buf.position());
+            channel.position(end);
+            channel.force(true);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        logger.info("Continuing journal {} after {} move(s)", file, records);
+        return new JournalWriter(file, channel, encoder, time, onCollision, policy, records);
+    }
+
+    /** Registers a callback run after a successful close that kept the journal. */
+    void onClosed(java.util.function.Consumer<JournalWriter> callback) {
+        this.onClosed = callback;
+    }
+
+    /** Feeds every appended move to a reverse path index builder. */
+    void indexPaths(PathIndex.Builder builder) {
+        this.paths = builder;
+    }
+
+    /** @return the journal file, or null once closed without any recorded move */
+    public Path file() {
+        synchronized (lock) {
+            return closed && records == 0 ? null : file;
+        }
+    }
+
+    /** @return number of moves recorded so far */
+    public long records() {
+        synchronized (lock) {
+            return records;
+        }
+    }
+
+    /** @return number of moves written and synced so far; the rest are still in the open group */
+    public long durable() {
+        synchronized (lock) {
+            return durable;
+        }
+    }
+
+    /** @return time the run started, as recorded in the journal header */
+    long time() {
+        return time;
+    }
+
+    /** @return collision strategy recorded in the journal header */
+    String onCollision() {
+        return onCollision;
+    }
+
+    /**
+     * Writes and syncs every move appended so far without waiting for the
+     * group to fill up.
+     *
+     * @throws IOException if a group could not be written
+     */
+    public void sync() throws IOException {
+        synchronized (lock) {
+            long target = records;
+            syncRequested = true;
+            lock.notifyAll();
+            while (durable < target && failure == null && !closed) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while syncing journal " + file);
+                }
+            }
+            if (failure != null) throw failure;
+        }
+    }
+
+    @Override
+    public void onMoved(Path source, Path finalTarget) {
+        append(source, finalTarget);
+    }
+
+    /**
+     * Refuses the next move once a group failed to write or the journal is
+     * closing, so no file moves without an undo record.
+     */
+    @Override
+    public void beforeMove(Path source) throws IOException {
+        synchronized (lock) {
+            if (failure != null) throw new IOException("Undo journal " + file + " cannot be written", failure);
+            if (closing) throw new IOException("Undo journal " + file + " is closed");
+        }
+    }
+
+    /**
+     * Appends one move to the journal; the record becomes durable with its group.
+     *
+     * @throws UncheckedIOException if the journal no longer accepts records
+     */
+    public void append(Path from, Path to) {
+        synchronized (lock) {
+            if (closing || failure != null) {
+                logger.error("Journal {} not accepting records, move {} -> {} has no undo record", file, from, to);
+                throw new UncheckedIOException(failure != null ? failure
+                    : new IOException("Undo journal " + file + " is closed"));
+            }
+            while (pending.size() > MAX_PENDING_BYTES && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (failure != null) throw new UncheckedIOException(failure);
+            encoder.encode(from.toAbsolutePath(), to.toAbsolutePath(), pending, records == 0);
+            if (paths != null) paths.add(from, to);
+            pendingRecords++;
+            records++;
+            if (pendingRecords >= policy.maxRecords()) lock.notifyAll();
+        }
+    }
+
+    /**
+     * Flushes the remaining group, finalizes the journal and releases the file.
+     * A journal that recorded no move is deleted.
+     *
+     * @throws IOException if any group could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) return;
+            closing = true;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        IOException error;
+        synchronized (lock) {
+            error = failure;
+            closed = true;
+        }
+        try {
+            if (error == null) {
+                encoder.finish(channel, records());
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            channel.close();
+        }
+        if (error != null) throw error;
+        if (records() == 0) {
+            Files.deleteIfExists(file);
+        } else if (onClosed != null) {
+            onClosed.accept(this);
+        }
+    }
+
+    private void runFlusher() {
+        while (true) {
+            ByteArrayOutputStream batch;
+            int batchRecords;
+            synchronized (lock) {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(policy.maxDelayMillis());
+                while (!closing && !syncRequested && pendingRecords < policy.maxRecords()) {
+                    long waitNanos = deadline - System.nanoTime();
+                    if (waitNanos <= 0) break;
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(lock, waitNanos);
+                    } catch (InterruptedException e) {
+                        closing = true;
+                    }
+                }
+                syncRequested = false;
+                if (pendingRecords == 0) {
+                    if (closing) return;
+                    continue;
+                }
+                batch = pending;
+                pending = spare;
+                spare = null;
+                batchRecords = pendingRecords;
+                pendingRecords = 0;
+                lock.notifyAll();
+            }
+            try {
+                writeFully(batch.toByteArray());
+                channel.force(false);
+            } catch (IOException e) {
+                logger.error("Failed to write undo journal {}: {}", file, e.getMessage(), e);
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+            synchronized (lock) {
+                batch.reset();
+                spare = batch;
+                durable += batchRecords;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void writeFully(byte[] bytes) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package io.neatify.cli.core;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Streaming JSON layout: same document shape as the historical run files,
+ * one move per line, so a file truncated by a crash is still readable up
+ * to its last complete record.
+ */
+final class JsonJournalEncoder implements JournalEncoder {
+
+    private static final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+
+    @Override
+    public byte[] header(long time, String onCollision) {
+        String h = "{\"time\":" + time + ",\"onCollision\":" + gson.toJson(onCollision) + ",\"moves\":[";
+        return h.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void encode(Path from, Path to, ByteArrayOutputStream out, boolean first) {
+        String rec = (first ? "" : ",") + "\n{\"from\":" + gson.toJson(from.toString())
+            + ",\"to\":" + gson.toJson(to.toString()) + "}";
+        out.writeBytes(rec.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void finish(FileChannel channel, long records) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap("\n]}\n".getBytes(StandardCharsets.UTF_8));
+        while (buf.hasRemaining()) channel.write(buf);
+    }
+}
@@ -0,0 +1,101 @@
+package io.neatify.cli.core;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Reads JSON run journals incrementally with Gson's {@link JsonReader}.
+ * Accepts both the streamed layout and the older pretty-printed documents.
+ */
+final class JsonJournalReader extends JournalReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonJournalReader.class);
+
+    private final JsonReader reader;
+    private boolean inMoves;
+    private boolean done;
+
+    private JsonJournalReader(Path file, BufferedReader in) {
+        super(file);
+        this.reader = new JsonReader(in);
+    }
+
+    static JsonJournalReader open(Path file) throws IOException {
+        JsonJournalReader r = new JsonJournalReader(file, Files.newBufferedReader(file, StandardCharsets.UTF_8));
+        try {
+            r.readHeader();
+            return r;
+        } catch (IOException | RuntimeException e) {
+            r.close();
+            throw new IOException("Invalid journal " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void readHeader() throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "time" -> time = reader.nextLong();
+                case "onCollision" -> {
+                    if (reader.peek() == JsonToken.NULL) { reader.nextNull(); onCollision = null; }
+                    else onCollision = reader.nextString();
+                }
+                case "moves" -> {
+                    reader.beginArray();
+                    inMoves = true;
+                    return;
+                }
+                default -> reader.skipValue();
+            }
+        }
+        done = true;
+    }
+
+    @Override
+    UndoExecutor.Move next() {
+        if (done || !inMoves) return null;
+        try {
+            while (reader.hasNext()) {
+                String from = null;
+                String to = null;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    switch (name) {
+                        case "from" -> from = reader.nextString();
+                        case "to" -> to = reader.nextString();
+                        default -> reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                if (from != null && to != null) {
+                    return new UndoExecutor.Move(Paths.get(from), Paths.get(to));
+                }
+            }
+            reader.endArray();
+            done = true;
+            return null;
+        } catch (IOException | IllegalStateException e) {
+            // Torn tail of an interrupted run: keep what was read so far
+            logger.debug("Journal {} ends early: {}", file, e.getMessage());
+            truncated = true;
+            done = true;
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
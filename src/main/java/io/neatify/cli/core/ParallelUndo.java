@@ -0,0 +1,220 @@
+package io.neatify.cli.core;
+
+import io.neatify.core.PathSecurity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Restores a journaled run while streaming it.
+ *
+ * Moves are read incrementally and grouped into batches by original
+ * directory. Every directory is owned by a single worker, so its moves are
+ * restored in journal order while different directories proceed in parallel.
+ * A worker checks and recreates each directory once, then restores each file
+ * with a single move call, reading "already there" and "absent" from the
+ * failure instead of probing beforehand.
+ */
+final class ParallelUndo {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelUndo.class);
+
+    private static final int BATCH_SIZE = 256;
+    private static final int MAX_BUFFERED_MOVES = 64 * 1024;
+    private static final int QUEUE_CAPACITY = 16;
+    private static final long PROGRESS_INTERVAL_MILLIS = 250;
+    private static final List<UndoExecutor.Move> POISON = List.of();
+
+    private final Path root;
+    private final UndoExecutor.ProgressListener progress;
+    private final List<BlockingQueue<List<UndoExecutor.Move>>> queues = new ArrayList<>();
+    private final AtomicInteger restored = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicLong processed = new AtomicLong();
+    private final ConcurrentLinkedQueue<String> errors = new ConcurrentLinkedQueue<>();
+
+    private long total = -1;
+    private long lastReport;
+
+    private ParallelUndo(Path sourceRoot, int threads, UndoExecutor.ProgressListener progress) {
+        this.root = sourceRoot.toAbsolutePath().normalize();
+        this.progress = progress;
+        for (int i = 0; i < threads; i++) {
+            queues.add(new ArrayBlockingQueue<>(QUEUE_CAPACITY));
+        }
+    }
+
+    /**
+     * Restores every move of a journal.
+     *
+     * @param sourceRoot organized root; moves outside it are refused
+     * @param reader open journal
+     * @param threads number of restore workers
+     * @param progress progress callback, may be null
+     * @return undo result
+     */
+    static UndoExecutor.UndoResult run(Path sourceRoot, JournalReader reader, int threads,
+                                       UndoExecutor.ProgressListener progress) throws IOException {
+        return new ParallelUndo(sourceRoot, threads, progress).execute(reader);
+    }
+
+    private UndoExecutor.UndoResult execute(JournalReader reader) throws IOException {
+        total = reader.expectedMoves();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < queues.size(); i++) {
+            BlockingQueue<List<UndoExecutor.Move>> q = queues.get(i);
+            Thread t = new Thread(() -> work(q), "neatify-undo-" + i);
+            t.setDaemon(true);
+            t.start();
+            workers.add(t);
+        }
+
+        long read = 0;
+        try {
+            Map<Path, List<UndoExecutor.Move>> buffers = new HashMap<>();
+            int buffered = 0;
+            UndoExecutor.Move m;
+            while ((m = reader.next()) != null) {
+                read++;
+                Path dir = m.from().toAbsolutePath().normalize().getParent();
+                List<UndoExecutor.Move> batch = buffers.computeIfAbsent(dir, d -> new ArrayList<>(BATCH_SIZE));
+                batch.add(m);
+                buffered++;
+                if (batch.size() >= BATCH_SIZE) {
+                    buffers.remove(dir);
+                    dispatch(dir, batch);
+                    buffered -= batch.size();
+                }
+                if (buffered >= MAX_BUFFERED_MOVES) {
+                    buffers.forEach(this::dispatch);
+                    buffers.clear();
+                    buffered = 0;
+                }
+                report(false);
+            }
+            buffers.forEach(this::dispatch);
+        } finally {
+            for (BlockingQueue<List<UndoExecutor.Move>> q : queues) put(q, POISON);
+        }
+        if (reader.isTruncated()) {
+            logger.warn("Run journal was interrupted, undoing its {} recorded move(s)", read);
+        }
+
+        for (Thread t : workers) {
+            while (t.isAlive()) {
+                try {
+                    t.join(PROGRESS_INTERVAL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Undo interrupted", e);
+                }
+                report(false);
+            }
+        }
+        report(true);
+        return new UndoExecutor.UndoResult(restored.get(), skipped.get(), new ArrayList<>(errors));
+    }
+
+    private void dispatch(Path dir, List<UndoExecutor.Move> batch) {
+        int slot = Math.floorMod(dir == null ? 0 : dir.hashCode(), queues.size());
+        put(queues.get(slot), batch);
+    }
+
+    private static void put(BlockingQueue<List<UndoExecutor.Move>> q, List<UndoExecutor.Move> batch) {
+        try {
+            q.put(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Undo interrupted", e);
+        }
+    }
+
+    private void report(boolean done) {
+        if (progress == null) return;
+        long now = System.currentTimeMillis();
+        if (!done && now - lastReport < PROGRESS_INTERVAL_MILLIS) return;
+        lastReport = now;
+        long count = processed.get();
+        progress.onProgress(count, done ? count : total);
+    }
+
+    private void work(BlockingQueue<List<UndoExecutor.Move>> queue) {
+        // Directories checked and recreated by this worker: null = ready, otherwise the failure
+        Map<Path, String> dirs = new HashMap<>();
+        while (true) {
+            List<UndoExecutor.Move> batch;
+            try {
+                batch = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (batch == POISON) return;
+            for (UndoExecutor.Move m : batch) {
+                try {
+                    restore(m, dirs);
+                } catch (RuntimeException e) {
+                    // A dead worker would leave its queue full and the reader blocked on it
+                    logger.error("Failed to restore {}: {}", m.from(), e.toString(), e);
+                    fail(m.from() + ": " + e);
+                }
+                processed.incrementAndGet();
+            }
+        }
+    }
+
+    private void restore(UndoExecutor.Move m, Map<Path, String> dirs) {
+        Path from = m.from().toAbsolutePath().normalize();
+        Path to = m.to().toAbsolutePath().normalize();
+        if (!from.startsWith(root) || !to.startsWith(root)) {
+            fail("Out of scope: " + from + " / " + to);
+            return;
+        }
+        Path dir = from.getParent();
+        String dirError = dirs.computeIfAbsent(dir, this::prepareDirectory);
+        if (dirError != null) {
+            fail(dirError);
+            return;
+        }
+        try {
+            Files.move(to, from);
+            restored.incrementAndGet();
+        } catch (FileAlreadyExistsException e) {
+            skipped.incrementAndGet();
+        } catch (NoSuchFileException e) {
+            fail("Absent: " + to);
+        } catch (IOException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    /** @return null when the directory is usable, else the error to report for its moves */
+    private String prepareDirectory(Path dir) {
+        try {
+            PathSecurity.assertNoSymlinkInAncestry(dir);
+            Files.createDirectories(dir);
+            return null;
+        } catch (IOException | SecurityException e) {
+            return e.getMessage() != null ? e.getMessage() : e.toString();
+        }
+    }
+
+    private void fail(String error) {
+        skipped.incrementAndGet();
+        errors.add(error);
+    }
+}
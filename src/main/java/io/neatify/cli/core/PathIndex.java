@@ -0,0 +1,189 @@
+package io.neatify.cli.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reverse path index of journaled runs ({@code .neatify/paths/<time>.pidx}).
+ *
+ * Each run gets a sorted array of 64-bit hashes of every original and target
+ * path it recorded, plus their parent folders inside the root. Looking up a
+ * file or folder is a binary search over each memory-mapped key file, so only
+ * the journals that may mention it have to be read. Hash collisions only
+ * produce extra candidates; callers confirm against the journal itself.
+ */
+final class PathIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PathIndex.class);
+
+    static final String EXTENSION = ".pidx";
+    private static final byte[] MAGIC = {'N', 'P', 'I', 'X'};
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    private PathIndex() { }
+
+    static Path pathsDir(Path sourceRoot) {
+        return UndoExecutor.neatifyDir(sourceRoot).resolve("paths");
+    }
+
+    private static Path indexFile(Path sourceRoot, long time) {
+        return pathsDir(sourceRoot).resolve(time + EXTENSION);
+    }
+
+    /**
+     * Index key of a path: relative to the root with {@code /} separators,
+     * or the absolute path when it lies outside the root.
+     */
+    static String key(Path root, Path path) {
+        Path abs = path.toAbsolutePath().normalize();
+        if (!abs.startsWith(root)) return abs.toString();
+        String rel = root.relativize(abs).toString();
+        return abs.getFileSystem().getSeparator().equals("/") ? rel : rel.replace(abs.getFileSystem().getSeparator(), "/");
+    }
+
+    /** 64-bit FNV-1a over the key characters, finalized with a murmur mix. */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /** Collects keys of one run as its moves are journaled. Not thread-safe. */
+    static final class Builder {
+        private final Path root;
+        private final Set<String> folders = new HashSet<>();
+        private long[] hashes = new long[1024];
+        private int size;
+
+        Builder(Path sourceRoot) {
+            this.root = sourceRoot.toAbsolutePath().normalize();
+        }
+
+        void add(Path from, Path to) {
+            addPath(key(root, from));
+            addPath(key(root, to));
+        }
+
+        private void addPath(String key) {
+            addHash(hash(key));
+            // Parent folders are shared by many moves: index each once
+            for (int slash = key.lastIndexOf('/'); slash > 0; slash = key.lastIndexOf('/', slash - 1)) {
+                String folder = key.substring(0, slash);
+                if (!folders.add(folder)) break;
+                addHash(hash(folder));
+            }
+        }
+
+        private void addHash(long h) {
+            if (size == hashes.length) hashes = Arrays.copyOf(hashes, size * 2);
+            hashes[size++] = h;
+        }
+
+        /** @return sorted, distinct hashes */
+        long[] keys() {
+            long[] sorted = Arrays.copyOf(hashes, size);
+            Arrays.sort(sorted);
+            int n = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (n == 0 || sorted[i] != sorted[n - 1]) sorted[n++] = sorted[i];
+            }
+            return Arrays.copyOf(sorted, n);
+        }
+    }
+
+    /** Writes the key file of a run, replacing any previous one. */
+    static void write(Path sourceRoot, long time, Builder builder) {
+        Path file = indexFile(sourceRoot, time);
+        long[] keys = builder.keys();
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + keys.length * Long.BYTES);
+            buf.put(MAGIC).put((byte) VERSION).put(new byte[3]).putLong(keys.length);
+            buf.asLongBuffer().put(keys);
+            buf.rewind();
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+                while (buf.hasRemaining()) ch.write(buf);
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // Without a key file the run is simply always scanned
+            logger.warn("Failed to write path index {}: {}", file, e.getMessage());
+        }
+    }
+
+    /** Forgets the keys of a run that no longer exists. */
+    static void remove(Path sourceRoot, long time) {
+        try {
+            Files.deleteIfExists(indexFile(sourceRoot, time));
+        } catch (IOException e) {
+            logger.debug("Failed to delete path index of run {}: {}", time, e.getMessage());
+        }
+    }
+
+    /**
+     * Tells whether a run may mention a key.
+     *
+     * @return false only if the run's key file proves it does not; runs
+     *         without a readable key file are always candidates
+     */
+    static boolean mayContain(Path sourceRoot, long time, String key) {
+        Path file = indexFile(sourceRoot, time);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_SIZE) return true;
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            byte[] magic = new byte[MAGIC.length];
+            map.get(magic);
+            if (!Arrays.equals(magic, MAGIC) || map.get() != VERSION) return true;
+            long count = map.getLong(8);
+            if (HEADER_SIZE + count * Long.BYTES > ch.size()) return true;
+            LongBuffer keys = map.position(HEADER_SIZE).slice().asLongBuffer();
+            return binarySearch(keys, (int) count, hash(key));
+        } catch (NoSuchFileException e) {
+            return true;
+        } catch (IOException e) {
+            logger.debug("Unreadable path index {}: {}", file, e.getMessage());
+            return true;
+        }
+    }
+
+    private static boolean binarySearch(LongBuffer keys, int count, long target) {
+        int lo = 0;
+        int hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long v = keys.get(mid);
+            if (v < target) lo = mid + 1;
+            else if (v > target) hi = mid - 1;
+            else return true;
+        }
+        return false;
+    }
+}
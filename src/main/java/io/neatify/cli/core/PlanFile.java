@@ -0,0 +1,212 @@
+package io.neatify.cli.core;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import io.neatify.cli.util.JsonLineWriter;
+import io.neatify.core.FileMover;
+import io.neatify.core.PathSecurity;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Saved plans ({@code --plan-out}, {@code --apply-plan}).
+ *
+ * A plan file is NDJSON: a {@code header} line with the absolute root, then
+ * one {@code action} line per planned move with source and target relative
+ * to the root, and the size, modification time and file key the source had
+ * when it was planned. Applying a plan only stats each source instead of
+ * walking the tree again; sources that changed since are left alone.
+ */
+public final class PlanFile {
+
+    private static final int VERSION = 1;
+
+    private PlanFile() { }
+
+    /** A loaded plan: actions still valid, and why the others were dropped. */
+    public record Loaded(List<FileMover.Action> actions, List<String> stale) {}
+
+    /**
+     * Writes planned actions as the walk reports them.
+     * Use it as the {@link FileMover.PlanListener} of the plan.
+     */
+    public static final class Writer implements FileMover.PlanListener, Closeable {
+        private final Path root;
+        private final JsonLineWriter out;
+        private long count;
+
+        /**
+         * @param file plan file, replaced if it exists
+         * @param sourceRoot planned root
+         */
+        public Writer(Path file, Path sourceRoot) throws IOException {
+            this.root = sourceRoot.toAbsolutePath().normalize();
+            this.out = new JsonLineWriter(FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+            out.begin("header").field("version", VERSION).field("root", root.toString())
+                .field("time", System.currentTimeMillis()).end();
+        }
+
+        @Override
+        public void onPlanned(FileMover.Action action, BasicFileAttributes attrs) {
+            Object key = attrs.fileKey();
+            out.begin("action")
+                .field("source", relative(action.source()))
+                .field("target", relative(action.target()))
+                .field("reason", action.reason())
+                .field("size", attrs.size())
+                .field("mtime", attrs.lastModifiedTime().toMillis())
+                .field("fileKey", key == null ? null : key.toString())
+                .end();
+            count++;
+        }
+
+        /** @return number of actions written */
+        public long count() { return count; }
+
+        private String relative(Path p) {
+            return root.relativize(p.toAbsolutePath().normalize()).toString().replace('\\', '/');
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Loads a plan for a root, checking each entry against the file system.
+     *
+     * Entries are resolved with {@link PathSecurity#safeResolveWithin} so a
+     * plan cannot reach outside the root or into {@code .neatify}. An entry
+     * whose source is gone, is no longer a regular file, or has a different
+     * size, modification time or file key is reported as stale.
+     *
+     * @param file plan file
+     * @param sourceRoot root the plan is applied to; must be the planned root
+     * @return valid actions and stale entries
+     * @throws IllegalArgumentException if the file is not a plan for this root
+     * @throws SecurityException if an entry escapes the root
+     */
+    public static Loaded load(Path file, Path sourceRoot) throws IOException {
+        Path root = sourceRoot.toAbsolutePath().normalize();
+        List<FileMover.Action> actions = new ArrayList<>();
+        List<String> stale = new ArrayList<>();
+        Set<Path> checkedDirs = new HashSet<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            JsonObject header = parse(reader.readLine(), file, 1);
+            if (!"header".equals(string(header, "event")) || number(header, "version", file, 1) != VERSION) {
+                throw new IllegalArgumentException("Not a Neatify plan file: " + file);
+            }
+            if (!root.toString().equals(string(header, "root"))) {
+                throw new IllegalArgumentException("Plan was made for " + string(header, "root") + ", not " + root);
+            }
+            String line;
+            int lineNo = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) continue;
+                JsonObject entry = parse(line, file, lineNo);
+                if (!"action".equals(string(entry, "event"))) continue;
+                Path source = resolve(root, text(entry, "source", file, lineNo));
+                Path target = resolve(root, text(entry, "target", file, lineNo));
+                String reason = text(entry, "reason", file, lineNo);
+                long size = number(entry, "size", file, lineNo);
+                long mtime = number(entry, "mtime", file, lineNo);
+                String change = checkUnchanged(source, size, mtime, string(entry, "fileKey"));
+                if (change == null && checkedDirs.add(source.getParent())) {
+                    PathSecurity.assertNoSymlinkInAncestry(source.getParent());
+                }
+                if (change != null) {
+                    stale.add(change + ": " + source);
+                } else {
+                    actions.add(new FileMover.Action(source, target, reason));
+                }
+            }
+        }
+        return new Loaded(actions, stale);
+    }
+
+    static JsonObject parse(String line, Path file, int lineNo) {
+        if (line == null) throw new IllegalArgumentException("Empty plan file: " + file);
+        try {
+            return JsonParser.parseString(line).getAsJsonObject();
+        } catch (JsonParseException | IllegalStateException e) {
+            throw invalid(file, lineNo, e.getMessage());
+        }
+    }
+
+    static String string(JsonObject o, String name) {
+        JsonElement e = o.get(name);
+        return e == null || e.isJsonNull() ? null : e.getAsString();
+    }
+
+    /** @return a field every entry has; a hand-edited plan may have lost it */
+    static String text(JsonObject o, String name, Path file, int lineNo) {
+        String value;
+        try {
+            value = string(o, name);
+        } catch (UnsupportedOperationException | IllegalStateException e) {
+            value = null;
+        }
+        if (value == null) throw invalid(file, lineNo, "missing '" + name + "'");
+        return value;
+    }
+
+    static long number(JsonObject o, String name, Path file, int lineNo) {
+        JsonElement e = o.get(name);
+        if (e == null || e.isJsonNull()) throw invalid(file, lineNo, "missing '" + name + "'");
+        try {
+            return e.getAsLong();
+        } catch (NumberFormatException | UnsupportedOperationException | IllegalStateException ex) {
+            throw invalid(file, lineNo, "'" + name + "' is not a number");
+        }
+    }
+
+    private static IllegalArgumentException invalid(Path file, int lineNo, String problem) {
+        return new IllegalArgumentException("Invalid plan file " + file + " at line " + lineNo + ": " + problem);
+    }
+
+    static Path resolve(Path root, String relative) {
+        if (relative == null) throw new IllegalArgumentException("Plan entry without path");
+        Path resolved = PathSecurity.safeResolveWithin(root, relative);
+        Path rel = root.relativize(resolved);
+        if (rel.getNameCount() == 0 || rel.getName(0).toString().equals(".neatify")) {
+            throw new SecurityException("Plan entry targets a reserved location: " + relative);
+        }
+        return resolved;
+    }
+
+    /** @return null if the source still matches the plan, otherwise what changed */
+    private static String checkUnchanged(Path source, long size, long mtime, String key) throws IOException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(source, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return "Missing";
+        }
+        if (!attrs.isRegularFile()) return "Not a regular file";
+        if (attrs.size() != size) return "Size changed";
+        if (attrs.lastModifiedTime().toMillis() != mtime) return "Modified";
+        Object current = attrs.fileKey();
+        if (key != null && current != null && !Objects.equals(key, current.toString())) return "Replaced";
+        return null;
+    }
+}
@@ -1,19 +1,35 @@
 package io.neatify.cli.core;
 
 import io.neatify.core.PathSecurity;
+import io.neatify.core.Rules;
+import io.neatify.core.TreeAnalytics;
 
 import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 import static io.neatify.cli.ui.Display.*;
 
 /**
- * Handles creating rules files in interactive mode.
+ * Handles creating rules files in interactive mode, and writing rules
+ * suggested by an analysis of a tree ({@code --suggest-rules}).
  */
 public final class RulesFileCreator {
 
+    /** Files an extension needs before a rule is suggested for it. */
+    static final int SUGGEST_MIN_FILES = 2;
+
+    /** Extensions usable as a plain rule key as they are. */
+    private static final Pattern RULE_KEY = Pattern.compile("[a-z0-9_+-]{1,16}");
+
     private RulesFileCreator() {
         // Utility class
     }
@@ -103,6 +119,70 @@ public final class RulesFileCreator {
             """;
     }
 
+    /**
+     * Builds a rules file, in the format of the interactive template, from
+     * the extensions found in a tree: an extension keeps its current rule,
+     * or gets the built-in default folder, or {@code Other/<ext>}. Folders
+     * are grouped most files first; rare extensions are left out.
+     *
+     * @param report analysis of the tree
+     * @param current plain extension rules the analysis ran with
+     * @return file content
+     */
+    public static String suggestedContent(TreeAnalytics.Report report, Map<String, String> current) {
+        Map<String, String> defaults = Rules.getDefaults();
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        Map<String, Long> groupFiles = new LinkedHashMap<>();
+        List<String> left = new ArrayList<>();
+        for (TreeAnalytics.ExtensionStat e : report.extensions()) {
+            String ext = e.extension();
+            if (!RULE_KEY.matcher(ext).matches()) continue;
+            if (e.files() < SUGGEST_MIN_FILES) {
+                left.add(ext);
+                continue;
+            }
+            String folder = current.getOrDefault(ext, defaults.get(ext));
+            if (folder == null) folder = "Other/" + ext;
+            groups.computeIfAbsent(folder, k -> new ArrayList<>()).add(ext);
+            groupFiles.merge(folder, e.files(), Long::sum);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("# Neatify organization rules\n");
+        sb.append("# Format: extension=TargetFolder\n");
+        sb.append("# Suggested from ").append(report.files()).append(" file(s) in ").append(report.dirs())
+            .append(" folder(s)\n");
+        groups.keySet().stream()
+            .sorted((a, b) -> Long.compare(groupFiles.get(b), groupFiles.get(a)))
+            .forEach(folder -> {
+                sb.append("\n# ").append(folder).append(" (").append(groupFiles.get(folder)).append(" files)\n");
+                for (String ext : groups.get(folder)) sb.append(ext).append('=').append(folder).append('\n');
+            });
+        if (!left.isEmpty()) {
+            sb.append("\n# Seen once, no rule suggested: ")
+                .append(String.join(", ", left.subList(0, Math.min(20, left.size()))))
+                .append(left.size() > 20 ? ", ..." : "").append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes suggested rules to a new file.
+     *
+     * @throws IllegalArgumentException if the file already exists
+     * @throws SecurityException if a parent folder is a symbolic link
+     */
+    public static void writeSuggested(Path rulesFile, String content) throws IOException {
+        Path target = rulesFile.toAbsolutePath().normalize();
+        PathSecurity.assertNoSymlinkInAncestry(target);
+        if (target.getParent() != null) Files.createDirectories(target.getParent());
+        try {
+            Files.writeString(target, content, StandardOpenOption.CREATE_NEW);
+        } catch (FileAlreadyExistsException e) {
+            throw new IllegalArgumentException("File already exists: " + rulesFile);
+        }
+    }
+
     private static void createParentDirectoryIfNeeded(Path rulesFile) throws IOException {
         Path parentDir = rulesFile.getParent();
         if (parentDir != null && !Files.exists(parentDir)) {
@@ -124,9 +204,9 @@ public final class RulesFileCreator {
         // SECURITY: Atomic write via CREATE_NEW (anti-TOCTOU)
         try {
             Files.writeString(rulesFile, content,
-                java.nio.file.StandardOpenOption.CREATE_NEW);
+                StandardOpenOption.CREATE_NEW);
             return true;
-        } catch (java.nio.file.FileAlreadyExistsException e) {
+        } catch (FileAlreadyExistsException e) {
             // If we get here, another process created the file meanwhile (race condition)
             printError("SECURITY: File was created by another process");
             waitForEnter();
@@ -0,0 +1,376 @@
+package io.neatify.cli.core;
+
+import com.google.gson.JsonObject;
+import io.neatify.cli.util.JsonLineWriter;
+import io.neatify.core.FileMover;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Crash-safe apply ({@code --resume}).
+ *
+ * Before the first move the plan is saved in {@code .neatify/resume}, with a
+ * cursor naming the run journal. Moves then run in chunks: the identity
+ * (size, modification time, file key) of each source of a chunk is appended
+ * to an in-flight list before it runs. The journal syncs on its own group
+ * commit policy; the cursor only follows it, moving past the chunks whose
+ * records the journal has made durable, so every move before the cursor is
+ * in the journal. If the process dies, a resumed run skips those, looks for
+ * the files of the chunks after the cursor by identity, and appends the
+ * rest to the same journal, so the whole logical run is still undone as one.
+ */
+public final class RunCheckpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunCheckpoint.class);
+
+    /** Moves whose identities are saved at once; the cursor advances by whole chunks. */
+    static final int CHUNK = 256;
+
+    private static final String PLAN = "plan.ndjson";
+    private static final String CURSOR = "cursor";
+    private static final String INFLIGHT = "inflight";
+
+    private RunCheckpoint() { }
+
+    /**
+     * An interrupted run.
+     *
+     * @param actions the whole plan
+     * @param done actions handled before the cursor
+     * @param journaled journal records durable when the cursor was saved
+     * @param journal journal of the run
+     * @param onCollision collision strategy of the run
+     */
+    public record Saved(List<FileMover.Action> actions, int done, long journaled, Path journal, String onCollision) {
+        /** @return actions left after the cursor */
+        public int remaining() { return actions.size() - done; }
+    }
+
+    /** @return true if {@code sourceRoot} has an interrupted run to resume */
+    public static boolean exists(Path sourceRoot) {
+        return Files.isRegularFile(dir(sourceRoot).resolve(CURSOR));
+    }
+
+    /**
+     * Applies a plan, checkpointing it so an interrupted run can be resumed.
+     *
+     * @param sourceRoot organized root
+     * @param actions moves to apply
+     * @param strategy collision strategy
+     * @param journal open journal of the run
+     * @return outcome of the moves
+     * @throws IOException if the checkpoint or the journal cannot be written
+     */
+    public static FileMover.Result apply(Path sourceRoot, List<FileMover.Action> actions,
+                                         FileMover.CollisionStrategy strategy, JournalWriter journal) throws IOException {
+        save(sourceRoot, actions, journal);
+        return run(sourceRoot, actions, 0, strategy, journal, null);
+    }
+
+    /**
+     * Continues an interrupted run from its cursor.
+     *
+     * Moves of the chunks after the cursor are checked first: one already in the
+     * journal is counted as done; one whose source is gone but whose file is
+     * found at its target (or a renamed target) was done but not journaled,
+     * and is journaled now; one whose file is found nowhere is reported as
+     * missing.
+     *
+     * @param sourceRoot organized root
+     * @param saved the interrupted run, from {@link #load}
+     * @param strategy collision strategy of the run
+     * @param journal the run's journal, reopened with {@link UndoExecutor#continueRun}
+     * @return outcome of the moves left after the cursor
+     * @throws IOException if the checkpoint or the journal cannot be written
+     */
+    public static FileMover.Result resume(Path sourceRoot, Saved saved, FileMover.CollisionStrategy strategy,
+                                          JournalWriter journal) throws IOException {
+        // Records synced after the cursor: at most the moves of the interrupted chunk
+        Set<Path> journaled = new HashSet<>();
+        if (journal.records() > saved.journaled()) {
+            try (JournalReader reader = JournalReader.open(journal.file())) {
+                long n = 0;
+                for (UndoExecutor.Move m; (m = reader.next()) != null; n++) {
+                    if (n >= saved.journaled()) journaled.add(m.from());
+                }
+            }
+        }
+        Map<Integer, String> identities = readInflight(sourceRoot, saved.done());
+        int end = identities.keySet().stream().mapToInt(i -> i + 1).max().orElse(saved.done());
+        Interrupted interrupted = new Interrupted(journaled, identities, Math.min(end, saved.actions().size()));
+        return run(sourceRoot, saved.actions(), saved.done(), strategy, journal, interrupted);
+    }
+
+    /**
+     * Loads the interrupted run of {@code sourceRoot}.
+     *
+     * @return the run, or null if there is none
+     * @throws IllegalArgumentException if the checkpoint is damaged
+     * @throws SecurityException if a saved path escapes the root
+     */
+    public static Saved load(Path sourceRoot) throws IOException {
+        Path dir = dir(sourceRoot);
+        if (!exists(sourceRoot)) return null;
+        Path root = sourceRoot.toAbsolutePath().normalize();
+        String journal = null;
+        String onCollision = null;
+        int done = 0;
+        long journaled = 0;
+        for (String line : Files.readAllLines(dir.resolve(CURSOR), StandardCharsets.UTF_8)) {
+            if (line.startsWith("journal=")) journal = line.substring(8);
+            else if (line.startsWith("onCollision=")) onCollision = line.substring(12);
+            else if (line.startsWith("done=")) done = Integer.parseInt(line.substring(5));
+            else if (line.startsWith("journaled=")) journaled = Long.parseLong(line.substring(10));
+        }
+        if (journal == null || journal.contains("/") || journal.contains("\\")) {
+            throw new IllegalArgumentException("Damaged resume cursor in " + dir);
+        }
+
+        List<FileMover.Action> actions = new ArrayList<>();
+        Path plan = dir.resolve(PLAN);
+        try (BufferedReader reader = Files.newBufferedReader(plan, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) continue;
+                JsonObject entry = PlanFile.parse(line, plan, lineNo);
+                if (!"action".equals(PlanFile.string(entry, "event"))) continue;
+                actions.add(new FileMover.Action(PlanFile.resolve(root, PlanFile.text(entry, "source", plan, lineNo)),
+                    PlanFile.resolve(root, PlanFile.text(entry, "target", plan, lineNo)),
+                    PlanFile.text(entry, "reason", plan, lineNo)));
+            }
+        }
+        if (done > actions.size()) throw new IllegalArgumentException("Damaged resume cursor in " + dir);
+        return new Saved(actions, done, journaled, UndoExecutor.runsDir(sourceRoot).resolve(journal), onCollision);
+    }
+
+    /**
+     * Forgets the interrupted run of {@code sourceRoot}.
+     *
+     * @throws IOException if the checkpoint cannot be deleted
+     */
+    public static void clear(Path sourceRoot) throws IOException {
+        Path dir = dir(sourceRoot);
+        Files.deleteIfExists(dir.resolve(CURSOR));
+        Files.deleteIfExists(dir.resolve(INFLIGHT));
+        Files.deleteIfExists(dir.resolve(PLAN));
+        try {
+            Files.deleteIfExists(dir);
+        } catch (DirectoryNotEmptyException e) {
+            // Holds something else, e.g. a cursor being written by another run
+        }
+    }
+
+    // ==== Execution ====
+
+    private static final class Tally {
+        int moved;
+        int skipped;
+        final List<String> errors = new ArrayList<>();
+
+        void add(FileMover.Result r) {
+            moved += r.moved();
+            skipped += r.skipped();
+            errors.addAll(r.errors());
+        }
+    }
+
+    /** What a resumed run knows about the chunks after the cursor, up to {@code end}. */
+    private record Interrupted(Set<Path> journaled, Map<Integer, String> identities, int end) {}
+
+    private static FileMover.Result run(Path sourceRoot, List<FileMover.Action> actions, int from,
+                                        FileMover.CollisionStrategy strategy, JournalWriter journal,
+                                        Interrupted interrupted) throws IOException {
+        Tally tally = new Tally();
+        // Chunks run but not yet behind the cursor: action index after each, journal records after it
+        Deque<long[]> ahead = new ArrayDeque<>();
+        int done = from;
+        if (interrupted != null && interrupted.end() > from) {
+            // Their identities are already saved
+            List<FileMover.Action> left = settle(actions.subList(from, interrupted.end()), from, strategy,
+                interrupted, journal, tally);
+            tally.add(FileMover.execute(left, false, strategy, journal));
+            done = interrupted.end();
+            ahead.add(new long[] {done, journal.records()});
+        }
+        while (done < actions.size()) {
+            int end = Math.min(actions.size(), done + CHUNK);
+            List<FileMover.Action> chunk = actions.subList(done, end);
+            writeInflight(sourceRoot, chunk, done);
+            tally.add(FileMover.execute(chunk, false, strategy, journal));
+            done = end;
+            ahead.add(new long[] {done, journal.records()});
+            advance(sourceRoot, journal, ahead);
+        }
+        journal.sync();
+        clear(sourceRoot);
+        return new FileMover.Result(tally.moved, tally.skipped, tally.errors);
+    }
+
+    /** Moves the cursor past the chunks whose journal records are durable. */
+    private static void advance(Path sourceRoot, JournalWriter journal, Deque<long[]> ahead) throws IOException {
+        long durable = journal.durable();
+        long[] passed = null;
+        while (!ahead.isEmpty() && ahead.peek()[1] <= durable) passed = ahead.poll();
+        if (passed != null) writeCursor(sourceRoot, journal, (int) passed[0], passed[1]);
+    }
+
+    /** @return the moves after the cursor that are still to do */
+    private static List<FileMover.Action> settle(List<FileMover.Action> chunk, int first,
+                                                 FileMover.CollisionStrategy strategy, Interrupted interrupted,
+                                                 JournalWriter journal, Tally tally) {
+        List<FileMover.Action> left = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            FileMover.Action a = chunk.get(i);
+            if (interrupted.journaled().contains(a.source().toAbsolutePath())) {
+                tally.moved++;
+                continue;
+            }
+            if (Files.exists(a.source(), LinkOption.NOFOLLOW_LINKS)) {
+                left.add(a);
+                continue;
+            }
+            Path moved = find(a.target(), interrupted.identities().get(first + i), strategy);
+            if (moved != null) {
+                logger.info("[RESUMED] {} was moved to {} before the interruption", a.source(), moved);
+                journal.append(a.source(), moved);
+                tally.moved++;
+            } else {
+                tally.skipped++;
+                tally.errors.add("Missing: " + a.source());
+            }
+        }
+        return left;
+    }
+
+    /** @return where a moved file landed: its target or, when renaming, a numbered variant; null if not found */
+    private static Path find(Path target, String identity, FileMover.CollisionStrategy strategy) {
+        if (identity == null) return null;
+        if (identity.equals(identity(target))) return target;
+        if (strategy != FileMover.CollisionStrategy.RENAME) return null;
+        String name = target.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String ext = dot > 0 ? name.substring(dot) : "";
+        for (int n = 1; ; n++) {
+            Path candidate = target.resolveSibling(base + "_" + n + ext);
+            String id = identity(candidate);
+            if (id == null) return null;
+            if (id.equals(identity)) return candidate;
+        }
+    }
+
+    /** @return size, modification time and file key of a regular file, or null */
+    private static String identity(Path file) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            if (!attrs.isRegularFile()) return null;
+            return attrs.size() + "/" + attrs.lastModifiedTime().toMillis() + "/" + attrs.fileKey();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // ==== Storage ====
+
+    private static Path dir(Path sourceRoot) {
+        return UndoExecutor.neatifyDir(sourceRoot).resolve("resume");
+    }
+
+    static void save(Path sourceRoot, List<FileMover.Action> actions, JournalWriter journal) throws IOException {
+        Path dir = dir(sourceRoot);
+        Files.createDirectories(dir);
+        // A new run replaces any interrupted one; its plan is only valid with its cursor
+        Files.deleteIfExists(dir.resolve(CURSOR));
+        Files.deleteIfExists(dir.resolve(INFLIGHT));
+        Path root = sourceRoot.toAbsolutePath().normalize();
+        try (JsonLineWriter out = new JsonLineWriter(FileChannel.open(dir.resolve(PLAN), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+            for (FileMover.Action a : actions) {
+                out.begin("action")
+                    .field("source", relative(root, a.source()))
+                    .field("target", relative(root, a.target()))
+                    .field("reason", a.reason())
+                    .end();
+            }
+        }
+        try (FileChannel plan = FileChannel.open(dir.resolve(PLAN), StandardOpenOption.WRITE)) {
+            plan.force(true);
+        }
+        writeCursor(sourceRoot, journal, 0, journal.records());
+        try (FileChannel cursor = FileChannel.open(dir.resolve(CURSOR), StandardOpenOption.WRITE)) {
+            cursor.force(true);
+        }
+    }
+
+    /**
+     * Appends the identity of each source of a chunk before it runs. Not
+     * synced: it outlives a crash of the process, and after a power loss a
+     * move it lost is reported as missing, its file left at the target.
+     */
+    static void writeInflight(Path sourceRoot, List<FileMover.Action> chunk, int first) throws IOException {
+        List<String> lines = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            String id = identity(chunk.get(i).source());
+            if (id != null) lines.add((first + i) + "=" + id);
+        }
+        Files.write(dir(sourceRoot).resolve(INFLIGHT), lines, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static Map<Integer, String> readInflight(Path sourceRoot, int first) throws IOException {
+        Map<Integer, String> ids = new HashMap<>();
+        Path file = dir(sourceRoot).resolve(INFLIGHT);
+        if (!Files.isRegularFile(file)) return ids;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            int eq = line.indexOf('=');
+            if (eq <= 0) continue;
+            int index = Integer.parseInt(line.substring(0, eq));
+            // Chunks before the cursor are in the journal already
+            if (index >= first) ids.put(index, line.substring(eq + 1));
+        }
+        return ids;
+    }
+
+    /**
+     * Replaces the cursor. Not synced: the rename is atomic, and a cursor
+     * lost with a power loss only makes a resumed run check more moves.
+     */
+    static void writeCursor(Path sourceRoot, JournalWriter journal, int done, long journaled) throws IOException {
+        Path dir = dir(sourceRoot);
+        List<String> lines = List.of(
+            "# Neatify interrupted run; continue with --resume",
+            "journal=" + journal.file().getFileName(),
+            "onCollision=" + journal.onCollision(),
+            "done=" + done,
+            "journaled=" + journaled);
+        Path tmp = dir.resolve(CURSOR + ".tmp");
+        Files.write(tmp, lines, StandardCharsets.UTF_8);
+        Files.move(tmp, dir.resolve(CURSOR), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String relative(Path root, Path p) {
+        return root.relativize(p.toAbsolutePath().normalize()).toString().replace('\\', '/');
+    }
+}
@@ -0,0 +1,306 @@
+package io.neatify.cli.core;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Small metadata index of journaled runs ({@code .neatify/index.json}).
+ *
+ * Listing runs and picking the last one only read this file plus the names
+ * and sizes of the run files, never the move payloads. The index is updated
+ * when a run is closed, archived or undone, and rebuilt from the journal
+ * headers and archive segments when it is missing, unreadable or no longer
+ * matches the runs and archive directories.
+ */
+final class RunIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunIndex.class);
+    private static final Gson gson = new Gson();
+    private static final String FILE_NAME = "index.json";
+    private static final int VERSION = 1;
+
+    private RunIndex() { }
+
+    // JSON DTOs for Gson serialization
+    private static final class Entry {
+        String file;
+        long time;
+        String onCollision;
+        long moves;
+        long size;
+        boolean broken;
+        /** Segment holding the run, null for a live journal */
+        String archive;
+    }
+
+    private static final class Doc {
+        int version = VERSION;
+        List<Entry> runs = new ArrayList<>();
+        Map<String, Long> segments = new HashMap<>();
+    }
+
+    /** Storage used by journaled runs, as last recorded in the index. */
+    record Usage(int liveRuns, long oldestLiveTime, long totalBytes) {}
+
+    private static Path indexPath(Path sourceRoot) {
+        return UndoExecutor.neatifyDir(sourceRoot).resolve(FILE_NAME);
+    }
+
+    /**
+     * Lists indexed runs, newest first, rebuilding the index if it is stale.
+     *
+     * @param sourceRoot organized root
+     * @return run metadata
+     */
+    static synchronized List<UndoExecutor.RunMeta> list(Path sourceRoot) throws IOException {
+        Path runsDir = UndoExecutor.runsDir(sourceRoot);
+        Path archiveDir = JournalArchive.archiveDir(sourceRoot);
+        if (!Files.isDirectory(runsDir) && !Files.isDirectory(archiveDir)) return List.of();
+
+        Doc doc = read(sourceRoot);
+        Map<String, Long> onDisk = fileSizes(runsDir, UndoExecutor::isRunFile);
+        Map<String, Long> segments = fileSizes(archiveDir, JournalArchive::isSegment);
+        if (doc == null || !matches(doc, onDisk, segments)) {
+            logger.info("Run index missing or stale, rebuilding from {}", runsDir);
+            doc = rebuild(runsDir, archiveDir, onDisk, segments, doc);
+            write(sourceRoot, doc);
+        }
+
+        List<UndoExecutor.RunMeta> metas = new ArrayList<>(doc.runs.size());
+        for (Entry e : doc.runs) {
+            if (e.broken) continue;
+            Path file = e.archive == null ? runsDir.resolve(e.file) : archiveDir.resolve(e.archive);
+            metas.add(new UndoExecutor.RunMeta(e.time, e.onCollision, (int) e.moves, file));
+        }
+        metas.sort(Comparator.comparingLong(UndoExecutor.RunMeta::time).reversed());
+        return metas;
+    }
+
+    /**
+     * Records a closed run.
+     *
+     * @return storage usage after the update, or null if the index could not be updated
+     */
+    static synchronized Usage recordRun(Path sourceRoot, Path runFile, long time, String onCollision, long moves) {
+        try {
+            Doc doc = read(sourceRoot);
+            if (doc == null) doc = new Doc();
+            String name = runFile.getFileName().toString();
+            doc.runs.removeIf(e -> e.archive == null && e.file.equals(name));
+            Entry e = new Entry();
+            e.file = name;
+            e.time = time;
+            e.onCollision = onCollision;
+            e.moves = moves;
+            e.size = Files.size(runFile);
+            doc.runs.add(e);
+            write(sourceRoot, doc);
+            return usage(doc);
+        } catch (IOException e) {
+            // The next listing notices the mismatch and rebuilds
+            logger.warn("Failed to update run index: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static Usage usage(Doc doc) {
+        int live = 0;
+        long oldest = Long.MAX_VALUE;
+        long bytes = 0;
+        for (Entry e : doc.runs) {
+            if (e.archive != null) continue;
+            live++;
+            bytes += e.size;
+            if (!e.broken) oldest = Math.min(oldest, e.time);
+        }
+        for (long size : doc.segments.values()) bytes += size;
+        return new Usage(live, oldest, bytes);
+    }
+
+    /** Forgets a run whose journal was removed. */
+    static synchronized void removeRun(Path sourceRoot, Path runFile) {
+        try {
+            Doc doc = read(sourceRoot);
+            if (doc == null) return;
+            String name = runFile.getFileName().toString();
+            if (doc.runs.removeIf(e -> e.archive == null && e.file.equals(name))) {
+                write(sourceRoot, doc);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to update run index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Records the content of an archive segment, replacing what was indexed
+     * for it and dropping the live runs that were moved into it.
+     *
+     * @param segment segment file, possibly deleted when it became empty
+     * @param members runs held by the segment
+     * @param archivedRuns live run files removed by the archival
+     */
+    static synchronized void recordSegment(Path sourceRoot, Path segment, List<JournalArchive.Member> members,
+                                           List<Path> archivedRuns) {
+        try {
+            Doc doc = read(sourceRoot);
+            if (doc == null) return;
+            String segName = segment.getFileName().toString();
+            List<String> names = archivedRuns.stream().map(p -> p.getFileName().toString()).toList();
+            doc.runs.removeIf(e -> segName.equals(e.archive) || (e.archive == null && names.contains(e.file)));
+            doc.segments.remove(segName);
+            if (Files.exists(segment)) {
+                for (JournalArchive.Member m : members) doc.runs.add(archived(segName, m));
+                doc.segments.put(segName, Files.size(segment));
+            }
+            write(sourceRoot, doc);
+        } catch (IOException e) {
+            logger.warn("Failed to update run index: {}", e.getMessage());
+        }
+    }
+
+    private static Doc read(Path sourceRoot) {
+        Path idx = indexPath(sourceRoot);
+        try {
+            Doc doc = gson.fromJson(Files.readString(idx, StandardCharsets.UTF_8), Doc.class);
+            if (doc == null || doc.version != VERSION || doc.runs == null) return null;
+            if (doc.segments == null) doc.segments = new HashMap<>();
+            return doc;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | JsonParseException e) {
+            logger.debug("Unreadable run index {}: {}", idx, e.getMessage());
+            return null;
+        }
+    }
+
+    private static void write(Path sourceRoot, Doc doc) throws IOException {
+        Path idx = indexPath(sourceRoot);
+        // A unique name: another process on this root may be writing its own copy
+        Path tmp = Files.createTempFile(idx.getParent(), "index", ".tmp");
+        try {
+            Files.writeString(tmp, gson.toJson(doc), StandardCharsets.UTF_8);
+            try {
+                Files.move(tmp, idx, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, idx, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static Map<String, Long> fileSizes(Path dir, Predicate<Path> filter) throws IOException {
+        Map<String, Long> sizes = new HashMap<>();
+        if (!Files.isDirectory(dir)) return sizes;
+        try (Stream<Path> s = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) s::iterator) {
+                if (!filter.test(p)) continue;
+                try {
+                    sizes.put(p.getFileName().toString(), Files.size(p));
+                } catch (NoSuchFileException ignore) {
+                    // removed concurrently
+                }
+            }
+        }
+        return sizes;
+    }
+
+    private static boolean matches(Doc doc, Map<String, Long> onDisk, Map<String, Long> segments) {
+        if (!doc.segments.equals(segments)) return false;
+        long live = 0;
+        for (Entry e : doc.runs) {
+            if (e.archive != null) continue;
+            live++;
+            Long size = onDisk.get(e.file);
+            if (size == null || size != e.size) return false;
+        }
+        return live == onDisk.size();
+    }
+
+    /** Rebuilds entries, reusing valid ones and reading only headers where the count is recorded. */
+    private static Doc rebuild(Path runsDir, Path archiveDir, Map<String, Long> onDisk,
+                               Map<String, Long> segments, Doc previous) {
+        Map<String, Entry> known = new HashMap<>();
+        if (previous != null) {
+            previous.runs.stream().filter(e -> e.archive == null).forEach(e -> known.put(e.file, e));
+        }
+
+        Doc doc = new Doc();
+        Set<Long> liveTimes = new HashSet<>();
+        for (Map.Entry<String, Long> f : onDisk.entrySet()) {
+            Entry old = known.get(f.getKey());
+            if (old != null && old.size == f.getValue()) {
+                doc.runs.add(old);
+                if (!old.broken) liveTimes.add(old.time);
+                continue;
+            }
+            Path p = runsDir.resolve(f.getKey());
+            try (JournalReader r = JournalReader.open(p)) {
+                long count = r.expectedMoves();
+                if (count < 0) {
+                    count = 0;
+                    while (r.next() != null) count++;
+                }
+                Entry e = new Entry();
+                e.file = f.getKey();
+                e.time = r.time();
+                e.onCollision = r.onCollision();
+                e.moves = count;
+                e.size = f.getValue();
+                doc.runs.add(e);
+                liveTimes.add(e.time);
+            } catch (IOException e) {
+                // Keep unreadable files in the index so they do not force a rebuild on every listing
+                logger.debug("Failed to parse run file {}: {}", p, e.getMessage());
+                Entry broken = new Entry();
+                broken.file = f.getKey();
+                broken.size = f.getValue();
+                broken.broken = true;
+                doc.runs.add(broken);
+            }
+        }
+
+        // A run left both live and archived by an interrupted archival is served from its live file
+        for (Map.Entry<String, Long> seg : segments.entrySet()) {
+            Path p = archiveDir.resolve(seg.getKey());
+            try {
+                for (JournalArchive.Member m : JournalArchive.members(p)) {
+                    if (!liveTimes.contains(m.time())) doc.runs.add(archived(seg.getKey(), m));
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to read archive segment {}: {}", p, e.getMessage());
+            }
+            doc.segments.put(seg.getKey(), seg.getValue());
+        }
+        return doc;
+    }
+
+    private static Entry archived(String segment, JournalArchive.Member m) {
+        Entry e = new Entry();
+        e.file = m.name();
+        e.time = m.time();
+        e.onCollision = m.onCollision();
+        e.moves = m.moves();
+        e.archive = segment;
+        return e;
+    }
+}
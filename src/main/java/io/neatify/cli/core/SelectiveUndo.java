@@ -0,0 +1,220 @@
+package io.neatify.cli.core;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Path lookups and partial undo across journaled runs.
+ *
+ * Candidate runs are picked with the {@link PathIndex}; only their journals
+ * are read. A partial undo restores the matching moves of each candidate run
+ * and rewrites its journal with the remaining ones, so the rest of the run
+ * can still be undone later. Like a full undo, matching moves leave the
+ * journal whether or not their restore succeeded.
+ */
+final class SelectiveUndo {
+
+    private SelectiveUndo() { }
+
+    /**
+     * Which moves to restore: a glob ({@code Images/**.png}) or a folder or
+     * file ({@code Images}), both matched against the target path relative to the root.
+     */
+    record Selector(String pattern, Predicate<String> matcher, String indexKey) {
+
+        static Selector parse(String pattern) {
+            String p = pattern.replace('\\', '/');
+            while (p.startsWith("./")) p = p.substring(2);
+            while (p.endsWith("/") && p.length() > 1) p = p.substring(0, p.length() - 1);
+            if (p.isEmpty()) throw new IllegalArgumentException("Undo selection cannot be empty");
+            if (p.chars().noneMatch(c -> "*?[{".indexOf(c) >= 0)) {
+                String prefix = p;
+                return new Selector(pattern, rel -> rel.equals(prefix) || rel.startsWith(prefix + "/"), prefix);
+            }
+            PathMatcher glob = FileSystems.getDefault().getPathMatcher("glob:" + p);
+            return new Selector(pattern, rel -> glob.matches(Paths.get(rel)), literalFolder(p));
+        }
+
+        /** Longest leading folder without wildcard, used for the index lookup (null if none). */
+        private static String literalFolder(String glob) {
+            String[] parts = glob.split("/");
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < parts.length - 1; i++) {
+                if (parts[i].chars().anyMatch(c -> "*?[{".indexOf(c) >= 0)) break;
+                if (sb.length() > 0) sb.append('/');
+                sb.append(parts[i]);
+            }
+            return sb.length() == 0 ? null : sb.toString();
+        }
+    }
+
+    /**
+     * Finds the runs that moved a file, or files of a folder.
+     *
+     * @param sourceRoot organized root
+     * @param path file or folder, original or target location
+     * @return matching moves, newest run first
+     */
+    static List<UndoExecutor.Trace> where(Path sourceRoot, Path path) throws IOException {
+        Path root = sourceRoot.toAbsolutePath().normalize();
+        Path target = path.isAbsolute() ? path : root.resolve(path);
+        String key = PathIndex.key(root, target);
+        Predicate<String> under = rel -> rel.equals(key) || rel.startsWith(key + "/");
+
+        List<UndoExecutor.Trace> traces = new ArrayList<>();
+        for (UndoExecutor.RunMeta run : UndoExecutor.listRuns(sourceRoot)) {
+            if (!PathIndex.mayContain(sourceRoot, run.time(), key)) continue;
+            scan(sourceRoot, run, m -> {
+                if (under.test(PathIndex.key(root, m.from())) || under.test(PathIndex.key(root, m.to()))) {
+                    traces.add(new UndoExecutor.Trace(run.time(), m));
+                }
+            });
+        }
+        return traces;
+    }
+
+    /**
+     * Restores the moves whose target matches the selector, newest run first.
+     *
+     * @return aggregated result, restored 0 if nothing matched
+     */
+    static UndoExecutor.UndoResult undo(Path sourceRoot, Selector selector, int threads,
+                                        UndoExecutor.ProgressListener progress) throws IOException {
+        Path root = sourceRoot.toAbsolutePath().normalize();
+        Predicate<UndoExecutor.Move> matches = m -> selector.matcher().test(PathIndex.key(root, m.to()));
+        int restored = 0;
+        int skipped = 0;
+        List<String> errors = new ArrayList<>();
+
+        synchronized (UndoExecutor.STORAGE_LOCK) {
+            for (UndoExecutor.RunMeta run : UndoExecutor.listRuns(sourceRoot)) {
+                if (selector.indexKey() != null && !PathIndex.mayContain(sourceRoot, run.time(), selector.indexKey())) {
+                    continue;
+                }
+                if (run.archived()) {
+                    // Only bring archived runs back when they really hold a match
+                    long[] found = {0};
+                    scan(sourceRoot, run, m -> { if (matches.test(m)) found[0]++; });
+                    if (found[0] == 0) continue;
+                }
+                UndoExecutor.UndoResult r = undoRun(sourceRoot, run, UndoExecutor.liveFile(sourceRoot, run),
+                    matches, threads, progress);
+                if (r == null) continue;
+                restored += r.restored();
+                skipped += r.skipped();
+                errors.addAll(r.errors());
+            }
+        }
+        return new UndoExecutor.UndoResult(restored, skipped, errors);
+    }
+
+    private static UndoExecutor.UndoResult undoRun(Path sourceRoot, UndoExecutor.RunMeta run, Path runFile,
+                                                   Predicate<UndoExecutor.Move> matches, int threads,
+                                                   UndoExecutor.ProgressListener progress) throws IOException {
+        Path rest = runFile.resolveSibling(run.time() + JournalFormat.BINARY.extension() + ".tmp");
+        PathIndex.Builder keys = new PathIndex.Builder(sourceRoot);
+        UndoExecutor.UndoResult result;
+        long selected;
+        try (JournalReader source = JournalReader.open(runFile);
+             JournalRewriter writer = new JournalRewriter(rest, source.time(), source.onCollision())) {
+            FilteringReader filter = new FilteringReader(source, matches, writer, keys);
+            result = ParallelUndo.run(sourceRoot, filter, threads, progress);
+            filter.checkRewrite();
+            selected = filter.selected;
+            if (selected == 0) return null;
+            if (writer.records() > 0) writer.finish();
+        }
+
+        if (Files.exists(rest)) {
+            Path rewritten = runFile.resolveSibling(run.time() + JournalFormat.BINARY.extension());
+            UndoExecutor.replaceFile(rest, rewritten);
+            if (!rewritten.equals(runFile)) {
+                Files.deleteIfExists(runFile);
+                RunIndex.removeRun(sourceRoot, runFile);
+            }
+            RunIndex.recordRun(sourceRoot, rewritten, run.time(), run.onCollision(), run.movesCount() - selected);
+            PathIndex.write(sourceRoot, run.time(), keys);
+        } else {
+            Files.deleteIfExists(runFile);
+            RunIndex.removeRun(sourceRoot, runFile);
+            PathIndex.remove(sourceRoot, run.time());
+        }
+        return result;
+    }
+
+    /** Reads the live or archived journal of a run, move by move. */
+    private static void scan(Path sourceRoot, UndoExecutor.RunMeta run,
+                             java.util.function.Consumer<UndoExecutor.Move> visitor) throws IOException {
+        Path file = run.file();
+        Path tmp = null;
+        if (run.archived()) {
+            tmp = Files.createTempFile(UndoExecutor.neatifyDir(sourceRoot), "scan-", JournalFormat.BINARY.extension());
+            Files.delete(tmp);
+            JournalArchive.extract(run.file(), run.time() + JournalFormat.BINARY.extension(), tmp);
+            file = tmp;
+        }
+        try (JournalReader reader = JournalReader.open(file)) {
+            UndoExecutor.Move m;
+            while ((m = reader.next()) != null) visitor.accept(m);
+        } finally {
+            if (tmp != null) Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Hands matching moves to the undo and copies the others into the rewritten journal. */
+    private static final class FilteringReader extends JournalReader {
+        private final JournalReader source;
+        private final Predicate<UndoExecutor.Move> matches;
+        private final JournalRewriter rest;
+        private final PathIndex.Builder keys;
+        private IOException failure;
+        long selected;
+
+        FilteringReader(JournalReader source, Predicate<UndoExecutor.Move> matches,
+                        JournalRewriter rest, PathIndex.Builder keys) {
+            super(source.file);
+            this.source = source;
+            this.matches = matches;
+            this.rest = rest;
+            this.keys = keys;
+            this.time = source.time();
+            this.onCollision = source.onCollision();
+        }
+
+        @Override
+        UndoExecutor.Move next() {
+            UndoExecutor.Move m;
+            while ((m = source.next()) != null) {
+                if (matches.test(m)) {
+                    selected++;
+                    return m;
+                }
+                try {
+                    rest.append(m.from(), m.to());
+                    keys.add(m.from(), m.to());
+                } catch (IOException e) {
+                    if (failure == null) failure = e;
+                }
+            }
+            truncated = source.isTruncated();
+            return null;
+        }
+
+        /** Reports a failed copy into the rewritten journal, which is then discarded. */
+        void checkRewrite() throws IOException {
+            if (failure != null) throw failure;
+        }
+
+        @Override
+        public void close() {
+            // the source reader is owned by the caller
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package io.neatify.cli.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Advisory lock on the subtree a run organizes, so runs on disjoint parts of
+ * one tree proceed in parallel and overlapping runs wait or fail.
+ *
+ * Without {@code --lock-root}, locks live in the per-user directory
+ * {@code ~/.neatify/locks} and are keyed by absolute path, so every run of
+ * the user sees every other, whatever folder it starts from. With
+ * {@code --lock-root}, they live in {@code .neatify/locks} of that
+ * directory and are keyed relative to it, so runs of several users on a
+ * shared tree can agree on one place. Each subtree has one lock file. A
+ * run holds
+ * its own subtree exclusively and every ancestor shared, so it conflicts
+ * with runs on the same directory, above it or below it, and with nothing
+ * else. Targets always resolve inside the source, so the subtree lock
+ * covers them too.
+ *
+ * The locks are {@link FileChannel} locks: the OS releases them when the
+ * holder dies. The holder's pid and start time are written into its lock
+ * file; a file that still names a holder but is not locked belongs to a
+ * crashed run and is reported as stale. A lock file nobody holds any more
+ * is deleted when its last run closes.
+ */
+public final class TreeLock implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TreeLock.class);
+
+    /** Retry interval while waiting for a busy lock. */
+    private static final long POLL_MILLIS = 100;
+
+    /** The locked byte lies past the holder record, so the record stays readable everywhere. */
+    private static final long LOCK_POSITION = Long.MAX_VALUE - 1;
+
+    /** Written into a lock file once it is deleted, for runs that opened it just before. */
+    private static final byte[] REMOVED = "removed\n".getBytes(StandardCharsets.UTF_8);
+
+    /** State of a lock file, as shown by {@code --lock-status}. */
+    public enum State { HELD, STALE }
+
+    /** A subtree lock that names a holder. */
+    public record Status(String subtree, State state, long pid, Instant since) {}
+
+    /** Thrown when a lock is held by another run and the wait is over. */
+    public static final class BusyException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public BusyException(String message) { super(message); }
+    }
+
+    /** Locks held by this process; the JVM refuses two locks on one file. */
+    private static final Map<Path, Held> HELD = new HashMap<>();
+
+    private static final class Held {
+        final FileChannel channel;
+        final FileLock lock;
+        int count = 1;
+
+        Held(FileChannel channel, FileLock lock) {
+            this.channel = channel;
+            this.lock = lock;
+        }
+    }
+
+    private final List<Path> files;
+    private final Path exclusive;
+    private boolean closed;
+
+    private TreeLock(List<Path> files, Path exclusive) {
+        this.files = files;
+        this.exclusive = exclusive;
+    }
+
+    /** @return the per-user directory of locks taken without a lock root */
+    public static Path userLocksDir() {
+        return Path.of(System.getProperty("user.home"), ".neatify", "locks");
+    }
+
+    /**
+     * Locks the subtree {@code source} in the per-user lock directory.
+     *
+     * @see #acquire(Path, Path, Duration)
+     */
+    public static TreeLock acquire(Path source, Duration wait) throws IOException {
+        Path dir = source.toAbsolutePath().normalize();
+        return acquire(userLocksDir(), null, dir, wait);
+    }
+
+    /**
+     * Locks the subtree {@code source}.
+     *
+     * @param lockRoot directory holding the lock files; {@code source} or one of its ancestors
+     * @param source directory the run organizes
+     * @param wait how long to wait for runs holding an overlapping lock; zero fails at once
+     * @return lock to close when the run is over
+     * @throws BusyException if an overlapping run still holds its lock after {@code wait}
+     * @throws IOException if the lock files cannot be created
+     */
+    public static TreeLock acquire(Path lockRoot, Path source, Duration wait) throws IOException {
+        Path dir = source.toAbsolutePath().normalize();
+        Path root = lockRoot.toAbsolutePath().normalize();
+        if (!dir.startsWith(root)) {
+            throw new IllegalArgumentException("Lock root " + lockRoot + " does not contain " + source);
+        }
+        return acquire(locksDir(root), root, dir, wait);
+    }
+
+    /**
+     * Locks {@code dir} in {@code locks}, keyed relative to {@code root}, or
+     * by absolute path if {@code root} is null.
+     */
+    private static TreeLock acquire(Path locks, Path root, Path dir, Duration wait) throws IOException {
+        Files.createDirectories(locks);
+
+        // Ancestors shared, the subtree itself exclusive; sorted, so concurrent runs lock in one order
+        Map<Path, Boolean> wanted = new TreeMap<>();
+        Path rel = root == null ? dir : root.relativize(dir);
+        String key = key(rel);
+        wanted.put(lockFile(locks, key), false);
+        for (Path p = rel.getParent(); ; p = p.getParent()) {
+            wanted.putIfAbsent(lockFile(locks, p == null ? "" : key(p)), true);
+            if (p == null) break;
+        }
+
+        long deadline = System.nanoTime() + wait.toNanos();
+        while (true) {
+            List<Path> taken = new ArrayList<>();
+            Path busy = null;
+            for (Map.Entry<Path, Boolean> e : wanted.entrySet()) {
+                if (!take(e.getKey(), e.getValue())) {
+                    busy = e.getKey();
+                    break;
+                }
+                taken.add(e.getKey());
+            }
+            if (busy == null) {
+                TreeLock lock = new TreeLock(taken, lockFile(locks, key));
+                lock.writeHolder(key);
+                logger.debug("Locked subtree '{}' in {}", key, locks);
+                return lock;
+            }
+            for (Path f : taken) release(f);
+            if (System.nanoTime() >= deadline) {
+                throw new BusyException("Another Neatify run is organizing an overlapping folder"
+                    + describeHolders(locks) + "; retry later or pass --lock-wait <seconds>");
+            }
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new BusyException("Interrupted while waiting for the lock of " + dir);
+            }
+        }
+    }
+
+    /**
+     * Lists the subtree locks under {@code lockRoot} that name a holder.
+     *
+     * @throws IOException if the lock directory cannot be read
+     */
+    public static List<Status> status(Path lockRoot) throws IOException {
+        return statusIn(locksDir(lockRoot.toAbsolutePath().normalize()));
+    }
+
+    /**
+     * Lists the locks taken without a lock root that name a holder.
+     *
+     * @throws IOException if the lock directory cannot be read
+     */
+    public static List<Status> status() throws IOException {
+        return statusIn(userLocksDir());
+    }
+
+    private static List<Status> statusIn(Path locks) throws IOException {
+        List<Status> list = new ArrayList<>();
+        if (!Files.isDirectory(locks)) return list;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(locks, "*.lock")) {
+            for (Path f : ds) {
+                boolean held = !take(f, true);
+                Properties holder = readHolder(f);
+                if (!held) release(f);
+                if (holder == null) {
+                    if (!held) removeIfFree(f);
+                    continue;
+                }
+                list.add(new Status(holder.getProperty("subtree", "?"), held ? State.HELD : State.STALE,
+                    Long.parseLong(holder.getProperty("pid", "-1")),
+                    Instant.ofEpochMilli(Long.parseLong(holder.getProperty("since", "0")))));
+            }
+        }
+        list.sort((a, b) -> a.subtree().compareTo(b.subtree()));
+        return list;
+    }
+
+    /** Releases every lock of the run, clears its holder record and deletes the lock files left unused. */
+    @Override
+    public void close() throws IOException {
+        synchronized (HELD) {
+            if (closed) return;
+            closed = true;
+            Held own = HELD.get(exclusive);
+            if (own != null) own.channel.truncate(0);
+        }
+        for (Path f : files) release(f);
+        for (Path f : files) removeIfFree(f);
+    }
+
+    // ==== Lock files ====
+
+    private static Path locksDir(Path root) {
+        return UndoExecutor.neatifyDir(root).resolve("locks");
+    }
+
+    private static String key(Path rel) {
+        return rel.toString().replace('\\', '/');
+    }
+
+    private static Path lockFile(Path locks, String key) {
+        return locks.resolve(UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)) + ".lock");
+    }
+
+    /** @return false if another run, or an exclusive lock of this process, holds an overlapping lock */
+    private static boolean take(Path file, boolean shared) throws IOException {
+        synchronized (HELD) {
+            Held held = HELD.get(file);
+            if (held != null) {
+                if (!shared || !held.lock.isShared()) return false;
+                held.count++;
+                return true;
+            }
+            while (true) {
+                FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+                FileLock lock;
+                try {
+                    lock = channel.tryLock(LOCK_POSITION, 1, shared);
+                } catch (OverlappingFileLockException e) {
+                    lock = null;
+                }
+                if (lock == null) {
+                    channel.close();
+                    return false;
+                }
+                if (isRemoved(channel)) {
+                    // Deleted between our open and our lock: the path names a new file by now
+                    channel.close();
+                    continue;
+                }
+                HELD.put(file, new Held(channel, lock));
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Deletes a lock file no run holds. It is marked while still locked, so a
+     * run that opened it just before locks the deleted file, sees the mark
+     * and opens the path again.
+     */
+    private static void removeIfFree(Path file) {
+        try {
+            if (!take(file, false)) return;
+            try {
+                synchronized (HELD) {
+                    Files.delete(file);
+                    FileChannel channel = HELD.get(file).channel;
+                    channel.truncate(0);
+                    channel.write(ByteBuffer.wrap(REMOVED), 0);
+                }
+            } finally {
+                release(file);
+            }
+        } catch (IOException e) {
+            // Kept: open elsewhere on a system that cannot delete open files
+            logger.debug("Lock file {} kept: {}", file, e.getMessage());
+        }
+    }
+
+    private static boolean isRemoved(FileChannel channel) throws IOException {
+        if (channel.size() != REMOVED.length) return false;
+        return Arrays.equals(read(channel).getBytes(StandardCharsets.UTF_8), REMOVED);
+    }
+
+    private static void release(Path file) throws IOException {
+        synchronized (HELD) {
+            Held held = HELD.get(file);
+            if (held == null || --held.count > 0) return;
+            HELD.remove(file);
+            held.lock.release();
+            held.channel.close();
+        }
+    }
+
+    private void writeHolder(String key) throws IOException {
+        Properties previous = readHolder(exclusive);
+        if (previous != null) {
+            logger.warn("Run {} on '{}' ended without releasing its lock; taking it over",
+                previous.getProperty("pid"), key);
+        }
+        String record = "subtree=" + key.replace("\\", "\\\\") + "\npid=" + ProcessHandle.current().pid()
+            + "\nsince=" + System.currentTimeMillis() + "\n";
+        synchronized (HELD) {
+            FileChannel channel = HELD.get(exclusive).channel;
+            channel.truncate(0);
+            channel.write(ByteBuffer.wrap(record.getBytes(StandardCharsets.UTF_8)), 0);
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Reads a holder record. A file this process has locked is read through
+     * its own channel: closing any other descriptor of it would drop the
+     * process's POSIX locks on the file.
+     */
+    private static Properties readHolder(Path file) {
+        try {
+            String text;
+            synchronized (HELD) {
+                Held held = HELD.get(file);
+                if (held != null) {
+                    text = read(held.channel);
+                } else {
+                    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                        text = read(channel);
+                    }
+                }
+            }
+            Properties p = new Properties();
+            p.load(new StringReader(text));
+            return p.getProperty("pid") == null ? null : p;
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String read(FileChannel channel) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate((int) Math.min(channel.size(), 4096));
+        while (buf.hasRemaining() && channel.read(buf, buf.position()) > 0) { }
+        return new String(buf.array(), 0, buf.position(), StandardCharsets.UTF_8);
+    }
+
+    private static String describeHolders(Path locks) throws IOException {
+        List<String> held = new ArrayList<>();
+        for (Status s : statusIn(locks)) {
+            if (s.state() == State.HELD) held.add("'" + (s.subtree().isEmpty() ? "." : s.subtree()) + "' (pid " + s.pid() + ")");
+        }
+        return held.isEmpty() ? "" : ": " + String.join(", ", held);
+    }
+}
@@ -1,9 +1,5 @@
 package io.neatify.cli.core;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.annotations.SerializedName;
-import io.neatify.core.PathSecurity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -12,70 +8,114 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /** Handles journaling and undoing operations. */
 public final class UndoExecutor {
 
     private static final Logger logger = LoggerFactory.getLogger(UndoExecutor.class);
-    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
 
     private UndoExecutor() {}
 
     public record Move(java.nio.file.Path from, java.nio.file.Path to) {}
     public record UndoResult(int restored, int skipped, List<String> errors) {}
-    public record RunMeta(long time, String onCollision, int movesCount, Path file) {}
+    public record RunMeta(long time, String onCollision, int movesCount, Path file) {
+        /** @return true if the run was compacted into an archive segment ({@link #file()} is the segment) */
+        public boolean archived() { return JournalArchive.isSegment(file); }
+    }
 
-    // JSON DTOs for Gson serialization
-    private static final class MoveDto {
-        String from;
-        String to;
+    /** A journaled move found by a path lookup, with the run that recorded it. */
+    public record Trace(long run, Move move) {}
 
-        MoveDto(String from, String to) {
-            this.from = from;
-            this.to = to;
-        }
-    }
+    /** Undo progress callback; {@code total} is -1 when the journal does not record it. */
+    @FunctionalInterface
+    public interface ProgressListener { void onProgress(long done, long total); }
 
-    private static final class RunDoc {
-        long time;
-        @SerializedName("onCollision")
-        String onCollision;
-        List<MoveDto> moves;
+    private static final int UNDO_THREADS = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
 
-        RunDoc(long time, String onCollision, List<MoveDto> moves) {
-            this.time = time;
-            this.onCollision = onCollision;
-            this.moves = moves;
-        }
-    }
+    /** Serializes retention passes with undo, which both move journals around. */
+    static final Object STORAGE_LOCK = new Object();
 
-    private static Path neatifyDir(Path sourceRoot) { return sourceRoot.resolve(".neatify"); }
-    private static Path runsDir(Path sourceRoot) { return neatifyDir(sourceRoot).resolve("runs"); }
+    static Path neatifyDir(Path sourceRoot) { return sourceRoot.resolve(".neatify"); }
+    static Path runsDir(Path sourceRoot) { return neatifyDir(sourceRoot).resolve("runs"); }
     private static Path gitignore(Path sourceRoot) { return neatifyDir(sourceRoot).resolve(".gitignore"); }
     private static Path manifestPath(Path sourceRoot) { return neatifyDir(sourceRoot).resolve("manifest.json"); }
 
-    public static Path appendRun(Path sourceRoot, String onCollision, List<Move> moves) throws IOException {
-        if (moves.isEmpty()) return null;
+    /**
+     * Opens a streaming journal for a new run under {@code .neatify/runs}.
+     * Feed it as the {@link io.neatify.core.FileMover.MoveListener} of the run
+     * and close it once the run is over. Closing it also triggers retention
+     * of older runs in the background.
+     *
+     * @param sourceRoot organized root
+     * @param onCollision collision strategy recorded with the run
+     * @param options journal format, group-commit and retention policies
+     * @return open journal writer
+     * @throws IOException if the journal cannot be created
+     */
+    public static JournalWriter openRun(Path sourceRoot, String onCollision, JournalOptions options) throws IOException {
         Path dir = runsDir(sourceRoot);
         Files.createDirectories(dir);
         ensureGitignore(sourceRoot);
 
         long now = System.currentTimeMillis();
-        Path runFile = dir.resolve(now + ".json");
+        JournalFormat format = options.format();
+        JournalWriter journal = new JournalWriter(dir.resolve(now + format.extension()), format, now, onCollision, options.sync());
+        PathIndex.Builder paths = new PathIndex.Builder(sourceRoot);
+        journal.indexPaths(paths);
+        journal.onClosed(w -> {
+            PathIndex.write(sourceRoot, now, paths);
+            RunIndex.Usage usage = RunIndex.recordRun(sourceRoot, w.file(), now, onCollision, w.records());
+            if (JournalRetention.isNeeded(options.retention(), usage)) {
+                JournalRetention.schedule(sourceRoot, options.retention());
+            }
+        });
+        return journal;
+    }
 
-        // Convert Move records to DTOs
-        List<MoveDto> moveDtos = moves.stream()
-            .map(m -> new MoveDto(
-                m.from.toAbsolutePath().toString(),
-                m.to.toAbsolutePath().toString()))
-            .collect(Collectors.toList());
+    /**
+     * Reopens the journal of an interrupted run under {@code .neatify/runs}
+     * so the moves of a resumed run land in the same run, which is then
+     * undone as one. Closing it updates the indexes like {@link #openRun}.
+     *
+     * @param sourceRoot organized root
+     * @param runFile journal of the interrupted run
+     * @param options group-commit and retention policies; the format is the journal's own
+     * @return open journal writer positioned after the last complete move
+     * @throws IOException if the journal cannot be continued
+     */
+    public static JournalWriter continueRun(Path sourceRoot, Path runFile, JournalOptions options) throws IOException {
+        Path dir = runFile.toAbsolutePath().normalize().getParent();
+        if (!dir.equals(runsDir(sourceRoot).toAbsolutePath().normalize()) || !isRunFile(runFile)) {
+            throw new IOException("Not a run journal of " + sourceRoot + ": " + runFile);
+        }
+        PathIndex.Builder paths = new PathIndex.Builder(sourceRoot);
+        JournalWriter journal = JournalWriter.reopen(runFile, options.sync(), paths);
+        journal.indexPaths(paths);
+        journal.onClosed(w -> {
+            PathIndex.write(sourceRoot, w.time(), paths);
+            RunIndex.Usage usage = RunIndex.recordRun(sourceRoot, w.file(), w.time(), w.onCollision(), w.records());
+            if (JournalRetention.isNeeded(options.retention(), usage)) {
+                JournalRetention.schedule(sourceRoot, options.retention());
+            }
+        });
+        return journal;
+    }
 
-        RunDoc runDoc = new RunDoc(now, onCollision, moveDtos);
-        String json = gson.toJson(runDoc);
+    public static JournalWriter openRun(Path sourceRoot, String onCollision) throws IOException {
+        return openRun(sourceRoot, onCollision, JournalOptions.DEFAULT);
+    }
 
-        Files.writeString(runFile, json, StandardCharsets.UTF_8, StandardOpenOption.CREATE_NEW);
-        return runFile;
+    public static Path appendRun(Path sourceRoot, String onCollision, List<Move> moves) throws IOException {
+        if (moves.isEmpty()) return null;
+        JournalWriter journal = openRun(sourceRoot, onCollision);
+        try {
+            for (Move m : moves) {
+                journal.append(m.from, m.to);
+            }
+        } finally {
+            journal.close();
+        }
+        return journal.file();
     }
 
     private static void ensureGitignore(Path sourceRoot) {
@@ -90,89 +130,137 @@ public final class UndoExecutor {
         }
     }
 
-    // ===== New per-run storage (.neatify/runs/<timestamp>.json) =====
+    // ===== Per-run storage (.neatify/runs/<timestamp>.nrun or .json) =====
+
+    static boolean isRunFile(Path p) {
+        String name = p.getFileName().toString();
+        JournalFormat format = JournalFormat.ofFileName(name);
+        return format != null && runTime(name, format) >= 0;
+    }
+
+    private static long runTime(String name, JournalFormat format) {
+        try {
+            return Long.parseLong(name.substring(0, name.length() - format.extension().length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
 
     public static UndoResult undoLast(Path sourceRoot) throws IOException {
-        UndoResult v2 = undoLastV2(sourceRoot);
+        return undoLast(sourceRoot, null);
+    }
+
+    public static UndoResult undoLast(Path sourceRoot, ProgressListener progress) throws IOException {
+        UndoResult v2 = undoLastV2(sourceRoot, progress);
         if (v2 != null) return v2;
         // Fallback to legacy manifest.json (compatibility)
         return undoLastFromLegacyManifest(sourceRoot);
     }
 
     public static UndoResult undoLastV2(Path sourceRoot) throws IOException {
-        Path dir = runsDir(sourceRoot);
-        if (!Files.exists(dir) || !Files.isDirectory(dir)) return null;
-        try (java.util.stream.Stream<Path> s = Files.list(dir)) {
-            Path latest = s.filter(p -> p.getFileName().toString().endsWith(".json"))
-                .max((a,b) -> a.getFileName().toString().compareTo(b.getFileName().toString()))
-                .orElse(null);
-            if (latest == null) return null;
-            return undoRunFile(sourceRoot, latest);
+        return undoLastV2(sourceRoot, null);
+    }
+
+    public static UndoResult undoLastV2(Path sourceRoot, ProgressListener progress) throws IOException {
+        synchronized (STORAGE_LOCK) {
+            List<RunMeta> runs = RunIndex.list(sourceRoot);
+            if (runs.isEmpty()) return null;
+            return undoRunFile(sourceRoot, liveFile(sourceRoot, runs.get(0)), progress);
         }
     }
 
+    /**
+     * Lists journaled runs, newest first, from the run index, including
+     * archived ones. Journals are only opened when the index has to be rebuilt.
+     */
     public static java.util.List<RunMeta> listRuns(Path sourceRoot) throws IOException {
-        Path dir = runsDir(sourceRoot);
-        if (!Files.exists(dir) || !Files.isDirectory(dir)) return java.util.List.of();
-        java.util.List<RunMeta> metas = new java.util.ArrayList<>();
-        try (java.util.stream.Stream<Path> s = Files.list(dir)) {
-            s.filter(p -> p.getFileName().toString().endsWith(".json"))
-             .sorted((a,b) -> b.getFileName().toString().compareTo(a.getFileName().toString()))
-             .forEach(p -> {
-                 try {
-                     String c = Files.readString(p, StandardCharsets.UTF_8);
-                     RunDoc rd = gson.fromJson(c, RunDoc.class);
-                     if (rd != null && rd.moves != null) {
-                         metas.add(new RunMeta(rd.time, rd.onCollision, rd.moves.size(), p));
-                     }
-                 } catch (Exception e) {
-                     logger.debug("Failed to parse run file {}: {}", p, e.getMessage());
-                 }
-             });
-        }
-        return metas;
+        return RunIndex.list(sourceRoot);
     }
 
     public static UndoResult undoRun(Path sourceRoot, long timestamp) throws IOException {
-        Path file = runsDir(sourceRoot).resolve(timestamp + ".json");
-        if (!Files.exists(file)) return null;
-        return undoRunFile(sourceRoot, file);
+        return undoRun(sourceRoot, timestamp, null);
     }
 
-    private static UndoResult undoRunFile(Path sourceRoot, Path runFile) throws IOException {
-        String content = Files.readString(runFile, StandardCharsets.UTF_8).trim();
-        RunDoc rd = gson.fromJson(content, RunDoc.class);
-        if (rd == null || rd.moves == null) return null;
+    public static UndoResult undoRun(Path sourceRoot, long timestamp, ProgressListener progress) throws IOException {
+        synchronized (STORAGE_LOCK) {
+            for (JournalFormat format : JournalFormat.values()) {
+                Path file = runsDir(sourceRoot).resolve(timestamp + format.extension());
+                if (Files.exists(file)) return undoRunFile(sourceRoot, file, progress);
+            }
+            for (RunMeta run : RunIndex.list(sourceRoot)) {
+                if (run.time() == timestamp && run.archived()) {
+                    return undoRunFile(sourceRoot, liveFile(sourceRoot, run), progress);
+                }
+            }
+            return null;
+        }
+    }
 
-        // Convert DTOs back to Move records
-        List<Move> moves = rd.moves.stream()
-            .map(dto -> new Move(Paths.get(dto.from), Paths.get(dto.to)))
-            .collect(Collectors.toList());
+    /**
+     * Finds the journaled moves of a file or of the files of a folder.
+     * Only journals whose path index mentions it are read.
+     *
+     * @param sourceRoot organized root
+     * @param path original or target location, absolute or relative to the root
+     * @return matching moves, newest run first
+     */
+    public static List<Trace> where(Path sourceRoot, Path path) throws IOException {
+        return SelectiveUndo.where(sourceRoot, path);
+    }
 
-        int restored = 0, skipped = 0; List<String> errors = new ArrayList<>();
-        Path normalizedRoot = sourceRoot.toAbsolutePath().normalize();
-        for (Move m : moves) {
-            Path from = m.from.toAbsolutePath().normalize();
-            Path to = m.to.toAbsolutePath().normalize();
-            if (!from.startsWith(normalizedRoot) || !to.startsWith(normalizedRoot)) {
-                skipped++; errors.add("Out of scope: " + from + " / " + to); continue;
-            }
-            if (!Files.exists(to)) { skipped++; errors.add("Absent: " + to); continue; }
-            try {
-                PathSecurity.assertNoSymlinkInAncestry(from);
-                Files.createDirectories(from.getParent());
-                if (Files.exists(from)) { skipped++; continue; }
-                Files.move(to, from);
-                restored++;
-            } catch (IOException e) { skipped++; errors.add(e.getMessage()); }
+    /**
+     * Undoes only the moves whose target matches a glob or lies under a folder
+     * (both relative to the root). Affected journals keep their other moves.
+     *
+     * @param sourceRoot organized root
+     * @param selection glob such as {@code Images/*.png} or folder such as {@code Images}
+     * @param progress progress callback, may be null
+     * @return aggregated result
+     */
+    public static UndoResult undoSelected(Path sourceRoot, String selection, ProgressListener progress) throws IOException {
+        return SelectiveUndo.undo(sourceRoot, SelectiveUndo.Selector.parse(selection), UNDO_THREADS, progress);
+    }
+
+    /** Brings an archived run back to the runs directory so it can be undone like a live one. */
+    static Path liveFile(Path sourceRoot, RunMeta run) throws IOException {
+        if (!run.archived()) return run.file();
+        Path segment = run.file();
+        String name = run.time() + JournalFormat.BINARY.extension();
+        Path target = runsDir(sourceRoot).resolve(name);
+        Files.createDirectories(target.getParent());
+        if (!JournalArchive.extract(segment, name, target)) {
+            throw new IOException("Run " + run.time() + " not found in archive " + segment);
+        }
+        List<JournalArchive.Member> kept = JournalArchive.remove(segment, name);
+        RunIndex.recordSegment(sourceRoot, segment, kept, List.of());
+        RunIndex.recordRun(sourceRoot, target, run.time(), run.onCollision(), run.movesCount());
+        return target;
+    }
+
+    private static UndoResult undoRunFile(Path sourceRoot, Path runFile, ProgressListener progress) throws IOException {
+        UndoResult result;
+        try (JournalReader r = JournalReader.open(runFile)) {
+            result = ParallelUndo.run(sourceRoot, r, UNDO_THREADS, progress);
         }
 
         try {
             Files.deleteIfExists(runFile);
+            RunIndex.removeRun(sourceRoot, runFile);
+            String name = runFile.getFileName().toString();
+            JournalFormat format = JournalFormat.ofFileName(name);
+            if (format != null) PathIndex.remove(sourceRoot, runTime(name, format));
         } catch (IOException e) {
             logger.warn("Failed to delete run file after undo {}: {}", runFile, e.getMessage());
         }
-        return new UndoResult(restored, skipped, errors);
+        return result;
+    }
+
+    static void replaceFile(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
     }
 
     // ====== Legacy manifest.json fallback ======
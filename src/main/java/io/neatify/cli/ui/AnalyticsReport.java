@@ -0,0 +1,92 @@
+package io.neatify.cli.ui;
+
+import io.neatify.cli.util.Ansi;
+import io.neatify.core.TreeAnalytics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Report of a tree analysis ({@code --analyze}): extension histogram,
+ * extensions the rules leave unmatched, and the largest folders.
+ */
+public final class AnalyticsReport {
+
+    /** Extensions listed in the histogram. */
+    static final int MAX_EXTENSIONS = 25;
+
+    /** Unmatched extensions listed. */
+    static final int MAX_UNMATCHED = 15;
+
+    private static final int BAR_WIDTH = 20;
+
+    private AnalyticsReport() {
+        // Utility class
+    }
+
+    /** @return report lines */
+    public static List<String> render(TreeAnalytics.Report report) {
+        List<String> lines = new ArrayList<>();
+        lines.add("");
+        lines.add(Preview.formatSection("TREE ANALYSIS"));
+        lines.add(String.format("%s  %d file(s), %s, %d folder(s)", Ansi.cyan("Total"),
+            report.files(), ProfileComparison.formatBytes(report.bytes()), report.dirs()));
+
+        lines.add("");
+        lines.add(String.format("%s  (files, bytes, share of files)", Ansi.cyan("Extensions")));
+        List<TreeAnalytics.ExtensionStat> exts = report.extensions();
+        for (TreeAnalytics.ExtensionStat e : exts.subList(0, Math.min(MAX_EXTENSIONS, exts.size()))) {
+            double share = report.files() == 0 ? 0 : (double) e.files() / report.files();
+            String rule = e.unmatched() == e.files() ? Ansi.yellow("no rule")
+                : e.unmatched() > 0 ? Ansi.yellow(e.unmatched() + " unmatched") : Ansi.dim("-> " + e.folder());
+            lines.add(String.format("  %-12s %9d %10s  %-" + BAR_WIDTH + "s %5.1f%%  %s", fit(e.extension()),
+                e.files(), ProfileComparison.formatBytes(e.bytes()), bar(share), 100 * share, rule));
+        }
+        if (exts.size() > MAX_EXTENSIONS) {
+            lines.add(Ansi.dim("  + " + (exts.size() - MAX_EXTENSIONS) + " more extension(s)"));
+        }
+
+        lines.add("");
+        List<TreeAnalytics.ExtensionStat> unmatched = exts.stream().filter(e -> e.unmatched() > 0)
+            .sorted(Comparator.comparingLong(TreeAnalytics.ExtensionStat::unmatched).reversed()).toList();
+        lines.add(String.format("%s: %d file(s) in %d extension(s)", Ansi.cyan("Unmatched by the rules"),
+            report.unmatched(), unmatched.size()));
+        for (TreeAnalytics.ExtensionStat e : unmatched.subList(0, Math.min(MAX_UNMATCHED, unmatched.size()))) {
+            lines.add(String.format("  %-12s %9d %10s", fit(e.extension()), e.unmatched(),
+                ProfileComparison.formatBytes(e.unmatchedBytes())));
+        }
+        if (unmatched.size() > MAX_UNMATCHED) {
+            lines.add(Ansi.dim("  + " + (unmatched.size() - MAX_UNMATCHED) + " more"));
+        }
+
+        lines.add("");
+        lines.add(Ansi.cyan("Largest folders"));
+        for (TreeAnalytics.DirStat d : report.largest()) {
+            lines.add(String.format("  %10s %9d file(s)  %s/", ProfileComparison.formatBytes(d.bytes()), d.files(), d.dir()));
+        }
+        if (report.largest().isEmpty()) lines.add(Ansi.dim("  (no subfolders)"));
+
+        lines.add("");
+        if (report.unreadable() > 0) {
+            lines.add(Ansi.yellow(report.unreadable() + " folder(s) could not be read"));
+        }
+        lines.add(Ansi.dim(String.format("Analyzed in %.1f s", report.elapsed().toMillis() / 1000.0)));
+        lines.add("");
+        return lines;
+    }
+
+    /** Prints the report. */
+    public static void print(TreeAnalytics.Report report) {
+        render(report).forEach(System.out::println);
+    }
+
+    private static String bar(double share) {
+        int n = (int) Math.round(share * BAR_WIDTH);
+        return "#".repeat(n) + ".".repeat(BAR_WIDTH - n);
+    }
+
+    private static String fit(String s) {
+        return s.length() <= 12 ? s : s.substring(0, 11) + "~";
+    }
+}
@@ -131,6 +131,21 @@ public final class Display {
         println("-".repeat(LINE_WIDTH));
     }
 
+    /**
+     * Rewrites a single progress line in place; call with done == total to end it.
+     *
+     * @param label what is progressing
+     * @param done items processed
+     * @param total expected items, or -1 if unknown
+     */
+    public static void printProgress(String label, long done, long total) {
+        String text = total >= 0
+            ? String.format("\r[i] %s: %d/%d", label, done, total)
+            : String.format("\r[i] %s: %d", label, done);
+        print(text);
+        if (total >= 0 && done >= total) println();
+    }
+
     // ============ User input ============
 
     public static String readInput(String prompt) {
@@ -0,0 +1,101 @@
+package io.neatify.cli.ui;
+
+import io.neatify.cli.util.Ansi;
+import io.neatify.core.ScanEstimator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleFunction;
+
+/**
+ * Report of a sampled pre-scan ({@code --estimate}): predicted size of the
+ * tree, share of files the rules would move, file size classes, predicted
+ * scan and apply times, and whether {@code --max-files} would be reached.
+ */
+public final class EstimateReport {
+
+    private static final int LABEL_WIDTH = 16;
+
+    private EstimateReport() {
+        // Utility class
+    }
+
+    /**
+     * @param estimate sampled estimate
+     * @param maxFiles file quota of a full scan
+     * @return report lines
+     */
+    public static List<String> render(ScanEstimator.Estimate estimate, int maxFiles) {
+        List<String> lines = new ArrayList<>();
+        lines.add("");
+        lines.add(Preview.formatSection("SCAN ESTIMATE"));
+        lines.add(row("Files", estimate.files(), EstimateReport::count));
+        lines.add(row("Data", estimate.bytes(), v -> ProfileComparison.formatBytes(Math.round(v))));
+        lines.add(row("Folders", estimate.dirs(), EstimateReport::count));
+        lines.add(row("Files to move", estimate.moves(), EstimateReport::count)
+            + String.format("  %.0f%% of files", 100 * estimate.hitRate()));
+
+        StringBuilder sizes = new StringBuilder(pad("File sizes"));
+        double[] shares = estimate.sizeClasses();
+        for (int i = 0; i < shares.length; i++) {
+            if (i > 0) sizes.append(" | ");
+            String label = i < ScanEstimator.SIZE_CLASSES.length
+                ? "< " + ProfileComparison.formatBytes(ScanEstimator.SIZE_CLASSES[i])
+                : ">= " + ProfileComparison.formatBytes(ScanEstimator.SIZE_CLASSES[i - 1]);
+            sizes.append(label).append(String.format(" %.0f%%", 100 * shares[i]));
+        }
+        lines.add(sizes.toString());
+
+        lines.add("");
+        lines.add(row("Scan time", estimate.scanTime(), EstimateReport::duration));
+        ScanEstimator.Interval apply = estimate.applySeconds();
+        lines.add(apply == null
+            ? pad("Apply time") + Ansi.dim("unknown (no writable scratch folder on the same disk)")
+            : row("Apply time", apply, EstimateReport::duration) + Ansi.dim("  moves only, without journaling"));
+
+        lines.add("");
+        ScanEstimator.Interval files = estimate.files();
+        if (estimate.dirsCut() > 0) {
+            lines.add(Ansi.yellow(estimate.dirsCut() + " folder(s) too large to list in time; figures are lower bounds"));
+        }
+        if (files.low() > maxFiles) {
+            lines.add(Ansi.red("--max-files " + maxFiles + " will be exceeded; raise it or narrow the scan"));
+        } else if (files.high() > maxFiles || estimate.dirsCut() > 0) {
+            lines.add(Ansi.yellow("--max-files " + maxFiles + " may be exceeded"));
+        } else {
+            lines.add(Ansi.green("--max-files " + maxFiles + " is enough"));
+        }
+        lines.add(Ansi.dim(String.format("Sampled %d folder(s) and %d entries in %d probe(s), %.1f s;"
+                + " ranges are 95%% confidence intervals", estimate.dirsSampled(), estimate.entriesRead(),
+            estimate.probes(), estimate.elapsed().toMillis() / 1000.0)));
+        lines.add("");
+        return lines;
+    }
+
+    /** Prints the report. */
+    public static void print(ScanEstimator.Estimate estimate, int maxFiles) {
+        render(estimate, maxFiles).forEach(System.out::println);
+    }
+
+    private static String row(String label, ScanEstimator.Interval v, DoubleFunction<String> format) {
+        String value = "~" + format.apply(v.mean());
+        return pad(label) + value + " ".repeat(Math.max(1, 14 - value.length()))
+            + Ansi.dim("(" + format.apply(v.low()) + " - " + format.apply(v.high()) + ")");
+    }
+
+    private static String pad(String label) {
+        return label + " ".repeat(Math.max(1, LABEL_WIDTH - label.length()));
+    }
+
+    static String count(double v) {
+        return String.format("%,d", Math.round(v));
+    }
+
+    static String duration(double seconds) {
+        if (seconds < 10) return String.format("%.1f s", seconds);
+        long s = Math.round(seconds);
+        if (s < 60) return s + " s";
+        if (s < 3600) return String.format("%dm %02ds", s / 60, s % 60);
+        return String.format("%dh %02dm", s / 3600, s % 3600 / 60);
+    }
+}
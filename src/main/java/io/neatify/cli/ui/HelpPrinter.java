@@ -26,17 +26,42 @@ public final class HelpPrinter {
         System.out.println("  --undo                      Undo the last run (journal)");
         System.out.println("  --undo-list                 List journaled runs (.neatify/runs)");
         System.out.println("  --undo-run <timestamp>      Undo a specific run");
+        System.out.println("  --undo-select <glob|dir>    Undo only moves into matching targets (e.g. Images)");
+        System.out.println("  --where <path>              Show which runs moved a file or folder");
+        System.out.println("  --lock-status               Show which folders running Neatify processes hold");
         System.out.println();
         System.out.println("OPTIONS (command mode):");
-        System.out.println("  --source, -s <dir>          Directory to organize (required)");
-        System.out.println("  --rules, -r <file>          Rules file (required)");
+        System.out.println("  --source, -s <dir>          Directory to organize (required, repeatable)");
+        System.out.println("  --roots-file <file>         More directories to organize, one per line");
+        System.out.println("  --batch-threads <n>         Workers shared by all roots (default: up to 4)");
+        System.out.println("  --lock-root <dir>           Share locks in <dir>/.neatify/locks (default: ~/.neatify/locks)");
+        System.out.println("  --lock-wait <seconds>       Wait for runs on overlapping folders (default: fail at once)");
+        System.out.println("  --workers <n>               Scan and move one source with n worker processes");
+        System.out.println("  --rules, -r <file>          Rules file (required; repeat to compare profiles)");
         System.out.println("  --use-default-rules         Use built-in default rules (no --rules)");
         System.out.println("  --apply, -a                 Apply changes (otherwise dry-run)");
         System.out.println("  --json                      JSON output (preview + result)");
+        System.out.println("  --plan-out <file>           Save the plan (with file sizes/mtimes) for a later --apply-plan");
+        System.out.println("  --apply-plan <file>         Apply a saved plan without rescanning (skips changed files)");
+        System.out.println("  --estimate                  Sample the folder and predict files, size and run time");
+        System.out.println("  --analyze                   Show extensions, unmatched ones and largest folders");
+        System.out.println("  --suggest-rules <file>      Analyze and write rules covering the extensions found");
+        System.out.println("  --files-from <file|->       Organize only the listed files (NUL- or newline-separated)");
+        System.out.println("  --json-stream               NDJSON events while planning and moving (one per line)");
         System.out.println("  --on-collision <mode>       Collision: rename (default), skip, overwrite");
         System.out.println("  --max-files <n>             Max files to scan (default: 100000)");
+        System.out.println("  --time-budget <seconds>     Stop scanning after this long and save where it stopped");
+        System.out.println("  --file-budget <n>           Stop scanning after n files (instead of failing at --max-files)");
+        System.out.println("  --continue                  Resume the scan saved by the last budgeted run");
+        System.out.println("  --resume                    Finish an --apply run that was interrupted (crash, kill)");
         System.out.println("  --include <glob>            Include (repeatable), e.g. **/*.pdf");
         System.out.println("  --exclude <glob>            Exclude (repeatable), e.g. **/node_modules/**");
+        System.out.println("  --journal-format <fmt>      Undo journal: binary (default) or json");
+        System.out.println("  --journal-batch <n>         Moves per undo-journal fsync (default: 256)");
+        System.out.println("  --journal-interval <ms>     Max delay before journal fsync (default: 200)");
+        System.out.println("  --keep-runs <n>             Runs kept as live journals, older are archived (default: 20)");
+        System.out.println("  --keep-days <n>             Archive runs older than n days (default: 90)");
+        System.out.println("  --journal-max-mb <n>        Delete oldest archives beyond this size (default: keep all)");
         System.out.println("  --help, -h                  Show this help");
         System.out.println("  --version, -v               Show version");
         System.out.println();
@@ -45,6 +70,7 @@ public final class HelpPrinter {
         System.out.println("  --ascii                     Use ASCII symbols instead of Unicode");
         System.out.println("  --per-folder-preview <n>    Files per folder to display (default: 5)");
         System.out.println("  --sort <mode>               File sort: alpha, ext or size (default: alpha)");
+        System.out.println("  --pager                     Browse the preview page by page (folders, search, sort)");
         System.out.println();
         System.out.println("EXAMPLES:");
         System.out.println("  # Interactive mode");
@@ -8,7 +8,6 @@ import io.neatify.core.FileMover;
 import java.nio.file.Path;
 import java.nio.file.Files;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Utility to generate and display a preview of planned changes.
@@ -33,11 +32,60 @@ public final class Preview {
         public Config showDuplicates(boolean value) { this.showDuplicates = value; return this; }
     }
 
-    /** File entry with metadata for display. */
-    private record FileEntry(String name, String extension, int count, long totalBytes) {}
+    /** File entry with metadata for display; count and bytes grow as duplicates are seen. */
+    private static final class FileEntry {
+        final String name;
+        final String extension;
+        int count;
+        long totalBytes;
+
+        FileEntry(String name, long bytes) {
+            this.name = name;
+            this.extension = FileMetadata.extensionOf(name);
+            this.count = 1;
+            this.totalBytes = bytes;
+        }
+    }
+
+    /** Running summary of one destination folder: file count and one entry per distinct name. */
+    private static final class FolderGroup {
+        final String folderName;
+        final Map<String, FileEntry> byName = new HashMap<>();
+        int totalFiles;
+
+        FolderGroup(String folderName) {
+            this.folderName = folderName;
+        }
+
+        void add(String name, long bytes) {
+            totalFiles++;
+            FileEntry existing = byName.get(name);
+            if (existing != null) {
+                existing.count++;
+                existing.totalBytes += bytes;
+            } else {
+                byName.put(name, new FileEntry(name, bytes));
+            }
+        }
 
-    /** Group of files per folder. */
-    private record FolderGroup(String folderName, List<FileEntry> files) {}
+        /** @return the first {@code limit} entries in display order, picked with a bounded heap */
+        List<FileEntry> top(int limit, Comparator<FileEntry> order) {
+            if (limit <= 0) return List.of();
+            // Worst kept entry on top, so each candidate costs O(log limit)
+            PriorityQueue<FileEntry> heap = new PriorityQueue<>(limit + 1, order.reversed());
+            for (FileEntry e : byName.values()) {
+                if (heap.size() < limit) {
+                    heap.add(e);
+                } else if (order.compare(e, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(e);
+                }
+            }
+            List<FileEntry> top = new ArrayList<>(heap);
+            top.sort(order);
+            return top;
+        }
+    }
 
     private Preview() { }
 
@@ -50,6 +98,14 @@ public final class Preview {
 
     /**
      * Generates a formatted preview of changes (for tests or advanced usage).
+     *
+     * Actions are summarized in a single pass that counts files and bytes
+     * per distinct name in each folder; the K = {@code maxFilesPerFolder}
+     * entries shown are then picked with a bounded heap instead of sorting
+     * whole folders: O(n + names x log K) time. Rankings, including by total
+     * size, and the number of names left out are exact. File sizes are only
+     * read in {@link SortMode#SIZE}.
+     *
      * @param actions planned actions
      * @param config rendering configuration
      * @return lines to display
@@ -59,13 +115,7 @@ public final class Preview {
             return List.of();
         }
 
-        // Group by destination folder
-        Map<String, List<FileMover.Action>> byFolder = groupByFolder(actions);
-
-        // Convert to FolderGroup with duplicate counting
-        List<FolderGroup> groups = byFolder.entrySet().stream()
-            .map(entry -> createFolderGroup(entry.getKey(), entry.getValue(), config))
-            .toList();
+        Collection<FolderGroup> groups = summarize(actions, config);
 
         // Generate output lines
         List<String> lines = new ArrayList<>();
@@ -85,51 +135,38 @@ public final class Preview {
 
     // ============ Internal logic ============
 
-    /** Groups actions by destination folder. */
-    private static Map<String, List<FileMover.Action>> groupByFolder(List<FileMover.Action> actions) {
-        Map<String, List<FileMover.Action>> grouped = new LinkedHashMap<>();
+    /** Groups actions by destination folder, keeping the top entries of each. */
+    private static Collection<FolderGroup> summarize(List<FileMover.Action> actions, Config config) {
+        boolean needSize = config.sortMode == SortMode.SIZE;
+        Map<String, FolderGroup> groups = new LinkedHashMap<>();
         for (FileMover.Action action : actions) {
-            Path parent = action.target().getParent();
-            String folderName = parent != null ? parent.getFileName().toString() : "(root)";
-            grouped.computeIfAbsent(folderName, k -> new ArrayList<>()).add(action);
+            String folderName = folderName(action.target());
+            FolderGroup group = groups.computeIfAbsent(folderName, FolderGroup::new);
+            group.add(action.source().getFileName().toString(), needSize ? sizeOf(action.source()) : 0L);
         }
-        return grouped;
+        return groups.values();
     }
 
-    /** Creates a FolderGroup with duplicate counting. */
-    private static FolderGroup createFolderGroup(String folderName, List<FileMover.Action> actions, Config config) {
-        // group by file name
-        Map<String, List<FileMover.Action>> byName = actions.stream()
-            .collect(Collectors.groupingBy(a -> a.source().getFileName().toString(), LinkedHashMap::new, Collectors.toList()));
-
-        List<FileEntry> entries = new ArrayList<>();
-        for (Map.Entry<String, List<FileMover.Action>> e : byName.entrySet()) {
-            String name = e.getKey();
-            List<FileMover.Action> group = e.getValue();
-            int count = group.size();
-            long size = 0L;
-            for (FileMover.Action a : group) {
-                try { size += Files.size(a.source()); } catch (Exception ignore) { /* best-effort */ }
-            }
-            entries.add(new FileEntry(name, FileMetadata.extensionOf(name), count, size));
-        }
+    static String folderName(Path target) {
+        Path parent = target.getParent();
+        return parent != null && parent.getFileName() != null ? parent.getFileName().toString() : "(root)";
+    }
 
-        List<FileEntry> sorted = sortEntries(entries, config.sortMode);
-        return new FolderGroup(folderName, sorted);
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (Exception ignore) {
+            return 0L; // best-effort
+        }
     }
 
-    /** Sorts entries according to requested mode. */
-    private static List<FileEntry> sortEntries(List<FileEntry> entries, SortMode mode) {
+    /** Display order of entries within a folder. */
+    private static Comparator<FileEntry> entryOrder(SortMode mode) {
+        Comparator<FileEntry> byName = Comparator.comparing(e -> e.name);
         return switch (mode) {
-            case ALPHA -> entries.stream()
-                .sorted(Comparator.comparing(FileEntry::name))
-                .toList();
-            case EXT -> entries.stream()
-                .sorted(Comparator.comparing(FileEntry::extension).thenComparing(FileEntry::name))
-                .toList();
-            case SIZE -> entries.stream()
-                .sorted(Comparator.comparingLong(FileEntry::totalBytes).reversed().thenComparing(FileEntry::name))
-                .toList();
+            case ALPHA -> byName;
+            case EXT -> Comparator.<FileEntry, String>comparing(e -> e.extension).thenComparing(byName);
+            case SIZE -> Comparator.<FileEntry>comparingLong(e -> e.totalBytes).reversed().thenComparing(byName);
         };
     }
 
@@ -137,7 +174,7 @@ public final class Preview {
     private static List<String> renderFolderGroup(FolderGroup group, Config config) {
         List<String> lines = new ArrayList<>();
 
-        int totalFiles = group.files.stream().mapToInt(FileEntry::count).sum();
+        int totalFiles = group.totalFiles;
         String header = String.format("\n%s %s/  (%d file%s)",
             Ansi.cyan(AsciiSymbols.arrow()),
             Ansi.cyan(group.folderName),
@@ -146,14 +183,13 @@ public final class Preview {
         );
         lines.add(header);
 
-        int maxShow = Math.min(config.maxFilesPerFolder, group.files.size());
-        for (int i = 0; i < maxShow; i++) {
-            FileEntry entry = group.files.get(i);
+        List<FileEntry> top = group.top(config.maxFilesPerFolder, entryOrder(config.sortMode));
+        for (FileEntry entry : top) {
             lines.add(formatFileEntry(entry, config.showDuplicates));
         }
 
-        if (group.files.size() > maxShow) {
-            int remaining = group.files.size() - maxShow;
+        if (group.byName.size() > top.size()) {
+            int remaining = group.byName.size() - top.size();
             lines.add(Ansi.dim(String.format("  %s %d more...", AsciiSymbols.plus(), remaining)));
         }
 
@@ -172,7 +208,7 @@ public final class Preview {
     }
 
     /** Formats the section header. */
-    private static String formatSection(String title) {
+    static String formatSection(String title) {
         String line = Display.line();
         return line + "\n" + Display.center(title) + "\n" + line;
     }
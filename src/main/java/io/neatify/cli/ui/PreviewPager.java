@@ -0,0 +1,287 @@
+package io.neatify.cli.ui;
+
+import io.neatify.cli.util.Ansi;
+import io.neatify.cli.util.AsciiSymbols;
+import io.neatify.core.FileMetadata;
+import io.neatify.core.FileMover;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Interactive pager over a plan preview.
+ *
+ * Pages are computed on demand: each page is the next {@code pageSize} files
+ * of the current folder after the last one shown, in the current sort order
+ * (keyset pagination). Only the span of the plan each folder occupies is
+ * kept, so a page scans that span and the pager holds nothing per file;
+ * file sizes are cached for a folder shown by size when it is not larger
+ * than {@link #SIZE_CACHE} files. Switching the sort order or searching
+ * just restarts the cursor.
+ */
+public final class PreviewPager {
+
+    /** Default number of files per page. */
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    /** Files of a folder whose sizes are kept between its pages by size. */
+    static final int SIZE_CACHE = 65_536;
+
+    /** Destination folder: where its files lie in the plan and how many there are. */
+    private record Folder(String name, int first, int last, int count) {}
+
+    /** Position of a file in the current order; the plan index makes keys unique. */
+    private record Key(int index, String name, String extension, long size) {}
+
+    private final List<FileMover.Action> actions;
+    private final int pageSize;
+    private final Supplier<String> input;
+    private final Consumer<String> output;
+    private final List<Folder> folders;
+    /** Sizes of the files of {@link #sizesFolder}, read on its first page by size. */
+    private long[] sizes;
+    private int sizesFolder = -1;
+
+    private Preview.SortMode sortMode;
+    private int folder;
+    private String search;
+    private Key after;
+    private final Deque<Key> previous = new ArrayDeque<>();
+
+    PreviewPager(List<FileMover.Action> actions, Preview.SortMode sortMode, int pageSize,
+                 Supplier<String> input, Consumer<String> output) {
+        this.actions = actions;
+        this.sortMode = sortMode;
+        this.pageSize = pageSize;
+        this.input = input;
+        this.output = output;
+        this.folders = indexFolders(actions);
+    }
+
+    /**
+     * Browses the preview on the console until the user quits.
+     *
+     * @param actions planned actions
+     * @param config initial sort mode
+     */
+    public static void browse(List<FileMover.Action> actions, Preview.Config config) {
+        Supplier<String> console = () -> {
+            try {
+                return Display.readInput("pager");
+            } catch (NoSuchElementException e) {
+                return null; // end of input
+            }
+        };
+        new PreviewPager(actions, config.sortMode, DEFAULT_PAGE_SIZE, console, System.out::println).run();
+    }
+
+    // ============ Command loop ============
+
+    void run() {
+        if (folders.isEmpty()) return;
+        List<Key> page = showPage();
+        while (true) {
+            String line = input.get();
+            if (line == null) return;
+            String cmd = line.trim();
+            if (cmd.equals("q")) return;
+
+            if (cmd.isEmpty() || cmd.equals("n")) {
+                if (page.size() > pageSize) {
+                    previous.push(after == null ? new Key(-1, "", "", 0) : after);
+                    after = page.get(pageSize - 1);
+                }
+            } else if (cmd.equals("p")) {
+                if (!previous.isEmpty()) {
+                    Key k = previous.pop();
+                    after = k.index() < 0 ? null : k;
+                }
+            } else if (cmd.equals("]")) {
+                selectFolder((folder + 1) % folders.size());
+            } else if (cmd.equals("[")) {
+                selectFolder((folder + folders.size() - 1) % folders.size());
+            } else if (cmd.startsWith("f ")) {
+                int idx = findFolder(cmd.substring(2).trim());
+                if (idx < 0) {
+                    output.accept(Ansi.yellow("No folder matches: " + cmd.substring(2).trim()));
+                    continue;
+                }
+                selectFolder(idx);
+            } else if (cmd.startsWith("/")) {
+                String text = cmd.substring(1).trim();
+                search = text.isEmpty() ? null : text.toLowerCase(Locale.ROOT);
+                resetCursor();
+            } else if (cmd.startsWith("s ")) {
+                Preview.SortMode mode = parseSortMode(cmd.substring(2).trim());
+                if (mode == null) {
+                    output.accept(Ansi.yellow("Sort must be one of: alpha, ext or size"));
+                    continue;
+                }
+                sortMode = mode;
+                resetCursor();
+            } else {
+                output.accept(Ansi.yellow("Unknown command: " + cmd));
+                continue;
+            }
+            page = showPage();
+        }
+    }
+
+    private void selectFolder(int idx) {
+        folder = idx;
+        search = null;
+        resetCursor();
+    }
+
+    private void resetCursor() {
+        after = null;
+        previous.clear();
+    }
+
+    private int findFolder(String name) {
+        String n = name.toLowerCase(Locale.ROOT);
+        if (n.endsWith("/")) n = n.substring(0, n.length() - 1);
+        for (int i = 0; i < folders.size(); i++) {
+            if (folders.get(i).name().toLowerCase(Locale.ROOT).equals(n)) return i;
+        }
+        for (int i = 0; i < folders.size(); i++) {
+            if (folders.get(i).name().toLowerCase(Locale.ROOT).startsWith(n)) return i;
+        }
+        return -1;
+    }
+
+    private static Preview.SortMode parseSortMode(String mode) {
+        return switch (mode.toLowerCase(Locale.ROOT)) {
+            case "alpha" -> Preview.SortMode.ALPHA;
+            case "ext" -> Preview.SortMode.EXT;
+            case "size" -> Preview.SortMode.SIZE;
+            default -> null;
+        };
+    }
+
+    // ============ Page computation ============
+
+    private static List<Folder> indexFolders(List<FileMover.Action> actions) {
+        // first index, last index and count per folder, in order of first appearance
+        Map<String, int[]> spans = new LinkedHashMap<>();
+        for (int i = 0; i < actions.size(); i++) {
+            int index = i;
+            int[] span = spans.computeIfAbsent(Preview.folderName(actions.get(i).target()), k -> new int[] {index, 0, 0});
+            span[1] = i;
+            span[2]++;
+        }
+        List<Folder> folders = new ArrayList<>(spans.size());
+        spans.forEach((name, span) -> folders.add(new Folder(name, span[0], span[1], span[2])));
+        return folders;
+    }
+
+    /**
+     * Scans the current folder and keeps the first {@code pageSize + 1}
+     * matching files after the cursor (the extra one tells whether a next
+     * page exists).
+     */
+    private List<Key> nextPage(int[] matching) {
+        Comparator<Key> order = keyOrder(sortMode);
+        Folder f = folders.get(folder);
+        boolean bySize = sortMode == Preview.SortMode.SIZE;
+        long[] folderSizes = bySize ? folderSizes() : null;
+        TreeSet<Key> page = new TreeSet<>(order);
+        int j = -1;
+        for (int i = f.first(); i <= f.last(); i++) {
+            FileMover.Action a = actions.get(i);
+            if (!Preview.folderName(a.target()).equals(f.name())) continue;
+            j++;
+            String name = a.source().getFileName().toString();
+            if (search != null && !name.toLowerCase(Locale.ROOT).contains(search)) continue;
+            matching[0]++;
+            long size = !bySize ? 0L : folderSizes != null ? folderSizes[j] : sizeOf(a.source());
+            Key key = new Key(i, name, FileMetadata.extensionOf(name), size);
+            if (after != null && order.compare(key, after) <= 0) continue;
+            if (page.size() > pageSize && order.compare(key, page.last()) >= 0) continue;
+            page.add(key);
+            if (page.size() > pageSize + 1) page.pollLast();
+        }
+        return new ArrayList<>(page);
+    }
+
+    private static Comparator<Key> keyOrder(Preview.SortMode mode) {
+        Comparator<Key> byName = Comparator.comparing(Key::name).thenComparingInt(Key::index);
+        return switch (mode) {
+            case ALPHA -> byName;
+            case EXT -> Comparator.comparing(Key::extension).thenComparing(byName);
+            case SIZE -> Comparator.comparingLong(Key::size).reversed().thenComparing(byName);
+        };
+    }
+
+    /** @return sizes of the current folder's files in plan order, or null if it is too large to cache */
+    private long[] folderSizes() {
+        Folder f = folders.get(folder);
+        if (f.count() > SIZE_CACHE) return null;
+        if (sizesFolder != folder) {
+            sizes = new long[f.count()];
+            int j = 0;
+            for (int i = f.first(); i <= f.last(); i++) {
+                FileMover.Action a = actions.get(i);
+                if (Preview.folderName(a.target()).equals(f.name())) sizes[j++] = sizeOf(a.source());
+            }
+            sizesFolder = folder;
+        }
+        return sizes;
+    }
+
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (Exception ignore) {
+            return 0L; // best-effort
+        }
+    }
+
+    // ============ Rendering ============
+
+    private List<Key> showPage() {
+        int[] matching = {0};
+        List<Key> page = nextPage(matching);
+        String name = folders.get(folder).name();
+        int count = folders.get(folder).count();
+
+        output.accept("");
+        StringBuilder header = new StringBuilder()
+            .append(Ansi.cyan(AsciiSymbols.arrow())).append(' ')
+            .append(Ansi.cyan(name + "/"))
+            .append(String.format("  (folder %d/%d, %d file%s)", folder + 1, folders.size(),
+                count, count > 1 ? "s" : ""))
+            .append("  sort: ").append(sortMode.name().toLowerCase(Locale.ROOT));
+        if (search != null) header.append("  search: \"").append(search).append("\" (").append(matching[0]).append(')');
+        output.accept(header.toString());
+
+        int shown = Math.min(pageSize, page.size());
+        for (int i = 0; i < shown; i++) {
+            Key k = page.get(i);
+            Path parent = actions.get(k.index()).source().getParent();
+            StringBuilder sb = new StringBuilder("  ")
+                .append(Ansi.dim(AsciiSymbols.bullet())).append(' ').append(k.name());
+            if (sortMode == Preview.SortMode.SIZE) sb.append("  ").append(Ansi.dim(k.size() + " B"));
+            if (parent != null) sb.append("  ").append(Ansi.dim("from " + parent));
+            output.accept(sb.toString());
+        }
+        if (shown == 0) output.accept(Ansi.dim("  (no file)"));
+
+        output.accept(Ansi.dim(String.format("  page %d%s  [Enter] next  [p] prev  ] / [ folder  [f name] go to folder"
+                + "  [/text] search  [s alpha|ext|size] sort  [q] quit",
+            previous.size() + 1, page.size() > pageSize ? "" : " (last)")));
+        return page;
+    }
+}
@@ -0,0 +1,221 @@
+package io.neatify.cli.ui;
+
+import io.neatify.cli.util.Ansi;
+import io.neatify.core.FileMover;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Side-by-side report of several rule profiles evaluated in one walk
+ * ({@code --rules a --rules b ...}).
+ *
+ * Fed by {@link FileMover#compare} as the walk goes, it keeps per profile
+ * the files and bytes to move and the same per destination folder, plus
+ * the first files the profiles disagree on. Memory follows the number of
+ * folders, not files.
+ */
+public final class ProfileComparison implements FileMover.CompareListener {
+
+    /** Folder rows shown, largest differences first. */
+    static final int MAX_FOLDERS = 40;
+
+    /** Files planned differently that are listed as examples. */
+    static final int MAX_SAMPLES = 10;
+
+    private static final int NAME_WIDTH = 28;
+    private static final int COLUMN_WIDTH = 18;
+    private static final Pattern ANSI = Pattern.compile("\u001B\\[[;\\d]*m");
+
+    /** Totals of one profile. */
+    public record Totals(long files, long bytes) {}
+
+    private final Path root;
+    private final List<String> names;
+    private final long[] files;
+    private final long[] bytes;
+    /** Destination folder -> {files, bytes} per profile, interleaved. */
+    private final Map<String, long[]> folders = new HashMap<>();
+    private final List<String[]> samples = new ArrayList<>();
+    private long scanned;
+    private long differing;
+
+    /**
+     * @param sourceRoot compared root
+     * @param names profile names, in the order of the compared rule sets
+     */
+    public ProfileComparison(Path sourceRoot, List<String> names) {
+        this.root = sourceRoot.toAbsolutePath().normalize();
+        this.names = List.copyOf(names);
+        this.files = new long[names.size()];
+        this.bytes = new long[names.size()];
+    }
+
+    @Override
+    public void onFile(Path file, BasicFileAttributes attrs, List<FileMover.Action> outcomes) {
+        scanned++;
+        String[] where = new String[outcomes.size()];
+        for (int i = 0; i < outcomes.size(); i++) {
+            FileMover.Action a = outcomes.get(i);
+            if (a == null) continue;
+            where[i] = folder(a.target());
+            files[i]++;
+            bytes[i] += attrs.size();
+            long[] row = folders.computeIfAbsent(where[i], k -> new long[2 * names.size()]);
+            row[2 * i]++;
+            row[2 * i + 1] += attrs.size();
+        }
+        for (int i = 1; i < where.length; i++) {
+            if (!Objects.equals(where[0], where[i])) {
+                differing++;
+                if (samples.size() < MAX_SAMPLES) {
+                    String[] sample = new String[where.length + 1];
+                    sample[0] = relative(file);
+                    System.arraycopy(where, 0, sample, 1, where.length);
+                    samples.add(sample);
+                }
+                break;
+            }
+        }
+    }
+
+    /** @return files looked at by the walk */
+    public long scanned() { return scanned; }
+
+    /** @return files not planned the same way by every profile */
+    public long differing() { return differing; }
+
+    /** @return files and bytes each profile would move, in profile order */
+    public List<Totals> totals() {
+        List<Totals> list = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) list.add(new Totals(files[i], bytes[i]));
+        return list;
+    }
+
+    /** @return destination folder -> files each profile sends there, in profile order */
+    public Map<String, List<Long>> folderFiles() {
+        Map<String, List<Long>> map = new HashMap<>();
+        folders.forEach((folder, row) -> {
+            List<Long> counts = new ArrayList<>();
+            for (int i = 0; i < names.size(); i++) counts.add(row[2 * i]);
+            map.put(folder, counts);
+        });
+        return map;
+    }
+
+    /** @return profile names */
+    public List<String> names() { return names; }
+
+    /**
+     * @return report lines: totals, destination folders (differing ones
+     *         marked, largest differences first) and example files
+     */
+    public List<String> render() {
+        List<String> lines = new ArrayList<>();
+        lines.add("");
+        lines.add(Preview.formatSection("PROFILE COMPARISON"));
+        lines.add(row("", names.stream().map(n -> Ansi.cyan(fit(n, COLUMN_WIDTH - 1))).toList()));
+        List<String> moved = new ArrayList<>();
+        List<String> size = new ArrayList<>();
+        List<String> stay = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            moved.add(String.valueOf(files[i]));
+            size.add(formatBytes(bytes[i]));
+            stay.add(String.valueOf(scanned - files[i]));
+        }
+        lines.add(row("Files to move", moved));
+        lines.add(row("Bytes to move", size));
+        lines.add(row("Files left in place", stay));
+
+        lines.add("");
+        lines.add(String.format("%s  (files / bytes, * = profiles differ)", Ansi.cyan("Destination folders")));
+        List<Map.Entry<String, long[]>> rows = new ArrayList<>(folders.entrySet());
+        rows.sort(Comparator.<Map.Entry<String, long[]>>comparingLong(e -> spread(e.getValue())).reversed()
+            .thenComparing(Map.Entry::getKey));
+        for (Map.Entry<String, long[]> e : rows.subList(0, Math.min(MAX_FOLDERS, rows.size()))) {
+            long[] r = e.getValue();
+            List<String> cells = new ArrayList<>();
+            for (int i = 0; i < names.size(); i++) {
+                cells.add(r[2 * i] == 0 ? "-" : r[2 * i] + " / " + formatBytes(r[2 * i + 1]));
+            }
+            String marker = spread(r) > 0 ? Ansi.yellow("*") : " ";
+            lines.add(row(marker + " " + fit(e.getKey() + "/", NAME_WIDTH - 3), cells));
+        }
+        if (rows.size() > MAX_FOLDERS) {
+            lines.add(Ansi.dim("  + " + (rows.size() - MAX_FOLDERS) + " more folder(s)"));
+        }
+
+        lines.add("");
+        lines.add(String.format("%s: %d of %d file(s)", Ansi.cyan("Planned differently"), differing, scanned));
+        for (String[] s : samples) {
+            List<String> cells = new ArrayList<>();
+            for (int i = 1; i < s.length; i++) cells.add(s[i] == null ? "(stays)" : s[i] + "/");
+            lines.add(row("  " + fit(s[0], NAME_WIDTH - 3), cells));
+        }
+        if (differing > samples.size()) {
+            lines.add(Ansi.dim("  + " + (differing - samples.size()) + " more"));
+        }
+        lines.add("");
+        return lines;
+    }
+
+    /** Prints the report. */
+    public void print() {
+        render().forEach(System.out::println);
+    }
+
+    // ==== Formatting ====
+
+    private String folder(Path target) {
+        Path dir = target.toAbsolutePath().normalize().getParent();
+        String rel = root.relativize(dir).toString().replace('\\', '/');
+        return rel.isEmpty() ? "(root)" : rel;
+    }
+
+    private String relative(Path file) {
+        return root.relativize(file.toAbsolutePath().normalize()).toString().replace('\\', '/');
+    }
+
+    /** @return largest minus smallest file count across profiles */
+    private long spread(long[] row) {
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        for (int i = 0; i < names.size(); i++) {
+            min = Math.min(min, row[2 * i]);
+            max = Math.max(max, row[2 * i]);
+        }
+        return max - min;
+    }
+
+    /** Lays out a label and one cell per profile; color codes do not count towards the widths. */
+    private static String row(String label, List<String> cells) {
+        StringBuilder sb = new StringBuilder(label);
+        sb.append(" ".repeat(Math.max(1, NAME_WIDTH - visibleLength(label))));
+        for (String cell : cells) {
+            sb.append(cell).append(" ".repeat(Math.max(1, COLUMN_WIDTH - visibleLength(cell))));
+        }
+        return sb.toString().stripTrailing();
+    }
+
+    private static int visibleLength(String s) {
+        return ANSI.matcher(s).replaceAll("").length();
+    }
+
+    private static String fit(String s, int width) {
+        return s.length() <= width ? s : s.substring(0, width - 1) + "~";
+    }
+
+    static String formatBytes(long n) {
+        if (n < 1024) return n + " B";
+        if (n < 1024 * 1024) return String.format("%.1f KB", n / 1024.0);
+        if (n < 1024L * 1024 * 1024) return String.format("%.1f MB", n / (1024.0 * 1024));
+        return String.format("%.1f GB", n / (1024.0 * 1024 * 1024));
+    }
+}
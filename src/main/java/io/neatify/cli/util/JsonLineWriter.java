@@ -0,0 +1,287 @@
+package io.neatify.cli.util;
+
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming NDJSON writer: one flat JSON object per line.
+ *
+ * Strings are escaped and UTF-8 encoded straight into a reused byte buffer,
+ * so writing an event allocates nothing. The buffer goes to the channel when
+ * full, and at the end of an event if the last write is older than
+ * {@link #FLUSH_INTERVAL_MILLIS}. Otherwise a timer writes the completed
+ * events once that interval is over, so readers see every event within it
+ * even when the writer goes idle.
+ *
+ * <pre>{@code
+ * out.begin("moved").field("source", src).field("target", dst).end();
+ * }</pre>
+ */
+public final class JsonLineWriter implements Flushable, Closeable {
+
+    /** Maximum delay before a completed event reaches the channel. */
+    public static final long FLUSH_INTERVAL_MILLIS = 100;
+
+    private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MILLIS);
+
+    /** Writes completed events of idle writers; shared by every writer. */
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "neatify-json-flush");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final WritableByteChannel out;
+    private final boolean ownsChannel;
+    private final ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+    private long lastFlush = System.nanoTime();
+    /** Bytes of whole events at the start of the buffer. */
+    private int completed;
+    private boolean flushScheduled;
+    /** Error of a timed write, reported by the next call. */
+    private IOException failure;
+
+    public JsonLineWriter(WritableByteChannel out) {
+        this(out, true);
+    }
+
+    private JsonLineWriter(WritableByteChannel out, boolean ownsChannel) {
+        this.out = out;
+        this.ownsChannel = ownsChannel;
+    }
+
+    /** @return writer on the process standard output, which is left open on close */
+    public static JsonLineWriter stdout() {
+        System.out.flush();
+        return new JsonLineWriter(Channels.newChannel(new FileOutputStream(FileDescriptor.out)), false);
+    }
+
+    // ============ Events ============
+
+    /** Starts an event object with its {@code "event"} field. */
+    public synchronized JsonLineWriter begin(String event) {
+        ensure(1);
+        buf.put((byte) '{');
+        key("event", true);
+        string(event);
+        return this;
+    }
+
+    public synchronized JsonLineWriter field(String name, String value) {
+        key(name, false);
+        if (value == null) ascii("null");
+        else string(value);
+        return this;
+    }
+
+    public synchronized JsonLineWriter field(String name, long value) {
+        key(name, false);
+        number(value);
+        return this;
+    }
+
+    public synchronized JsonLineWriter field(String name, boolean value) {
+        key(name, false);
+        ascii(value ? "true" : "false");
+        return this;
+    }
+
+    /** Closes the event object and ends the line. */
+    public synchronized void end() {
+        if (failure != null) throw new UncheckedIOException(failure);
+        ensure(2);
+        buf.put((byte) '}').put((byte) '\n');
+        completed = buf.position();
+        long idle = System.nanoTime() - lastFlush;
+        if (idle >= FLUSH_INTERVAL_NANOS) {
+            drain();
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            TIMER.schedule(this::flushCompleted, FLUSH_INTERVAL_NANOS - idle, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if (failure != null) throw failure;
+        try {
+            drain();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            if (ownsChannel) out.close();
+        }
+    }
+
+    /**
+     * Escapes a string for use inside JSON quotes.
+     *
+     * @param s raw string
+     * @return escaped string (quotes, backslashes and control characters)
+     */
+    public static String escape(String s) {
+        StringBuilder sb = null;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            String rep = replacement(c);
+            if (rep == null) {
+                if (sb != null) sb.append(c);
+                continue;
+            }
+            if (sb == null) sb = new StringBuilder(s.length() + 16).append(s, 0, i);
+            sb.append(rep);
+        }
+        return sb == null ? s : sb.toString();
+    }
+
+    private static String replacement(char c) {
+        return switch (c) {
+            case '"' -> "\\\"";
+            case '\\' -> "\\\\";
+            case '\n' -> "\\n";
+            case '\r' -> "\\r";
+            case '\t' -> "\\t";
+            case '\b' -> "\\b";
+            case '\f' -> "\\f";
+            case '\u2028', '\u2029' -> String.format("\\u%04x", (int) c);
+            default -> c < 0x20 ? String.format("\\u%04x", (int) c) : null;
+        };
+    }
+
+    // ============ Encoding ============
+
+    private void key(String name, boolean first) {
+        if (!first) {
+            ensure(1);
+            buf.put((byte) ',');
+        }
+        string(name);
+        ensure(1);
+        buf.put((byte) ':');
+    }
+
+    private void ascii(String s) {
+        ensure(s.length());
+        for (int i = 0; i < s.length(); i++) buf.put((byte) s.charAt(i));
+    }
+
+    private void number(long v) {
+        if (v == Long.MIN_VALUE) {
+            ascii(Long.toString(v));
+            return;
+        }
+        ensure(20);
+        if (v < 0) {
+            buf.put((byte) '-');
+            v = -v;
+        }
+        int start = buf.position();
+        do {
+            buf.put((byte) ('0' + (v % 10)));
+            v /= 10;
+        } while (v != 0);
+        // digits were written least significant first
+        for (int i = start, j = buf.position() - 1; i < j; i++, j--) {
+            byte t = buf.get(i);
+            buf.put(i, buf.get(j));
+            buf.put(j, t);
+        }
+    }
+
+    private void string(String s) {
+        ensure(1);
+        buf.put((byte) '"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            ensure(6);
+            if (c == '"' || c == '\\') {
+                buf.put((byte) '\\').put((byte) c);
+            } else if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                switch (c) {
+                    case '\n' -> buf.put((byte) '\\').put((byte) 'n');
+                    case '\r' -> buf.put((byte) '\\').put((byte) 'r');
+                    case '\t' -> buf.put((byte) '\\').put((byte) 't');
+                    case '\b' -> buf.put((byte) '\\').put((byte) 'b');
+                    case '\f' -> buf.put((byte) '\\').put((byte) 'f');
+                    default -> buf.put((byte) '\\').put((byte) 'u')
+                        .put(HEX[(c >> 12) & 0xF]).put(HEX[(c >> 8) & 0xF])
+                        .put(HEX[(c >> 4) & 0xF]).put(HEX[c & 0xF]);
+                }
+            } else if (c < 0x80) {
+                buf.put((byte) c);
+            } else if (c < 0x800) {
+                buf.put((byte) (0xC0 | (c >> 6))).put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buf.put((byte) (0xF0 | (cp >> 18)))
+                    .put((byte) (0x80 | ((cp >> 12) & 0x3F)))
+                    .put((byte) (0x80 | ((cp >> 6) & 0x3F)))
+                    .put((byte) (0x80 | (cp & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate: not representable in UTF-8
+                buf.put((byte) 0xEF).put((byte) 0xBF).put((byte) 0xBD);
+            } else {
+                buf.put((byte) (0xE0 | (c >> 12)))
+                    .put((byte) (0x80 | ((c >> 6) & 0x3F)))
+                    .put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        ensure(1);
+        buf.put((byte) '"');
+    }
+
+    private void ensure(int bytes) {
+        if (buf.remaining() < bytes) drain();
+    }
+
+    private void drain() {
+        buf.flip();
+        try {
+            while (buf.hasRemaining()) out.write(buf);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buf.clear();
+            completed = 0;
+        }
+        lastFlush = System.nanoTime();
+    }
+
+    /** Timer task: writes the whole events and keeps an event still being written. */
+    private synchronized void flushCompleted() {
+        flushScheduled = false;
+        if (completed == 0 || !out.isOpen()) return;
+        int end = buf.position();
+        buf.flip().limit(completed);
+        try {
+            while (buf.hasRemaining()) out.write(buf);
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            buf.limit(end);
+            buf.compact();
+            completed = 0;
+        }
+        lastFlush = System.nanoTime();
+    }
+}
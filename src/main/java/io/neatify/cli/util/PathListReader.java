@@ -0,0 +1,65 @@
+package io.neatify.cli.util;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming reader of a path list ({@code --files-from}), as written by
+ * {@code find -print0} or {@code find -print}.
+ *
+ * The list is NUL-separated if a NUL comes before the first newline, and
+ * newline-separated otherwise; a trailing carriage return is dropped in
+ * the latter. Entries are returned as they arrive, so a slow producer is
+ * followed entry by entry and only one entry is held at a time.
+ */
+public final class PathListReader implements Closeable {
+
+    /** Longest entry accepted; longer ones are not paths. */
+    private static final int MAX_ENTRY_BYTES = 64 * 1024;
+
+    private final InputStream in;
+    private final ByteArrayOutputStream entry = new ByteArrayOutputStream(256);
+    private Boolean nulSeparated;
+    private boolean eof;
+
+    /** @param in list to read; closed with this reader */
+    public PathListReader(InputStream in) {
+        this.in = in instanceof BufferedInputStream ? in : new BufferedInputStream(in, 64 * 1024);
+    }
+
+    /**
+     * @return next non-empty entry, or null at the end of the list
+     * @throws IOException if the list cannot be read or an entry is too long
+     */
+    public String next() throws IOException {
+        while (!eof) {
+            entry.reset();
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == 0 || b == '\n') {
+                    if (nulSeparated == null) nulSeparated = b == 0;
+                    if (nulSeparated == (b == 0)) break;
+                }
+                if (entry.size() == MAX_ENTRY_BYTES) {
+                    throw new IOException("File list entry longer than " + MAX_ENTRY_BYTES + " bytes");
+                }
+                entry.write(b);
+            }
+            if (b == -1) eof = true;
+            byte[] bytes = entry.toByteArray();
+            int len = bytes.length;
+            if (!Boolean.TRUE.equals(nulSeparated) && len > 0 && bytes[len - 1] == '\r') len--;
+            if (len > 0) return new String(bytes, 0, len, StandardCharsets.UTF_8);
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,255 @@
+package io.neatify.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * Rules compiled for classification during a scan.
+ *
+ * Besides plain {@code extension=Folder} entries, a rules file may hold
+ * name patterns (see {@link NamePatterns}) and conditional rules on size,
+ * age and content:
+ * <pre>
+ * name(Screenshot*)=Images/Screenshots
+ * mp4[size&gt;2GB]=Videos/Large
+ * pdf[age&gt;1y]=Archive/Documents
+ * bin[magic^7f454c46]=Programs
+ * *[size&gt;4GB]=Large
+ * </pre>
+ * Name rules are tried first, all at once in a single pass over the name.
+ * Each extension gets a small decision tree: the size and modification-time
+ * boundaries of its rules split both axes into intervals, and every cell of
+ * the grid holds the rules that apply there, most specific first. A file is
+ * classified with two binary searches; its content is only read when a rule
+ * of its cell tests magic bytes. Rules with more predicates win, then key
+ * order; the plain extension rule applies when no conditional rule matches,
+ * and {@code *} rules after that.
+ *
+ * Target folders may contain date placeholders (see {@link FolderTemplate});
+ * decisions carry the expanded folder.
+ */
+public final class CompiledRules {
+
+    /** Longest magic prefix a rule may test, and the bytes read per file. */
+    static final int MAX_MAGIC_BYTES = 64;
+
+    private static final String ANY = "*";
+
+    /** Rule outcome: the target folder and a human-readable reason. */
+    public record Decision(String folder, String reason) {}
+
+    private final Map<String, String> plain;
+    private final Map<String, Tree> trees;
+    private final int conditional;
+    private final NamePatterns names;
+    private final Map<String, FolderTemplate> templates = new HashMap<>();
+
+    private CompiledRules(Map<String, String> plain, List<RuleSpec> specs, List<NamePatterns.Rule> nameRules) {
+        this.plain = plain;
+        this.conditional = specs.size() + nameRules.size();
+        this.names = nameRules.isEmpty() ? null : new NamePatterns(nameRules);
+        Map<String, List<RuleSpec>> byExt = new HashMap<>();
+        for (RuleSpec spec : specs) byExt.computeIfAbsent(spec.extension, k -> new ArrayList<>()).add(spec);
+        Map<String, Tree> built = new HashMap<>();
+        byExt.forEach((ext, list) -> built.put(ext, new Tree(list)));
+        this.trees = built;
+
+        List<String> folders = new ArrayList<>(plain.values());
+        for (RuleSpec spec : specs) folders.add(spec.folder);
+        for (NamePatterns.Rule rule : nameRules) folders.add(rule.folder());
+        for (String folder : folders) {
+            FolderTemplate template = FolderTemplate.parse(folder);
+            if (template != null) templates.put(folder, template);
+        }
+    }
+
+    /**
+     * Wraps plain extension rules as-is.
+     *
+     * @param rules map [extension -> target folder]
+     * @return compiled rules without conditions
+     */
+    public static CompiledRules of(Map<String, String> rules) {
+        Objects.requireNonNull(rules, "Rules cannot be null");
+        return new CompiledRules(rules, List.of(), List.of());
+    }
+
+    /**
+     * Loads plain and conditional rules from a .properties file.
+     *
+     * @param propertiesFile path to rules.properties
+     * @return compiled rules; age predicates are relative to the load time
+     * @throws IOException if file does not exist or cannot be read
+     * @throws IllegalArgumentException if a rule is invalid
+     */
+    public static CompiledRules load(Path propertiesFile) throws IOException {
+        Objects.requireNonNull(propertiesFile, "Rules file path cannot be null");
+        Rules.validateFileExists(propertiesFile);
+        return compile(Rules.loadProperties(propertiesFile), System.currentTimeMillis(), propertiesFile.toString());
+    }
+
+    static CompiledRules compile(Properties props, long now, String source) {
+        Map<String, String> plain = new HashMap<>();
+        List<String> keys = new ArrayList<>();
+        for (String key : props.stringPropertyNames()) {
+            String value = props.getProperty(key).trim();
+            Rules.validateRule(key, value);
+            if (Rules.isPlainRule(key)) {
+                plain.put(Rules.normalizeExtension(key), Rules.sanitizeFolderName(value));
+            } else {
+                keys.add(key);
+            }
+        }
+        Collections.sort(keys); // Properties has no order; keep ties deterministic
+        List<RuleSpec> specs = new ArrayList<>();
+        List<NamePatterns.Rule> nameRules = new ArrayList<>();
+        for (String key : keys) {
+            String folder = Rules.sanitizeFolderName(props.getProperty(key).trim());
+            if (key.startsWith("name(")) {
+                nameRules.add(NamePatterns.parse(key, folder));
+            } else {
+                specs.add(RuleSpec.parse(key, folder, now));
+            }
+        }
+        if (plain.isEmpty() && specs.isEmpty() && nameRules.isEmpty()) {
+            throw new IllegalArgumentException("No valid rules found in file: " + source);
+        }
+        return new CompiledRules(Collections.unmodifiableMap(plain), specs, nameRules);
+    }
+
+    /** @return number of plain, name and conditional rules */
+    public int size() {
+        return plain.size() + conditional;
+    }
+
+    /** @return plain extension rules */
+    public Map<String, String> extensionRules() {
+        return plain;
+    }
+
+    /**
+     * Classifies one file.
+     *
+     * @param file file, read only if a magic-byte rule needs it
+     * @param fileName file name with its extension
+     * @param size file size in bytes
+     * @param mtimeMillis last modification time
+     * @return decision, or null if no rule matches
+     */
+    public Decision classify(Path file, String fileName, long size, long mtimeMillis) {
+        String extension = FileMetadata.extensionOf(fileName);
+        if (names != null) {
+            String stem = extension.isEmpty() ? fileName : fileName.substring(0, fileName.length() - extension.length() - 1);
+            NamePatterns.Rule rule = names.match(stem);
+            if (rule != null) return decision("name: " + rule.pattern(), rule.folder(), file, mtimeMillis);
+        }
+        if (extension.isEmpty()) return null;
+        Content content = new Content(file);
+
+        Tree tree = trees.get(extension);
+        RuleSpec hit = tree == null ? null : tree.match(size, mtimeMillis, content);
+        if (hit != null) return decision("rule: " + hit.key, hit.folder, file, mtimeMillis);
+
+        String folder = Rules.getTargetFolder(plain, extension);
+        if (folder != null) return decision("extension: " + extension, folder, file, mtimeMillis);
+
+        Tree any = trees.get(ANY);
+        hit = any == null ? null : any.match(size, mtimeMillis, content);
+        return hit == null ? null : decision("rule: " + hit.key, hit.folder, file, mtimeMillis);
+    }
+
+    private Decision decision(String matched, String folder, Path file, long mtimeMillis) {
+        FolderTemplate template = templates.get(folder);
+        String target = template == null ? folder : template.expand(file, mtimeMillis);
+        return new Decision(target, matched + " -> " + target);
+    }
+
+    // ==== Decision tree ====
+
+    private static final class Tree {
+        private final long[] sizeCuts;
+        private final long[] mtimeCuts;
+        private final RuleSpec[][] cells;
+
+        Tree(List<RuleSpec> specs) {
+            List<RuleSpec> ordered = new ArrayList<>(specs);
+            ordered.sort(Comparator.comparingInt((RuleSpec s) -> -s.predicates)); // stable: key order on ties
+            sizeCuts = cuts(ordered, true);
+            mtimeCuts = cuts(ordered, false);
+            cells = new RuleSpec[(sizeCuts.length + 1) * (mtimeCuts.length + 1)][];
+            List<RuleSpec> cell = new ArrayList<>();
+            for (int s = 0; s <= sizeCuts.length; s++) {
+                long size = s == 0 ? Long.MIN_VALUE : sizeCuts[s - 1];
+                for (int t = 0; t <= mtimeCuts.length; t++) {
+                    long mtime = t == 0 ? Long.MIN_VALUE : mtimeCuts[t - 1];
+                    cell.clear();
+                    for (RuleSpec spec : ordered) {
+                        if (size >= spec.minSize && size < spec.maxSize
+                            && mtime >= spec.minMtime && mtime < spec.maxMtime) {
+                            cell.add(spec);
+                        }
+                    }
+                    cells[s * (mtimeCuts.length + 1) + t] = cell.toArray(new RuleSpec[0]);
+                }
+            }
+        }
+
+        private static long[] cuts(List<RuleSpec> specs, boolean size) {
+            TreeSet<Long> values = new TreeSet<>();
+            for (RuleSpec spec : specs) {
+                long lo = size ? spec.minSize : spec.minMtime;
+                long hi = size ? spec.maxSize : spec.maxMtime;
+                if (lo != Long.MIN_VALUE) values.add(lo);
+                if (hi != Long.MAX_VALUE) values.add(hi);
+            }
+            return values.stream().mapToLong(Long::longValue).toArray();
+        }
+
+        RuleSpec match(long size, long mtime, Content content) {
+            RuleSpec[] cell = cells[interval(sizeCuts, size) * (mtimeCuts.length + 1) + interval(mtimeCuts, mtime)];
+            for (RuleSpec spec : cell) {
+                if (spec.magic == null || content.startsWith(spec.magic)) return spec;
+            }
+            return null;
+        }
+
+        /** Index of the half-open interval holding {@code value}: number of cuts &lt;= value. */
+        private static int interval(long[] cuts, long value) {
+            int i = Arrays.binarySearch(cuts, value);
+            return i >= 0 ? i + 1 : -i - 1;
+        }
+    }
+
+    /** File head, read at most once per classification. */
+    private static final class Content {
+        private final Path file;
+        private byte[] head;
+
+        Content(Path file) {
+            this.file = file;
+        }
+
+        boolean startsWith(byte[] prefix) {
+            if (head == null) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    head = in.readNBytes(MAX_MAGIC_BYTES);
+                } catch (IOException | RuntimeException e) {
+                    head = new byte[0];
+                }
+            }
+            return head.length >= prefix.length && Arrays.equals(head, 0, prefix.length, prefix, 0, prefix.length);
+        }
+    }
+}
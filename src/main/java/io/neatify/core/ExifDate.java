@@ -0,0 +1,123 @@
+package io.neatify.core;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Reads the EXIF DateTimeOriginal of a JPEG without loading the image.
+ *
+ * Only the markers before the first APP1 segment are skipped, and only the
+ * APP1 segment itself (at most 64 KB) is read and parsed.
+ */
+final class ExifDate {
+
+    /** Give up if no APP1 segment starts within this many bytes. */
+    private static final int MAX_SCAN = 256 * 1024;
+
+    private static final int TAG_EXIF_IFD = 0x8769;
+    private static final int TAG_DATE_TIME_ORIGINAL = 0x9003;
+
+    private ExifDate() { }
+
+    /**
+     * @param file image file
+     * @return capture date, or null if the file has no readable EXIF date
+     */
+    static LocalDate dateTimeOriginal(Path file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 4096))) {
+            byte[] app1 = readApp1(in);
+            return app1 == null ? null : parse(app1);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static byte[] readApp1(DataInputStream in) throws IOException {
+        if (in.readUnsignedShort() != 0xFFD8) return null; // not a JPEG
+        long scanned = 2;
+        while (scanned < MAX_SCAN) {
+            int marker = in.readUnsignedShort();
+            if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9) return null; // image data reached
+            int length = in.readUnsignedShort() - 2;
+            if (length < 0) return null;
+            if (marker == 0xFFE1) {
+                byte[] segment = new byte[length];
+                in.readFully(segment);
+                if (length > 6 && segment[0] == 'E' && segment[1] == 'x' && segment[2] == 'i' && segment[3] == 'f') {
+                    return segment;
+                }
+            } else {
+                skipFully(in, length);
+            }
+            scanned += 4L + length;
+        }
+        return null;
+    }
+
+    private static void skipFully(InputStream in, long n) throws IOException {
+        while (n > 0) {
+            long skipped = in.skip(n);
+            if (skipped <= 0) {
+                if (in.read() < 0) throw new EOFException();
+                skipped = 1;
+            }
+            n -= skipped;
+        }
+    }
+
+    /** Parses the TIFF structure after the "Exif\0\0" header. */
+    static LocalDate parse(byte[] app1) {
+        ByteBuffer tiff = ByteBuffer.wrap(app1, 6, app1.length - 6).slice();
+        if (tiff.remaining() < 8) return null;
+        short order = tiff.getShort(0);
+        if (order == 0x4949) tiff.order(ByteOrder.LITTLE_ENDIAN);
+        else if (order != 0x4D4D) return null;
+
+        int exifIfd = findTag(tiff, tiff.getInt(4), TAG_EXIF_IFD);
+        if (exifIfd < 0) return null;
+        int entry = findEntry(tiff, exifIfd, TAG_DATE_TIME_ORIGINAL);
+        if (entry < 0) return null;
+        int count = tiff.getInt(entry + 4);
+        if (count < 10) return null;
+        int offset = count <= 4 ? entry + 8 : tiff.getInt(entry + 8);
+        if (offset < 0 || offset + 10 > tiff.limit()) return null;
+
+        byte[] date = new byte[10];
+        tiff.get(offset, date);
+        String s = new String(date, StandardCharsets.US_ASCII); // "YYYY:MM:DD"
+        try {
+            return LocalDate.of(Integer.parseInt(s.substring(0, 4)),
+                Integer.parseInt(s.substring(5, 7)), Integer.parseInt(s.substring(8, 10)));
+        } catch (NumberFormatException | DateTimeException e) {
+            return null;
+        }
+    }
+
+    /** @return value offset stored in the LONG tag, or -1 */
+    private static int findTag(ByteBuffer tiff, int ifd, int tag) {
+        int entry = findEntry(tiff, ifd, tag);
+        return entry < 0 ? -1 : tiff.getInt(entry + 8);
+    }
+
+    /** @return position of the 12-byte IFD entry for {@code tag}, or -1 */
+    private static int findEntry(ByteBuffer tiff, int ifd, int tag) {
+        if (ifd < 0 || ifd + 2 > tiff.limit()) return -1;
+        int count = tiff.getShort(ifd) & 0xFFFF;
+        for (int i = 0; i < count; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > tiff.limit()) return -1;
+            if ((tiff.getShort(entry) & 0xFFFF) == tag) return entry;
+        }
+        return -1;
+    }
+}
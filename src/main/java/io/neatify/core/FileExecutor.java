@@ -4,6 +4,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -30,12 +31,21 @@ final class FileExecutor {
                 moved++;
                 continue;
             }
+            if (listener != null) {
+                try {
+                    listener.beforeMove(action.source());
+                } catch (IOException e) {
+                    logger.error("Stopping before {}: {}", action.source(), e.getMessage());
+                    throw new UncheckedIOException("Run stopped before " + action.source() + ": " + e.getMessage(), e);
+                }
+            }
             try {
                 Files.createDirectories(action.target().getParent());
                 Path finalTarget = strategy.move(action.source(), action.target());
                 if (finalTarget == null) {
                     logger.info("[SKIPPED] {} (target exists)", action.source().getFileName());
                     skipped++;
+                    if (listener != null) listener.onSkipped(action.source(), action.target());
                 } else {
                     logger.info("[MOVED] {} -> {}", action.source().getFileName(), finalTarget);
                     moved++;
@@ -46,6 +56,7 @@ final class FileExecutor {
                 errors.add(msg);
                 logger.error("Failed to move file: {}", msg, e);
                 skipped++;
+                if (listener != null) listener.onFailed(action.source(), action.target(), msg);
             }
         }
         return new FileMover.Result(moved, skipped, errors);
@@ -0,0 +1,115 @@
+package io.neatify.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Plans an explicit list of files under a source root one at a time, as a
+ * full scan would classify them ({@code --files-from}), without walking the
+ * tree. Ignore and rules files of each file's folders apply as in a scan.
+ *
+ * Folder contexts are cached for the most recently listed folders only, so
+ * memory stays bounded whatever the length of the list.
+ */
+public final class FileListPlanner {
+
+    /** Folders whose ignore and rule context is kept between files. */
+    private static final int CACHED_DIRS = 1024;
+
+    /** Context of a folder a scan would not enter. */
+    private static final FilePlanner.DirContext SKIPPED = new FilePlanner.DirContext(IgnoreRules.NONE, List.of());
+
+    private final Path root;
+    private final FilePlanner.DirContext rootContext;
+    private final List<PathMatcher> includes;
+    private final List<PathMatcher> excludes;
+    private final FileMover.PlanListener listener;
+    private final Map<Path, FilePlanner.DirContext> dirs = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, FilePlanner.DirContext> eldest) {
+            return size() > CACHED_DIRS;
+        }
+    };
+
+    /**
+     * @param sourceRoot organized root
+     * @param rules compiled rules
+     * @param includes include globs on relative paths
+     * @param excludes exclude globs on relative paths
+     * @param listener receives each planned action with the file's attributes, or null
+     */
+    public FileListPlanner(Path sourceRoot, CompiledRules rules, List<String> includes, List<String> excludes,
+                           FileMover.PlanListener listener) {
+        Objects.requireNonNull(sourceRoot, "Source directory cannot be null");
+        Objects.requireNonNull(rules, "Rules cannot be null");
+        if (!Files.isDirectory(sourceRoot)) {
+            throw new IllegalArgumentException("Source path must be a directory: " + sourceRoot);
+        }
+        this.root = sourceRoot.toAbsolutePath().normalize();
+        this.rootContext = FilePlanner.enter(new FilePlanner.DirContext(IgnoreRules.NONE, RuleScope.root(rules, root)),
+            root, root);
+        this.includes = FilePlanner.compileMatchers(root, includes);
+        this.excludes = FilePlanner.compileMatchers(root, excludes);
+        this.listener = listener;
+    }
+
+    /**
+     * Plans one listed file.
+     *
+     * @param file listed path, absolute or relative to the working directory
+     * @return the move for the file, or empty if a scan would leave it in place
+     *         (no rule, filtered, ignored, hidden, not a regular file, already sorted)
+     * @throws SecurityException if the path is outside the root, under {@code .neatify}
+     *         or reached through a symbolic link
+     * @throws IOException if the file cannot be read, e.g. it no longer exists
+     */
+    public Optional<FileMover.Action> plan(Path file) throws IOException {
+        Path path = file.toAbsolutePath().normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new SecurityException("Path is outside the source directory: " + file);
+        }
+        if (root.relativize(path).getName(0).toString().equals(".neatify")) {
+            throw new SecurityException("Path is in the reserved .neatify directory: " + file);
+        }
+
+        FilePlanner.DirContext context = context(path.getParent());
+        if (context == SKIPPED || context.ignores().isIgnored(path, false)) return Optional.empty();
+
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        if (attrs.isDirectory()) return Optional.empty();
+        Optional<FileMover.Action> planned = FilePlanner.planFor(path, attrs, root, context.rules(), includes, excludes);
+        if (listener != null) planned.ifPresent(action -> listener.onPlanned(action, attrs));
+        return planned;
+    }
+
+    /** @return context of {@code dir}, entering its parents first; {@link #SKIPPED} if a scan would not reach it */
+    private FilePlanner.DirContext context(Path dir) throws IOException {
+        if (dir.equals(root)) return rootContext;
+        FilePlanner.DirContext cached = dirs.get(dir);
+        if (cached != null) return cached;
+
+        // A scan does not follow links to folders
+        if (Files.isSymbolicLink(dir)) {
+            throw new SecurityException("Symlink detected in parent path: " + dir);
+        }
+        FilePlanner.DirContext parent = context(dir.getParent());
+        FilePlanner.DirContext context;
+        if (parent == SKIPPED || dir.getFileName().toString().equals(".neatify")
+                || parent.ignores().isIgnored(dir, true)) {
+            context = SKIPPED;
+        } else {
+            context = FilePlanner.enter(parent, dir, root);
+        }
+        dirs.put(dir, context);
+        return context;
+    }
+}
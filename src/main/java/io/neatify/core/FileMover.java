@@ -2,6 +2,7 @@ package io.neatify.core;
 
 import java.io.IOException;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.List;
 import java.util.Map;
 
@@ -72,17 +73,90 @@ public final class FileMover {
     public record Result(int moved, int skipped, List<String> errors) {}
 
     public static List<Action> plan(Path sourceRoot, Map<String, String> rules) throws IOException {
-        return FilePlanner.plan(sourceRoot, rules, DEFAULT_MAX_FILES, List.of(), List.of());
+        return FilePlanner.plan(sourceRoot, CompiledRules.of(rules), DEFAULT_MAX_FILES, List.of(), List.of(), null);
     }
 
     public static List<Action> plan(Path sourceRoot, Map<String, String> rules, int maxFiles) throws IOException {
-        return FilePlanner.plan(sourceRoot, rules, maxFiles, List.of(), List.of());
+        return FilePlanner.plan(sourceRoot, CompiledRules.of(rules), maxFiles, List.of(), List.of(), null);
     }
 
     /** Plans with include/exclude glob filters on relative paths. */
     public static List<Action> plan(Path sourceRoot, Map<String, String> rules, int maxFiles,
                                     List<String> includes, List<String> excludes) throws IOException {
-        return FilePlanner.plan(sourceRoot, rules, maxFiles, includes, excludes);
+        return FilePlanner.plan(sourceRoot, CompiledRules.of(rules), maxFiles, includes, excludes, null);
+    }
+
+    /** Receives each action as soon as the walk plans it, with the attributes read by the walk. */
+    @FunctionalInterface
+    public interface PlanListener { void onPlanned(Action action, BasicFileAttributes attrs); }
+
+    /** Plans with filters, reporting every action to {@code listener} while walking. */
+    public static List<Action> plan(Path sourceRoot, Map<String, String> rules, int maxFiles,
+                                    List<String> includes, List<String> excludes,
+                                    PlanListener listener) throws IOException {
+        return FilePlanner.plan(sourceRoot, CompiledRules.of(rules), maxFiles, includes, excludes, listener);
+    }
+
+    /** Plans with compiled (possibly conditional) rules and filters. */
+    public static List<Action> plan(Path sourceRoot, CompiledRules rules, int maxFiles,
+                                    List<String> includes, List<String> excludes) throws IOException {
+        return FilePlanner.plan(sourceRoot, rules, maxFiles, includes, excludes, null);
+    }
+
+    /** Plans with compiled (possibly conditional) rules, reporting every action to {@code listener}. */
+    public static List<Action> plan(Path sourceRoot, CompiledRules rules, int maxFiles,
+                                    List<String> includes, List<String> excludes,
+                                    PlanListener listener) throws IOException {
+        return FilePlanner.plan(sourceRoot, rules, maxFiles, includes, excludes, listener);
+    }
+
+    /** A plan and, if the walk stopped early, where to continue from. */
+    public record Scan(List<Action> actions, ScanToken continuation) {
+        public boolean complete() { return continuation == null; }
+    }
+
+    /**
+     * Plans within {@code budget}; when it runs out, the partial plan comes
+     * with a continuation token instead of failing.
+     *
+     * @param resume token of a previous walk whose finished subtrees are skipped, or null
+     */
+    public static Scan plan(Path sourceRoot, CompiledRules rules, ScanBudget budget,
+                            List<String> includes, List<String> excludes,
+                            PlanListener listener, ScanToken resume) throws IOException {
+        return FilePlanner.plan(sourceRoot, rules, budget, includes, excludes, listener, resume);
+    }
+
+    /**
+     * Receives every file of a compare walk with what each rule profile
+     * plans for it, in profile order; a null entry means the file stays.
+     */
+    @FunctionalInterface
+    public interface CompareListener { void onFile(Path file, BasicFileAttributes attrs, List<Action> outcomes); }
+
+    /**
+     * Walks {@code sourceRoot} once and feeds every file to each of the rule
+     * profiles, so several candidate rule sets are evaluated for the cost of
+     * one scan. Nothing is planned or moved; the listener sees the outcomes.
+     */
+    public static void compare(Path sourceRoot, List<CompiledRules> profiles, int maxFiles,
+                               List<String> includes, List<String> excludes,
+                               CompareListener listener) throws IOException {
+        FilePlanner.compare(sourceRoot, profiles, maxFiles, includes, excludes, listener);
+    }
+
+    /** Decides, for each directory below the start of a subtree scan, whether to leave it out. */
+    @FunctionalInterface
+    public interface SubtreeSplitter { boolean detach(Path dir); }
+
+    /**
+     * Plans one subtree of {@code sourceRoot} as a full scan would, skipping
+     * the directories {@code splitter} detaches (for another worker to plan).
+     */
+    public static List<Action> planSubtree(Path sourceRoot, Path start, CompiledRules rules, int maxFiles,
+                                           List<String> includes, List<String> excludes,
+                                           PlanListener listener, SubtreeSplitter splitter) throws IOException {
+        return FilePlanner.plan(sourceRoot, start, rules, maxFiles, includes, excludes, listener, splitter);
     }
 
     // Planning helpers moved to FilePlanner
@@ -95,8 +169,23 @@ public final class FileMover {
         return FileExecutor.execute(actions, dryRun, strategy, null);
     }
 
+    /** Receives the outcome of each executed action. */
     @FunctionalInterface
-    public interface MoveListener { void onMoved(Path source, Path finalTarget); }
+    public interface MoveListener {
+        void onMoved(Path source, Path finalTarget);
+
+        /**
+         * Called before {@code source} is moved. Throwing stops the run with
+         * this file and the remaining ones left in place.
+         */
+        default void beforeMove(Path source) throws IOException { }
+
+        /** The target existed and the strategy left the source in place. */
+        default void onSkipped(Path source, Path target) { }
+
+        /** The move failed; {@code error} is the message also reported in the result. */
+        default void onFailed(Path source, Path target, String error) { }
+    }
 
     public static Result execute(List<Action> actions, boolean dryRun, CollisionStrategy strategy, MoveListener listener) {
         return FileExecutor.execute(actions, dryRun, strategy, listener);
@@ -2,8 +2,6 @@ package io.neatify.core;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.Marker;
-import org.slf4j.MarkerFactory;
 
 import java.io.IOException;
 import java.nio.file.*;
@@ -13,14 +11,82 @@ import java.util.*;
 final class FilePlanner {
 
     private static final Logger logger = LoggerFactory.getLogger(FilePlanner.class);
-    private static final Marker SECURITY_MARKER = MarkerFactory.getMarker("SECURITY");
 
     private FilePlanner() { }
 
-    static List<FileMover.Action> plan(Path sourceRoot, Map<String, String> rules, int maxFiles,
-                                       List<String> includes, List<String> excludes) throws IOException {
+    /**
+     * Per-directory state of the walk, shared by subdirectories that add
+     * nothing: ignore rules and the rule scope of each profile being planned.
+     */
+    record DirContext(IgnoreRules ignores, List<RuleScope> profiles) {
+        DirContext(IgnoreRules ignores, RuleScope rules) { this(ignores, List.of(rules)); }
+
+        /** @return rule scope of the first (usually only) profile */
+        RuleScope rules() { return profiles.get(0); }
+    }
+
+    /** Progress of a budgeted walk in one directory: subtrees finished and files looked at. */
+    private record Progress(List<String> finished, List<String> seen) {
+        Progress() { this(new ArrayList<>(), new ArrayList<>()); }
+    }
+
+    static List<FileMover.Action> plan(Path sourceRoot, CompiledRules rules, int maxFiles,
+                                       List<String> includes, List<String> excludes,
+                                       FileMover.PlanListener listener) throws IOException {
+        return plan(sourceRoot, sourceRoot, List.of(rules), maxFiles, includes, excludes, listener, null, null, null, null)
+            .actions();
+    }
+
+    /**
+     * Plans {@code sourceRoot} until the tree or {@code budget} is exhausted,
+     * skipping the subtrees {@code resume} records as done.
+     */
+    static FileMover.Scan plan(Path sourceRoot, CompiledRules rules, ScanBudget budget,
+                               List<String> includes, List<String> excludes,
+                               FileMover.PlanListener listener, ScanToken resume) throws IOException {
+        Objects.requireNonNull(budget, "Budget cannot be null");
+        return plan(sourceRoot, sourceRoot, List.of(rules), Integer.MAX_VALUE, includes, excludes, listener, null,
+            budget, resume, null);
+    }
+
+    static List<FileMover.Action> plan(Path sourceRoot, Path start, CompiledRules rules, int maxFiles,
+                                       List<String> includes, List<String> excludes,
+                                       FileMover.PlanListener listener,
+                                       FileMover.SubtreeSplitter splitter) throws IOException {
+        return plan(sourceRoot, start, List.of(rules), maxFiles, includes, excludes, listener, splitter, null, null, null)
+            .actions();
+    }
+
+    /**
+     * Walks {@code sourceRoot} once and reports, for every file, what each
+     * rule profile would do with it. No action is kept.
+     */
+    static void compare(Path sourceRoot, List<CompiledRules> profiles, int maxFiles,
+                        List<String> includes, List<String> excludes,
+                        FileMover.CompareListener listener) throws IOException {
+        Objects.requireNonNull(listener, "Listener cannot be null");
+        if (profiles.isEmpty()) throw new IllegalArgumentException("At least one rule profile is required");
+        plan(sourceRoot, sourceRoot, profiles, maxFiles, includes, excludes, null, null, null, null, listener);
+    }
+
+    /**
+     * Plans the subtree {@code start} of {@code sourceRoot}. Ignore and rules
+     * files of the directories between the two apply as in a full scan.
+     * Directories for which {@code splitter} returns true are left out.
+     * With a {@code budget}, the walk stops cleanly when it runs out instead
+     * of failing on {@code maxFiles}, and reports the subtrees it finished.
+     * With a {@code compare} listener every profile of {@code rules} plans
+     * each file and the outcomes go to the listener instead of the plan.
+     */
+    private static FileMover.Scan plan(Path sourceRoot, Path start, List<CompiledRules> rules, int maxFiles,
+                                       List<String> includes, List<String> excludes,
+                                       FileMover.PlanListener listener,
+                                       FileMover.SubtreeSplitter splitter,
+                                       ScanBudget budget, ScanToken resume,
+                                       FileMover.CompareListener compare) throws IOException {
         Objects.requireNonNull(sourceRoot, "Source directory cannot be null");
         Objects.requireNonNull(rules, "Rules cannot be null");
+        rules.forEach(r -> Objects.requireNonNull(r, "Rules cannot be null"));
 
         if (maxFiles <= 0) throw new IllegalArgumentException("Max files quota must be positive: " + maxFiles);
         if (!Files.isDirectory(sourceRoot)) {
@@ -32,8 +98,28 @@ final class FilePlanner {
 
         List<PathMatcher> includeMatchers = compileMatchers(sourceRoot, includes);
         List<PathMatcher> excludeMatchers = compileMatchers(sourceRoot, excludes);
+        // Ignore and rules files of the directories being walked, innermost on top
+        Deque<DirContext> dirs = new ArrayDeque<>();
+        DirContext context = new DirContext(IgnoreRules.NONE,
+            rules.stream().map(r -> RuleScope.root(r, sourceRoot)).toList());
+        if (!start.equals(sourceRoot)) {
+            if (!start.startsWith(sourceRoot)) {
+                throw new IllegalArgumentException("Subtree is outside the source directory: " + start);
+            }
+            for (Path dir = sourceRoot; !dir.equals(start.getParent()); ) {
+                context = enter(context, dir, sourceRoot);
+                dir = dir.resolve(start.getName(dir.getNameCount()));
+                if (context.ignores().isIgnored(dir, true)) return new FileMover.Scan(actions, null);
+            }
+            context = enter(context, start.getParent(), sourceRoot);
+        }
+        dirs.push(context);
+        // Progress in each directory being walked; the token if the budget runs out
+        Deque<Progress> progress = new ArrayDeque<>();
+        progress.push(new Progress());
+        java.util.concurrent.atomic.AtomicBoolean stopped = new java.util.concurrent.atomic.AtomicBoolean();
 
-        Files.walkFileTree(sourceRoot, new SimpleFileVisitor<>() {
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
             @Override
             public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
                 // Skip internal journal directory to avoid moving undo files
@@ -41,6 +127,32 @@ final class FilePlanner {
                 if (name != null && name.toString().equals(".neatify")) {
                     return FileVisitResult.SKIP_SUBTREE;
                 }
+                DirContext parent = dirs.peek();
+                if (!dir.equals(sourceRoot) && parent.ignores().isIgnored(dir, true)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (splitter != null && !dir.equals(start) && splitter.detach(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (resume != null && !dir.equals(sourceRoot) && resume.isDone(sourceRoot.relativize(dir))) {
+                    progress.peek().finished().add(ScanToken.key(sourceRoot.relativize(dir)));
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                if (budget != null && budget.exhausted(fileCount.get())) {
+                    stopped.set(true);
+                    return FileVisitResult.TERMINATE;
+                }
+                dirs.push(enter(parent, dir, sourceRoot));
+                progress.push(new Progress());
+                return FileVisitResult.CONTINUE;
+            }
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                dirs.pop();
+                progress.pop();
+                if (exc != null) throw exc;
+                // The whole subtree is planned: one entry replaces those below it
+                progress.peek().finished().add(ScanToken.key(sourceRoot.relativize(dir)));
                 return FileVisitResult.CONTINUE;
             }
             @Override
@@ -51,20 +163,67 @@ final class FilePlanner {
                     relToRoot.getName(0).toString().equals(".neatify")) {
                     return FileVisitResult.CONTINUE;
                 }
+                if (dirs.peek().ignores().isIgnored(file, false)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                if (resume != null && resume.isSeen(relToRoot)) {
+                    progress.peek().seen().add(ScanToken.key(relToRoot));
+                    return FileVisitResult.CONTINUE;
+                }
+                if (budget != null && budget.exhausted(fileCount.get())) {
+                    stopped.set(true);
+                    return FileVisitResult.TERMINATE;
+                }
+                if (budget != null) progress.peek().seen().add(ScanToken.key(relToRoot));
                 if (fileCount.incrementAndGet() > maxFiles) {
                     throw new IllegalStateException("File quota exceeded: " + maxFiles);
                 }
-                Optional<FileMover.Action> planned = planFor(file, sourceRoot, rules, includeMatchers, excludeMatchers);
-                planned.ifPresent(actions::add);
+                if (compare != null) {
+                    List<RuleScope> profiles = dirs.peek().profiles();
+                    FileMover.Action[] outcomes = new FileMover.Action[profiles.size()];
+                    for (int i = 0; i < outcomes.length; i++) {
+                        outcomes[i] = planFor(file, attrs, sourceRoot, profiles.get(i), includeMatchers, excludeMatchers)
+                            .orElse(null);
+                    }
+                    compare.onFile(file, attrs, Arrays.asList(outcomes));
+                    return FileVisitResult.CONTINUE;
+                }
+                Optional<FileMover.Action> planned = planFor(file, attrs, sourceRoot, dirs.peek().rules(),
+                    includeMatchers, excludeMatchers);
+                planned.ifPresent(action -> {
+                    actions.add(action);
+                    if (listener != null) listener.onPlanned(action, attrs);
+                });
                 return FileVisitResult.CONTINUE;
             }
         });
 
-        return actions;
+        if (!stopped.get()) return new FileMover.Scan(actions, null);
+        Set<String> done = new HashSet<>();
+        Set<String> seen = new HashSet<>();
+        for (Progress p : progress) {
+            done.addAll(p.finished());
+            seen.addAll(p.seen());
+        }
+        return new FileMover.Scan(actions, new ScanToken(done, seen, budget.stopReason()));
+    }
+
+    static DirContext enter(DirContext parent, Path dir, Path sourceRoot) {
+        IgnoreRules ignores = parent.ignores().enter(dir);
+        List<RuleScope> profiles = parent.profiles();
+        List<RuleScope> entered = null;
+        for (int i = 0; i < profiles.size(); i++) {
+            RuleScope scope = profiles.get(i).enter(dir, sourceRoot);
+            if (scope == profiles.get(i)) continue;
+            if (entered == null) entered = new ArrayList<>(profiles);
+            entered.set(i, scope);
+        }
+        boolean inherited = ignores == parent.ignores() && entered == null;
+        return inherited ? parent : new DirContext(ignores, entered == null ? profiles : List.copyOf(entered));
     }
 
-    private static Optional<FileMover.Action> planFor(Path file, Path sourceRoot,
-                                                      Map<String, String> rules,
+    static Optional<FileMover.Action> planFor(Path file, BasicFileAttributes attrs, Path sourceRoot,
+                                                      RuleScope rules,
                                                       List<PathMatcher> includes,
                                                       List<PathMatcher> excludes) {
         String baseName = file.getFileName().toString();
@@ -75,29 +234,27 @@ final class FilePlanner {
             if (!includes.isEmpty() && !matchesIncludes(rel, includes)) return Optional.empty();
             if (matchesExcludes(rel, excludes)) return Optional.empty();
 
-            FileMetadata metadata = FileMetadata.from(file);
-            if (metadata.hasNoExtension()) return Optional.empty();
-
-            String targetFolder = Rules.getTargetFolder(rules, metadata.extension());
-            if (targetFolder == null) return Optional.empty();
-
-            Path targetDir;
-            try {
-                targetDir = PathSecurity.safeResolveWithin(sourceRoot, targetFolder);
-            } catch (SecurityException se) {
-                logger.warn(SECURITY_MARKER, "Security violation detected: {}", se.getMessage());
-                return Optional.empty();
+            // The walk already read the attributes; only symlinks need the target's
+            if (!attrs.isRegularFile()) {
+                if (!attrs.isSymbolicLink()) return Optional.empty();
+                attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                if (!attrs.isRegularFile()) return Optional.empty();
             }
-            if (!targetDir.startsWith(sourceRoot.normalize())) return Optional.empty();
+            RuleScope.Match match = rules.classify(file, baseName, attrs.size(), attrs.lastModifiedTime().toMillis());
+            if (match == null) return Optional.empty();
+            CompiledRules.Decision decision = match.decision();
+
+            Optional<Path> resolved = match.scope().targetDir(decision.folder());
+            if (resolved.isEmpty()) return Optional.empty();
+            Path targetDir = resolved.get();
 
-            Path targetFile = targetDir.resolve(metadata.fileName());
+            Path targetFile = targetDir.resolve(baseName);
 
             // Avoid planning a no-op move (already in the right place)
             if (file.toAbsolutePath().normalize().equals(targetFile.toAbsolutePath().normalize())) {
                 return Optional.empty();
             }
-            String reason = String.format("extension: %s -> %s", metadata.extension(), targetFolder);
-            return Optional.of(new FileMover.Action(file, targetFile, reason));
+            return Optional.of(new FileMover.Action(file, targetFile, match.scope().reason(decision)));
 
         } catch (IOException e) {
             logger.error("Error while reading file {}: {}", file, e.getMessage(), e);
@@ -117,7 +274,7 @@ final class FilePlanner {
         return false;
     }
 
-    private static List<PathMatcher> compileMatchers(Path base, List<String> patterns) {
+    static List<PathMatcher> compileMatchers(Path base, List<String> patterns) {
         List<PathMatcher> list = new ArrayList<>();
         if (patterns == null) return list;
         for (String p : patterns) {
@@ -0,0 +1,104 @@
+package io.neatify.core;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Target folder with date placeholders, e.g. {@code Photos/{yyyy}/{MM}}.
+ *
+ * {@code {yyyy}}, {@code {MM}} and {@code {dd}} come from the modification
+ * time in the local time zone; the {@code {exif:...}} forms come from the
+ * EXIF DateTimeOriginal of JPEG files and fall back to the modification time
+ * when it is missing. Expanded folders are cached per day, so a scan formats
+ * each distinct day once.
+ */
+final class FolderTemplate {
+
+    /** A well-formed placeholder. */
+    static final Pattern PLACEHOLDER = Pattern.compile("\\{(exif:)?(yyyy|MM|dd)}");
+
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    private final List<String> literals = new ArrayList<>(); // literal before each placeholder, plus the tail
+    private final List<String> fields = new ArrayList<>();
+    private final List<Boolean> exif = new ArrayList<>();
+    private final boolean usesExif;
+    private final boolean usesMtime;
+    private final ZoneRules zoneRules;
+    private final Map<Long, String> cache = new ConcurrentHashMap<>();
+
+    private FolderTemplate(String folder, ZoneId zone) {
+        this.zoneRules = zone.getRules();
+        Matcher m = PLACEHOLDER.matcher(folder);
+        int last = 0;
+        boolean anyExif = false;
+        boolean anyMtime = false;
+        while (m.find()) {
+            literals.add(folder.substring(last, m.start()));
+            boolean fromExif = m.group(1) != null;
+            fields.add(m.group(2));
+            exif.add(fromExif);
+            anyExif |= fromExif;
+            anyMtime |= !fromExif;
+            last = m.end();
+        }
+        literals.add(folder.substring(last));
+        this.usesExif = anyExif;
+        this.usesMtime = anyMtime;
+    }
+
+    /**
+     * @param folder sanitized target folder
+     * @return compiled template, or null if the folder has no placeholder
+     */
+    static FolderTemplate parse(String folder) {
+        return parse(folder, ZoneId.systemDefault());
+    }
+
+    static FolderTemplate parse(String folder, ZoneId zone) {
+        return PLACEHOLDER.matcher(folder).find() ? new FolderTemplate(folder, zone) : null;
+    }
+
+    /**
+     * Expands the template for one file.
+     *
+     * @param file file, read (APP1 segment only) if the template uses EXIF
+     * @param mtimeMillis modification time
+     * @return folder with placeholders replaced
+     */
+    String expand(Path file, long mtimeMillis) {
+        long mtimeDay = localDay(mtimeMillis);
+        LocalDate taken = usesExif && file != null ? ExifDate.dateTimeOriginal(file) : null;
+        long exifDay = taken != null ? taken.toEpochDay() : mtimeDay;
+        long key = ((usesExif ? exifDay : 0) << 32) ^ (usesMtime ? mtimeDay & 0xffffffffL : 0);
+        return cache.computeIfAbsent(key, k -> format(LocalDate.ofEpochDay(mtimeDay), LocalDate.ofEpochDay(exifDay)));
+    }
+
+    private long localDay(long millis) {
+        long offset = zoneRules.getOffset(Instant.ofEpochMilli(millis)).getTotalSeconds() * 1000L;
+        return Math.floorDiv(millis + offset, DAY_MILLIS);
+    }
+
+    private String format(LocalDate mtime, LocalDate exifDate) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < fields.size(); i++) {
+            sb.append(literals.get(i));
+            LocalDate d = exif.get(i) ? exifDate : mtime;
+            switch (fields.get(i)) {
+                case "yyyy" -> sb.append(String.format("%04d", d.getYear()));
+                case "MM" -> sb.append(String.format("%02d", d.getMonthValue()));
+                default -> sb.append(String.format("%02d", d.getDayOfMonth()));
+            }
+        }
+        return sb.append(literals.get(literals.size() - 1)).toString();
+    }
+}
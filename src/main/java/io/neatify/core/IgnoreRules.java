@@ -0,0 +1,94 @@
+package io.neatify.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiled {@code .neatifyignore} patterns of one directory, chained to the
+ * rules inherited from its ancestors.
+ *
+ * The syntax follows .gitignore: one glob per line, {@code #} comments,
+ * {@code !} to re-include, a trailing {@code /} for directories only. A
+ * pattern without any other slash matches the name at any depth; otherwise
+ * it is anchored to the directory holding the file. Deeper files and later
+ * lines win. Each file is compiled once; directories without their own
+ * file share their parent's instance.
+ */
+final class IgnoreRules {
+
+    static final String FILE_NAME = ".neatifyignore";
+
+    private static final Logger logger = LoggerFactory.getLogger(IgnoreRules.class);
+
+    /** No pattern at all; the root of every chain. */
+    static final IgnoreRules NONE = new IgnoreRules(null, null, List.of());
+
+    private record Pattern(PathMatcher matcher, boolean anchored, boolean negated, boolean dirOnly) {}
+
+    private final IgnoreRules parent;
+    private final Path base;
+    private final List<Pattern> patterns;
+
+    private IgnoreRules(IgnoreRules parent, Path base, List<Pattern> patterns) {
+        this.parent = parent;
+        this.base = base;
+        this.patterns = patterns;
+    }
+
+    /**
+     * Returns the effective rules for {@code dir}: the parent's, extended by
+     * the directory's own ignore file if it has one.
+     */
+    IgnoreRules enter(Path dir) {
+        Path file = dir.resolve(FILE_NAME);
+        if (!Files.isRegularFile(file)) return this;
+        try {
+            return new IgnoreRules(this, dir, compile(dir, Files.readAllLines(file, StandardCharsets.UTF_8)));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable {}: {}", file, e.getMessage());
+            return this;
+        }
+    }
+
+    /**
+     * @param path file or directory below the rules' directories
+     * @param directory whether {@code path} is a directory
+     * @return true if the last matching pattern along the chain excludes it
+     */
+    boolean isIgnored(Path path, boolean directory) {
+        if (patterns.isEmpty()) return parent != null && parent.isIgnored(path, directory);
+        boolean ignored = parent != null && parent.isIgnored(path, directory);
+        Path name = path.getFileName();
+        Path rel = base.relativize(path);
+        for (Pattern p : patterns) {
+            if (p.dirOnly && !directory) continue;
+            if (p.matcher.matches(p.anchored ? rel : name)) ignored = !p.negated;
+        }
+        return ignored;
+    }
+
+    private static List<Pattern> compile(Path dir, List<String> lines) {
+        List<Pattern> list = new ArrayList<>();
+        for (String raw : lines) {
+            String line = raw.strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            boolean negated = line.startsWith("!");
+            if (negated) line = line.substring(1);
+            boolean dirOnly = line.endsWith("/");
+            if (dirOnly) line = line.substring(0, line.length() - 1);
+            boolean anchored = line.contains("/");
+            if (line.startsWith("/")) line = line.substring(1);
+            if (line.isEmpty()) continue;
+            list.add(new Pattern(dir.getFileSystem().getPathMatcher("glob:" + line), anchored, negated, dirOnly));
+        }
+        return List.copyOf(list);
+    }
+}
@@ -0,0 +1,215 @@
+package io.neatify.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * File-name patterns compiled into one lazily built DFA.
+ *
+ * A pattern is matched, case-insensitively, against the whole name without
+ * its extension ({@code IMG_1234} for {@code IMG_1234.jpg}):
+ * <pre>
+ * *   any run of characters     ?   any single character
+ * #   one digit                 other characters match themselves
+ * </pre>
+ * All patterns run in a single left-to-right pass: every DFA state is the
+ * set of pattern positions still alive, created the first time it is reached
+ * and cached with its transitions. The most specific pattern (most literal
+ * characters, then key order) wins when several match. Patterns with many
+ * stars can reach a great many states, so the cache is dropped and rebuilt
+ * from the start state once it holds {@link #MAX_STATES}.
+ */
+final class NamePatterns {
+
+    private static final byte LITERAL = 0;
+    private static final byte ANY = 1;
+    private static final byte DIGIT = 2;
+    private static final byte STAR = 3;
+
+    /** DFA states cached before the cache is dropped. */
+    static final int MAX_STATES = 4096;
+
+    /** A name rule: pattern, target folder and the original key. */
+    record Rule(String key, String pattern, String folder) {}
+
+    private final List<Rule> rules;
+    private final byte[] kinds;     // per NFA position
+    private final char[] chars;     // literal at that position
+    private final int[] owner;      // rule index owning the position, or -1 for an accepting slot
+    private final int[] rank;       // accepting slot -> priority, lower wins
+    private final int maxStates;
+    private final Map<String, State> states = new HashMap<>();
+    /** Replaced when the cache is dropped; a match in progress finishes on the old states. */
+    private volatile State start;
+
+    private static final class State {
+        final int[] positions;
+        final int accept;           // rule index, -1 if none
+        final State[] ascii = new State[128];
+        Map<Character, State> other;
+
+        State(int[] positions, int accept) {
+            this.positions = positions;
+            this.accept = accept;
+        }
+    }
+
+    private static final State DEAD = new State(new int[0], -1);
+
+    NamePatterns(List<Rule> rules) {
+        this(rules, MAX_STATES);
+    }
+
+    NamePatterns(List<Rule> rules, int maxStates) {
+        this.rules = List.copyOf(rules);
+        this.maxStates = maxStates;
+        int total = 0;
+        for (Rule r : rules) total += r.pattern.length() + 1;
+        kinds = new byte[total];
+        chars = new char[total];
+        owner = new int[total];
+        rank = new int[total];
+
+        List<Integer> starts = new ArrayList<>();
+        int pos = 0;
+        for (int i = 0; i < rules.size(); i++) {
+            String p = rules.get(i).pattern.toLowerCase(Locale.ROOT);
+            starts.add(pos);
+            int literals = 0;
+            for (int k = 0; k < p.length(); k++, pos++) {
+                char c = p.charAt(k);
+                kinds[pos] = c == '*' ? STAR : c == '?' ? ANY : c == '#' ? DIGIT : LITERAL;
+                chars[pos] = c;
+                owner[pos] = i;
+                if (kinds[pos] == LITERAL || kinds[pos] == DIGIT) literals++;
+            }
+            owner[pos] = -1;
+            rank[pos] = i - literals * rules.size(); // more literals first, then rule order
+            chars[pos] = (char) i;                   // accepting slot remembers its rule
+            pos++;
+        }
+        int[] init = new int[starts.size()];
+        for (int i = 0; i < init.length; i++) init[i] = starts.get(i);
+        start = state(closure(init, init.length));
+    }
+
+    /**
+     * Parses a {@code name(pattern)} key.
+     *
+     * @throws IllegalArgumentException if the key is malformed
+     */
+    static Rule parse(String key, String folder) {
+        if (!key.startsWith("name(") || !key.endsWith(")") || key.length() == 6) {
+            throw new IllegalArgumentException("Invalid name rule: " + key + " (expected name(pattern))");
+        }
+        String pattern = key.substring(5, key.length() - 1);
+        if (pattern.indexOf('/') >= 0 || pattern.indexOf('\\') >= 0) {
+            throw new IllegalArgumentException("Name pattern cannot contain a path separator: " + key);
+        }
+        return new Rule(key, pattern, folder);
+    }
+
+    int size() {
+        return rules.size();
+    }
+
+    /** @return DFA states currently cached */
+    synchronized int cachedStates() {
+        return states.size();
+    }
+
+    /**
+     * Runs all patterns over one name.
+     *
+     * @param stem file name without extension
+     * @return best matching rule, or null
+     */
+    Rule match(String stem) {
+        State s = start;
+        for (int i = 0, n = stem.length(); i < n && s != DEAD; i++) {
+            char c = Character.toLowerCase(stem.charAt(i));
+            State next = c < 128 ? s.ascii[c] : null;
+            if (next == null) next = step(s, c);
+            s = next;
+        }
+        return s.accept < 0 ? null : rules.get(s.accept);
+    }
+
+    private synchronized State step(State from, char c) {
+        State cached = c < 128 ? from.ascii[c] : from.other == null ? null : from.other.get(c);
+        if (cached != null) return cached;
+
+        int[] next = new int[from.positions.length];
+        int count = 0;
+        for (int p : from.positions) {
+            if (owner[p] < 0) continue;
+            switch (kinds[p]) {
+                case STAR -> next[count++] = p;
+                case ANY -> next[count++] = p + 1;
+                case DIGIT -> { if (c >= '0' && c <= '9') next[count++] = p + 1; }
+                default -> { if (chars[p] == c) next[count++] = p + 1; }
+            }
+        }
+        State to = count == 0 ? DEAD : state(closure(next, count));
+        if (c < 128) {
+            from.ascii[c] = to;
+        } else {
+            if (from.other == null) from.other = new HashMap<>();
+            from.other.put(c, to);
+        }
+        return to;
+    }
+
+    /** Adds the positions reachable by letting a star match nothing; sorted and unique. */
+    private int[] closure(int[] positions, int count) {
+        int[] out = new int[count * 2];
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            int p = positions[i];
+            while (true) {
+                if (n == out.length) out = Arrays.copyOf(out, n * 2);
+                out[n++] = p;
+                if (owner[p] < 0 || kinds[p] != STAR) break;
+                p++;
+            }
+        }
+        int[] sorted = Arrays.copyOf(out, n);
+        Arrays.sort(sorted);
+        int unique = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) sorted[unique++] = sorted[i];
+        }
+        return Arrays.copyOf(sorted, unique);
+    }
+
+    private State state(int[] positions) {
+        String key = Arrays.toString(positions);
+        State s = states.get(key);
+        if (s == null) {
+            if (states.size() >= maxStates) {
+                // Older states become garbage once no match runs on them
+                State fresh = new State(start.positions, start.accept);
+                states.clear();
+                states.put(Arrays.toString(fresh.positions), fresh);
+                start = fresh;
+                s = states.get(key);
+                if (s != null) return s;
+            }
+            int accept = -1;
+            int best = Integer.MAX_VALUE;
+            for (int p : positions) {
+                if (owner[p] < 0 && rank[p] < best) {
+                    best = rank[p];
+                    accept = chars[p];
+                }
+            }
+            s = new State(positions, accept);
+            states.put(key, s);
+        }
+        return s;
+    }
+}
@@ -0,0 +1,106 @@
+package io.neatify.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Effective rules of one directory during a scan.
+ *
+ * A {@code .neatify-rules.properties} file in a subdirectory overrides the
+ * inherited rules for that subtree: its rules are tried first, then the
+ * parent's. Its target folders resolve relative to the directory holding
+ * it and must stay inside it. A scope is built once, when its directory is
+ * entered; subdirectories without a rules file share it, so a file is
+ * classified by walking a short chain rather than merging maps.
+ */
+final class RuleScope {
+
+    static final String FILE_NAME = ".neatify-rules.properties";
+
+    private static final Logger logger = LoggerFactory.getLogger(RuleScope.class);
+    private static final Marker SECURITY_MARKER = MarkerFactory.getMarker("SECURITY");
+
+    /** A decision and the scope whose rules made it. */
+    record Match(RuleScope scope, CompiledRules.Decision decision) {}
+
+    private final CompiledRules rules;
+    private final Path base;
+    private final RuleScope parent;
+    private final String origin;
+    // Resolved target folders; each distinct folder is validated once
+    private final Map<String, Optional<Path>> targetDirs = new HashMap<>();
+
+    private RuleScope(CompiledRules rules, Path base, RuleScope parent, String origin) {
+        this.rules = rules;
+        this.base = base;
+        this.parent = parent;
+        this.origin = origin;
+    }
+
+    /** Scope of the scan root with the rules given by the caller. */
+    static RuleScope root(CompiledRules rules, Path sourceRoot) {
+        return new RuleScope(rules, sourceRoot, null, null);
+    }
+
+    /**
+     * @param dir directory being entered, below this scope's directory
+     * @param sourceRoot scan root, for messages
+     * @return a new scope if {@code dir} has a valid rules file, else this one
+     */
+    RuleScope enter(Path dir, Path sourceRoot) {
+        Path file = dir.resolve(FILE_NAME);
+        if (!Files.isRegularFile(file)) return this;
+        try {
+            String origin = sourceRoot.relativize(file).toString().replace('\\', '/');
+            return new RuleScope(CompiledRules.load(file), dir, this, origin);
+        } catch (Exception e) {
+            logger.warn("Ignoring rules file {}, keeping inherited rules: {}", file, e.getMessage());
+            return this;
+        }
+    }
+
+    /**
+     * Classifies a file with the innermost rules that match it.
+     *
+     * @return match, or null if no scope in the chain has a rule for it
+     */
+    Match classify(Path file, String fileName, long size, long mtimeMillis) {
+        for (RuleScope s = this; s != null; s = s.parent) {
+            CompiledRules.Decision d = s.rules.classify(file, fileName, size, mtimeMillis);
+            if (d != null) return new Match(s, d);
+        }
+        return null;
+    }
+
+    /** @return reason text, naming the rules file when it is not the root's */
+    String reason(CompiledRules.Decision decision) {
+        return origin == null ? decision.reason() : decision.reason() + " (" + origin + ")";
+    }
+
+    /**
+     * Resolves a target folder of this scope's rules.
+     *
+     * @return directory inside this scope's directory, or empty if the folder escapes it
+     */
+    Optional<Path> targetDir(String folder) {
+        return targetDirs.computeIfAbsent(folder, f -> {
+            Path targetDir;
+            try {
+                targetDir = PathSecurity.safeResolveWithin(base, f);
+            } catch (SecurityException se) {
+                logger.warn(SECURITY_MARKER, "Security violation detected: {}", se.getMessage());
+                return Optional.empty();
+            }
+            if (!targetDir.startsWith(base.normalize())) return Optional.empty();
+            return Optional.of(targetDir);
+        });
+    }
+}
@@ -0,0 +1,154 @@
+package io.neatify.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rules that follow their .properties file.
+ *
+ * The file is watched from a background thread; on change it is recompiled
+ * there and the new {@link CompiledRules} replaces the old one with a single
+ * volatile write. Callers take a snapshot with {@link #current()} and keep
+ * using it for the work at hand, so a classification never mixes versions.
+ * An edit that does not compile is logged and ignored; the previous rules
+ * stay active until the file is fixed.
+ */
+public final class RuleSet implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuleSet.class);
+
+    /** Editors often write a file in several steps; wait for them to settle. */
+    private static final long SETTLE_MILLIS = 100;
+
+    private final Path source;
+    private volatile CompiledRules current;
+    private volatile long version = 1;
+    private volatile String lastError;
+    private WatchService watcher;
+    private Thread thread;
+
+    private RuleSet(Path source, CompiledRules initial) {
+        this.source = source;
+        this.current = initial;
+    }
+
+    /**
+     * Loads rules that never change.
+     *
+     * @param rules compiled rules
+     * @return rule set without a source file
+     */
+    public static RuleSet fixed(CompiledRules rules) {
+        return new RuleSet(null, Objects.requireNonNull(rules, "Rules cannot be null"));
+    }
+
+    /**
+     * Loads a rules file and starts watching it.
+     *
+     * @param propertiesFile path to rules.properties
+     * @return live rule set; close it to stop watching
+     * @throws IOException if the file cannot be read or watched
+     * @throws IllegalArgumentException if the initial rules are invalid
+     */
+    public static RuleSet watch(Path propertiesFile) throws IOException {
+        Path file = propertiesFile.toAbsolutePath().normalize();
+        RuleSet set = new RuleSet(file, CompiledRules.load(file));
+        set.startWatching();
+        return set;
+    }
+
+    /** @return the rules in effect; a stable snapshot for the caller */
+    public CompiledRules current() {
+        return current;
+    }
+
+    /** @return version of {@link #current()}, starting at 1 and bumped on every accepted reload */
+    public long version() {
+        return version;
+    }
+
+    /** @return message of the last rejected edit, or null if the last reload succeeded */
+    public String lastError() {
+        return lastError;
+    }
+
+    /**
+     * Recompiles the source file now and publishes it if valid.
+     *
+     * @return true if new rules were published
+     */
+    public synchronized boolean reload() {
+        if (source == null) return false;
+        CompiledRules next;
+        try {
+            next = CompiledRules.load(source);
+        } catch (IOException | RuntimeException e) {
+            lastError = e.getMessage();
+            logger.warn("Rules file {} rejected, keeping version {}: {}", source, version, e.getMessage());
+            return false;
+        }
+        current = next;
+        version++;
+        lastError = null;
+        logger.info("Rules reloaded from {} (version {}, {} rule(s))", source, version, next.size());
+        return true;
+    }
+
+    private void startWatching() throws IOException {
+        Path dir = source.getParent();
+        watcher = FileSystems.getDefault().newWatchService();
+        dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        thread = new Thread(this::runWatcher, "neatify-rules-watch");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void runWatcher() {
+        Path name = source.getFileName();
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(event.context())) changed = true;
+                }
+                key.reset();
+                if (!changed) continue;
+
+                // Coalesce the burst of events of one save
+                WatchKey more;
+                while ((more = watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    more.pollEvents();
+                    more.reset();
+                }
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    /** Stops watching; {@link #current()} keeps returning the last rules. */
+    @Override
+    public void close() throws IOException {
+        if (watcher == null) return;
+        watcher.close();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
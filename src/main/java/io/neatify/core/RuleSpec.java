@@ -0,0 +1,133 @@
+package io.neatify.core;
+
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+/**
+ * One conditional rule: {@code ext[predicate,...]=Folder}.
+ *
+ * Predicates:
+ * <pre>
+ * size&gt;2GB   size&lt;100KB      (units B, KB, MB, GB, TB; 1024-based)
+ * age&gt;1y     age&lt;30d        (units h, d, w, mo = 30d, y = 365d)
+ * magic^25504446             (hex prefix of the file content)
+ * </pre>
+ * {@code *} as extension applies to any extension without a matching rule.
+ * Size and age are kept as half-open ranges {@code [lo, hi)} over the size
+ * and the modification time, which is what the decision tree splits on.
+ */
+final class RuleSpec {
+
+    private static final long HOUR = 3_600_000L;
+
+    final String key;
+    final String extension;
+    final String folder;
+    long minSize = Long.MIN_VALUE;
+    long maxSize = Long.MAX_VALUE;   // exclusive
+    long minMtime = Long.MIN_VALUE;
+    long maxMtime = Long.MAX_VALUE;  // exclusive
+    byte[] magic;
+    int predicates;
+
+    private RuleSpec(String key, String extension, String folder) {
+        this.key = key;
+        this.extension = extension;
+        this.folder = folder;
+    }
+
+    boolean hasSizeRange() { return minSize != Long.MIN_VALUE || maxSize != Long.MAX_VALUE; }
+    boolean hasMtimeRange() { return minMtime != Long.MIN_VALUE || maxMtime != Long.MAX_VALUE; }
+
+    /**
+     * Parses a conditional rule key.
+     *
+     * @param key property key such as {@code mp4[size>2GB]}
+     * @param folder sanitized target folder
+     * @param now reference time for age predicates, in epoch millis
+     * @throws IllegalArgumentException if the key is malformed
+     */
+    static RuleSpec parse(String key, String folder, long now) {
+        int open = key.indexOf('[');
+        if (open <= 0 || !key.endsWith("]")) {
+            throw new IllegalArgumentException("Invalid conditional rule: " + key + " (expected ext[predicate,...])");
+        }
+        String ext = key.substring(0, open).trim();
+        ext = ext.equals("*") ? "*" : Rules.normalizeExtension(ext);
+        if (ext.isEmpty()) throw new IllegalArgumentException("Empty extension in rule: " + key);
+
+        RuleSpec spec = new RuleSpec(key, ext, folder);
+        String body = key.substring(open + 1, key.length() - 1);
+        for (String raw : body.split(",")) {
+            String p = raw.trim().toLowerCase(Locale.ROOT);
+            if (p.isEmpty()) continue;
+            spec.predicates++;
+            if (p.startsWith("size>")) {
+                spec.minSize = Math.max(spec.minSize, exact(() -> Math.addExact(parseSize(p.substring(5), key), 1), key));
+            } else if (p.startsWith("size<")) {
+                spec.maxSize = Math.min(spec.maxSize, parseSize(p.substring(5), key));
+            } else if (p.startsWith("age>")) {
+                // older than d: modified before now - d
+                spec.maxMtime = Math.min(spec.maxMtime, now - parseAge(p.substring(4), key));
+            } else if (p.startsWith("age<")) {
+                spec.minMtime = Math.max(spec.minMtime, now - parseAge(p.substring(4), key) + 1);
+            } else if (p.startsWith("magic^")) {
+                try {
+                    spec.magic = HexFormat.of().parseHex(p.substring(6));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Invalid magic bytes in rule: " + key);
+                }
+                if (spec.magic.length == 0 || spec.magic.length > CompiledRules.MAX_MAGIC_BYTES) {
+                    throw new IllegalArgumentException("Magic prefix must be 1 to " + CompiledRules.MAX_MAGIC_BYTES
+                        + " bytes in rule: " + key);
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown predicate '" + raw.trim() + "' in rule: " + key);
+            }
+        }
+        if (spec.predicates == 0) throw new IllegalArgumentException("No predicate in rule: " + key);
+        return spec;
+    }
+
+    private static long parseSize(String s, String key) {
+        String[] units = {"tb", "gb", "mb", "kb", "b"};
+        long[] factors = {1L << 40, 1L << 30, 1L << 20, 1L << 10, 1L};
+        for (int i = 0; i < units.length; i++) {
+            if (s.endsWith(units[i])) return scale(s.substring(0, s.length() - units[i].length()), factors[i], key);
+        }
+        return number(s, key);
+    }
+
+    private static long parseAge(String s, String key) {
+        String[] units = {"mo", "h", "d", "w", "y"};
+        long[] factors = {30 * 24 * HOUR, HOUR, 24 * HOUR, 7 * 24 * HOUR, 365 * 24 * HOUR};
+        for (int i = 0; i < units.length; i++) {
+            if (s.endsWith(units[i])) return scale(s.substring(0, s.length() - units[i].length()), factors[i], key);
+        }
+        throw new IllegalArgumentException("Age needs a unit (h, d, w, mo, y) in rule: " + key);
+    }
+
+    private static long scale(String s, long factor, String key) {
+        long v = number(s, key);
+        return exact(() -> Math.multiplyExact(v, factor), key);
+    }
+
+    private static long exact(LongSupplier value, String key) {
+        try {
+            return value.getAsLong();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Value out of range in rule: " + key);
+        }
+    }
+
+    private static long number(String s, String key) {
+        try {
+            long v = Long.parseLong(s.trim());
+            if (v < 0) throw new NumberFormatException();
+            return v;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number '" + s + "' in rule: " + key);
+        }
+    }
+}
@@ -9,13 +9,21 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Loads and validates file-organization rules.
  * Rules are defined in a .properties file as: extension=TargetFolder
+ *
+ * The same file may also hold conditional rules understood by
+ * {@link CompiledRules}; the map API ignores them.
  */
 public final class Rules {
 
+    /** An {@code exif:} placeholder; other braces are literal text, as in folders named before placeholders. */
+    private static final Pattern EXIF_PLACEHOLDER = Pattern.compile("\\{exif:[^{}/]*}");
+
     private Rules() {
         // Utility class, no instantiation
     }
@@ -63,7 +71,7 @@ public final class Rules {
     /**
      * Validates that the file exists and is a regular file.
      */
-    private static void validateFileExists(Path file) throws IOException {
+    static void validateFileExists(Path file) throws IOException {
         if (!Files.exists(file)) {
             throw new IOException("Rules file not found: " + file);
         }
@@ -75,7 +83,7 @@ public final class Rules {
     /**
      * Loads properties from file.
      */
-    private static Properties loadProperties(Path file) throws IOException {
+    static Properties loadProperties(Path file) throws IOException {
         Properties props = new Properties();
         try (InputStream input = Files.newInputStream(file)) {
             props.load(input);
@@ -90,6 +98,7 @@ public final class Rules {
         Map<String, String> rules = new HashMap<>();
 
         for (String key : props.stringPropertyNames()) {
+            if (!isPlainRule(key)) continue; // conditional rule, see CompiledRules
             String value = props.getProperty(key).trim();
             validateRule(key, value);
 
@@ -102,10 +111,17 @@ public final class Rules {
         return rules;
     }
 
+    /**
+     * @return true for a plain {@code extension=Folder} key
+     */
+    static boolean isPlainRule(String key) {
+        return key.indexOf('[') < 0 && key.indexOf('(') < 0;
+    }
+
     /**
      * Validates a single rule (extension + folder).
      */
-    private static void validateRule(String key, String value) {
+    static void validateRule(String key, String value) {
         if (key.isBlank()) {
             throw new IllegalArgumentException("Empty extension found in rules");
         }
@@ -117,7 +133,7 @@ public final class Rules {
     /**
      * Normalizes an extension (no dot, lowercase).
      */
-    private static String normalizeExtension(String extension) {
+    static String normalizeExtension(String extension) {
         return extension.trim().toLowerCase().replaceFirst("^\\.", "");
     }
 
@@ -129,7 +145,7 @@ public final class Rules {
      * @return sanitized name
      * @throws IllegalArgumentException if the path attempts traversal
      */
-    private static String sanitizeFolderName(String folderName) {
+    static String sanitizeFolderName(String folderName) {
         try {
             PathSecurity.validateRelativeSubpath(folderName);
         } catch (SecurityException | IllegalArgumentException e) {
@@ -137,8 +153,25 @@ public final class Rules {
         }
 
         // Remove illegal characters on Windows/Linux: < > : " \ | ? *
-        // Slash (/) is kept for subfolders
-        return folderName.replaceAll("[<>:\"\\\\|?*]", "_");
+        // Slash (/) is kept for subfolders, date placeholders are kept whole, other braces are literal
+        Matcher m = FolderTemplate.PLACEHOLDER.matcher(folderName);
+        StringBuilder sb = new StringBuilder();
+        int last = 0;
+        while (m.find()) {
+            sb.append(sanitizeLiteral(folderName.substring(last, m.start()))).append(m.group());
+            last = m.end();
+        }
+        sb.append(sanitizeLiteral(folderName.substring(last)));
+
+        if (EXIF_PLACEHOLDER.matcher(FolderTemplate.PLACEHOLDER.matcher(folderName).replaceAll("")).find()) {
+            throw new IllegalArgumentException("Unknown placeholder in target folder: " + folderName
+                + " (supported: {exif:yyyy}, {exif:MM}, {exif:dd})");
+        }
+        return sb.toString();
+    }
+
+    private static String sanitizeLiteral(String part) {
+        return part.replaceAll("[<>:\"\\\\|?*]", "_");
     }
 
     /**
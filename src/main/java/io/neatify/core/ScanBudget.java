@@ -0,0 +1,64 @@
+package io.neatify.core;
+
+import java.time.Duration;
+
+/**
+ * Limits of a planning walk: a file count, a deadline, and a cancel flag.
+ *
+ * When one runs out the walk stops between two files and returns what it
+ * planned so far with a {@link ScanToken} to continue from. The clock starts
+ * when the budget is created. {@link #cancel()} may be called from any
+ * thread; it is honored at the next file, never in the middle of one.
+ */
+public final class ScanBudget {
+
+    private final int maxFiles;
+    private final long deadlineNanos;
+    private final boolean timed;
+    private volatile boolean cancelled;
+    private volatile String stopReason;
+
+    private ScanBudget(int maxFiles, Duration time) {
+        this.maxFiles = maxFiles;
+        this.timed = time != null;
+        this.deadlineNanos = timed ? System.nanoTime() + time.toNanos() : 0;
+    }
+
+    /**
+     * @param maxFiles files to look at before stopping
+     * @param time how long the walk may run, or null for no deadline
+     * @return budget whose clock starts now
+     */
+    public static ScanBudget of(int maxFiles, Duration time) {
+        if (maxFiles <= 0) throw new IllegalArgumentException("File budget must be positive: " + maxFiles);
+        if (time != null && time.isNegative()) throw new IllegalArgumentException("Time budget cannot be negative");
+        return new ScanBudget(maxFiles, time);
+    }
+
+    /** Asks the walk, and the caller's execution loop, to stop at the next safe point. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /** @return true once {@link #cancel()} was called */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** @return why the walk stopped early ("file budget", "time budget", "cancelled"), or null */
+    public String stopReason() {
+        return stopReason;
+    }
+
+    /**
+     * @param files files looked at so far
+     * @return true if the walk must stop before the next file
+     */
+    boolean exhausted(int files) {
+        if (cancelled) stopReason = "cancelled";
+        else if (files >= maxFiles) stopReason = "file budget";
+        else if (timed && System.nanoTime() - deadlineNanos >= 0) stopReason = "time budget";
+        else return false;
+        return true;
+    }
+}
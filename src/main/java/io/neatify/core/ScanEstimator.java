@@ -0,0 +1,404 @@
+package io.neatify.core;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Estimates the size of a scan without walking the whole tree
+ * ({@code --estimate}).
+ *
+ * Each probe descends from the root along randomly chosen subfolders,
+ * sampling every folder it passes at every depth; what a folder holds,
+ * weighted by the product of the branching factors above it, is an
+ * unbiased estimate of the whole tree (Knuth's tree-size estimator). The
+ * mean over many probes comes with a 95% confidence interval. Large
+ * folders are listed once and only a random subset of their entries is
+ * read, so the cost of a probe does not grow with folder sizes; the
+ * error of those subsets, weighted as each folder weighs in the mean, is
+ * added to the interval. A tree the probes end up reading whole gets exact
+ * figures.
+ * Listing a folder stops after {@link #MAX_LISTED} entries or at the
+ * deadline; such a folder counts as holding only the entries seen, so the
+ * figures become lower bounds and the estimate says so.
+ *
+ * Files are classified with the scan's own ignore, filter and rule logic,
+ * and the time spent listing and reading entries is measured along the
+ * way to predict how long a full scan takes. Nothing is written in the
+ * tree: renames are timed in a scratch folder outside it on the same file
+ * store.
+ */
+public final class ScanEstimator {
+
+    /**
+     * Entries read per folder; the rest of a larger folder is extrapolated.
+     * Most folders are read whole, so their subfolders are known exactly.
+     */
+    static final int ENTRIES_PER_DIR = 2000;
+
+    /** Entries listed per folder; listing a larger folder stops there. */
+    static final int MAX_LISTED = 200_000;
+
+    /** Entries listed between two checks of the deadline. */
+    private static final int DEADLINE_CHECK = 1024;
+
+    /** Probes after which the estimate is considered settled. */
+    static final int MAX_PROBES = 5000;
+
+    /** Deepest level a probe descends to. */
+    private static final int MAX_DEPTH = 256;
+
+    /** Renames timed to predict the cost of a move. */
+    private static final int MOVE_SAMPLES = 8;
+
+    /** Upper bounds of the file size classes, in bytes; the last class is open. */
+    public static final long[] SIZE_CLASSES = {64L << 10, 1L << 20, 16L << 20, 256L << 20};
+
+    /** A mean with its 95% confidence interval. */
+    public record Interval(double mean, double low, double high) {}
+
+    /**
+     * Outcome of an estimate.
+     *
+     * @param probes random descents made
+     * @param dirsSampled distinct folders listed
+     * @param dirsCut folders whose listing stopped before the end
+     * @param entriesRead entries whose attributes were read
+     * @param files files a scan would count against {@code --max-files}
+     * @param bytes size of those files
+     * @param dirs folders a scan would enter
+     * @param moves files the rules would move
+     * @param sizeClasses share of files per {@link #SIZE_CLASSES} class, plus one for larger files
+     * @param scanTime predicted duration of the planning walk
+     * @param moveNanos measured duration of one rename on the tree's file store, or -1 if it could not be measured
+     * @param elapsed time the estimate took
+     */
+    public record Estimate(int probes, int dirsSampled, int dirsCut, long entriesRead,
+                           Interval files, Interval bytes, Interval dirs, Interval moves,
+                           double[] sizeClasses, Interval scanTime, long moveNanos, Duration elapsed) {
+
+        /** @return predicted duration of the moves, in seconds; null if the move cost is unknown */
+        public Interval applySeconds() {
+            if (moveNanos < 0) return null;
+            double s = moveNanos / 1e9;
+            return new Interval(moves.mean() * s, moves.low() * s, moves.high() * s);
+        }
+
+        /** @return share of the files that the rules would move */
+        public double hitRate() {
+            return files.mean() == 0 ? 0 : moves.mean() / files.mean();
+        }
+    }
+
+    /** One sampled folder, read once and shared by every probe through it. */
+    private record DirSample(FilePlanner.DirContext context, long entries, double files, double bytes,
+                             double moves, double branching, List<Path> subdirs, double[] sizeClasses,
+                             double[] variance, boolean whole) {}
+
+    private final Path root;
+    private final List<PathMatcher> includes;
+    private final List<PathMatcher> excludes;
+    private final Random random;
+    private final Map<Path, DirSample> sampled = new HashMap<>();
+    /** Sum over the probes of the weight each folder was visited with. */
+    private final Map<Path, Double> visitWeights = new HashMap<>();
+    private long deadline;
+    private int dirsCut;
+    private long entriesRead;
+    private long entriesListed;
+    private long listNanos;
+    private long readNanos;
+
+    private ScanEstimator(Path root, List<String> includes, List<String> excludes, Random random) {
+        this.root = root;
+        this.includes = FilePlanner.compileMatchers(root, includes);
+        this.excludes = FilePlanner.compileMatchers(root, excludes);
+        this.random = random;
+    }
+
+    /**
+     * Samples {@code sourceRoot} for about {@code limit}.
+     *
+     * @param sourceRoot tree to estimate
+     * @param rules compiled rules, for the share of files that would move
+     * @param includes include globs on relative paths
+     * @param excludes exclude globs on relative paths
+     * @param limit time to spend sampling; the estimate stops earlier once settled
+     * @throws IOException if the root cannot be listed
+     */
+    public static Estimate estimate(Path sourceRoot, CompiledRules rules, List<String> includes,
+                                    List<String> excludes, Duration limit) throws IOException {
+        return estimate(sourceRoot, rules, includes, excludes, limit, new Random());
+    }
+
+    static Estimate estimate(Path sourceRoot, CompiledRules rules, List<String> includes,
+                             List<String> excludes, Duration limit, Random random) throws IOException {
+        Objects.requireNonNull(sourceRoot, "Source directory cannot be null");
+        Objects.requireNonNull(rules, "Rules cannot be null");
+        if (!Files.isDirectory(sourceRoot)) {
+            throw new IllegalArgumentException("Source path must be a directory: " + sourceRoot);
+        }
+        Path root = sourceRoot.toAbsolutePath().normalize();
+        return new ScanEstimator(root, includes, excludes, random).run(rules, limit);
+    }
+
+    private Estimate run(CompiledRules rules, Duration limit) throws IOException {
+        long start = System.nanoTime();
+        deadline = start + limit.toNanos();
+        FilePlanner.DirContext rootContext = FilePlanner.enter(
+            new FilePlanner.DirContext(IgnoreRules.NONE, RuleScope.root(rules, root)), root, root);
+
+        // Per-probe estimates of files, bytes, folders, moves and entries listed
+        List<double[]> probes = new ArrayList<>();
+        double[] sizes = new double[SIZE_CLASSES.length + 1];
+        do {
+            double[] probe = new double[5];
+            Path dir = root;
+            FilePlanner.DirContext context = rootContext;
+            double weight = 1;
+            for (int depth = 0; depth < MAX_DEPTH; depth++) {
+                DirSample s = sample(dir, context);
+                visitWeights.merge(dir, weight, Double::sum);
+                probe[0] += weight * s.files();
+                probe[1] += weight * s.bytes();
+                probe[2] += weight;
+                probe[3] += weight * s.moves();
+                probe[4] += weight * s.entries();
+                for (int i = 0; i < sizes.length; i++) sizes[i] += weight * s.sizeClasses()[i];
+                if (s.subdirs().isEmpty()) break;
+                dir = s.subdirs().get(random.nextInt(s.subdirs().size()));
+                weight *= s.branching();
+                context = s.context();
+            }
+            probes.add(probe);
+            // A small tree is soon read whole
+            if (probes.size() % 64 == 1 && complete()) break;
+        } while (probes.size() < MAX_PROBES && System.nanoTime() < deadline);
+        int probeCount = probes.size();
+
+        if (complete()) {
+            // Every folder was read whole: the probes are replaced by the exact sums
+            probes = List.of(new double[5]);
+            sizes = new double[sizes.length];
+            visitWeights.replaceAll((dir, w) -> 1.0);
+            for (DirSample s : sampled.values()) {
+                double[] exact = probes.get(0);
+                exact[0] += s.files();
+                exact[1] += s.bytes();
+                exact[2]++;
+                exact[3] += s.moves();
+                exact[4] += s.entries();
+                for (int i = 0; i < sizes.length; i++) sizes[i] += s.sizeClasses()[i];
+            }
+        }
+
+        double total = 0;
+        for (double v : sizes) total += v;
+        double[] shares = new double[sizes.length];
+        for (int i = 0; i < sizes.length; i++) shares[i] = total == 0 ? 0 : sizes[i] / total;
+
+        // A scan lists every entry and reads its attributes
+        double perEntry = (entriesListed == 0 ? 0 : (double) listNanos / entriesListed)
+            + (entriesRead == 0 ? 0 : (double) readNanos / entriesRead);
+        Interval entries = interval(4, probes);
+        Interval scanTime = new Interval(entries.mean() * perEntry / 1e9, entries.low() * perEntry / 1e9,
+            entries.high() * perEntry / 1e9);
+
+        return new Estimate(probeCount, sampled.size(), dirsCut, entriesRead,
+            interval(0, probes), interval(1, probes), interval(2, probes), interval(3, probes),
+            shares, scanTime, timeMove(), Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /** @return true if every folder of the tree was read whole */
+    private boolean complete() {
+        for (DirSample s : sampled.values()) {
+            if (!s.whole()) return false;
+            for (Path sub : s.subdirs()) {
+                if (!sampled.containsKey(sub)) return false;
+            }
+        }
+        return true;
+    }
+
+    /** Lists {@code dir} and reads a random subset of its entries, once. */
+    private DirSample sample(Path dir, FilePlanner.DirContext parent) throws IOException {
+        DirSample known = sampled.get(dir);
+        if (known != null) return known;
+
+        FilePlanner.DirContext context = dir.equals(root) ? parent : FilePlanner.enter(parent, dir, root);
+        // Reservoir sample of the entries while listing them
+        List<Path> picked = new ArrayList<>(ENTRIES_PER_DIR);
+        long entries = 0;
+        boolean cut = false;
+        long t0 = System.nanoTime();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path p : stream) {
+                if (dir.equals(root) && p.getFileName().toString().equals(".neatify")) continue;
+                if (entries >= MAX_LISTED
+                        || (entries > 0 && entries % DEADLINE_CHECK == 0 && System.nanoTime() >= deadline)) {
+                    cut = true;
+                    break;
+                }
+                entries++;
+                if (picked.size() < ENTRIES_PER_DIR) {
+                    picked.add(p);
+                } else {
+                    long j = (long) (random.nextDouble() * entries);
+                    if (j < ENTRIES_PER_DIR) picked.set((int) j, p);
+                }
+            }
+        } catch (IOException e) {
+            // An unreadable folder below the root counts as empty, as if it were skipped
+            if (dir.equals(root)) throw e;
+        }
+        long t1 = System.nanoTime();
+        listNanos += t1 - t0;
+        entriesListed += entries;
+        if (cut) dirsCut++;
+
+        // Per read entry, in the columns of a probe: file, bytes, subfolder, move
+        double[][] values = new double[picked.size()][4];
+        int read = 0;
+        double[] sizeClasses = new double[SIZE_CLASSES.length + 1];
+        List<Path> subdirs = new ArrayList<>();
+        for (Path p : picked) {
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(p, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException e) {
+                continue;
+            }
+            double[] v = values[read++];
+            if (attrs.isDirectory()) {
+                if (!p.getFileName().toString().equals(".neatify") && !context.ignores().isIgnored(p, true)) {
+                    subdirs.add(p);
+                    v[2] = 1;
+                }
+                continue;
+            }
+            if (context.ignores().isIgnored(p, false)) continue;
+            v[0] = 1;
+            v[1] = attrs.size();
+            sizeClasses[sizeClass(attrs.size())]++;
+            if (FilePlanner.planFor(p, attrs, root, context.rules(), includes, excludes).isPresent()) v[3] = 1;
+        }
+        readNanos += System.nanoTime() - t1;
+        entriesRead += read;
+
+        double[] sum = new double[4];
+        for (int i = 0; i < read; i++) {
+            for (int k = 0; k < 4; k++) sum[k] += values[i][k];
+        }
+        // Variance of each extrapolated total: N^2 (1 - n/N) s^2 / n, for n of N entries read
+        double[] variance = new double[5];
+        if (read > 1 && read < entries) {
+            for (int k = 0; k < 4; k++) {
+                double mean = sum[k] / read;
+                double sq = 0;
+                for (int i = 0; i < read; i++) sq += (values[i][k] - mean) * (values[i][k] - mean);
+                double var = (double) entries * entries * (1 - (double) read / entries) * sq / (read - 1) / read;
+                variance[k] = var;
+            }
+        }
+        double scale = read == 0 ? 0 : (double) entries / read;
+        for (int i = 0; i < sizeClasses.length; i++) sizeClasses[i] *= scale;
+        DirSample s = new DirSample(context, entries, sum[0] * scale, sum[1] * scale, sum[3] * scale,
+            sum[2] * scale, List.copyOf(subdirs), sizeClasses, variance, read == entries && !cut);
+        sampled.put(dir, s);
+        return s;
+    }
+
+    /** @return nanoseconds of one rename of a scratch file, or -1 if there is no scratch folder on the root's store */
+    private long timeMove() {
+        Path dir = scratchDir();
+        if (dir == null) return -1;
+        Path a = null;
+        Path b = null;
+        try {
+            a = Files.createTempFile(dir, "neatify-estimate-", ".tmp");
+            b = a.resolveSibling(a.getFileName() + ".moved");
+            // The first rename warms up the folder's metadata
+            Files.move(a, b, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(b, a, StandardCopyOption.ATOMIC_MOVE);
+            long t0 = System.nanoTime();
+            for (int i = 0; i < MOVE_SAMPLES; i++) {
+                Files.move(a, b, StandardCopyOption.ATOMIC_MOVE);
+                Files.move(b, a, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return (System.nanoTime() - t0) / (2L * MOVE_SAMPLES);
+        } catch (IOException | UnsupportedOperationException e) {
+            return -1;
+        } finally {
+            try {
+                if (a != null) Files.deleteIfExists(a);
+                if (b != null) Files.deleteIfExists(b);
+            } catch (IOException ignored) {
+                // Left behind a hidden scratch file
+            }
+        }
+    }
+
+    /** @return writable folder outside the tree on the same file store as the root, or null */
+    private Path scratchDir() {
+        try {
+            FileStore store = Files.getFileStore(root);
+            for (String base : new String[] {System.getProperty("java.io.tmpdir"),
+                    System.getProperty("user.home") + "/.neatify"}) {
+                if (base == null) continue;
+                Path dir = Path.of(base).toAbsolutePath().normalize();
+                if (Files.isDirectory(dir) && Files.isWritable(dir) && !dir.startsWith(root)
+                        && Files.getFileStore(dir).equals(store)) {
+                    return dir;
+                }
+            }
+        } catch (IOException | InvalidPathException e) {
+            // No store to compare with
+        }
+        return null;
+    }
+
+    static int sizeClass(long size) {
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            if (size < SIZE_CLASSES[i]) return i;
+        }
+        return SIZE_CLASSES.length;
+    }
+
+    /**
+     * @return mean of column {@code k} over the probes with its normal 95%
+     *         interval, widened by the error of the folders read in part.
+     *         A folder is sampled once and enters the mean with the average
+     *         weight of its visits, so its error is scaled by that weight squared.
+     */
+    private Interval interval(int k, List<double[]> probes) {
+        int n = probes.size();
+        double sum = 0;
+        for (double[] p : probes) sum += p[k];
+        double mean = sum / n;
+        double var = 0;
+        if (n > 1) {
+            for (double[] p : probes) var += (p[k] - mean) * (p[k] - mean);
+            var /= (double) (n - 1) * n;
+        }
+        for (var e : sampled.entrySet()) {
+            double w = visitWeights.getOrDefault(e.getKey(), 0.0) / n;
+            var += w * w * e.getValue().variance()[k];
+        }
+        double half = 1.96 * Math.sqrt(var);
+        return new Interval(mean, Math.max(0, mean - half), mean + half);
+    }
+}
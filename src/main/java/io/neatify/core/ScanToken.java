@@ -0,0 +1,200 @@
+package io.neatify.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Where a budgeted walk stopped: the directories, relative to the source,
+ * whose whole subtree was planned, and the files already looked at in the
+ * directories it had only started. A walk resumed from the token skips
+ * both, so every run makes progress whatever the listing order.
+ *
+ * A token left by a dry run is marked as such: its subtrees were planned
+ * but nothing was moved, so a run that applies must not skip them.
+ *
+ * Stored as {@code .neatify/scan.token}: one {@code done=} line per subtree,
+ * one {@code seen=} line per file. Names may hold any character but '/', so
+ * backslashes, line feeds and carriage returns in values are escaped; a
+ * token without the {@code format=2} line predates escaping and is read raw.
+ */
+public final class ScanToken {
+
+    static final String FILE_NAME = "scan.token";
+
+    /** Format of tokens whose values are escaped. */
+    private static final String FORMAT = "format=2";
+
+    private final Set<String> done;
+    private final Set<String> seen;
+    private final String reason;
+    private final boolean dryRun;
+
+    ScanToken(Set<String> done, Set<String> seen, String reason) {
+        this(done, seen, reason, false);
+    }
+
+    private ScanToken(Set<String> done, Set<String> seen, String reason, boolean dryRun) {
+        this.done = Collections.unmodifiableSet(new TreeSet<>(done));
+        this.seen = Collections.unmodifiableSet(new TreeSet<>(seen));
+        this.reason = reason;
+        this.dryRun = dryRun;
+    }
+
+    /** @return a token that has nothing done, so the next walk starts over */
+    public static ScanToken empty() {
+        return new ScanToken(Set.of(), Set.of(), null);
+    }
+
+    /** @return why the walk stopped, e.g. "time budget"; null if unknown */
+    public String reason() {
+        return reason;
+    }
+
+    /** @return true if the walk that left this token did not move anything */
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    /** @return this token, marked as left by a dry run */
+    public ScanToken asDryRun() {
+        return new ScanToken(done, seen, reason, true);
+    }
+
+    /** @return number of subtrees recorded as done */
+    public int size() {
+        return done.size();
+    }
+
+    boolean isDone(Path rel) {
+        return done.contains(key(rel));
+    }
+
+    boolean isSeen(Path rel) {
+        return seen.contains(key(rel));
+    }
+
+    /**
+     * Returns a token that no longer counts {@code dirs} as done, nor any
+     * subtree containing them, nor any file below them as seen; used when
+     * moves planned there were not applied.
+     *
+     * @param sourceRoot root the token is relative to
+     * @param dirs directories under {@code sourceRoot}
+     */
+    public ScanToken reopen(Path sourceRoot, Collection<Path> dirs) {
+        Set<String> left = new TreeSet<>(done);
+        Set<String> unseen = new TreeSet<>(seen);
+        for (Path dir : dirs) {
+            String k = key(sourceRoot.relativize(dir));
+            left.removeIf(d -> d.isEmpty() || k.equals(d) || k.startsWith(d + "/"));
+            unseen.removeIf(f -> k.isEmpty() || f.startsWith(k + "/"));
+        }
+        return new ScanToken(left, unseen, reason, dryRun);
+    }
+
+    // ==== Storage ====
+
+    private static Path file(Path sourceRoot) {
+        return sourceRoot.resolve(".neatify").resolve(FILE_NAME);
+    }
+
+    /**
+     * @return the token saved for {@code sourceRoot}, or null if there is none
+     * @throws IOException if it cannot be read
+     */
+    public static ScanToken load(Path sourceRoot) throws IOException {
+        Path f = file(sourceRoot);
+        if (!Files.isRegularFile(f)) return null;
+        Set<String> done = new TreeSet<>();
+        Set<String> seen = new TreeSet<>();
+        String reason = null;
+        boolean dryRun = false;
+        List<String> lines = Files.readAllLines(f, StandardCharsets.UTF_8);
+        boolean escaped = lines.contains(FORMAT);
+        for (String line : lines) {
+            if (line.startsWith("done=")) done.add(value(line, 5, escaped));
+            else if (line.startsWith("seen=")) seen.add(value(line, 5, escaped));
+            else if (line.startsWith("reason=")) reason = value(line, 7, escaped);
+            else if (line.equals("dryRun=true")) dryRun = true;
+        }
+        return new ScanToken(done, seen, reason, dryRun);
+    }
+
+    /**
+     * Replaces the saved token atomically.
+     *
+     * @throws IOException if it cannot be written
+     */
+    public void save(Path sourceRoot) throws IOException {
+        Path f = file(sourceRoot);
+        Files.createDirectories(f.getParent());
+        List<String> lines = new ArrayList<>();
+        lines.add("# Neatify scan continuation; run again with --continue");
+        lines.add(FORMAT);
+        if (reason != null) lines.add("reason=" + escape(reason));
+        if (dryRun) lines.add("dryRun=true");
+        for (String d : done) lines.add("done=" + escape(d));
+        for (String s : seen) lines.add("seen=" + escape(s));
+        Path tmp = f.resolveSibling(FILE_NAME + ".tmp");
+        Files.write(tmp, lines, StandardCharsets.UTF_8);
+        Files.move(tmp, f, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Deletes the saved token, once a walk has covered the whole tree.
+     *
+     * @throws IOException if it cannot be deleted
+     */
+    public static void clear(Path sourceRoot) throws IOException {
+        Files.deleteIfExists(file(sourceRoot));
+    }
+
+    /** Escapes what would break the line format: backslash, line feed, carriage return. */
+    static String escape(String value) {
+        if (value.indexOf('\\') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) return value;
+        StringBuilder sb = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    static String unescape(String value) {
+        if (value.indexOf('\\') < 0) return value;
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 == value.length()) {
+                sb.append(c);
+                continue;
+            }
+            char next = value.charAt(++i);
+            sb.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+        }
+        return sb.toString();
+    }
+
+    private static String value(String line, int start, boolean escaped) {
+        String v = line.substring(start);
+        return escaped ? unescape(v) : v;
+    }
+
+    static String key(Path rel) {
+        return rel.toString().replace('\\', '/');
+    }
+}
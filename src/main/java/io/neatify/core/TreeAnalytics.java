@@ -0,0 +1,294 @@
+package io.neatify.core;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Profile of a tree under a set of rules ({@code --analyze}): files and
+ * bytes per extension, the extensions no rule matches, and the largest
+ * folders.
+ *
+ * Folders are listed in parallel on a fork/join pool, one task per
+ * folder; a listing runs as a {@link ForkJoinPool.ManagedBlocker}, so the
+ * pool keeps its parallelism while workers wait on the disk. Counters are {@link LongAdder}s, striped per thread, so workers
+ * never contend on a shared total; nothing is kept per file. Ignore rules,
+ * filters and hidden files are handled as in a scan, and only regular
+ * files are counted.
+ */
+public final class TreeAnalytics {
+
+    /** Distinct extensions tracked; further ones are counted under {@link #OTHER}. */
+    static final int MAX_EXTENSIONS = 10_000;
+
+    /** Largest folders reported. */
+    static final int LARGEST_DIRS = 15;
+
+    /** Extension key of files without one. */
+    public static final String NONE = "(none)";
+
+    /** Extension key of files past {@link #MAX_EXTENSIONS}. */
+    public static final String OTHER = "(other)";
+
+    /**
+     * Files of one extension.
+     *
+     * @param extension lowercase extension, {@link #NONE} or {@link #OTHER}
+     * @param files files with it
+     * @param bytes their size
+     * @param unmatched files no rule matched
+     * @param unmatchedBytes their size
+     * @param folder folder the rules send the first matched file to, or null
+     */
+    public record ExtensionStat(String extension, long files, long bytes, long unmatched, long unmatchedBytes,
+                                String folder) {}
+
+    /**
+     * A folder with everything below it.
+     *
+     * @param dir folder, relative to the root
+     * @param files files below it
+     * @param bytes their size
+     */
+    public record DirStat(String dir, long files, long bytes) {}
+
+    /**
+     * Outcome of an analysis.
+     *
+     * @param files files counted
+     * @param bytes their size
+     * @param dirs folders listed
+     * @param unmatched files no rule matched
+     * @param unreadable folders that could not be listed
+     * @param extensions extensions, most files first
+     * @param largest largest folders below the root, most bytes first
+     * @param elapsed time the analysis took
+     */
+    public record Report(long files, long bytes, long dirs, long unmatched, long unreadable,
+                         List<ExtensionStat> extensions, List<DirStat> largest, Duration elapsed) {}
+
+    /** Counters of one extension. */
+    private static final class Counter {
+        final LongAdder files = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder unmatched = new LongAdder();
+        final LongAdder unmatchedBytes = new LongAdder();
+        volatile String folder;
+    }
+
+    private final Path root;
+    private final List<PathMatcher> includes;
+    private final List<PathMatcher> excludes;
+    private final ConcurrentHashMap<String, Counter> extensions = new ConcurrentHashMap<>();
+    private final LongAdder dirs = new LongAdder();
+    private final LongAdder unreadable = new LongAdder();
+    /** Smallest of the largest folders on top. */
+    private final PriorityQueue<DirStat> largest = new PriorityQueue<>(Comparator.comparingLong(DirStat::bytes));
+    /** Size a folder must exceed to enter {@link #largest} once it is full. */
+    private volatile long threshold = -1;
+
+    private TreeAnalytics(Path root, List<String> includes, List<String> excludes) {
+        this.root = root;
+        this.includes = FilePlanner.compileMatchers(root, includes);
+        this.excludes = FilePlanner.compileMatchers(root, excludes);
+    }
+
+    /**
+     * Analyzes {@code sourceRoot}.
+     *
+     * @param sourceRoot tree to analyze
+     * @param rules rules whose unmatched extensions are reported
+     * @param includes include globs on relative paths
+     * @param excludes exclude globs on relative paths
+     * @param parallelism folders listed at the same time
+     * @throws IOException if the root cannot be listed
+     */
+    public static Report analyze(Path sourceRoot, CompiledRules rules, List<String> includes,
+                                 List<String> excludes, int parallelism) throws IOException {
+        Objects.requireNonNull(sourceRoot, "Source directory cannot be null");
+        Objects.requireNonNull(rules, "Rules cannot be null");
+        if (parallelism <= 0) throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        if (!Files.isDirectory(sourceRoot)) {
+            throw new IllegalArgumentException("Source path must be a directory: " + sourceRoot);
+        }
+        Path root = sourceRoot.toAbsolutePath().normalize();
+        TreeAnalytics analytics = new TreeAnalytics(root, includes, excludes);
+        FilePlanner.DirContext context = new FilePlanner.DirContext(IgnoreRules.NONE, RuleScope.root(rules, root));
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            long[] total = pool.invoke(analytics.new DirTask(root, context));
+            if (total == null) throw new IOException("Cannot list the source directory: " + sourceRoot);
+            return analytics.report(total, Duration.ofNanos(System.nanoTime() - start));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private Report report(long[] total, Duration elapsed) {
+        List<ExtensionStat> stats = new ArrayList<>();
+        long unmatched = 0;
+        for (var e : extensions.entrySet()) {
+            Counter c = e.getValue();
+            stats.add(new ExtensionStat(e.getKey(), c.files.sum(), c.bytes.sum(), c.unmatched.sum(),
+                c.unmatchedBytes.sum(), c.folder));
+            unmatched += c.unmatched.sum();
+        }
+        stats.sort(Comparator.comparingLong(ExtensionStat::files).reversed()
+            .thenComparing(Comparator.comparingLong(ExtensionStat::bytes).reversed())
+            .thenComparing(ExtensionStat::extension));
+        List<DirStat> dirsBySize;
+        synchronized (largest) {
+            dirsBySize = new ArrayList<>(largest);
+        }
+        dirsBySize.sort(Comparator.comparingLong(DirStat::bytes).reversed().thenComparing(DirStat::dir));
+        return new Report(total[0], total[1], dirs.sum(), unmatched, unreadable.sum(),
+            List.copyOf(stats), List.copyOf(dirsBySize), elapsed);
+    }
+
+    /** Entries of one folder with their attributes, read while the pool compensates for the blocked worker. */
+    private static final class Listing implements ForkJoinPool.ManagedBlocker {
+        private final Path dir;
+        final List<Path> paths = new ArrayList<>();
+        final List<BasicFileAttributes> attrs = new ArrayList<>();
+        IOException failure;
+        private boolean done;
+
+        Listing(Path dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        public boolean block() {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path p : stream) {
+                    try {
+                        attrs.add(Files.readAttributes(p, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS));
+                        paths.add(p);
+                    } catch (IOException e) {
+                        // removed since listed
+                    }
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+            done = true;
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return done;
+        }
+    }
+
+    /** Lists one folder, forks a task per subfolder; returns files and bytes below it, or null if unreadable. */
+    private final class DirTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Path dir;
+        private final transient FilePlanner.DirContext parent;
+
+        DirTask(Path dir, FilePlanner.DirContext parent) {
+            this.dir = dir;
+            this.parent = parent;
+        }
+
+        @Override
+        protected long[] compute() {
+            FilePlanner.DirContext context = FilePlanner.enter(parent, dir, root);
+            List<DirTask> children = new ArrayList<>();
+            long files = 0;
+            long bytes = 0;
+            Listing listing = new Listing(dir);
+            try {
+                ForkJoinPool.managedBlock(listing);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                listing.failure = new IOException("Interrupted while listing " + dir);
+            }
+            if (listing.failure != null) {
+                unreadable.increment();
+                return dir.equals(root) ? null : new long[2];
+            }
+            for (int i = 0; i < listing.paths.size(); i++) {
+                Path p = listing.paths.get(i);
+                BasicFileAttributes attrs = listing.attrs.get(i);
+                if (attrs.isDirectory()) {
+                    if (!p.getFileName().toString().equals(".neatify") && !context.ignores().isIgnored(p, true)) {
+                        DirTask child = new DirTask(p, context);
+                        child.fork();
+                        children.add(child);
+                    }
+                } else if (attrs.isRegularFile() && count(p, attrs, context)) {
+                    files++;
+                    bytes += attrs.size();
+                }
+            }
+            dirs.increment();
+            for (DirTask child : children) {
+                long[] sub = child.join();
+                files += sub[0];
+                bytes += sub[1];
+            }
+            if (!dir.equals(root)) offer(new DirStat(root.relativize(dir).toString().replace('\\', '/'), files, bytes));
+            return new long[] {files, bytes};
+        }
+    }
+
+    /** Counts one file; @return false if a scan would not look at it */
+    private boolean count(Path file, BasicFileAttributes attrs, FilePlanner.DirContext context) {
+        String name = file.getFileName().toString();
+        if (name.startsWith(".") || context.ignores().isIgnored(file, false)) return false;
+        Path rel = root.relativize(file);
+        if (!includes.isEmpty() && includes.stream().noneMatch(m -> m.matches(rel))) return false;
+        if (excludes.stream().anyMatch(m -> m.matches(rel))) return false;
+
+        String ext = FileMetadata.extensionOf(name);
+        if (ext.isEmpty()) ext = NONE;
+        Counter c = extensions.get(ext);
+        if (c == null) {
+            c = extensions.size() < MAX_EXTENSIONS
+                ? extensions.computeIfAbsent(ext, k -> new Counter())
+                : extensions.computeIfAbsent(OTHER, k -> new Counter());
+        }
+        c.files.increment();
+        c.bytes.add(attrs.size());
+        RuleScope.Match match = context.rules().classify(file, name, attrs.size(), attrs.lastModifiedTime().toMillis());
+        if (match == null) {
+            c.unmatched.increment();
+            c.unmatchedBytes.add(attrs.size());
+        } else if (c.folder == null) {
+            c.folder = match.decision().folder();
+        }
+        return true;
+    }
+
+    private void offer(DirStat stat) {
+        if (stat.bytes() <= threshold) return;
+        synchronized (largest) {
+            if (largest.size() < LARGEST_DIRS) {
+                largest.add(stat);
+            } else if (stat.bytes() > largest.peek().bytes()) {
+                largest.poll();
+                largest.add(stat);
+            }
+            if (largest.size() == LARGEST_DIRS) threshold = largest.peek().bytes();
+        }
+    }
+}
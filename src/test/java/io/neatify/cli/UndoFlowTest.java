@@ -41,7 +41,7 @@ class UndoFlowTest {
             Path runs = src.resolve(".neatify").resolve("runs");
             assertTrue(Files.exists(runs));
             try (var s = Files.list(runs)) {
-                assertTrue(s.anyMatch(p -> p.getFileName().toString().endsWith(".json")));
+                assertTrue(s.anyMatch(p -> p.getFileName().toString().endsWith(".nrun")));
             }
 
             // Undo last run
@@ -29,4 +29,29 @@ class ArgumentParserNewFlagsTest {
         assertTrue(c2.isUndo());
         assertEquals("1719930000000", c2.getUndoRun());
     }
+
+    @Test
+    void testRepeatedSource_EnablesBatch() {
+        CLIConfig config = parser.parse(new String[]{"--source", "/a", "--source", "/b", "--use-default-rules",
+            "--batch-threads", "8"});
+        assertTrue(config.isBatch());
+        assertEquals(2, config.getSourceDirs().size());
+        assertEquals(8, config.getBatchThreads());
+
+        assertFalse(parser.parse(new String[]{"--source", "/a", "--use-default-rules"}).isBatch());
+        assertThrows(IllegalArgumentException.class,
+            () -> parser.parse(new String[]{"--source", "/a", "--source", "/b", "--undo"}));
+    }
+
+    @Test
+    void testWorkers_RejectedWithSeveralRoots() {
+        CLIConfig config = parser.parse(new String[]{"--source", "/a", "--use-default-rules", "--workers", "3"});
+        assertEquals(3, config.getWorkers());
+        assertFalse(config.isWorker());
+
+        assertThrows(IllegalArgumentException.class,
+            () -> parser.parse(new String[]{"--source", "/a", "--source", "/b", "--use-default-rules", "--workers", "2"}));
+        assertThrows(IllegalArgumentException.class,
+            () -> parser.parse(new String[]{"--source", "/a", "--use-default-rules", "--workers", "0"}));
+    }
 }
@@ -0,0 +1,98 @@
+package io.neatify.cli.core;
+
+import io.neatify.core.CompiledRules;
+import io.neatify.core.FileMover;
+import io.neatify.core.RuleSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for multi-root batches and their shared scheduler.
+ */
+class BatchRunnerTest {
+
+    private static BatchRunner.Options options(boolean apply, int threads) {
+        RuleSet rules = RuleSet.fixed(CompiledRules.of(Map.of("pdf", "Documents")));
+        return new BatchRunner.Options(rules, 1000, List.of(), List.of(),
+            apply, FileMover.CollisionStrategy.RENAME, "rename", JournalOptions.DEFAULT, threads, null, Duration.ZERO);
+    }
+
+    @Test
+    void testRun_EachRootGetsItsOwnResultAndJournal(@TempDir Path tempDir) throws IOException {
+        List<Path> roots = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Path root = Files.createDirectories(tempDir.resolve("home" + i));
+            for (int f = 0; f <= i; f++) Files.writeString(root.resolve("f" + f + ".pdf"), "x");
+            roots.add(root);
+        }
+        roots.add(tempDir.resolve("missing"));
+
+        List<BatchRunner.RootResult> results = BatchRunner.run(roots, options(true, 2), null);
+
+        assertEquals(6, results.size());
+        for (int i = 0; i < 5; i++) {
+            BatchRunner.RootResult r = results.get(i);
+            assertEquals(roots.get(i), r.root());
+            assertEquals(i + 1, r.result().moved());
+            assertNotNull(r.journal());
+            assertTrue(r.journal().startsWith(roots.get(i)));
+            assertTrue(Files.exists(roots.get(i).resolve("Documents/f0.pdf")));
+        }
+        assertTrue(results.get(5).failed());
+        FileMover.Result total = BatchRunner.total(results);
+        assertEquals(15, total.moved());
+        assertEquals(1, total.errors().size());
+    }
+
+    @Test
+    void testRun_DryRunMovesNothing(@TempDir Path tempDir) throws IOException {
+        Path root = Files.createDirectories(tempDir.resolve("a"));
+        Files.writeString(root.resolve("x.pdf"), "x");
+
+        List<BatchRunner.RootResult> results = BatchRunner.run(List.of(root), options(false, 1), null);
+
+        assertEquals(1, results.get(0).result().moved());
+        assertNull(results.get(0).journal());
+        assertTrue(Files.exists(root.resolve("x.pdf")));
+    }
+
+    @Test
+    void testScheduler_LanesTakeTurns() throws InterruptedException {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch gate = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(7);
+        try (FairScheduler scheduler = new FairScheduler(1, "test")) {
+            FairScheduler.Lane blocker = scheduler.lane();
+            blocker.submit(() -> {
+                try { gate.await(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+            });
+            FairScheduler.Lane big = scheduler.lane();
+            FairScheduler.Lane small = scheduler.lane();
+            for (int i = 0; i < 4; i++) {
+                int n = i;
+                big.submit(() -> { order.add("big" + n); done.countDown(); });
+            }
+            for (int i = 0; i < 3; i++) {
+                int n = i;
+                small.submit(() -> { order.add("small" + n); done.countDown(); });
+            }
+            gate.countDown();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(List.of("big0", "small0", "big1", "small1", "big2", "small2", "big3"), order);
+    }
+}
@@ -0,0 +1,115 @@
+package io.neatify.cli.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the binary journal layout and its compatibility with JSON runs.
+ */
+class BinaryJournalTest {
+
+    private static List<UndoExecutor.Move> readAll(Path file) throws IOException {
+        List<UndoExecutor.Move> moves = new ArrayList<>();
+        try (JournalReader reader = JournalReader.open(file)) {
+            UndoExecutor.Move m;
+            while ((m = reader.next()) != null) moves.add(m);
+        }
+        return moves;
+    }
+
+    private static JournalWriter writeRun(Path root, JournalFormat format, List<UndoExecutor.Move> moves) throws IOException {
+        JournalWriter journal = UndoExecutor.openRun(root, "rename",
+            new JournalOptions(format, JournalWriter.SyncPolicy.DEFAULT, JournalRetention.Policy.DEFAULT));
+        for (UndoExecutor.Move m : moves) journal.append(m.from(), m.to());
+        journal.close();
+        return journal;
+    }
+
+    private static List<UndoExecutor.Move> sampleMoves(Path root, int count) {
+        List<UndoExecutor.Move> moves = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Path from = root.resolve("inbox/batch" + (i % 3)).resolve("report-2024-" + i + ".pdf");
+            Path to = root.resolve("Documents").resolve(i % 10 == 0 ? "report-2024-" + i + "_1.pdf" : "report-2024-" + i + ".pdf");
+            moves.add(new UndoExecutor.Move(from.toAbsolutePath(), to.toAbsolutePath()));
+        }
+        return moves;
+    }
+
+    @Test
+    void testRoundTrip_PreservesMovesAndHeader(@TempDir Path tempDir) throws IOException {
+        List<UndoExecutor.Move> moves = sampleMoves(tempDir, 500);
+        JournalWriter journal = writeRun(tempDir, JournalFormat.BINARY, moves);
+
+        assertTrue(journal.file().getFileName().toString().endsWith(".nrun"));
+        assertEquals(moves, readAll(journal.file()));
+        try (JournalReader reader = JournalReader.open(journal.file())) {
+            assertEquals(500, reader.expectedMoves());
+            assertEquals("rename", reader.onCollision());
+            assertFalse(reader.isTruncated());
+        }
+    }
+
+    @Test
+    void testBinary_IsMuchSmallerThanJson(@TempDir Path tempDir) throws IOException {
+        List<UndoExecutor.Move> moves = sampleMoves(tempDir, 2000);
+        long binary = Files.size(writeRun(tempDir, JournalFormat.BINARY, moves).file());
+        long json = Files.size(writeRun(tempDir.resolve("other"), JournalFormat.JSON, moves).file());
+
+        assertTrue(binary * 4 < json, "binary=" + binary + " json=" + json);
+    }
+
+    @Test
+    void testInterruptedRun_ReadsUpToTornRecord(@TempDir Path tempDir) throws IOException {
+        List<UndoExecutor.Move> moves = sampleMoves(tempDir, 50);
+        Path file = writeRun(tempDir, JournalFormat.BINARY, moves).file();
+
+        // Chop the END tag and half of the last record, clear the closed flag
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.truncate(ch.size() - 6);
+            ch.write(java.nio.ByteBuffer.wrap(new byte[]{0}), BinaryJournalEncoder.OFFSET_FLAGS);
+        }
+
+        try (JournalReader reader = JournalReader.open(file)) {
+            assertEquals(-1, reader.expectedMoves());
+        }
+        List<UndoExecutor.Move> read = readAll(file);
+        assertEquals(49, read.size());
+        assertEquals(moves.subList(0, 49), read);
+    }
+
+    @Test
+    void testUndo_ReadsLegacyPrettyJsonRun(@TempDir Path tempDir) throws IOException {
+        Path moved = Files.createDirectories(tempDir.resolve("Documents")).resolve("a.pdf");
+        Files.writeString(moved, "a");
+        Path original = tempDir.resolve("a.pdf").toAbsolutePath();
+        Path runs = Files.createDirectories(tempDir.resolve(".neatify/runs"));
+        Files.writeString(runs.resolve("1700000000000.json"), """
+            {
+              "time": 1700000000000,
+              "onCollision": "rename",
+              "moves": [
+                {
+                  "from": "%s",
+                  "to": "%s"
+                }
+              ]
+            }
+            """.formatted(original.toString().replace("\\", "\\\\"), moved.toAbsolutePath().toString().replace("\\", "\\\\")));
+
+        UndoExecutor.UndoResult result = UndoExecutor.undoRun(tempDir, 1700000000000L);
+
+        assertNotNull(result);
+        assertEquals(1, result.restored());
+        assertTrue(Files.exists(original));
+    }
+}
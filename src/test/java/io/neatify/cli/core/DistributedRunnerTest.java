@@ -0,0 +1,176 @@
+package io.neatify.cli.core;
+
+import io.neatify.core.CompiledRules;
+import io.neatify.core.FileMover;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the coordinator and its workers, connected in-process.
+ */
+class DistributedRunnerTest {
+
+    private static final int PIPE_SIZE = 1 << 16;
+
+    /** Runs each worker on a thread, wired to the coordinator with pipes. */
+    private static DistributedRunner.Launcher inProcess(Path root) {
+        DistributedWorker.Options options = new DistributedWorker.Options(root,
+            CompiledRules.of(Map.of("pdf", "Documents", "jpg", "Images")), 100_000, List.of(), List.of(),
+            FileMover.CollisionStrategy.RENAME);
+        return id -> {
+            PipedOutputStream commands = new PipedOutputStream();
+            PipedInputStream workerIn = new PipedInputStream(commands, PIPE_SIZE);
+            PipedOutputStream replies = new PipedOutputStream();
+            PipedInputStream coordinatorIn = new PipedInputStream(replies, PIPE_SIZE);
+            Thread worker = new Thread(() -> {
+                try {
+                    DistributedWorker.serve(workerIn, replies, options);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, "test-worker-" + id);
+            worker.start();
+            return link(coordinatorIn, commands, worker);
+        };
+    }
+
+    private static DistributedRunner.WorkerLink link(InputStream in, OutputStream out, Thread worker) {
+        return new DistributedRunner.WorkerLink() {
+            @Override public InputStream input() { return in; }
+            @Override public OutputStream output() { return out; }
+            @Override public void close() throws IOException {
+                out.close();
+                try {
+                    worker.join(5000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    private static int createTree(Path root) throws IOException {
+        int files = 0;
+        for (int d = 0; d < 6; d++) {
+            for (int s = 0; s < 4; s++) {
+                Path dir = Files.createDirectories(root.resolve("d" + d).resolve("s" + s));
+                for (int f = 0; f < 5; f++) {
+                    Files.writeString(dir.resolve("f" + f + (f % 2 == 0 ? ".pdf" : ".jpg")), d + "/" + s + "/" + f);
+                    files++;
+                }
+            }
+        }
+        return files;
+    }
+
+    private static long countFiles(Path dir) throws IOException {
+        try (Stream<Path> s = Files.walk(dir)) {
+            return s.filter(Files::isRegularFile).count();
+        }
+    }
+
+    @Test
+    void testRun_AppliesEveryFileOnceAndUndoRestores(@TempDir Path root) throws IOException {
+        int files = createTree(root);
+
+        DistributedRunner.Summary summary = DistributedRunner.run(
+            new DistributedRunner.Options(root, 3, 1000, true, "rename", JournalOptions.DEFAULT), inProcess(root));
+
+        assertEquals(files, summary.planned());
+        assertEquals(files, summary.result().moved());
+        assertTrue(summary.result().errors().isEmpty(), summary.result().errors().toString());
+        assertEquals(1 + summary.steals(), summary.partitions());
+        assertEquals(files, countFiles(root.resolve("Documents")) + countFiles(root.resolve("Images")));
+        assertNotNull(summary.journal());
+
+        // The merged journal is an ordinary run
+        UndoExecutor.UndoResult undo = UndoExecutor.undoLast(root);
+        assertEquals(files, undo.restored());
+        assertTrue(Files.exists(root.resolve("d3/s2/f4.pdf")));
+        assertFalse(Files.exists(root.resolve("Documents")) && countFiles(root.resolve("Documents")) > 0);
+    }
+
+    @Test
+    void testRun_DryRunPlansWithoutMoving(@TempDir Path root) throws IOException {
+        int files = createTree(root);
+
+        DistributedRunner.Summary summary = DistributedRunner.run(
+            new DistributedRunner.Options(root, 2, 1000, false, "rename", JournalOptions.DEFAULT), inProcess(root));
+
+        assertEquals(files, summary.planned());
+        assertEquals(files, summary.result().moved());
+        assertNull(summary.journal());
+        assertTrue(Files.exists(root.resolve("d0/s0/f0.pdf")));
+        assertFalse(Files.exists(root.resolve("Documents")));
+    }
+
+    @Test
+    void testRun_PartitionOfDeadWorkerIsPlannedElsewhere(@TempDir Path root) throws IOException {
+        int files = createTree(root);
+        DistributedRunner.Launcher live = inProcess(root);
+        DistributedRunner.Launcher launcher = id -> {
+            if (id > 0) return live.launch(id);
+            // Exits at once: its reply stream is already at end
+            return link(InputStream.nullInputStream(), OutputStream.nullOutputStream(), new Thread(() -> { }));
+        };
+
+        DistributedRunner.Summary summary = DistributedRunner.run(
+            new DistributedRunner.Options(root, 2, 1000, true, "rename", JournalOptions.DEFAULT), launcher);
+
+        assertEquals(files, summary.planned());
+        assertEquals(files, summary.result().moved());
+        assertEquals(files, countFiles(root.resolve("Documents")) + countFiles(root.resolve("Images")));
+    }
+
+    @Test
+    void testRun_QuotaHoldsAcrossPartitionsAndNothingMoves(@TempDir Path root) throws IOException {
+        int files = createTree(root);
+
+        DistributedRunner.Summary summary = DistributedRunner.run(
+            new DistributedRunner.Options(root, 3, files - 1, true, "rename", JournalOptions.DEFAULT), inProcess(root));
+
+        assertEquals(0, summary.result().moved());
+        assertTrue(summary.result().errors().contains("File quota exceeded: " + (files - 1)),
+            summary.result().errors().toString());
+        assertNull(summary.journal());
+        assertFalse(Files.exists(root.resolve("Documents")));
+    }
+
+    @Test
+    void testRun_DeadWorkerPlansDoNotCountAgainstQuota(@TempDir Path root) throws IOException {
+        int files = createTree(root);
+        // Plans ten files of the root partition, then exits
+        StringBuilder replies = new StringBuilder();
+        for (int f = 0; f < 10; f++) {
+            replies.append("{\"event\":\"plan\",\"source\":\"").append(root.resolve("x" + f + ".pdf").toString().replace("\\", "\\\\"))
+                .append("\",\"target\":\"x\",\"reason\":\"pdf\"}\n");
+        }
+        byte[] partial = replies.toString().getBytes(StandardCharsets.UTF_8);
+        DistributedRunner.Launcher live = inProcess(root);
+        DistributedRunner.Launcher launcher = id -> id > 0 ? live.launch(id)
+            : link(new ByteArrayInputStream(partial), OutputStream.nullOutputStream(), new Thread(() -> { }));
+
+        DistributedRunner.Summary summary = DistributedRunner.run(
+            new DistributedRunner.Options(root, 2, files, true, "rename", JournalOptions.DEFAULT), launcher);
+
+        assertTrue(summary.result().errors().isEmpty(), summary.result().errors().toString());
+        assertEquals(files, summary.planned());
+        assertEquals(files, summary.result().moved());
+    }
+}
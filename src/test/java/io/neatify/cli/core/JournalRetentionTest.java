@@ -0,0 +1,117 @@
+package io.neatify.cli.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for journal retention and archive segments.
+ */
+class JournalRetentionTest {
+
+    private static final JournalRetention.Policy KEEP_TWO =
+        new JournalRetention.Policy(2, Duration.ofDays(90), 256L * 1024 * 1024);
+
+    /** Moves {@code name} into Documents and journals the move. */
+    private static long organize(Path root, String name, JournalFormat format) throws IOException, InterruptedException {
+        Path from = root.resolve(name);
+        Path to = Files.createDirectories(root.resolve("Documents")).resolve(name);
+        Files.writeString(to, name);
+        JournalWriter journal = UndoExecutor.openRun(root, "rename",
+            new JournalOptions(format, JournalWriter.SyncPolicy.DEFAULT, JournalRetention.Policy.DEFAULT));
+        journal.append(from, to);
+        journal.close();
+        Thread.sleep(2);
+        return UndoExecutor.listRuns(root).get(0).time();
+    }
+
+    private static long countFiles(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return 0;
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.count();
+        }
+    }
+
+    @Test
+    void testApply_ArchivesRunsBeyondKeepCount(@TempDir Path tempDir) throws Exception {
+        for (int i = 0; i < 4; i++) organize(tempDir, "f" + i + ".txt", JournalFormat.BINARY);
+
+        assertEquals(2, JournalRetention.apply(tempDir, KEEP_TWO));
+
+        List<UndoExecutor.RunMeta> runs = UndoExecutor.listRuns(tempDir);
+        assertEquals(4, runs.size());
+        assertFalse(runs.get(0).archived());
+        assertFalse(runs.get(1).archived());
+        assertTrue(runs.get(2).archived());
+        assertTrue(runs.get(3).archived());
+        assertEquals(2, countFiles(UndoExecutor.runsDir(tempDir)));
+        assertEquals(1, countFiles(JournalArchive.archiveDir(tempDir)));
+    }
+
+    @Test
+    void testUndoRun_RestoresArchivedRun(@TempDir Path tempDir) throws Exception {
+        long oldest = organize(tempDir, "old.txt", JournalFormat.JSON);
+        organize(tempDir, "mid.txt", JournalFormat.BINARY);
+        organize(tempDir, "new.txt", JournalFormat.BINARY);
+        organize(tempDir, "last.txt", JournalFormat.BINARY);
+        JournalRetention.apply(tempDir, KEEP_TWO);
+
+        UndoExecutor.UndoResult result = UndoExecutor.undoRun(tempDir, oldest);
+
+        assertNotNull(result);
+        assertEquals(1, result.restored());
+        assertTrue(Files.exists(tempDir.resolve("old.txt")));
+        List<UndoExecutor.RunMeta> runs = UndoExecutor.listRuns(tempDir);
+        assertEquals(3, runs.size());
+        assertEquals(1, runs.stream().filter(UndoExecutor.RunMeta::archived).count());
+    }
+
+    @Test
+    void testApply_DeletesOldestSegmentsOverBudget(@TempDir Path tempDir) throws Exception {
+        for (int i = 0; i < 3; i++) organize(tempDir, "f" + i + ".txt", JournalFormat.BINARY);
+
+        JournalRetention.apply(tempDir, new JournalRetention.Policy(1, Duration.ofDays(90), 1));
+
+        List<UndoExecutor.RunMeta> runs = UndoExecutor.listRuns(tempDir);
+        assertEquals(1, runs.size(), "newest run is never dropped");
+        assertFalse(runs.get(0).archived());
+        assertEquals(0, countFiles(JournalArchive.archiveDir(tempDir)));
+    }
+
+    @Test
+    void testListRuns_RebuildsArchivedEntries(@TempDir Path tempDir) throws Exception {
+        for (int i = 0; i < 3; i++) organize(tempDir, "f" + i + ".txt", JournalFormat.BINARY);
+        JournalRetention.apply(tempDir, KEEP_TWO);
+        Files.delete(tempDir.resolve(".neatify/index.json"));
+
+        List<UndoExecutor.RunMeta> runs = UndoExecutor.listRuns(tempDir);
+
+        assertEquals(3, runs.size());
+        assertTrue(runs.get(2).archived());
+        assertEquals(1, runs.get(2).movesCount());
+    }
+
+    @Test
+    void testAwaitIdle_FinishesScheduledPassAndDropsLeftovers(@TempDir Path tempDir) throws Exception {
+        for (int i = 0; i < 4; i++) organize(tempDir, "f" + i + ".txt", JournalFormat.BINARY);
+        Path leftover = Files.createDirectories(JournalArchive.archiveDir(tempDir)).resolve("1-2.nseg.tmp");
+        Files.writeString(leftover, "partial");
+        Files.setLastModifiedTime(leftover, FileTime.fromMillis(System.currentTimeMillis() - Duration.ofDays(1).toMillis()));
+
+        JournalRetention.schedule(tempDir, KEEP_TWO);
+
+        assertTrue(JournalRetention.awaitIdle(Duration.ofSeconds(30)));
+        assertEquals(2, countFiles(UndoExecutor.runsDir(tempDir)));
+        assertFalse(Files.exists(leftover));
+        assertEquals(1, countFiles(JournalArchive.archiveDir(tempDir)));
+    }
+}
@@ -0,0 +1,116 @@
+package io.neatify.cli.core;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.neatify.core.FileMover;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the streaming undo journal.
+ */
+class JournalWriterTest {
+
+    @Test
+    void testClosedJournal_IsValidJsonDocument(@TempDir Path tempDir) throws IOException {
+        JournalWriter journal = UndoExecutor.openRun(tempDir, "rename",
+            new JournalOptions(JournalFormat.JSON, new JournalWriter.SyncPolicy(2, 50), JournalRetention.Policy.DEFAULT));
+        for (int i = 0; i < 5; i++) {
+            journal.onMoved(tempDir.resolve("f" + i + ".txt"), tempDir.resolve("Documents/f" + i + ".txt"));
+        }
+        journal.close();
+
+        Path file = journal.file();
+        assertNotNull(file);
+        JsonObject doc = JsonParser.parseString(Files.readString(file)).getAsJsonObject();
+        assertEquals("rename", doc.get("onCollision").getAsString());
+        assertEquals(5, doc.getAsJsonArray("moves").size());
+    }
+
+    @Test
+    void testInterruptedJournal_ReadsCompleteRecords(@TempDir Path tempDir) throws IOException {
+        JournalWriter journal = UndoExecutor.openRun(tempDir, "skip",
+            new JournalOptions(JournalFormat.JSON, new JournalWriter.SyncPolicy(1, 10), JournalRetention.Policy.DEFAULT));
+        for (int i = 0; i < 3; i++) {
+            journal.onMoved(tempDir.resolve("f" + i + ".txt"), tempDir.resolve("Documents/f" + i + ".txt"));
+        }
+        journal.close();
+
+        // Simulate a crash: drop the trailer and tear the last record
+        Path file = journal.file();
+        String content = Files.readString(file, StandardCharsets.UTF_8);
+        String torn = content.substring(0, content.lastIndexOf("\"to\""));
+        Files.writeString(file, torn, StandardCharsets.UTF_8);
+
+        List<UndoExecutor.Move> moves = new ArrayList<>();
+        try (JournalReader reader = JournalReader.open(file)) {
+            UndoExecutor.Move m;
+            while ((m = reader.next()) != null) moves.add(m);
+            assertTrue(reader.isTruncated());
+            assertEquals("skip", reader.onCollision());
+        }
+        assertEquals(2, moves.size());
+        assertEquals(tempDir.resolve("f0.txt").toAbsolutePath(), moves.get(0).from());
+    }
+
+    @Test
+    void testEmptyRun_LeavesNoJournal(@TempDir Path tempDir) throws IOException {
+        JournalWriter journal = UndoExecutor.openRun(tempDir, "rename");
+        journal.close();
+
+        assertNull(journal.file());
+        try (var s = Files.list(tempDir.resolve(".neatify").resolve("runs"))) {
+            assertEquals(0, s.count());
+        }
+    }
+
+    @Test
+    void testReopen_ContinuesTornJournal(@TempDir Path tempDir) throws IOException {
+        JournalOptions json = new JournalOptions(JournalFormat.JSON, new JournalWriter.SyncPolicy(1, 10),
+            JournalRetention.Policy.DEFAULT);
+        JournalWriter journal = UndoExecutor.openRun(tempDir, "skip", json);
+        for (int i = 0; i < 3; i++) {
+            journal.onMoved(tempDir.resolve("f" + i + ".txt"), tempDir.resolve("Documents/f" + i + ".txt"));
+        }
+        journal.close();
+        Path file = journal.file();
+        String content = Files.readString(file, StandardCharsets.UTF_8);
+        Files.writeString(file, content.substring(0, content.lastIndexOf("\"to\"")), StandardCharsets.UTF_8);
+
+        JournalWriter continued = UndoExecutor.continueRun(tempDir, file, json);
+        assertEquals(2, continued.records());
+        continued.onMoved(tempDir.resolve("g.txt"), tempDir.resolve("Documents/g.txt"));
+        continued.close();
+
+        JsonObject doc = JsonParser.parseString(Files.readString(file)).getAsJsonObject();
+        assertEquals("skip", doc.get("onCollision").getAsString());
+        assertEquals(3, doc.getAsJsonArray("moves").size());
+        assertEquals(1, UndoExecutor.listRuns(tempDir).size());
+    }
+
+    @Test
+    void testJournalNotAccepting_StopsBeforeNextMove(@TempDir Path tempDir) throws IOException {
+        Path source = Files.writeString(tempDir.resolve("a.txt"), "a");
+        JournalWriter journal = UndoExecutor.openRun(tempDir, "rename");
+        journal.onMoved(tempDir.resolve("x.txt"), tempDir.resolve("Documents/x.txt"));
+        journal.close();
+
+        List<FileMover.Action> actions = List.of(
+            new FileMover.Action(source, tempDir.resolve("Documents/a.txt"), "txt"));
+        assertThrows(UncheckedIOException.class,
+            () -> FileMover.execute(actions, false, FileMover.CollisionStrategy.RENAME, journal));
+        assertTrue(Files.exists(source));
+        assertFalse(Files.exists(tempDir.resolve("Documents")));
+        assertThrows(UncheckedIOException.class, () -> journal.append(source, tempDir.resolve("b.txt")));
+    }
+}
@@ -0,0 +1,75 @@
+package io.neatify.cli.core;
+
+import io.neatify.TestHelper;
+import io.neatify.core.FileMover;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for streaming, directory-partitioned undo.
+ */
+class ParallelUndoTest extends TestHelper {
+
+    @Test
+    void testUndo_RestoresAcrossDirectoriesAndReportsProgress(@TempDir Path tempDir) throws IOException {
+        List<Path> originals = new ArrayList<>();
+        for (int d = 0; d < 6; d++) {
+            Path dir = Files.createDirectories(tempDir.resolve("in" + d));
+            for (int i = 0; i < 300; i++) {
+                originals.add(Files.writeString(dir.resolve("f" + i + ".txt"), "x"));
+            }
+        }
+        List<FileMover.Action> actions = FileMover.plan(tempDir, Map.of("txt", "Documents"));
+        try (JournalWriter journal = UndoExecutor.openRun(tempDir, "rename")) {
+            FileMover.Result applied = FileMover.execute(actions, false, FileMover.CollisionStrategy.RENAME, journal);
+            assertEquals(originals.size(), applied.moved());
+        }
+        // Remove the emptied directories: undo has to recreate them
+        for (int d = 0; d < 6; d++) Files.delete(tempDir.resolve("in" + d));
+
+        AtomicLong lastDone = new AtomicLong();
+        AtomicLong lastTotal = new AtomicLong();
+        UndoExecutor.UndoResult result = UndoExecutor.undoLast(tempDir, (done, total) -> {
+            lastDone.set(done);
+            lastTotal.set(total);
+        });
+
+        assertEquals(originals.size(), result.restored());
+        assertTrue(result.errors().isEmpty());
+        assertEquals(originals.size(), lastDone.get());
+        assertEquals(originals.size(), lastTotal.get());
+        for (Path p : originals) assertTrue(Files.exists(p), "not restored: " + p);
+    }
+
+    @Test
+    void testUndo_SkipsOccupiedAndReportsAbsent(@TempDir Path tempDir) throws IOException {
+        Path docs = Files.createDirectories(tempDir.resolve("Documents"));
+        Path movedA = Files.writeString(docs.resolve("a.txt"), "a");
+        Path movedB = Files.writeString(docs.resolve("b.txt"), "b");
+        Files.writeString(tempDir.resolve("b.txt"), "new b");
+        UndoExecutor.appendRun(tempDir, "rename", List.of(
+            new UndoExecutor.Move(tempDir.resolve("a.txt"), movedA),
+            new UndoExecutor.Move(tempDir.resolve("b.txt"), movedB),
+            new UndoExecutor.Move(tempDir.resolve("c.txt"), docs.resolve("c.txt"))
+        ));
+
+        UndoExecutor.UndoResult result = UndoExecutor.undoLast(tempDir);
+
+        assertEquals(1, result.restored());
+        assertEquals(2, result.skipped());
+        assertEquals(1, result.errors().size());
+        assertTrue(result.errors().get(0).startsWith("Absent: "));
+        assertEquals("new b", Files.readString(tempDir.resolve("b.txt")), "existing file must not be overwritten");
+        assertTrue(Files.exists(movedB));
+    }
+}
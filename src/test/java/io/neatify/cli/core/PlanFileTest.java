@@ -0,0 +1,103 @@
+package io.neatify.cli.core;
+
+import io.neatify.core.FileMover;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for saved plans.
+ */
+class PlanFileTest {
+
+    private static final Map<String, String> RULES = Map.of("txt", "Documents", "png", "Images");
+
+    private static List<FileMover.Action> savePlan(Path root, Path planFile) throws IOException {
+        try (PlanFile.Writer writer = new PlanFile.Writer(planFile, root)) {
+            return FileMover.plan(root, RULES, 1000, List.of(), List.of(), writer);
+        }
+    }
+
+    @Test
+    void testRoundTrip_LoadsSameActions(@TempDir Path tempDir) throws IOException {
+        Path root = Files.createDirectories(tempDir.resolve("root"));
+        Files.writeString(root.resolve("a.txt"), "a");
+        Files.writeString(Files.createDirectories(root.resolve("sub")).resolve("b.png"), "b");
+        Path planFile = tempDir.resolve("plan.ndjson");
+
+        List<FileMover.Action> planned = savePlan(root, planFile);
+        PlanFile.Loaded loaded = PlanFile.load(planFile, root);
+
+        assertEquals(2, planned.size());
+        assertEquals(planned.size(), loaded.actions().size());
+        assertTrue(loaded.stale().isEmpty());
+        for (FileMover.Action a : planned) {
+            assertTrue(loaded.actions().contains(new FileMover.Action(
+                a.source().toAbsolutePath().normalize(), a.target().toAbsolutePath().normalize(), a.reason())));
+        }
+        assertFalse(Files.readString(planFile).contains(root.resolve("a.txt").toString()),
+            "entries are stored relative to the root");
+    }
+
+    @Test
+    void testLoad_DropsChangedAndMissingFiles(@TempDir Path tempDir) throws IOException {
+        Path root = Files.createDirectories(tempDir.resolve("root"));
+        Files.writeString(root.resolve("a.txt"), "a");
+        Files.writeString(root.resolve("b.txt"), "b");
+        Files.writeString(root.resolve("c.png"), "c");
+        Path planFile = tempDir.resolve("plan.ndjson");
+        savePlan(root, planFile);
+
+        Files.writeString(root.resolve("a.txt"), "grown");
+        Files.setLastModifiedTime(root.resolve("b.txt"), FileTime.fromMillis(0));
+        Files.delete(root.resolve("c.png"));
+
+        PlanFile.Loaded loaded = PlanFile.load(planFile, root);
+
+        assertTrue(loaded.actions().isEmpty());
+        assertEquals(3, loaded.stale().size());
+    }
+
+    @Test
+    void testLoad_RejectsEntriesOutsideRoot(@TempDir Path tempDir) throws IOException {
+        Path root = Files.createDirectories(tempDir.resolve("root"));
+        Path planFile = tempDir.resolve("plan.ndjson");
+        Files.writeString(planFile,
+            "{\"event\":\"header\",\"version\":1,\"root\":\"" + root.toAbsolutePath().normalize() + "\"}\n"
+            + "{\"event\":\"action\",\"source\":\"a.txt\",\"target\":\"../escape/a.txt\",\"reason\":\"x\","
+            + "\"size\":1,\"mtime\":0,\"fileKey\":null}\n");
+
+        assertThrows(SecurityException.class, () -> PlanFile.load(planFile, root));
+    }
+
+    @Test
+    void testLoad_RejectsPlanOfAnotherRoot(@TempDir Path tempDir) throws IOException {
+        Path root = Files.createDirectories(tempDir.resolve("root"));
+        Path other = Files.createDirectories(tempDir.resolve("other"));
+        Path planFile = tempDir.resolve("plan.ndjson");
+        savePlan(root, planFile);
+
+        assertThrows(IllegalArgumentException.class, () -> PlanFile.load(planFile, other));
+    }
+
+    @Test
+    void testLoad_RejectsTruncatedEntryWithItsLine(@TempDir Path tempDir) throws IOException {
+        Path root = Files.createDirectories(tempDir.resolve("root"));
+        Files.writeString(root.resolve("a.txt"), "a");
+        Path planFile = tempDir.resolve("plan.ndjson");
+        Files.writeString(planFile,
+            "{\"event\":\"header\",\"version\":1,\"root\":\"" + root.toAbsolutePath().normalize().toString().replace("\\", "\\\\") + "\"}\n"
+            + "{\"event\":\"action\",\"source\":\"a.txt\",\"target\":\"Documents/a.txt\",\"reason\":\"x\",\"size\":1}\n");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> PlanFile.load(planFile, root));
+        assertTrue(e.getMessage().contains("at line 2: missing 'mtime'"), e.getMessage());
+    }
+}
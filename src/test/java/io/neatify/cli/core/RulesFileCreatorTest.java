@@ -0,0 +1,42 @@
+package io.neatify.cli.core;
+
+import io.neatify.core.CompiledRules;
+import io.neatify.core.Rules;
+import io.neatify.core.TreeAnalytics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for rules suggested from a tree analysis.
+ */
+class RulesFileCreatorTest {
+
+    @Test
+    void testSuggestedContent_LoadsAndCoversTheTree(@TempDir Path tmp) throws IOException {
+        Path root = Files.createDirectories(tmp.resolve("tree"));
+        for (String f : List.of("a.txt", "b.txt", "c.png", "d.png", "e.PNG", "f.weird", "g.weird", "h.once", "i")) {
+            Files.writeString(root.resolve(f), "x");
+        }
+        Map<String, String> current = Map.of("txt", "Notes");
+        TreeAnalytics.Report report = TreeAnalytics.analyze(root, CompiledRules.of(current), List.of(), List.of(), 2);
+
+        String content = RulesFileCreator.suggestedContent(report, current);
+        assertTrue(content.startsWith("# Neatify organization rules"));
+
+        Path file = tmp.resolve("suggested/rules.properties");
+        RulesFileCreator.writeSuggested(file, content);
+        Map<String, String> rules = Rules.load(file);
+        assertEquals(Map.of("txt", "Notes", "png", "Images", "weird", "Other/weird"), rules);
+        assertTrue(content.contains("no rule suggested: once"));
+
+        assertThrows(IllegalArgumentException.class, () -> RulesFileCreator.writeSuggested(file, content));
+    }
+}
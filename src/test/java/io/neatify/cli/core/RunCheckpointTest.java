@@ -0,0 +1,117 @@
+package io.neatify.cli.core;
+
+import io.neatify.core.FileMover;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for crash-safe apply and {@code --resume}.
+ */
+class RunCheckpointTest {
+
+    private static final FileMover.CollisionStrategy RENAME = FileMover.CollisionStrategy.RENAME;
+
+    @Test
+    void testResume_FinishesInterruptedRunAsOneUndoableRun(@TempDir Path root) throws IOException {
+        for (int i = 0; i < 300; i++) Files.writeString(root.resolve("f" + i + ".pdf"), "pdf" + i);
+        List<FileMover.Action> actions = FileMover.plan(root, Map.of("pdf", "Documents"));
+        assertEquals(300, actions.size());
+
+        // The run checkpoints its plan and completes a first chunk
+        JournalWriter journal = UndoExecutor.openRun(root, "rename");
+        RunCheckpoint.save(root, actions, journal);
+        FileMover.execute(actions.subList(0, RunCheckpoint.CHUNK), false, RENAME, journal);
+        journal.sync();
+        RunCheckpoint.writeCursor(root, journal, RunCheckpoint.CHUNK, journal.records());
+
+        // The second chunk dies after 10 journaled moves and 5 moves the journal never saw
+        RunCheckpoint.writeInflight(root, actions.subList(RunCheckpoint.CHUNK, 300), RunCheckpoint.CHUNK);
+        FileMover.execute(actions.subList(256, 266), false, RENAME, journal);
+        journal.sync();
+        Path collision = actions.get(268).target();
+        Files.writeString(collision, "already there");
+        FileMover.execute(actions.subList(266, 271), false, RENAME, null);
+        Path runFile = journal.file();
+        byte[] crashed = Files.readAllBytes(runFile);
+        journal.close();
+        Files.write(runFile, crashed);
+
+        RunCheckpoint.Saved saved = RunCheckpoint.load(root);
+        assertNotNull(saved);
+        assertEquals(RunCheckpoint.CHUNK, saved.done());
+        assertEquals(44, saved.remaining());
+
+        JournalWriter resumed = UndoExecutor.continueRun(root, saved.journal(), JournalOptions.DEFAULT);
+        FileMover.Result result = RunCheckpoint.resume(root, saved, RENAME, resumed);
+        resumed.close();
+        assertEquals(44, result.moved());
+        assertTrue(result.errors().isEmpty(), result.errors().toString());
+        assertFalse(RunCheckpoint.exists(root));
+        assertEquals(runFile, resumed.file());
+        try (Stream<Path> s = Files.list(root.resolve("Documents"))) {
+            assertEquals(301, s.count());
+        }
+
+        UndoExecutor.UndoResult undo = UndoExecutor.undoLast(root);
+        assertEquals(300, undo.restored());
+        for (int i = 0; i < 300; i++) assertTrue(Files.exists(root.resolve("f" + i + ".pdf")), "f" + i);
+        assertEquals("already there", Files.readString(collision));
+    }
+
+    @Test
+    void testResume_ChecksEveryChunkRunAfterTheCursor(@TempDir Path root) throws IOException {
+        int files = 2 * RunCheckpoint.CHUNK + 40;
+        for (int i = 0; i < files; i++) Files.writeString(root.resolve("f" + i + ".pdf"), "pdf" + i);
+        List<FileMover.Action> actions = FileMover.plan(root, Map.of("pdf", "Documents"));
+
+        // Two chunks run while the journal group was still open: the cursor never moved
+        JournalWriter journal = UndoExecutor.openRun(root, "rename");
+        RunCheckpoint.save(root, actions, journal);
+        for (int from = 0; from < 2 * RunCheckpoint.CHUNK; from += RunCheckpoint.CHUNK) {
+            List<FileMover.Action> chunk = actions.subList(from, from + RunCheckpoint.CHUNK);
+            RunCheckpoint.writeInflight(root, chunk, from);
+            FileMover.execute(chunk, false, RENAME, null);
+        }
+        Path runFile = journal.file();
+        byte[] crashed = Files.readAllBytes(runFile);
+        journal.close();
+        Files.write(runFile, crashed);
+
+        RunCheckpoint.Saved saved = RunCheckpoint.load(root);
+        assertEquals(0, saved.done());
+        JournalWriter resumed = UndoExecutor.continueRun(root, saved.journal(), JournalOptions.DEFAULT);
+        FileMover.Result result = RunCheckpoint.resume(root, saved, RENAME, resumed);
+        resumed.close();
+        assertEquals(files, result.moved());
+        assertTrue(result.errors().isEmpty(), result.errors().toString());
+
+        assertEquals(files, UndoExecutor.undoLast(root).restored());
+    }
+
+    @Test
+    void testApply_ClearsCheckpointWhenDone(@TempDir Path root) throws IOException {
+        for (int i = 0; i < 3; i++) Files.writeString(root.resolve("f" + i + ".pdf"), "pdf" + i);
+        List<FileMover.Action> actions = FileMover.plan(root, Map.of("pdf", "Documents"));
+
+        JournalWriter journal = UndoExecutor.openRun(root, "rename");
+        FileMover.Result result;
+        try {
+            result = RunCheckpoint.apply(root, actions, RENAME, journal);
+        } finally {
+            journal.close();
+        }
+        assertEquals(3, result.moved());
+        assertFalse(RunCheckpoint.exists(root));
+        assertNull(RunCheckpoint.load(root));
+        assertFalse(Files.exists(root.resolve(".neatify/resume")), "no empty resume folder left behind");
+    }
+}
@@ -0,0 +1,78 @@
+package io.neatify.cli.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the run metadata index.
+ */
+class RunIndexTest {
+
+    private static Path writeRun(Path root, int moves) throws IOException {
+        JournalWriter journal = UndoExecutor.openRun(root, "skip");
+        for (int i = 0; i < moves; i++) {
+            journal.append(root.resolve("f" + i + ".txt"), root.resolve("Documents/f" + i + ".txt"));
+        }
+        journal.close();
+        return journal.file();
+    }
+
+    @Test
+    void testListRuns_UsesIndexWithoutReadingPayload(@TempDir Path tempDir) throws IOException {
+        Path run = writeRun(tempDir, 3);
+        assertTrue(Files.exists(tempDir.resolve(".neatify/index.json")));
+
+        // Same size, garbage payload: only the index can still report the count
+        byte[] garbage = new byte[(int) Files.size(run)];
+        Files.write(run, garbage);
+
+        List<UndoExecutor.RunMeta> runs = UndoExecutor.listRuns(tempDir);
+        assertEquals(1, runs.size());
+        assertEquals(3, runs.get(0).movesCount());
+        assertEquals("skip", runs.get(0).onCollision());
+    }
+
+    @Test
+    void testListRuns_RebuildsMissingIndex(@TempDir Path tempDir) throws IOException, InterruptedException {
+        writeRun(tempDir, 2);
+        Thread.sleep(2);
+        writeRun(tempDir, 5);
+        Files.delete(tempDir.resolve(".neatify/index.json"));
+
+        List<UndoExecutor.RunMeta> runs = UndoExecutor.listRuns(tempDir);
+
+        assertEquals(2, runs.size());
+        assertEquals(5, runs.get(0).movesCount(), "newest run first");
+        assertEquals(2, runs.get(1).movesCount());
+        assertTrue(Files.exists(tempDir.resolve(".neatify/index.json")));
+    }
+
+    @Test
+    void testListRuns_DetectsUnindexedRun(@TempDir Path tempDir) throws IOException {
+        writeRun(tempDir, 1);
+        // A run left by a crashed process never reached the index
+        Path orphan = tempDir.resolve(".neatify/runs/99.json");
+        Files.writeString(orphan, "{\"time\":99,\"onCollision\":\"rename\",\"moves\":[\n{\"from\":\"/a\",\"to\":\"/b\"}");
+
+        List<UndoExecutor.RunMeta> runs = UndoExecutor.listRuns(tempDir);
+
+        assertEquals(2, runs.size());
+        assertTrue(runs.stream().anyMatch(r -> r.time() == 99 && r.movesCount() == 1));
+    }
+
+    @Test
+    void testUndoRun_RemovesIndexEntry(@TempDir Path tempDir) throws IOException {
+        writeRun(tempDir, 1);
+        assertNotNull(UndoExecutor.undoLastV2(tempDir));
+
+        assertTrue(UndoExecutor.listRuns(tempDir).isEmpty());
+        assertNull(UndoExecutor.undoLastV2(tempDir));
+    }
+}
@@ -0,0 +1,92 @@
+package io.neatify.cli.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for path lookups and partial undo.
+ */
+class SelectiveUndoTest {
+
+    /** Moves each file into its folder and journals the run. */
+    private static long organize(Path root, String... targets) throws IOException, InterruptedException {
+        try (JournalWriter journal = UndoExecutor.openRun(root, "rename")) {
+            for (String target : targets) {
+                Path to = root.resolve(target);
+                Files.createDirectories(to.getParent());
+                Files.writeString(to, target);
+                journal.append(root.resolve(to.getFileName().toString()), to);
+            }
+        }
+        Thread.sleep(2);
+        return UndoExecutor.listRuns(root).get(0).time();
+    }
+
+    @Test
+    void testWhere_FindsRunOfFileAndFolder(@TempDir Path tempDir) throws Exception {
+        long first = organize(tempDir, "Images/a.png", "Documents/b.pdf");
+        long second = organize(tempDir, "Images/c.jpg");
+
+        List<UndoExecutor.Trace> file = UndoExecutor.where(tempDir, Path.of("Documents/b.pdf"));
+        assertEquals(1, file.size());
+        assertEquals(first, file.get(0).run());
+
+        List<UndoExecutor.Trace> folder = UndoExecutor.where(tempDir, tempDir.resolve("Images"));
+        assertEquals(2, folder.size());
+        assertEquals(second, folder.get(0).run(), "newest run first");
+
+        assertTrue(UndoExecutor.where(tempDir, Path.of("Music")).isEmpty());
+    }
+
+    @Test
+    void testPathIndex_SkipsUnrelatedRuns(@TempDir Path tempDir) throws Exception {
+        long images = organize(tempDir, "Images/a.png");
+        long docs = organize(tempDir, "Documents/b.pdf");
+
+        assertTrue(PathIndex.mayContain(tempDir, images, "Images"));
+        assertTrue(PathIndex.mayContain(tempDir, images, "a.png"));
+        assertFalse(PathIndex.mayContain(tempDir, docs, "Images"));
+    }
+
+    @Test
+    void testUndoSelected_RestoresFolderAndKeepsRest(@TempDir Path tempDir) throws Exception {
+        organize(tempDir, "Images/a.png", "Documents/b.pdf", "Images/sub/c.png");
+
+        UndoExecutor.UndoResult r = UndoExecutor.undoSelected(tempDir, "Images", null);
+
+        assertEquals(2, r.restored());
+        assertTrue(Files.exists(tempDir.resolve("a.png")));
+        assertTrue(Files.exists(tempDir.resolve("c.png")));
+        assertTrue(Files.exists(tempDir.resolve("Documents/b.pdf")));
+
+        List<UndoExecutor.RunMeta> runs = UndoExecutor.listRuns(tempDir);
+        assertEquals(1, runs.size());
+        assertEquals(1, runs.get(0).movesCount());
+        assertFalse(PathIndex.mayContain(tempDir, runs.get(0).time(), "Images"));
+
+        // The remaining move can still be undone with the run
+        assertEquals(1, UndoExecutor.undoLastV2(tempDir).restored());
+        assertTrue(Files.exists(tempDir.resolve("b.pdf")));
+    }
+
+    @Test
+    void testUndoSelected_GlobRemovesEmptiedRun(@TempDir Path tempDir) throws Exception {
+        organize(tempDir, "Images/a.png", "Images/b.png");
+        organize(tempDir, "Images/c.jpg");
+
+        UndoExecutor.UndoResult r = UndoExecutor.undoSelected(tempDir, "Images/*.png", null);
+
+        assertEquals(2, r.restored());
+        assertTrue(Files.exists(tempDir.resolve("Images/c.jpg")));
+        List<UndoExecutor.RunMeta> runs = UndoExecutor.listRuns(tempDir);
+        assertEquals(1, runs.size());
+        assertEquals(1, runs.get(0).movesCount());
+    }
+}
@@ -0,0 +1,173 @@
+package io.neatify.cli.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for subtree locks.
+ */
+class TreeLockTest {
+
+    @TempDir
+    Path home;
+
+    private String realHome;
+
+    /** Locks taken without a lock root go to the user's home: keep them out of the real one. */
+    @BeforeEach
+    void useTempHome() {
+        realHome = System.getProperty("user.home");
+        System.setProperty("user.home", home.toString());
+    }
+
+    @AfterEach
+    void restoreHome() {
+        System.setProperty("user.home", realHome);
+    }
+
+    private static Path tree(Path tempDir) throws IOException {
+        Files.createDirectories(tempDir.resolve(".neatify"));
+        Files.createDirectories(tempDir.resolve("a/x"));
+        Files.createDirectories(tempDir.resolve("b"));
+        return tempDir;
+    }
+
+    @Test
+    void testAcquire_DisjointSubtreesProceedOverlappingFail(@TempDir Path tempDir) throws IOException {
+        Path root = tree(tempDir);
+
+        TreeLock a = TreeLock.acquire(root.resolve("a"), Duration.ZERO);
+        TreeLock b = TreeLock.acquire(root.resolve("b"), Duration.ZERO);
+        try {
+            assertThrows(TreeLock.BusyException.class, () -> TreeLock.acquire(root, Duration.ZERO));
+            assertThrows(TreeLock.BusyException.class, () -> TreeLock.acquire(root.resolve("a/x"), Duration.ZERO));
+            assertThrows(TreeLock.BusyException.class, () -> TreeLock.acquire(root.resolve("a"), Duration.ZERO));
+        } finally {
+            a.close();
+            b.close();
+        }
+        TreeLock all = TreeLock.acquire(root, Duration.ZERO);
+        try {
+            assertThrows(TreeLock.BusyException.class, () -> TreeLock.acquire(root.resolve("b"), Duration.ZERO));
+        } finally {
+            all.close();
+        }
+        TreeLock.acquire(root.resolve("a/x"), Duration.ZERO).close();
+        try (Stream<Path> left = Files.list(TreeLock.userLocksDir())) {
+            assertEquals(0, left.count(), "lock files deleted once released");
+        }
+    }
+
+    @Test
+    void testAcquire_ExplicitLockRootSeesRunsBelowIt(@TempDir Path tempDir) throws IOException {
+        // No .neatify yet: each source would otherwise lock under itself
+        Files.createDirectories(tempDir.resolve("a"));
+
+        TreeLock a = TreeLock.acquire(tempDir, tempDir.resolve("a"), Duration.ZERO);
+        try {
+            assertThrows(TreeLock.BusyException.class, () -> TreeLock.acquire(tempDir, tempDir, Duration.ZERO));
+            assertEquals(1, TreeLock.status(tempDir).size());
+        } finally {
+            a.close();
+        }
+        assertThrows(IllegalArgumentException.class,
+            () -> TreeLock.acquire(tempDir.resolve("a"), tempDir, Duration.ZERO));
+    }
+
+    @Test
+    void testAcquire_WaitsForTheHolder(@TempDir Path tempDir) throws Exception {
+        Path root = tree(tempDir);
+        TreeLock held = TreeLock.acquire(root, Duration.ZERO);
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+                held.close();
+            } catch (InterruptedException | IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        releaser.start();
+
+        try (TreeLock lock = TreeLock.acquire(root.resolve("a"), Duration.ofSeconds(10))) {
+            assertNotNull(lock);
+        }
+        releaser.join();
+    }
+
+    @Test
+    void testStatus_ReportsHeldAndStaleLocks(@TempDir Path tempDir) throws IOException {
+        Path root = tree(tempDir);
+        Path locks = root.resolve(".neatify/locks");
+
+        // A holder that died keeps its record but not its lock
+        String record;
+        Path file;
+        TreeLock crashed = TreeLock.acquire(root, root.resolve("b"), Duration.ZERO);
+        try {
+            try (Stream<Path> s = Files.list(locks)) {
+                file = s.filter(f -> {
+                    try {
+                        return Files.size(f) > 0;
+                    } catch (IOException e) {
+                        return false;
+                    }
+                }).findFirst().orElseThrow();
+            }
+            record = Files.readString(file);
+        } finally {
+            crashed.close();
+        }
+        Files.writeString(file, record);
+
+        TreeLock live = TreeLock.acquire(root, root.resolve("a"), Duration.ZERO);
+        try {
+            List<TreeLock.Status> status = TreeLock.status(root);
+            assertEquals(2, status.size());
+            assertEquals("a", status.get(0).subtree());
+            assertEquals(TreeLock.State.HELD, status.get(0).state());
+            assertEquals(ProcessHandle.current().pid(), status.get(0).pid());
+            assertEquals("b", status.get(1).subtree());
+            assertEquals(TreeLock.State.STALE, status.get(1).state());
+        } finally {
+            live.close();
+        }
+
+        // Taking the stale lock over replaces its record
+        TreeLock.acquire(root, root.resolve("b"), Duration.ZERO).close();
+        assertTrue(TreeLock.status(root).isEmpty());
+    }
+
+    @Test
+    void testAcquire_ParentAndChildExcludeWithoutLockRoot(@TempDir Path tempDir) throws IOException {
+        // Only the child has a .neatify folder: the runs must still see each other
+        Path parent = Files.createDirectories(tempDir.resolve("a"));
+        Path child = Files.createDirectories(parent.resolve("b"));
+        Files.createDirectories(child.resolve(".neatify"));
+
+        TreeLock lock = TreeLock.acquire(child, Duration.ZERO);
+        try {
+            assertThrows(TreeLock.BusyException.class, () -> TreeLock.acquire(parent, Duration.ZERO));
+            assertTrue(TreeLock.status().stream()
+                .anyMatch(s -> s.subtree().equals(child.toAbsolutePath().toString().replace('\\', '/'))));
+        } finally {
+            lock.close();
+        }
+        lock = TreeLock.acquire(parent, Duration.ZERO);
+        try {
+            assertThrows(TreeLock.BusyException.class, () -> TreeLock.acquire(child, Duration.ZERO));
+        } finally {
+            lock.close();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package io.neatify.cli.ui;
+
+import io.neatify.cli.util.Ansi;
+import io.neatify.core.FileMover;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreviewPagerTest {
+
+    @BeforeAll
+    static void disableColors() {
+        Ansi.setEnabled(false);
+    }
+
+    private static List<FileMover.Action> plan() {
+        List<FileMover.Action> actions = new ArrayList<>();
+        for (int i = 9; i >= 0; i--) {
+            String name = "doc" + i + (i % 2 == 0 ? ".pdf" : ".txt");
+            actions.add(new FileMover.Action(Path.of("/src", name), Path.of("/src/Documents", name), "test"));
+        }
+        actions.add(new FileMover.Action(Path.of("/src/a.png"), Path.of("/src/Images/a.png"), "test"));
+        return actions;
+    }
+
+    /** Runs the pager with scripted commands and returns the file lines of each page. */
+    private static List<List<String>> browse(String... commands) {
+        Iterator<String> it = List.of(commands).iterator();
+        List<List<String>> pages = new ArrayList<>();
+        new PreviewPager(plan(), Preview.SortMode.ALPHA, 3, () -> it.hasNext() ? it.next() : null, line -> {
+            if (line.contains("/  (folder")) pages.add(new ArrayList<>());
+            else if (line.startsWith("  ") && !line.trim().startsWith("page")) pages.get(pages.size() - 1).add(line.trim());
+        }).run();
+        return pages;
+    }
+
+    private static String first(List<String> page) {
+        return page.get(0).split("\\s+")[1];
+    }
+
+    @Test
+    void testPaging_ForwardAndBack() {
+        List<List<String>> pages = browse("", "", "", "", "p", "q");
+
+        assertEquals("doc0.pdf", first(pages.get(0)));
+        assertEquals(3, pages.get(0).size());
+        assertEquals("doc3.txt", first(pages.get(1)));
+        assertEquals("doc9.txt", first(pages.get(3)));
+        assertEquals(1, pages.get(3).size());
+        assertEquals("doc9.txt", first(pages.get(4)), "stays on the last page");
+        assertEquals("doc6.pdf", first(pages.get(5)));
+    }
+
+    @Test
+    void testFolderJumpSearchAndSort() {
+        List<List<String>> pages = browse("]", "f doc", "/7", "/", "s ext", "q");
+
+        assertEquals("a.png", first(pages.get(1)));
+        assertEquals("doc0.pdf", first(pages.get(2)));
+        assertEquals(List.of("doc7.txt"), pages.get(3).stream().map(l -> l.split("\\s+")[1]).toList());
+        assertEquals("doc0.pdf", first(pages.get(4)));
+        assertEquals("doc0.pdf", first(pages.get(5)));
+        assertTrue(pages.get(5).get(2).contains("doc4.pdf"), "pdf files first in ext mode");
+    }
+}
@@ -0,0 +1,85 @@
+package io.neatify.cli.ui;
+
+import io.neatify.cli.util.Ansi;
+import io.neatify.core.FileMover;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PreviewRenderTest {
+
+    @BeforeAll
+    static void disableColors() {
+        Ansi.setEnabled(false);
+    }
+
+    private static FileMover.Action action(String folder, String name) {
+        return new FileMover.Action(Path.of("/src", name), Path.of("/src", folder, name), "test");
+    }
+
+    @Test
+    void testRender_KeepsFirstEntriesInOrderAndCountsTheRest() {
+        List<FileMover.Action> actions = new ArrayList<>();
+        for (int i = 999; i >= 0; i--) {
+            actions.add(action("Docs", String.format("f%03d.txt", i)));
+        }
+        actions.add(action("Docs", "f001.txt"));
+        actions.add(action("Images", "a.png"));
+
+        List<String> lines = Preview.render(actions, new Preview.Config().maxFilesPerFolder(3));
+
+        int header = -1;
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).contains("Docs/")) { header = i; break; }
+        }
+        assertTrue(header >= 0);
+        assertTrue(lines.get(header).contains("(1001 files)"), lines.get(header));
+        assertTrue(lines.get(header + 1).contains("f000.txt"));
+        assertTrue(lines.get(header + 2).contains("f001.txt") && lines.get(header + 2).contains("2"),
+            "duplicates of a displayed name are counted: " + lines.get(header + 2));
+        assertTrue(lines.get(header + 3).contains("f002.txt"));
+        assertTrue(lines.get(header + 4).contains("997 more"), lines.get(header + 4));
+        assertTrue(lines.stream().anyMatch(l -> l.contains("Images/")));
+    }
+
+    @Test
+    void testRender_ExtensionModeGroupsByExtension() {
+        List<FileMover.Action> actions = List.of(
+            action("Mixed", "b.txt"), action("Mixed", "a.pdf"), action("Mixed", "c.doc"));
+
+        List<String> lines = Preview.render(actions,
+            new Preview.Config().maxFilesPerFolder(2).sortMode(Preview.SortMode.EXT));
+
+        List<String> entries = lines.stream().filter(l -> l.startsWith("  ")).toList();
+        assertTrue(entries.get(0).contains("c.doc"));
+        assertTrue(entries.get(1).contains("a.pdf"));
+        assertTrue(entries.get(2).contains("1 more"));
+    }
+
+    @Test
+    void testRender_SizeModeRanksTotalsExactlyAndCountsHiddenNames(@TempDir Path tmp) throws IOException {
+        // b.bin is smaller than c.bin, but its two copies add up to more
+        List<FileMover.Action> actions = new ArrayList<>();
+        for (String[] f : new String[][] {{"1", "b.bin", "10"}, {"1", "c.bin", "15"}, {"1", "d.bin", "1"},
+                {"2", "d.bin", "1"}, {"1", "e.bin", "1"}, {"2", "b.bin", "10"}}) {
+            Path source = Files.createDirectories(tmp.resolve(f[0])).resolve(f[1]);
+            Files.write(source, new byte[Integer.parseInt(f[2])]);
+            actions.add(new FileMover.Action(source, tmp.resolve("Bin").resolve(f[0] + f[1]), "test"));
+        }
+
+        List<String> lines = Preview.render(actions,
+            new Preview.Config().maxFilesPerFolder(1).sortMode(Preview.SortMode.SIZE));
+
+        List<String> entries = lines.stream().filter(l -> l.startsWith("  ")).toList();
+        assertTrue(entries.get(0).contains("b.bin"), entries.toString());
+        assertTrue(entries.get(1).contains("3 more"), "hidden distinct names: " + entries.get(1));
+    }
+}
@@ -0,0 +1,60 @@
+package io.neatify.cli.ui;
+
+import io.neatify.cli.util.Ansi;
+import io.neatify.core.CompiledRules;
+import io.neatify.core.FileMover;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for comparing rule profiles on one walk.
+ */
+class ProfileComparisonTest {
+
+    @Test
+    void testCompare_MatchesSeparatePlansOfEachProfile(@TempDir Path root) throws IOException {
+        for (String f : List.of("a.txt", "b.txt", "c.jpg", "d.png", "e.bin", "sub/f.jpg")) {
+            Path p = root.resolve(f);
+            Files.createDirectories(p.getParent());
+            Files.writeString(p, "12345");
+        }
+        CompiledRules strict = CompiledRules.of(Map.of("txt", "Docs", "jpg", "Images"));
+        CompiledRules loose = CompiledRules.of(Map.of("txt", "Docs", "jpg", "Media", "png", "Media"));
+
+        ProfileComparison report = new ProfileComparison(root, List.of("strict", "loose"));
+        FileMover.compare(root, List.of(strict, loose), 1000, List.of(), List.of(), report);
+
+        assertEquals(6, report.scanned());
+        List<ProfileComparison.Totals> totals = report.totals();
+        assertEquals(FileMover.plan(root, strict, 1000, List.of(), List.of()).size(), totals.get(0).files());
+        assertEquals(FileMover.plan(root, loose, 1000, List.of(), List.of()).size(), totals.get(1).files());
+        assertEquals(4, totals.get(0).files());
+        assertEquals(20, totals.get(0).bytes());
+        assertEquals(5, totals.get(1).files());
+
+        // c.jpg, d.png and sub/f.jpg land elsewhere; the .txt files agree
+        assertEquals(3, report.differing());
+        Map<String, List<Long>> folders = report.folderFiles();
+        assertEquals(List.of(2L, 2L), folders.get("Docs"));
+        assertEquals(List.of(2L, 0L), folders.get("Images"));
+        assertEquals(List.of(0L, 3L), folders.get("Media"));
+
+        Ansi.setEnabled(false);
+        try {
+            String text = String.join("\n", report.render());
+            assertTrue(text.contains("strict"));
+            assertTrue(text.contains("* Media/"));
+            assertTrue(text.contains("d.png"));
+        } finally {
+            Ansi.setEnabled(true);
+        }
+    }
+}
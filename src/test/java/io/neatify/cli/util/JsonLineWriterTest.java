@@ -0,0 +1,72 @@
+package io.neatify.cli.util;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonLineWriterTest {
+
+    @Test
+    void testEvents_AreValidJsonLines() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        String tricky = "a\"b\\c\n\t\u0001 é€😀\uD800";
+        try (JsonLineWriter out = new JsonLineWriter(Channels.newChannel(bytes))) {
+            out.begin("moved").field("source", tricky).field("size", -1234567890123L).field("apply", true).end();
+            out.begin("summary").field("target", (String) null).field("moved", 0).end();
+        }
+
+        String[] lines = bytes.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonObject first = JsonParser.parseString(lines[0]).getAsJsonObject();
+        assertEquals("moved", first.get("event").getAsString());
+        assertEquals("a\"b\\c\n\t\u0001 é€😀�", first.get("source").getAsString());
+        assertEquals(-1234567890123L, first.get("size").getAsLong());
+        assertTrue(first.get("apply").getAsBoolean());
+        JsonObject second = JsonParser.parseString(lines[1]).getAsJsonObject();
+        assertTrue(second.get("target").isJsonNull());
+        assertEquals(0, second.get("moved").getAsInt());
+    }
+
+    @Test
+    void testIdleWriter_FlushesCompletedEventsOnTime() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JsonLineWriter out = new JsonLineWriter(Channels.newChannel(bytes))) {
+            out.begin("moved").field("n", 1).end();
+            out.begin("partial").field("n", 2);
+
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (bytes.size() == 0 && System.nanoTime() < deadline) Thread.sleep(10);
+            assertEquals("{\"event\":\"moved\",\"n\":1}\n", bytes.toString(StandardCharsets.UTF_8));
+
+            out.end();
+        }
+        assertTrue(bytes.toString(StandardCharsets.UTF_8).endsWith("{\"event\":\"partial\",\"n\":2}\n"));
+    }
+
+    @Test
+    void testLargeOutput_SpansBufferFlushes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        String name = "é".repeat(1000);
+        try (JsonLineWriter out = new JsonLineWriter(Channels.newChannel(bytes))) {
+            for (int i = 0; i < 200; i++) out.begin("plan").field("source", name).field("i", i).end();
+        }
+
+        String[] lines = bytes.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(200, lines.length);
+        assertEquals(199, JsonParser.parseString(lines[199]).getAsJsonObject().get("i").getAsInt());
+        assertEquals(name, JsonParser.parseString(lines[100]).getAsJsonObject().get("source").getAsString());
+    }
+
+    @Test
+    void testEscape_HandlesControlCharacters() {
+        assertEquals("plain", JsonLineWriter.escape("plain"));
+        assertEquals("a\\\"b\\\\c\\nd\\u0007", JsonLineWriter.escape("a\"b\\c\nd\u0007"));
+    }
+}
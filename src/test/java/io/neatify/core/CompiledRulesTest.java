@@ -0,0 +1,122 @@
+package io.neatify.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for conditional rules and their decision tree.
+ */
+class CompiledRulesTest {
+
+    private static final long GB = 1L << 30;
+
+    private static CompiledRules load(Path dir, String content) throws IOException {
+        Path file = dir.resolve("rules.properties");
+        Files.writeString(file, content);
+        return CompiledRules.load(file);
+    }
+
+    private static String folder(CompiledRules rules, String ext, long size, long mtime) {
+        CompiledRules.Decision d = rules.classify(null, "file." + ext, size, mtime);
+        return d == null ? null : d.folder();
+    }
+
+    @Test
+    void testClassify_SizeAndAgeIntervals(@TempDir Path tempDir) throws IOException {
+        CompiledRules rules = load(tempDir, """
+            mp4=Videos
+            mp4[size>2GB]=Videos/Large
+            mp4[size>2GB,age>1y]=Archive/Videos
+            mp4[size<1MB]=Videos/Clips
+            """);
+        long now = System.currentTimeMillis();
+        long old = now - Duration.ofDays(400).toMillis();
+
+        assertEquals(4, rules.size());
+        assertEquals("Videos", folder(rules, "mp4", 100L << 20, now));
+        assertEquals("Videos/Large", folder(rules, "mp4", 3 * GB, now));
+        assertEquals("Archive/Videos", folder(rules, "mp4", 3 * GB, old));
+        assertEquals("Videos/Clips", folder(rules, "mp4", 1000, old));
+        assertEquals("Videos", folder(rules, "mp4", 2 * GB, now), "size>2GB is strict");
+        assertNull(folder(rules, "mkv", 3 * GB, now));
+    }
+
+    @Test
+    void testClassify_WildcardIsLastResort(@TempDir Path tempDir) throws IOException {
+        CompiledRules rules = load(tempDir, """
+            iso=Images/Disk
+            *[size>4GB]=Large
+            """);
+
+        assertEquals("Images/Disk", folder(rules, "iso", 5 * GB, 0));
+        assertEquals("Large", folder(rules, "zip", 5 * GB, 0));
+        assertNull(folder(rules, "zip", GB, 0));
+        CompiledRules.Decision d = rules.classify(null, "file.zip", 5 * GB, 0);
+        assertEquals("rule: *[size>4GB] -> Large", d.reason());
+    }
+
+    @Test
+    void testPlan_MagicBytesAndReason(@TempDir Path tempDir) throws IOException {
+        Path root = Files.createDirectories(tempDir.resolve("root"));
+        Files.write(root.resolve("tool.bin"), new byte[]{0x7f, 'E', 'L', 'F', 2, 1});
+        Files.write(root.resolve("blob.bin"), new byte[]{1, 2, 3});
+        Path oldPdf = Files.writeString(root.resolve("old.pdf"), "x");
+        Files.setLastModifiedTime(oldPdf, FileTime.from(Instant.now().minus(Duration.ofDays(800))));
+        Files.writeString(root.resolve("new.pdf"), "x");
+        CompiledRules rules = load(tempDir, """
+            bin=Data
+            bin[magic^7f454c46]=Programs
+            pdf=Documents
+            pdf[age>1y]=Archive
+            """);
+
+        List<FileMover.Action> actions = FileMover.plan(root, rules, 100, List.of(), List.of(), null);
+
+        assertEquals(4, actions.size());
+        for (FileMover.Action a : actions) {
+            String name = a.source().getFileName().toString();
+            String expected = switch (name) {
+                case "tool.bin" -> "Programs";
+                case "blob.bin" -> "Data";
+                case "old.pdf" -> "Archive";
+                default -> "Documents";
+            };
+            assertEquals(root.resolve(expected).resolve(name), a.target(), name);
+        }
+        FileMover.Action tool = actions.stream()
+            .filter(a -> a.source().endsWith("tool.bin")).findFirst().orElseThrow();
+        assertEquals("rule: bin[magic^7f454c46] -> Programs", tool.reason());
+    }
+
+    @Test
+    void testLoad_RejectsUnknownPredicate(@TempDir Path tempDir) {
+        assertThrows(IllegalArgumentException.class, () -> load(tempDir, "mp4[color>red]=Videos\n"));
+        assertThrows(IllegalArgumentException.class, () -> load(tempDir, "mp4[age>3]=Videos\n"));
+        assertThrows(IllegalArgumentException.class, () -> load(tempDir, "mp4[size>2GB]=../escape\n"));
+    }
+
+    @Test
+    void testLoad_RejectsOutOfRangeValues(@TempDir Path tempDir) {
+        assertThrows(IllegalArgumentException.class, () -> load(tempDir, "iso[size>9999999tb]=Images\n"));
+        assertThrows(IllegalArgumentException.class, () -> load(tempDir, "iso[size>9223372036854775807]=Images\n"));
+        assertThrows(IllegalArgumentException.class, () -> load(tempDir, "log[age>999999999999y]=Old\n"));
+    }
+
+    @Test
+    void testRulesLoad_IgnoresConditionalKeys(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("rules.properties");
+        Files.writeString(file, "pdf=Documents\npdf[age>1y]=Archive\n");
+
+        assertEquals(java.util.Map.of("pdf", "Documents"), Rules.load(file));
+    }
+}
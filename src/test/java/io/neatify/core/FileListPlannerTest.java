@@ -0,0 +1,78 @@
+package io.neatify.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for planning an explicit file list.
+ */
+class FileListPlannerTest {
+
+    private static final CompiledRules RULES = CompiledRules.of(Map.of("txt", "Docs", "log", "Logs"));
+
+    private static void touch(Path root, String... files) throws IOException {
+        for (String f : files) {
+            Path p = root.resolve(f);
+            Files.createDirectories(p.getParent());
+            Files.writeString(p, "x");
+        }
+    }
+
+    @Test
+    void testPlan_ClassifiesListedFilesLikeAScan(@TempDir Path root) throws IOException {
+        touch(root, "a.txt", "debug.log", "sub/b.txt", "sub/keep.log", "sub/deep/c.log", "build/x.txt", "z.bin",
+            ".hidden.txt", "Docs/sorted.txt");
+        Files.writeString(root.resolve(".neatifyignore"), "*.log\nbuild/\n");
+        Files.writeString(root.resolve("sub/.neatifyignore"), "!keep.log\n");
+
+        Set<Path> scanned = new HashSet<>();
+        for (FileMover.Action a : FileMover.plan(root, RULES, 1000, List.of(), List.of("**/b.txt"))) {
+            scanned.add(a.source());
+        }
+
+        List<FileMover.Action> reported = new ArrayList<>();
+        FileListPlanner planner = new FileListPlanner(root, RULES, List.of(), List.of("**/b.txt"),
+            (action, attrs) -> reported.add(action));
+        Set<Path> listed = new HashSet<>();
+        for (String f : List.of("a.txt", "debug.log", "sub/b.txt", "sub/keep.log", "sub/deep/c.log", "build/x.txt",
+                "z.bin", ".hidden.txt", "Docs/sorted.txt", "sub")) {
+            planner.plan(root.resolve(f)).ifPresent(a -> listed.add(a.source()));
+        }
+
+        assertEquals(scanned, listed);
+        assertEquals(listed.size(), reported.size());
+        assertEquals(Optional.of(root.resolve("Docs/a.txt").toAbsolutePath()),
+            planner.plan(root.resolve("sub/../a.txt")).map(FileMover.Action::target));
+    }
+
+    @Test
+    void testPlan_RejectsPathsAScanWouldNotReach(@TempDir Path tempDir) throws IOException {
+        Path root = Files.createDirectories(tempDir.resolve("root"));
+        touch(tempDir, "outside.txt", "root/.neatify/runs/1.txt", "elsewhere/e.txt");
+        FileListPlanner planner = new FileListPlanner(root, RULES, List.of(), List.of(), null);
+
+        assertThrows(SecurityException.class, () -> planner.plan(tempDir.resolve("outside.txt")));
+        assertThrows(SecurityException.class, () -> planner.plan(root.resolve("../outside.txt")));
+        assertThrows(SecurityException.class, () -> planner.plan(root.resolve(".neatify/runs/1.txt")));
+        assertThrows(NoSuchFileException.class, () -> planner.plan(root.resolve("gone.txt")));
+        try {
+            Files.createSymbolicLink(root.resolve("link"), tempDir.resolve("elsewhere"));
+        } catch (UnsupportedOperationException | IOException e) {
+            return;
+        }
+        assertThrows(SecurityException.class, () -> planner.plan(root.resolve("link/e.txt")));
+    }
+}
@@ -0,0 +1,107 @@
+package io.neatify.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for date-templated target folders and EXIF dates.
+ */
+class FolderTemplateTest {
+
+    /** Minimal big-endian JPEG: APP0, APP1 with DateTimeOriginal, then scan data. */
+    private static byte[] jpegWithExif(String dateTime) {
+        ByteBuffer tiff = ByteBuffer.allocate(64);
+        tiff.put("MM".getBytes(StandardCharsets.US_ASCII)).putShort((short) 42).putInt(8);
+        tiff.putShort((short) 1).putShort((short) 0x8769).putShort((short) 4).putInt(1).putInt(26).putInt(0);
+        tiff.putShort((short) 1).putShort((short) 0x9003).putShort((short) 2).putInt(20).putInt(44).putInt(0);
+        tiff.put((dateTime + "\0").getBytes(StandardCharsets.US_ASCII));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xD8});
+        out.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xE0, 0, 6, 'J', 'F', 'I', 'F'});
+        byte[] app1 = new byte[6 + tiff.position()];
+        System.arraycopy("Exif\0\0".getBytes(StandardCharsets.US_ASCII), 0, app1, 0, 6);
+        System.arraycopy(tiff.array(), 0, app1, 6, tiff.position());
+        out.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xE1, (byte) ((app1.length + 2) >> 8), (byte) (app1.length + 2)});
+        out.writeBytes(app1);
+        out.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xDA, 0, 2, 1, 2, 3, 4});
+        return out.toByteArray();
+    }
+
+    private static long millis(int y, int m, int d, ZoneId zone) {
+        return ZonedDateTime.of(y, m, d, 12, 0, 0, 0, zone).toInstant().toEpochMilli();
+    }
+
+    @Test
+    void testExpand_FromModificationTime() {
+        FolderTemplate t = FolderTemplate.parse("Photos/{yyyy}/{MM}/{dd}", ZoneOffset.UTC);
+
+        assertEquals("Photos/2024/03/07", t.expand(null, millis(2024, 3, 7, ZoneOffset.UTC)));
+        assertEquals("Photos/0999/12/31", t.expand(null, millis(999, 12, 31, ZoneOffset.UTC)));
+        assertNull(FolderTemplate.parse("Photos/Static"));
+    }
+
+    @Test
+    void testExpand_UsesLocalDay() {
+        ZoneId tokyo = ZoneId.of("Asia/Tokyo");
+        FolderTemplate t = FolderTemplate.parse("{yyyy}-{MM}-{dd}", tokyo);
+        long lateUtc = ZonedDateTime.of(2024, 12, 31, 20, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+
+        assertEquals("2025-01-01", t.expand(null, lateUtc));
+    }
+
+    @Test
+    void testExifDate_ReadsDateTimeOriginal(@TempDir Path tempDir) throws IOException {
+        Path jpg = Files.write(tempDir.resolve("a.jpg"), jpegWithExif("2019:07:04 10:20:30"));
+        Path plain = Files.writeString(tempDir.resolve("b.jpg"), "not a jpeg");
+
+        assertEquals(LocalDate.of(2019, 7, 4), ExifDate.dateTimeOriginal(jpg));
+        assertNull(ExifDate.dateTimeOriginal(plain));
+
+        FolderTemplate t = FolderTemplate.parse("Photos/{exif:yyyy}/{exif:MM}", ZoneOffset.UTC);
+        assertEquals("Photos/2019/07", t.expand(jpg, millis(2024, 1, 1, ZoneOffset.UTC)));
+        assertEquals("Photos/2024/01", t.expand(plain, millis(2024, 1, 1, ZoneOffset.UTC)), "falls back to mtime");
+    }
+
+    @Test
+    void testSanitize_KeepsPlaceholders() {
+        assertEquals("Photos/{exif:yyyy}/a_b", Rules.sanitizeFolderName("Photos/{exif:yyyy}/a:b"));
+        assertEquals("Archives {old}/{year}", Rules.sanitizeFolderName("Archives {old}/{year}"));
+        assertThrows(IllegalArgumentException.class, () -> Rules.sanitizeFolderName("Photos/{exif:year}"));
+    }
+
+    @Test
+    void testPlan_ExpandsTemplatedFolders(@TempDir Path tempDir) throws IOException {
+        Path root = Files.createDirectories(tempDir.resolve("root"));
+        Path a = Files.writeString(root.resolve("a.png"), "x");
+        Path b = Files.writeString(root.resolve("b.png"), "x");
+        ZoneId zone = ZoneId.systemDefault();
+        Files.setLastModifiedTime(a, FileTime.fromMillis(millis(2021, 5, 2, zone)));
+        Files.setLastModifiedTime(b, FileTime.fromMillis(millis(2023, 11, 20, zone)));
+        Path rulesFile = Files.writeString(tempDir.resolve("rules.properties"), "png=Images/{yyyy}/{MM}\n");
+
+        List<FileMover.Action> actions = FileMover.plan(root, CompiledRules.load(rulesFile), 100, List.of(), List.of(), null);
+
+        assertEquals(2, actions.size());
+        for (FileMover.Action action : actions) {
+            Path expected = action.source().equals(a)
+                ? root.resolve("Images/2021/05/a.png") : root.resolve("Images/2023/11/b.png");
+            assertEquals(expected, action.target());
+        }
+    }
+}
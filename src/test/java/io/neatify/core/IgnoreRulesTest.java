@@ -0,0 +1,71 @@
+package io.neatify.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for hierarchical .neatifyignore files.
+ */
+class IgnoreRulesTest {
+
+    private static Set<String> planned(Path root) throws IOException {
+        return FileMover.plan(root, Map.of("txt", "Docs", "log", "Logs"), 1000, List.of(), List.of()).stream()
+            .map(a -> root.relativize(a.source()).toString().replace('\\', '/'))
+            .collect(Collectors.toSet());
+    }
+
+    private static void touch(Path root, String... files) throws IOException {
+        for (String f : files) {
+            Path p = root.resolve(f);
+            Files.createDirectories(p.getParent());
+            Files.writeString(p, "x");
+        }
+    }
+
+    @Test
+    void testIgnore_NestedFilesInheritAndOverride(@TempDir Path root) throws IOException {
+        touch(root, "a.txt", "debug.log", "sub/b.txt", "sub/keep.log", "sub/deep/c.log", "sub/deep/d.txt");
+        Files.writeString(root.resolve(".neatifyignore"), "# logs stay\n*.log\n");
+        Files.writeString(root.resolve("sub/.neatifyignore"), "!keep.log\n/deep/d.txt\n");
+
+        assertEquals(Set.of("a.txt", "sub/b.txt", "sub/keep.log"), planned(root));
+    }
+
+    @Test
+    void testIgnore_PrunesIgnoredDirectories(@TempDir Path root) throws IOException {
+        touch(root, "a.txt", "build/x.txt", "src/build/y.txt", "src/z.txt");
+        Files.writeString(root.resolve(".neatifyignore"), "build/\n");
+        // Re-including below an ignored directory has no effect, like .gitignore
+        Files.writeString(root.resolve("build/.neatifyignore"), "!x.txt\n");
+
+        assertEquals(Set.of("a.txt", "src/z.txt"), planned(root));
+    }
+
+    @Test
+    void testIgnore_DirOnlyPatternKeepsFiles(@TempDir Path root) throws IOException {
+        touch(root, "cache.txt", "cache/a.txt");
+        Files.writeString(root.resolve(".neatifyignore"), "cache*/\n");
+
+        assertEquals(Set.of("cache.txt"), planned(root));
+    }
+
+    @Test
+    void testEnter_SharesParentWithoutOwnFile(@TempDir Path root) throws IOException {
+        touch(root, "sub/a.txt");
+        Files.writeString(root.resolve(".neatifyignore"), "*.log\n");
+        IgnoreRules top = IgnoreRules.NONE.enter(root);
+
+        assertSame(top, top.enter(root.resolve("sub")));
+        assertTrue(top.isIgnored(root.resolve("sub/x.log"), false));
+    }
+}
@@ -0,0 +1,183 @@
+package io.neatify.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for name-pattern rules and their shared automaton.
+ */
+class NamePatternsTest {
+
+    private static NamePatterns compile(String... patterns) {
+        List<NamePatterns.Rule> rules = new ArrayList<>();
+        for (String p : patterns) rules.add(new NamePatterns.Rule("name(" + p + ")", p, "F-" + p));
+        return new NamePatterns(rules);
+    }
+
+    private static String match(NamePatterns patterns, String stem) {
+        NamePatterns.Rule r = patterns.match(stem);
+        return r == null ? null : r.pattern();
+    }
+
+    @Test
+    void testMatch_Wildcards() {
+        NamePatterns patterns = compile("Screenshot*", "*_invoice_*", "IMG_####", "scan-??");
+
+        assertEquals("Screenshot*", match(patterns, "Screenshot 2024-01-01 at 10.00"));
+        assertEquals("Screenshot*", match(patterns, "screenshot"));
+        assertEquals("*_invoice_*", match(patterns, "acme_invoice_2024"));
+        assertEquals("IMG_####", match(patterns, "IMG_1234"));
+        assertNull(match(patterns, "IMG_12345"));
+        assertNull(match(patterns, "IMG_12a4"));
+        assertEquals("scan-??", match(patterns, "scan-é1"));
+        assertNull(match(patterns, "invoice"));
+    }
+
+    @Test
+    void testMatch_MostSpecificWins() {
+        NamePatterns patterns = compile("*", "IMG_*", "IMG_####");
+
+        assertEquals("IMG_####", match(patterns, "IMG_0001"));
+        assertEquals("IMG_*", match(patterns, "IMG_edit"));
+        assertEquals("*", match(patterns, "notes"));
+    }
+
+    @Test
+    void testMatch_AgreesWithRegexOnManyPatterns() {
+        Random rnd = new Random(42);
+        List<String> globs = randomPatterns(rnd, 300);
+        NamePatterns patterns = compile(globs.toArray(new String[0]));
+        List<Pattern> regexes = globs.stream().map(NamePatternsTest::toRegex).toList();
+
+        for (int i = 0; i < 5_000; i++) {
+            String name = randomName(rnd);
+            boolean any = regexes.stream().anyMatch(r -> r.matcher(name).matches());
+            NamePatterns.Rule hit = patterns.match(name);
+            assertEquals(any, hit != null, name);
+            if (hit != null) assertTrue(toRegex(hit.pattern()).matcher(name).matches(), name);
+        }
+    }
+
+    @Test
+    void testMatch_CappedCacheGivesTheSameAnswers() {
+        Random rnd = new Random(7);
+        List<String> globs = randomPatterns(rnd, 100);
+        List<NamePatterns.Rule> rules = new ArrayList<>();
+        for (String p : globs) rules.add(new NamePatterns.Rule("name(" + p + ")", p, "F-" + p));
+        NamePatterns unbounded = new NamePatterns(rules);
+        NamePatterns capped = new NamePatterns(rules, 16);
+
+        for (int i = 0; i < 2_000; i++) {
+            String name = randomName(rnd);
+            assertEquals(match(unbounded, name), match(capped, name), name);
+            assertTrue(capped.cachedStates() <= 16);
+        }
+    }
+
+    @Test
+    void testPlan_NameRulesBeatExtensionRules(@TempDir Path tempDir) throws IOException {
+        Path root = Files.createDirectories(tempDir.resolve("root"));
+        Files.writeString(root.resolve("Screenshot 1.png"), "x");
+        Files.writeString(root.resolve("photo.png"), "x");
+        Path rulesFile = Files.writeString(tempDir.resolve("rules.properties"), """
+            png=Images
+            name(Screenshot*)=Images/Screenshots
+            """);
+
+        List<FileMover.Action> actions = FileMover.plan(root, CompiledRules.load(rulesFile), 100, List.of(), List.of(), null);
+
+        assertEquals(2, actions.size());
+        FileMover.Action shot = actions.stream()
+            .filter(a -> a.source().endsWith("Screenshot 1.png")).findFirst().orElseThrow();
+        assertEquals(root.resolve("Images/Screenshots/Screenshot 1.png"), shot.target());
+        assertEquals("name: Screenshot* -> Images/Screenshots", shot.reason());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "neatify.bench", matches = "true")
+    void benchmarkHundredsOfPatterns() {
+        Random rnd = new Random(7);
+        List<String> globs = randomPatterns(rnd, 500);
+        NamePatterns patterns = compile(globs.toArray(new String[0]));
+        List<Pattern> regexes = globs.stream().map(NamePatternsTest::toRegex).toList();
+        String[] names = new String[200_000];
+        for (int i = 0; i < names.length; i++) names[i] = randomName(rnd);
+
+        for (String n : names) patterns.match(n); // warm up, builds the reachable states
+        long t0 = System.nanoTime();
+        int hits = 0;
+        for (String n : names) if (patterns.match(n) != null) hits++;
+        long automaton = System.nanoTime() - t0;
+
+        t0 = System.nanoTime();
+        int regexHits = 0;
+        for (int i = 0; i < 20_000; i++) {
+            for (Pattern r : regexes) {
+                if (r.matcher(names[i]).matches()) { regexHits++; break; }
+            }
+        }
+        long regex = (System.nanoTime() - t0) * (names.length / 20_000);
+
+        System.out.printf("%d patterns, %d names: automaton %d ms (%d hits), per-pattern regex ~%d ms (%d hits/20k)%n",
+            globs.size(), names.length, automaton / 1_000_000, hits, regex / 1_000_000, regexHits);
+        assertTrue(automaton < regex);
+    }
+
+    // ==== Helpers ====
+
+    private static final String[] WORDS = {"img", "scan", "invoice", "report", "screenshot", "dsc", "backup", "draft"};
+
+    private static List<String> randomPatterns(Random rnd, int count) {
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder();
+            if (rnd.nextBoolean()) sb.append('*');
+            sb.append(WORDS[rnd.nextInt(WORDS.length)]).append(i % 10);
+            sb.append(switch (rnd.nextInt(4)) {
+                case 0 -> "_####";
+                case 1 -> "*";
+                case 2 -> "-??";
+                default -> "_*_" + WORDS[rnd.nextInt(WORDS.length)];
+            });
+            list.add(sb.toString());
+        }
+        return list;
+    }
+
+    private static String randomName(Random rnd) {
+        StringBuilder sb = new StringBuilder();
+        if (rnd.nextInt(3) == 0) sb.append("old_");
+        sb.append(WORDS[rnd.nextInt(WORDS.length)]).append(rnd.nextInt(10));
+        switch (rnd.nextInt(4)) {
+            case 0 -> sb.append('_').append(1000 + rnd.nextInt(9000));
+            case 1 -> sb.append("-a").append(rnd.nextInt(10));
+            case 2 -> sb.append("_x_").append(WORDS[rnd.nextInt(WORDS.length)]);
+            default -> sb.append(" copy");
+        }
+        return sb.toString();
+    }
+
+    private static Pattern toRegex(String glob) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            switch (c) {
+                case '*' -> sb.append(".*");
+                case '?' -> sb.append('.');
+                case '#' -> sb.append("[0-9]");
+                default -> sb.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(sb.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+    }
+}
@@ -0,0 +1,75 @@
+package io.neatify.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for cascading per-subtree rules files.
+ */
+class RuleScopeTest {
+
+    private static Map<Path, FileMover.Action> plan(Path root) throws IOException {
+        return FileMover.plan(root, Map.of("pdf", "Documents", "jpg", "Images"), 1000, List.of(), List.of())
+            .stream().collect(Collectors.toMap(FileMover.Action::source, a -> a));
+    }
+
+    private static Path touch(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, "x");
+    }
+
+    @Test
+    void testSubtreeRules_OverrideAndResolveLocally(@TempDir Path root) throws IOException {
+        Path top = touch(root.resolve("a.pdf"));
+        Path billing = touch(root.resolve("teams/billing/b.pdf"));
+        Path billingImg = touch(root.resolve("teams/billing/scan/c.jpg"));
+        Path other = touch(root.resolve("teams/other/d.pdf"));
+        Files.writeString(root.resolve("teams/billing/.neatify-rules.properties"), "pdf=Invoices\n");
+
+        Map<Path, FileMover.Action> actions = plan(root);
+
+        assertEquals(root.resolve("Documents/a.pdf"), actions.get(top).target());
+        assertEquals(root.resolve("teams/billing/Invoices/b.pdf"), actions.get(billing).target());
+        assertEquals("extension: pdf -> Invoices (teams/billing/.neatify-rules.properties)", actions.get(billing).reason());
+        assertEquals(root.resolve("Images/c.jpg"), actions.get(billingImg).target(), "inherited rule keeps its base");
+        assertEquals(root.resolve("Documents/d.pdf"), actions.get(other).target());
+    }
+
+    @Test
+    void testSubtreeRules_NestedFilesChain(@TempDir Path root) throws IOException {
+        Path deep = touch(root.resolve("x/y/e.pdf"));
+        Path mid = touch(root.resolve("x/f.jpg"));
+        Files.writeString(root.resolve("x/.neatify-rules.properties"), "jpg=Pictures\n");
+        Files.writeString(root.resolve("x/y/.neatify-rules.properties"), "pdf=Papers\n");
+
+        Map<Path, FileMover.Action> actions = plan(root);
+
+        assertEquals(root.resolve("x/y/Papers/e.pdf"), actions.get(deep).target());
+        assertEquals(root.resolve("x/Pictures/f.jpg"), actions.get(mid).target());
+    }
+
+    @Test
+    void testSubtreeRules_InvalidFileKeepsInherited(@TempDir Path root) throws IOException {
+        Path file = touch(root.resolve("x/a.pdf"));
+        Files.writeString(root.resolve("x/.neatify-rules.properties"), "pdf=../../escape\n");
+
+        assertEquals(root.resolve("Documents/a.pdf"), plan(root).get(file).target());
+    }
+
+    @Test
+    void testEnter_SharesScopeWithoutRulesFile(@TempDir Path root) throws IOException {
+        Files.createDirectories(root.resolve("sub"));
+        RuleScope scope = RuleScope.root(CompiledRules.of(Map.of("pdf", "Documents")), root);
+
+        assertSame(scope, scope.enter(root.resolve("sub"), root));
+    }
+}
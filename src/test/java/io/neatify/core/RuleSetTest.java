@@ -0,0 +1,74 @@
+package io.neatify.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for hot-reloadable rule sets.
+ */
+class RuleSetTest {
+
+    private static String folder(CompiledRules rules, String fileName) {
+        CompiledRules.Decision d = rules.classify(null, fileName, 1, 0);
+        return d == null ? null : d.folder();
+    }
+
+    @Test
+    void testReload_SwapsAndKeepsSnapshots(@TempDir Path tempDir) throws IOException {
+        Path file = Files.writeString(tempDir.resolve("rules.properties"), "pdf=Documents\n");
+        try (RuleSet set = RuleSet.watch(file)) {
+            CompiledRules before = set.current();
+
+            Files.writeString(file, "pdf=Papers\n");
+            assertTrue(set.reload());
+
+            assertEquals("Documents", folder(before, "a.pdf"), "snapshot is immutable");
+            assertEquals("Papers", folder(set.current(), "a.pdf"));
+            assertTrue(set.version() >= 2);
+        }
+    }
+
+    @Test
+    void testReload_RejectsInvalidEdit(@TempDir Path tempDir) throws IOException {
+        Path file = Files.writeString(tempDir.resolve("rules.properties"), "pdf=Documents\n");
+        try (RuleSet set = RuleSet.watch(file)) {
+            long version = set.version();
+            CompiledRules before = set.current();
+
+            Files.writeString(file, "pdf=../outside\n");
+            assertFalse(set.reload());
+
+            assertSame(before, set.current());
+            assertEquals(version, set.version());
+            assertNotNull(set.lastError());
+        }
+    }
+
+    @Test
+    void testWatch_PicksUpEdits(@TempDir Path tempDir) throws Exception {
+        Path file = Files.writeString(tempDir.resolve("rules.properties"), "pdf=Documents\n");
+        try (RuleSet set = RuleSet.watch(file)) {
+            Files.writeString(file, "pdf=Documents\ntxt=Notes\n");
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (folder(set.current(), "a.txt") == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals("Notes", folder(set.current(), "a.txt"));
+        }
+    }
+
+    @Test
+    void testFixed_NeverReloads() {
+        RuleSet set = RuleSet.fixed(CompiledRules.of(Rules.getDefaults()));
+
+        assertFalse(set.reload());
+        assertEquals(1, set.version());
+    }
+}
@@ -0,0 +1,79 @@
+package io.neatify.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the sampled pre-scan estimate.
+ */
+class ScanEstimatorTest {
+
+    private static final CompiledRules RULES = CompiledRules.of(Map.of("txt", "Docs"));
+
+    @Test
+    void testEstimate_FlatFolderIsExact(@TempDir Path root) throws IOException {
+        for (int i = 0; i < 30; i++) Files.writeString(root.resolve("f" + i + (i % 3 == 0 ? ".txt" : ".bin")), "1234");
+        Files.createDirectories(root.resolve(".neatify"));
+        Files.writeString(root.resolve(".neatify/journal"), "x");
+
+        ScanEstimator.Estimate e = ScanEstimator.estimate(root, RULES, List.of(), List.of(), Duration.ofSeconds(5));
+
+        assertEquals(1, e.probes());
+        assertEquals(30, e.files().mean());
+        assertEquals(30, e.files().high());
+        assertEquals(120, e.bytes().mean());
+        assertEquals(10, e.moves().mean());
+        assertEquals(1.0, e.sizeClasses()[0], 1e-9);
+        assertTrue(e.moveNanos() >= 0);
+        try (var left = Files.list(root)) {
+            assertEquals(31, left.count(), "nothing written in the tree");
+        }
+    }
+
+    @Test
+    void testEstimate_IntervalCoversBalancedTree(@TempDir Path root) throws IOException {
+        // 4 x 4 folders with 5 files each, and a folder larger than a sample
+        for (int a = 0; a < 4; a++) {
+            for (int b = 0; b < 4; b++) {
+                Path dir = Files.createDirectories(root.resolve("d" + a).resolve("e" + b));
+                for (int i = 0; i < 5; i++) Files.writeString(dir.resolve("f" + i + ".txt"), "x");
+            }
+        }
+        Path big = Files.createDirectories(root.resolve("big"));
+        for (int i = 0; i < 2500; i++) Files.writeString(big.resolve("f" + i + ".bin"), "x");
+        Path ignored = Files.createDirectories(root.resolve("build"));
+        for (int i = 0; i < 50; i++) Files.writeString(ignored.resolve("o" + i), "x");
+        Files.writeString(root.resolve(".neatifyignore"), "build/\n");
+        int actual = 4 * 4 * 5 + 2500 + 1;
+
+        ScanEstimator.Estimate e = ScanEstimator.estimate(root, RULES, List.of(), List.of(),
+            Duration.ofSeconds(2), new Random(42));
+
+        assertTrue(e.probes() > 10);
+        assertTrue(e.files().low() <= actual && actual <= e.files().high(),
+            "interval " + e.files() + " should cover " + actual);
+        assertEquals(80, e.moves().mean(), 25);
+        assertEquals(1 + 5 + 16, e.dirs().mean(), 6);
+    }
+
+    @Test
+    void testEstimate_HugeFolderListingStopsAtTheDeadline(@TempDir Path root) throws IOException {
+        for (int i = 0; i < 3000; i++) Files.writeString(root.resolve("f" + i + ".txt"), "x");
+
+        ScanEstimator.Estimate e = ScanEstimator.estimate(root, RULES, List.of(), List.of(), Duration.ZERO);
+
+        assertEquals(1, e.dirsCut());
+        assertEquals(1024, e.files().mean());
+        assertTrue(e.files().high() < 3000);
+    }
+}
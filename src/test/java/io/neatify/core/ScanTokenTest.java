@@ -0,0 +1,155 @@
+package io.neatify.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for budgeted walks and their continuation tokens.
+ */
+class ScanTokenTest {
+
+    private static final CompiledRules RULES = CompiledRules.of(Map.of("pdf", "Documents"));
+
+    private static int createTree(Path root) throws IOException {
+        int files = 0;
+        for (String dir : List.of("a", "a/x", "b", "c/y/z")) {
+            Path d = Files.createDirectories(root.resolve(dir));
+            for (int i = 0; i < 4; i++) {
+                Files.writeString(d.resolve("f" + i + ".pdf"), dir + i);
+                files++;
+            }
+        }
+        return files;
+    }
+
+    @Test
+    void testPlan_ResumedRunsCoverTheTreeOnce(@TempDir Path root) throws IOException {
+        int files = createTree(root);
+
+        int moved = 0;
+        int runs = 0;
+        ScanToken token = null;
+        do {
+            FileMover.Scan scan = FileMover.plan(root, RULES, ScanBudget.of(5, null), List.of(), List.of(), null, token);
+            assertTrue(scan.actions().size() <= 5);
+            moved += FileMover.execute(scan.actions(), false).moved();
+            token = scan.continuation();
+            if (token != null) {
+                assertEquals("file budget", token.reason());
+                token.save(root);
+                token = ScanToken.load(root);
+            }
+            assertTrue(++runs < 20, "walk does not progress");
+        } while (token != null);
+
+        assertEquals(files, moved);
+        try (Stream<Path> s = Files.list(root.resolve("Documents"))) {
+            assertEquals(files, s.count());
+        }
+    }
+
+    @Test
+    void testPlan_ProgressesThroughFolderLargerThanBudget(@TempDir Path root) throws IOException {
+        Path big = Files.createDirectories(root.resolve("big"));
+        for (int i = 0; i < 30; i++) Files.writeString(big.resolve("n" + i + ".txt"), "x");
+        Files.writeString(big.resolve("last.pdf"), "x");
+
+        ScanToken token = null;
+        int planned = 0;
+        for (int runs = 0; runs < 10; runs++) {
+            FileMover.Scan scan = FileMover.plan(root, RULES, ScanBudget.of(8, null), List.of(), List.of(), null, token);
+            planned += scan.actions().size();
+            token = scan.continuation();
+            if (token == null) break;
+        }
+        assertNull(token);
+        assertEquals(1, planned);
+    }
+
+    @Test
+    void testPlan_TimeBudgetAndCancelStopCleanly(@TempDir Path root) throws IOException {
+        createTree(root);
+
+        FileMover.Scan timedOut = FileMover.plan(root, RULES, ScanBudget.of(1000, Duration.ZERO),
+            List.of(), List.of(), null, null);
+        assertTrue(timedOut.actions().isEmpty());
+        assertEquals("time budget", timedOut.continuation().reason());
+
+        ScanBudget budget = ScanBudget.of(1000, Duration.ofHours(1));
+        FileMover.Scan cancelled = FileMover.plan(root, RULES, budget, List.of(), List.of(),
+            (action, attrs) -> budget.cancel(), null);
+        assertEquals(1, cancelled.actions().size());
+        assertEquals("cancelled", cancelled.continuation().reason());
+
+        FileMover.Scan full = FileMover.plan(root, RULES, ScanBudget.of(1000, null), List.of(), List.of(), null, null);
+        assertTrue(full.complete());
+        assertEquals(16, full.actions().size());
+    }
+
+    @Test
+    void testReopen_DropsSubtreesHoldingUnappliedMoves(@TempDir Path root) throws IOException {
+        ScanToken token = new ScanToken(Set.of("a", "c/y", "b"), Set.of("c/y/z/f0.pdf", "d/f1.pdf"), "time budget")
+            .asDryRun();
+        token.save(root);
+        ScanToken loaded = ScanToken.load(root);
+        assertEquals(3, loaded.size());
+        assertTrue(loaded.isDryRun());
+
+        ScanToken reopened = loaded.reopen(root, List.of(root.resolve("c/y/z")));
+        assertEquals(2, reopened.size());
+        assertTrue(reopened.isDone(Path.of("a")));
+        assertFalse(reopened.isDone(Path.of("c/y")));
+        assertFalse(reopened.isSeen(Path.of("c/y/z/f0.pdf")));
+        assertTrue(reopened.isSeen(Path.of("d/f1.pdf")));
+
+        ScanToken.clear(root);
+        assertNull(ScanToken.load(root));
+    }
+
+    @Test
+    void testSave_KeepsNamesWithLineBreaksAndBackslashes(@TempDir Path root) throws IOException {
+        String seen = ScanToken.key(Path.of("a\nb", "c\r.pdf"));
+        new ScanToken(Set.of("a\nb", "done=x"), Set.of(seen), "time\\nbudget\n").save(root);
+
+        ScanToken loaded = ScanToken.load(root);
+
+        assertEquals(2, loaded.size());
+        assertTrue(loaded.isDone(Path.of("a\nb")));
+        assertFalse(loaded.isDone(Path.of("a")));
+        assertTrue(loaded.isDone(Path.of("done=x")));
+        assertTrue(loaded.isSeen(Path.of("a\nb", "c\r.pdf")));
+        assertEquals("time\\nbudget\n", loaded.reason());
+    }
+
+    @Test
+    void testPlan_ResumesThroughNamesWithLineBreaks(@TempDir Path root) throws IOException {
+        Path dir = Files.createDirectories(root.resolve("a\nb"));
+        for (int i = 0; i < 3; i++) Files.writeString(dir.resolve("f\n" + i + ".pdf"), "x");
+
+        // Nothing is moved, so only the saved token keeps the walk from planning a file twice
+        Set<Path> planned = new HashSet<>();
+        ScanToken token = null;
+        for (int runs = 0; runs < 10; runs++) {
+            FileMover.Scan scan = FileMover.plan(root, RULES, ScanBudget.of(1, null), List.of(), List.of(), null, token);
+            for (FileMover.Action a : scan.actions()) assertTrue(planned.add(a.source()), "planned twice: " + a.source());
+            token = scan.continuation();
+            if (token == null) break;
+            token.save(root);
+            token = ScanToken.load(root);
+        }
+        assertNull(token);
+        assertEquals(3, planned.size());
+    }
+}
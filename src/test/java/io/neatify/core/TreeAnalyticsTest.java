@@ -0,0 +1,75 @@
+package io.neatify.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the parallel tree analysis.
+ */
+class TreeAnalyticsTest {
+
+    private static void write(Path root, String file, int bytes) throws IOException {
+        Path p = root.resolve(file);
+        Files.createDirectories(p.getParent());
+        Files.write(p, new byte[bytes]);
+    }
+
+    @Test
+    void testAnalyze_CountsExtensionsUnmatchedAndLargestFolders(@TempDir Path root) throws IOException {
+        for (int d = 0; d < 20; d++) {
+            for (int i = 0; i < 10; i++) write(root, "d" + d + "/sub/f" + i + ".txt", 10);
+            write(root, "d" + d + "/img" + d + ".JPG", 100);
+        }
+        write(root, "big/movie.xyz", 5000);
+        write(root, "big/notes.xyz", 1000);
+        write(root, "README", 7);
+        write(root, ".hidden.txt", 1);
+        write(root, "build/out.txt", 1);
+        write(root, ".neatify/runs/r.journal", 1);
+        Files.writeString(root.resolve(".neatifyignore"), "build/\n");
+
+        TreeAnalytics.Report report = TreeAnalytics.analyze(root, CompiledRules.of(Map.of("txt", "Docs")),
+            List.of(), List.of(), 4);
+
+        assertEquals(200 + 20 + 2 + 1, report.files());
+        assertEquals(2000 + 2000 + 6000 + 7, report.bytes());
+        assertEquals(1 + 20 + 20 + 1, report.dirs());
+        assertEquals(23, report.unmatched());
+
+        TreeAnalytics.ExtensionStat txt = report.extensions().get(0);
+        assertEquals("txt", txt.extension());
+        assertEquals(200, txt.files());
+        assertEquals(0, txt.unmatched());
+        assertEquals("Docs", txt.folder());
+        TreeAnalytics.ExtensionStat jpg = report.extensions().get(1);
+        assertEquals("jpg", jpg.extension());
+        assertEquals(20, jpg.unmatched());
+        assertEquals(2000, jpg.unmatchedBytes());
+        assertTrue(report.extensions().stream().anyMatch(e -> e.extension().equals(TreeAnalytics.NONE)));
+
+        assertEquals(TreeAnalytics.LARGEST_DIRS, report.largest().size());
+        assertEquals("big", report.largest().get(0).dir());
+        assertEquals(6000, report.largest().get(0).bytes());
+        assertEquals(200, report.largest().get(1).bytes());
+    }
+
+    @Test
+    void testAnalyze_MatchesTheScanOnFilteredTree(@TempDir Path root) throws IOException {
+        for (int i = 0; i < 50; i++) write(root, "a/b" + (i % 5) + "/f" + i + (i % 2 == 0 ? ".txt" : ".log"), i);
+        CompiledRules rules = CompiledRules.of(Map.of("txt", "Docs", "log", "Logs"));
+
+        TreeAnalytics.Report report = TreeAnalytics.analyze(root, rules, List.of(), List.of("**/b0/**"), 2);
+
+        int planned = FileMover.plan(root, rules, 1000, List.of(), List.of("**/b0/**")).size();
+        assertEquals(planned, report.files());
+        assertEquals(0, report.unmatched());
+    }
+}